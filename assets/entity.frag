@@ -2,12 +2,12 @@
 precision mediump float;
 
 uniform sampler2D uTexture0;
-uniform float uDamage;
 uniform float uBrightness;
-uniform float uOpacity;
 
 varying float vDiffuseStrength;
 varying vec2 vTexture0;
+varying float vDamage;
+varying float vOpacity;
 
 
 void main()
@@ -17,7 +17,7 @@ void main()
 	float lightingMultiplier = 1.0;
 	gl_FragColor = vec4(uBrightness * lightingMultiplier * vDiffuseStrength * texture.rgb, texture.a);
 	// We just add the base colour in since it will clamp on overflow.
-	gl_FragColor.r += uDamage;
+	gl_FragColor.r += vDamage;
 	// We will modify the opacity for the cases of a dying entity.
-	gl_FragColor.a *= uOpacity;
+	gl_FragColor.a *= vOpacity;
 }
@@ -1,25 +1,66 @@
 #version 100
 
-uniform mat4 uModelMatrix;
+// These must match INSTANCES_PER_DRAW and MAX_PARTS in EntityRenderer.
+#define INSTANCES 32
+#define PARTS 8
+
 uniform mat4 uViewMatrix;
 uniform mat4 uProjectionMatrix;
 uniform vec3 uWorldLightLocation;
+// Each instance's body centre, in world coordinates, and yaw radians.
+uniform vec4 uInstancePlacements[INSTANCES];
+// Each instance's head pitch radians, limb swing radians, damage, and opacity.
+uniform vec4 uInstanceParams[INSTANCES];
+// The rig point of each part, relative to the centre of the body.
+uniform vec3 uPartOffsets[PARTS];
+// How much each part rotates by the head pitch and the limb swing.
+uniform vec2 uPartRotations[PARTS];
 
 attribute vec3 aPosition;
 attribute vec3 aNormal;
 attribute vec2 aTexture0;
+attribute float aInstance;
+attribute float aPart;
 
 varying float vDiffuseStrength;
 varying vec2 vTexture0;
+varying float vDamage;
+varying float vOpacity;
+
 
+vec3 rotateX(vec3 vector, float radians)
+{
+	float s = sin(radians);
+	float c = cos(radians);
+	return vec3(vector.x, (c * vector.y) - (s * vector.z), (s * vector.y) + (c * vector.z));
+}
+
+vec3 rotateZ(vec3 vector, float radians)
+{
+	float s = sin(radians);
+	float c = cos(radians);
+	return vec3((c * vector.x) - (s * vector.y), (s * vector.x) + (c * vector.y), vector.z);
+}
 
 void main()
 {
-	vec3 worldSpaceVertex = vec3(uModelMatrix * vec4(aPosition, 1.0));
-	vec3 worldSpaceNormal = vec3(uModelMatrix * vec4(aNormal, 0.0));
-	float distanceToLight = length(uWorldLightLocation - worldSpaceVertex);
+	int instance = int(aInstance + 0.5);
+	int part = int(aPart + 0.5);
+	vec4 placement = uInstancePlacements[instance];
+	vec4 params = uInstanceParams[instance];
+	
+	// Each part is rotated about its rig point, then moved to where it is on the body.
+	float angle = dot(uPartRotations[part], params.xy);
+	vec3 bodyVertex = rotateX(aPosition, angle) + uPartOffsets[part];
+	vec3 bodyNormal = rotateX(aNormal, angle);
+	
+	// The whole body is then rotated by yaw and moved to where it is in the world.
+	vec3 worldSpaceVertex = rotateZ(bodyVertex, placement.w) + placement.xyz;
+	vec3 worldSpaceNormal = rotateZ(bodyNormal, placement.w);
 	vec3 vectorToLight = normalize(uWorldLightLocation - worldSpaceVertex);
 	vDiffuseStrength = max(dot(worldSpaceNormal, vectorToLight), 0.5);
 	vTexture0 = aTexture0;
-	gl_Position = uProjectionMatrix * uViewMatrix * uModelMatrix * vec4(aPosition, 1.0);
+	vDamage = params.z;
+	vOpacity = params.w;
+	gl_Position = uProjectionMatrix * uViewMatrix * vec4(worldSpaceVertex, 1.0);
 }
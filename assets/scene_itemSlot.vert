@@ -3,13 +3,14 @@
 uniform mat4 uViewMatrix;
 uniform mat4 uProjectionMatrix;
 uniform vec3 uWorldLightLocation;
-uniform vec2 uUvBase;
 uniform float uAnimation;
-uniform vec3 uCentre;
 
+// Every slot in a cuboid is in the same vertex array so its centre is per-vertex and its texture coordinates already
+// include the base of its item texture.
 attribute vec3 aPosition;
 attribute vec3 aNormal;
 attribute vec2 aTexture0;
+attribute vec3 aCentre;
 
 varying float vDiffuseStrength;
 varying vec2 vTexture0;
@@ -23,14 +24,14 @@ void main()
 	// Note that mat2 is column-major.
 	mat2 rotation = mat2(cosAnimation, sinAnimation, -sinAnimation, cosAnimation);
 	
-	// We interpret the position vertex as relative to the uCentre uniform so we can rotate, directly.
+	// We interpret the position vertex as relative to the aCentre of its slot so we can rotate, directly.
 	vec3 updatedPosition = vec3(rotation * vec2(aPosition.x, aPosition.y), aPosition.z + zBounce);
 	vec3 updatedNormal = vec3(rotation * vec2(aNormal.x, aNormal.y), aNormal.z);
 	
-	vec3 worldSpaceVertex = updatedPosition + uCentre;
+	vec3 worldSpaceVertex = updatedPosition + aCentre;
 	float distanceToLight = length(uWorldLightLocation - worldSpaceVertex);
 	vec3 vectorToLight = normalize(uWorldLightLocation - worldSpaceVertex);
 	vDiffuseStrength = max(dot(updatedNormal, vectorToLight), 0.5);
-	vTexture0 = aTexture0 + uUvBase;
+	vTexture0 = aTexture0;
 	gl_Position = uProjectionMatrix * uViewMatrix * vec4(worldSpaceVertex, 1.0);
 }
@@ -0,0 +1,13 @@
+#version 100
+precision mediump float;
+
+uniform sampler2D uTexture;
+
+varying vec2 vTexture;
+
+
+void main()
+{
+	// This just stretches the scene, rendered at a lower resolution, over the screen.
+	gl_FragColor = vec4(texture2D(uTexture, vTexture).rgb, 1.0);
+}
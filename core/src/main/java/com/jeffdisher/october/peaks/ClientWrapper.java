@@ -20,6 +20,7 @@ import com.jeffdisher.october.logic.OrientationHelpers;
 import com.jeffdisher.october.logic.PropagationHelpers;
 import com.jeffdisher.october.logic.SpatialHelpers;
 import com.jeffdisher.october.logic.ViscosityReader;
+import com.jeffdisher.october.peaks.utils.FixedStepTimer;
 import com.jeffdisher.october.peaks.utils.WorldCache;
 import com.jeffdisher.october.persistence.ResourceLoader;
 import com.jeffdisher.october.process.ClientProcess;
@@ -103,6 +104,11 @@ public class ClientWrapper
 	 * This will also be applied to things like right-click actions on entities/blocks.
 	 */
 	public static final long MILLIS_DELAY_BETWEEN_BLOCK_ACTIONS = 200L;
+	/**
+	 * The rate at which passTimeWhileRunning() checks for crafting, portals, and pick-ups, no matter how often it is
+	 * called.  Time is still passed to the client on every call so that movement stays smooth at any frame rate.
+	 */
+	public static final int LOGIC_STEPS_PER_SECOND = 60;
 
 	private final Environment _environment;
 	private final IUpdateConsumer _updateConsumer;
@@ -126,6 +132,7 @@ public class ClientWrapper
 	private AbsoluteLocation _lastBlockTarget;
 	private long _lastBlockActionMillis;
 	private int _currentViewDistance;
+	private final FixedStepTimer _logicSteps;
 
 	public ClientWrapper(Environment environment
 			, IUpdateConsumer updateConsumer
@@ -232,6 +239,7 @@ public class ClientWrapper
 		}
 		
 		_currentViewDistance = MiscConstants.DEFAULT_CUBOID_VIEW_DISTANCE;
+		_logicSteps = new FixedStepTimer(LOGIC_STEPS_PER_SECOND);
 	}
 
 	/**
@@ -284,58 +292,63 @@ public class ClientWrapper
 	{
 		Assert.assertTrue(!_isAgentPaused);
 		
-		IEntitySubAction<IMutablePlayerEntity> subAction = null;
-		
-		// We want to check the if there are any active crafting operations in the entity/block and if we should be auto-rescheduling any.
-		Entity thisEntity = _worldCache.getThisEntity();
-		CraftOperation ongoing = thisEntity.ephemeralShared().localCraftOperation();
+		// This is called every frame but we only want to check for these actions at a fixed rate, since frame rates vary widely.
 		long currentTimeMillis = System.currentTimeMillis();
-		if (null != ongoing)
+		if (_logicSteps.consumeStep(System.nanoTime()))
 		{
-			subAction = new EntityChangeCraft(null);
-		}
-		else if (null != rescheduleInInventory)
-		{
-			subAction = new EntityChangeCraft(rescheduleInInventory);
-		}
-		else if (null != openStationLocation)
-		{
-			IReadOnlyCuboidData cuboid = _worldCache.getCuboid(openStationLocation.getCuboidAddress());
-			// We already have this open in another view.
-			Assert.assertTrue(null != cuboid);
-			CraftOperation blockOperation = cuboid.getDataSpecial(AspectRegistry.CRAFTING, openStationLocation.getBlockAddress());
-			if (null != blockOperation)
+			IEntitySubAction<IMutablePlayerEntity> subAction = null;
+			
+			// We want to check the if there are any active crafting operations in the entity/block and if we should be auto-rescheduling any.
+			Entity thisEntity = _worldCache.getThisEntity();
+			CraftOperation ongoing = thisEntity.ephemeralShared().localCraftOperation();
+			if (null != ongoing)
 			{
-				subAction = new EntityChangeCraftInBlock(openStationLocation, blockOperation.selectedCraft());
+				subAction = new EntityChangeCraft(null);
 			}
-			else if (null != rescheduleInBlock)
+			else if (null != rescheduleInInventory)
 			{
-				subAction = new EntityChangeCraftInBlock(openStationLocation, rescheduleInBlock);
+				subAction = new EntityChangeCraft(rescheduleInInventory);
 			}
-		}
-		else
-		{
-			// If we are standing in a portal, see if we are ready to pass through it.
-			if ((_lastSpecialActionMillis + EntitySubActionTravelViaBlock.TRAVEL_COOLDOWN_MILLIS) < currentTimeMillis)
+			else if (null != openStationLocation)
+			{
+				IReadOnlyCuboidData cuboid = _worldCache.getCuboid(openStationLocation.getCuboidAddress());
+				// We already have this open in another view.
+				Assert.assertTrue(null != cuboid);
+				CraftOperation blockOperation = cuboid.getDataSpecial(AspectRegistry.CRAFTING, openStationLocation.getBlockAddress());
+				if (null != blockOperation)
+				{
+					subAction = new EntityChangeCraftInBlock(openStationLocation, blockOperation.selectedCraft());
+				}
+				else if (null != rescheduleInBlock)
+				{
+					subAction = new EntityChangeCraftInBlock(openStationLocation, rescheduleInBlock);
+				}
+			}
+			else
 			{
-				AbsoluteLocation surfaceLocation = EntitySubActionTravelViaBlock.getValidPortalSurface(_environment, _worldCache.blockLookup, thisEntity.location(), _worldCache.playerType.volume());
-				if (null != surfaceLocation)
+				// If we are standing in a portal, see if we are ready to pass through it.
+				if ((_lastSpecialActionMillis + EntitySubActionTravelViaBlock.TRAVEL_COOLDOWN_MILLIS) < currentTimeMillis)
 				{
-					subAction = new EntitySubActionTravelViaBlock(surfaceLocation);
+					AbsoluteLocation surfaceLocation = EntitySubActionTravelViaBlock.getValidPortalSurface(_environment, _worldCache.blockLookup, thisEntity.location(), _worldCache.playerType.volume());
+					if (null != surfaceLocation)
+					{
+						subAction = new EntitySubActionTravelViaBlock(surfaceLocation);
+					}
 				}
 			}
+			
+			// If we aren't taking any other action, see if it is time for us to try to pick something up and if there is anything nearby.
+			if (null == subAction)
+			{
+				subAction = _tryPassivePickup(currentTimeMillis);
+			}
+			if (null != subAction)
+			{
+				_client.sendAction(subAction, currentTimeMillis);
+			}
 		}
 		
-		// If we aren't taking any other action, see if it is time for us to try to pick something up and if there is anything nearby.
-		if (null == subAction)
-		{
-			subAction = _tryPassivePickup(currentTimeMillis);
-		}
-		if (null != subAction)
-		{
-			_client.sendAction(subAction, currentTimeMillis);
-		}
-		// Now, just allow time to pass while standing.
+		// Now, just allow time to pass while standing.  This is done every frame so that the entity (and the camera) moves smoothly.
 		_client.doNothing(currentTimeMillis);
 	}
 
@@ -728,6 +741,13 @@ public class ClientWrapper
 				_client.sendAction(change, currentTimeMillis);
 				_resetBlockTarget(emptyBlock, currentTimeMillis);
 				didAttemptPlace = true;
+				
+				// Single blocks are simple enough that we can predict how they will look, so the scene can show them
+				// before the server round-trip (multi-blocks depend on orientation and extension so we wait for those).
+				if (!_environment.blocks.isMultiBlock(block))
+				{
+					_updateConsumer.blockChangePredicted(emptyBlock, block);
+				}
 			}
 		}
 		return didAttemptPlace;
@@ -999,6 +1019,11 @@ public class ClientWrapper
 		return _currentViewDistance;
 	}
 
+	public int getViewDistance()
+	{
+		return _currentViewDistance;
+	}
+
 	public void disconnect()
 	{
 		// The server needs to be running in order for this shutdown to work.
@@ -1168,6 +1193,7 @@ public class ClientWrapper
 		public void connectionEstablished(int assignedEntityId, int currentViewDistance)
 		{
 			_assignedLocalEntityId = assignedEntityId;
+			_currentViewDistance = currentViewDistance;
 			_updateConsumer.didConnect(currentViewDistance);
 		}
 		@Override
@@ -1338,6 +1364,7 @@ public class ClientWrapper
 		void unload(CuboidAddress address);
 		void blockPlaced(AbsoluteLocation location);
 		void blockBroken(AbsoluteLocation location);
+		void blockChangePredicted(AbsoluteLocation location, Block block);
 		
 		void thisEntityUpdated(Entity projectedEntity);
 		void thisEntityHurt();
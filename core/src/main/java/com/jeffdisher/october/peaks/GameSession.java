@@ -3,6 +3,9 @@ package com.jeffdisher.october.peaks;
 import java.io.File;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,6 +21,7 @@ import com.jeffdisher.october.peaks.animation.AnimationManager;
 import com.jeffdisher.october.peaks.animation.GhostManager;
 import com.jeffdisher.october.peaks.animation.ParticleEngine;
 import com.jeffdisher.october.peaks.scene.SceneRenderer;
+import com.jeffdisher.october.peaks.scene.ViewDistanceController;
 import com.jeffdisher.october.peaks.types.Prism;
 import com.jeffdisher.october.peaks.types.Vector;
 import com.jeffdisher.october.peaks.ui.Binding;
@@ -26,6 +30,7 @@ import com.jeffdisher.october.types.AbsoluteLocation;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
 import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.types.CuboidColumnAddress;
 import com.jeffdisher.october.types.Difficulty;
 import com.jeffdisher.october.types.Entity;
 import com.jeffdisher.october.types.EntityLocation;
@@ -37,9 +42,24 @@ import com.jeffdisher.october.types.WorldConfig;
 
 public class GameSession
 {
+	/**
+	 * The most time we will spend in a frame handing newly-loaded cuboids to the scene.  A burst of loads (when moving
+	 * quickly through the world, for example) is spread over several frames instead of stalling one.
+	 */
+	public static final long CUBOID_INGEST_BUDGET_NANOS = 2_000_000L;
+
 	private final EntityType _playerType;
 	private final WorldCache _worldCache;
 	private final ICallouts _callouts;
+	private final ViewDistanceController _viewDistanceController;
+	private boolean _wasAdaptingViewDistance;
+	private boolean _wasMeasuringViewDistance;
+	private long _lastFrameNanos;
+	// Cuboids loaded by the client but not yet given to the scene, in the order they arrived.
+	private final Map<CuboidAddress, IReadOnlyCuboidData> _pendingLoads;
+	// The newest height map of each column seen while there are pending loads, since a later update to a different
+	// cuboid in the same column changes it (only populated while _pendingLoads isn't empty).
+	private final Map<CuboidColumnAddress, ColumnHeightMap> _latestHeightMaps;
 	public final SceneRenderer scene;
 	public final EyeEffect eyeEffect;
 	public final MovementControl movement;
@@ -53,6 +73,8 @@ public class GameSession
 	public GameSession(Environment environment
 			, GL20 gl
 			, Binding<Float> screenBrightness
+			, Binding<Integer> gpuMeshBudgetMegabytes
+			, Binding<Float> renderScale
 			, LoadedResources resources
 			, String clientName
 			, int startingViewDistance
@@ -68,6 +90,15 @@ public class GameSession
 		_playerType = environment.creatures.PLAYER;
 		_worldCache = new WorldCache(_playerType);
 		_callouts = callouts;
+		// The adaptive controllers try to keep up with the display (the launcher also caps our frame rate near this).
+		long targetFrameNanos = SceneRenderer.targetFrameNanos(Gdx.graphics.getDisplayMode().refreshRate);
+		_viewDistanceController = new ViewDistanceController(targetFrameNanos);
+		_wasAdaptingViewDistance = false;
+		_wasMeasuringViewDistance = false;
+		_lastFrameNanos = 0L;
+		// We iterate in insertion order and replacing a value keeps its position.
+		_pendingLoads = new LinkedHashMap<>();
+		_latestHeightMaps = new HashMap<>();
 		// We just expose this lookup here for the UiStateManager to use.
 		this.blockLookup = _worldCache.blockLookup;
 		
@@ -78,6 +109,9 @@ public class GameSession
 		this.scene = new SceneRenderer(environment
 			, gl
 			, screenBrightness
+			, gpuMeshBudgetMegabytes
+			, renderScale
+			, targetFrameNanos
 			, particleEngine
 			, resources
 			, _worldCache
@@ -129,6 +163,75 @@ public class GameSession
 		return this.client.isConnectionReady();
 	}
 
+	/**
+	 * Called once per frame, before rendering, to give the scene the cuboids loaded since the last frame.  This stops
+	 * after CUBOID_INGEST_BUDGET_NANOS, leaving the rest for later frames.
+	 */
+	public void ingestPendingCuboids()
+	{
+		// We always give the scene at least one cuboid, so that the backlog still drains when every frame is slow.
+		long startNanos = System.nanoTime();
+		boolean isFirst = true;
+		Iterator<IReadOnlyCuboidData> iterator = _pendingLoads.values().iterator();
+		while (iterator.hasNext() && (isFirst || ((System.nanoTime() - startNanos) < CUBOID_INGEST_BUDGET_NANOS)))
+		{
+			IReadOnlyCuboidData cuboid = iterator.next();
+			iterator.remove();
+			// We use the newest height map for the column, not the one which arrived with this cuboid, since the scene
+			// may have already been given a newer one by an update to another cuboid in the column.
+			ColumnHeightMap heightMap = _latestHeightMaps.get(cuboid.getCuboidAddress().getColumn());
+			this.scene.setCuboid(cuboid, heightMap, null);
+			this.scene.setDamagedBlocks(cuboid, heightMap);
+			isFirst = false;
+		}
+		if (_pendingLoads.isEmpty())
+		{
+			_latestHeightMaps.clear();
+		}
+	}
+
+	/**
+	 * Called once per frame to let the view distance follow the frame time and the backlog of cuboids to bake.
+	 * 
+	 * @param isAdaptive True if the view distance should be chosen automatically.
+	 * @param ceiling The view distance the user asked for, which is never exceeded.
+	 * @param isInBackground True if the window is in the background, so this frame's time shouldn't be measured.
+	 */
+	public void updateViewDistance(boolean isAdaptive, int ceiling, boolean isInBackground)
+	{
+		long currentNanos = System.nanoTime();
+		// Background frames are throttled so they would only push the distance down:  We hold it where it is.
+		boolean isMeasuring = isAdaptive && !isInBackground;
+		if (isMeasuring && _wasMeasuringViewDistance)
+		{
+			int current = this.client.getViewDistance();
+			// Cuboids we haven't given to the scene yet are also part of the backlog.
+			int pendingBakes = this.scene.getPendingBakeCount() + _pendingLoads.size();
+			int next = _viewDistanceController.recordFrame(currentNanos - _lastFrameNanos, pendingBakes, current, ceiling);
+			if (next != current)
+			{
+				this.client.trySetViewDistance(next);
+			}
+		}
+		else if (isMeasuring)
+		{
+			// We just started adapting (or came back from the background) so there is no previous frame to measure.
+			_viewDistanceController.reset();
+		}
+		else if (isAdaptive)
+		{
+			// We are in the background so we leave the distance alone.
+		}
+		else if (_wasAdaptingViewDistance)
+		{
+			// We just stopped adapting so go back to what the user asked for.
+			this.client.trySetViewDistance(ceiling);
+		}
+		_wasAdaptingViewDistance = isAdaptive;
+		_wasMeasuringViewDistance = isMeasuring;
+		_lastFrameNanos = currentNanos;
+	}
+
 	public void shutdown()
 	{
 		// Disconnect from the server.
@@ -171,7 +274,10 @@ public class GameSession
 		@Override
 		public void loadNew(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap)
 		{
-			GameSession.this.scene.setCuboid(cuboid, heightMap, null);
+			// Loading a cuboid into the scene is relatively expensive and these arrive in bursts so we defer this.
+			CuboidAddress address = cuboid.getCuboidAddress();
+			_pendingLoads.put(address, cuboid);
+			_latestHeightMaps.put(address.getColumn(), heightMap);
 		}
 		@Override
 		public void updateExisting(IReadOnlyCuboidData cuboid
@@ -180,10 +286,20 @@ public class GameSession
 			, Set<Aspect<?, ?>> changedAspects
 		)
 		{
+			// If the scene doesn't have this cuboid yet, we just replace what it will be given.
+			CuboidAddress address = cuboid.getCuboidAddress();
+			boolean isPending = _pendingLoads.containsKey(address);
+			if (!_pendingLoads.isEmpty())
+			{
+				_latestHeightMaps.put(address.getColumn(), heightMap);
+			}
+			if (isPending)
+			{
+				_pendingLoads.put(address, cuboid);
+			}
 			// We only update the scene is this is part of a cuboid we actually render.
 			// Note that MULTI_BLOCK_ROOT and ORIENTATION also matter, but they don't change on their own.
-			if (changedAspects.contains(AspectRegistry.BLOCK)
-				|| changedAspects.contains(AspectRegistry.DAMAGE)
+			else if (changedAspects.contains(AspectRegistry.BLOCK)
 				|| changedAspects.contains(AspectRegistry.LIGHT)
 				|| changedAspects.contains(AspectRegistry.FLAGS)
 				|| changedAspects.contains(AspectRegistry.SPECIAL_ITEM_SLOT)
@@ -191,6 +307,11 @@ public class GameSession
 			{
 				GameSession.this.scene.setCuboid(cuboid, heightMap, changedBlocks);
 			}
+			// Damage is drawn as a decal layer so it doesn't require the cuboid mesh to be re-baked.
+			if (!isPending && changedAspects.contains(AspectRegistry.DAMAGE))
+			{
+				GameSession.this.scene.setDamagedBlocks(cuboid, heightMap);
+			}
 			
 			// Since we need to pass events on to the AnimationManager, synthesize events for any crafting/enchanting changes.
 			if (changedAspects.contains(AspectRegistry.CRAFTING))
@@ -205,7 +326,12 @@ public class GameSession
 		@Override
 		public void unload(CuboidAddress address)
 		{
-			GameSession.this.scene.removeCuboid(address);
+			// If the scene never got this cuboid, we just drop it.
+			IReadOnlyCuboidData pending = _pendingLoads.remove(address);
+			if (null == pending)
+			{
+				GameSession.this.scene.removeCuboid(address);
+			}
 		}
 		@Override
 		public void thisEntityUpdated(Entity projectedEntity)
@@ -281,6 +407,11 @@ public class GameSession
 			GameSession.this.audioManager.blockBroken(location);
 		}
 		@Override
+		public void blockChangePredicted(AbsoluteLocation location, Block block)
+		{
+			GameSession.this.scene.speculateBlockChange(System.currentTimeMillis(), location, block);
+		}
+		@Override
 		public void craftInInventoryComplete(int entityId)
 		{
 			GameSession.this.animationManager.craftInInventoryComplete(entityId);
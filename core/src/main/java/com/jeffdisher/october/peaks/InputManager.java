@@ -306,6 +306,11 @@ public class InputManager
 			uiManager.handleKeyF();
 			_activeControls[MutableControls.Control.TOGGLE_FUEL.ordinal()] = false;
 		}
+		if (_activeControls[MutableControls.Control.TOGGLE_DEBUG.ordinal()])
+		{
+			uiManager.handleKeyF3();
+			_activeControls[MutableControls.Control.TOGGLE_DEBUG.ordinal()] = false;
+		}
 		if (_activeControls[MutableControls.Control.DROP_ITEM.ordinal()])
 		{
 			uiManager.handleKeyQ(_leftCtrlDown);
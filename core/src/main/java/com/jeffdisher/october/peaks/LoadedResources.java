@@ -5,6 +5,7 @@ import com.jeffdisher.october.peaks.animation.ParticleEngine;
 import com.jeffdisher.october.peaks.scene.BlockRenderer;
 import com.jeffdisher.october.peaks.scene.EntityRenderer;
 import com.jeffdisher.october.peaks.scene.PassiveRenderer;
+import com.jeffdisher.october.peaks.scene.SceneRenderer;
 import com.jeffdisher.october.peaks.textures.ItemTextureAtlas;
 import com.jeffdisher.october.peaks.ui.GlUi;
 
@@ -24,6 +25,7 @@ public record LoadedResources(ItemTextureAtlas itemAtlas
 		, AudioManager.Resources audioManager
 		, PassiveRenderer.Resources passiveResources
 		, ParticleEngine.Resources particleResources
+		, SceneRenderer.Resources sceneRenderer
 )
 {
 	public void shutdown(GL20 gl)
@@ -39,5 +41,6 @@ public record LoadedResources(ItemTextureAtlas itemAtlas
 		audioManager.shutdown();
 		passiveResources.shutdown(gl);
 		particleResources.shutdown(gl);
+		sceneRenderer.shutdown(gl);
 	}
 }
@@ -14,6 +14,7 @@ import com.jeffdisher.october.peaks.persistence.MutablePreferences;
 import com.jeffdisher.october.peaks.scene.BlockRenderer;
 import com.jeffdisher.october.peaks.scene.EntityRenderer;
 import com.jeffdisher.october.peaks.scene.PassiveRenderer;
+import com.jeffdisher.october.peaks.scene.SceneRenderer;
 import com.jeffdisher.october.peaks.textures.ItemTextureAtlas;
 import com.jeffdisher.october.peaks.textures.TextureHelpers;
 import com.jeffdisher.october.peaks.ui.GlUi;
@@ -23,6 +24,12 @@ import com.jeffdisher.october.utils.Assert;
 public class OctoberPeaks extends ApplicationAdapter
 {
 	public static final String ENV_VAR_OCTOBER_PEAKS_ROOT = "OCTOBER_PEAKS_ROOT";
+	/**
+	 * When the window is in the background, we limit ourselves to this frame rate to leave the CPU and GPU for other
+	 * work (including our own single-player server).
+	 */
+	public static final int BACKGROUND_FRAMES_PER_SECOND = 10;
+	public static final long BACKGROUND_FRAME_NANOS = 1_000_000_000L / BACKGROUND_FRAMES_PER_SECOND;
 
 	private final WindowListener _windowListener;
 
@@ -32,6 +39,7 @@ public class OctoberPeaks extends ApplicationAdapter
 	private LoadedResources _resources;
 	private InputManager _input;
 	private UiStateManager _uiState;
+	private long _frameStartNanos;
 
 	public OctoberPeaks(WindowListener windowListener)
 	{
@@ -57,6 +65,8 @@ public class OctoberPeaks extends ApplicationAdapter
 	@Override
 	public void render()
 	{
+		_frameStartNanos = System.nanoTime();
+		
 		// Flush any captured input events.
 		_input.flushEventsToStateManager(_uiState);
 		
@@ -66,7 +76,22 @@ public class OctoberPeaks extends ApplicationAdapter
 		_gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
-		_uiState.renderFrame();
+		// We read this once so that the frame is drawn and throttled consistently.
+		boolean isInBackground = _windowListener.isInBackground();
+		_uiState.renderFrame(isInBackground);
+		
+		// Static menus are only redrawn when something changes (input events request a new frame, for example).
+		boolean shouldRenderContinuously = !_uiState.isStaticState();
+		if (shouldRenderContinuously != Gdx.graphics.isContinuousRendering())
+		{
+			Gdx.graphics.setContinuousRendering(shouldRenderContinuously);
+		}
+		
+		// If the window is in the background, we slow down by just sleeping out the rest of the frame.
+		if (isInBackground)
+		{
+			_sleepForRestOfFrame(BACKGROUND_FRAME_NANOS);
+		}
 	}
 
 	@Override
@@ -102,7 +127,7 @@ public class OctoberPeaks extends ApplicationAdapter
 			);
 			BlockRenderer.Resources blockRenderer = new BlockRenderer.Resources(_environment, _gl, itemAtlas);
 			BlockRenderer.SelectionResources blockSelectionRenderer = new BlockRenderer.SelectionResources(_environment, _gl);
-			BlockRenderer.ItemSlotResources blockItemSlotRenderer = new BlockRenderer.ItemSlotResources(_gl, itemAtlas);
+			BlockRenderer.ItemSlotResources blockItemSlotRenderer = new BlockRenderer.ItemSlotResources(_environment, _gl, itemAtlas);
 			EntityRenderer.Resources entityRenderer = new EntityRenderer.Resources(_environment, _gl);
 			SkyBox.Resources skyBox = new SkyBox.Resources(_gl);
 			EyeEffect.Resources eyeEffect = new EyeEffect.Resources(_gl);
@@ -110,6 +135,7 @@ public class OctoberPeaks extends ApplicationAdapter
 			AudioManager.Resources audioManager = new AudioManager.Resources();
 			PassiveRenderer.Resources passive = new PassiveRenderer.Resources(_environment, _gl, itemAtlas);
 			ParticleEngine.Resources particles = new ParticleEngine.Resources(_gl);
+			SceneRenderer.Resources sceneRenderer = new SceneRenderer.Resources(_gl);
 			_resources = new LoadedResources(itemAtlas
 				, blockRenderer
 				, blockSelectionRenderer
@@ -121,6 +147,7 @@ public class OctoberPeaks extends ApplicationAdapter
 				, audioManager
 				, passive
 				, particles
+				, sceneRenderer
 			);
 		}
 		catch (IOException | TabListReader.TabListException e)
@@ -130,6 +157,23 @@ public class OctoberPeaks extends ApplicationAdapter
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 	}
 
+	private void _sleepForRestOfFrame(long frameNanos)
+	{
+		long remainingNanos = frameNanos - (System.nanoTime() - _frameStartNanos);
+		if (remainingNanos > 0L)
+		{
+			try
+			{
+				Thread.sleep(remainingNanos / 1_000_000L, (int)(remainingNanos % 1_000_000L));
+			}
+			catch (InterruptedException e)
+			{
+				// We don't use interruption.
+				throw Assert.unexpected(e);
+			}
+		}
+	}
+
 	private void _initializeLocalStorage()
 	{
 		String envVar = System.getenv(ENV_VAR_OCTOBER_PEAKS_ROOT);
@@ -174,6 +218,8 @@ public class OctoberPeaks extends ApplicationAdapter
 					payload[i + 1] = stack[i].toString();
 				}
 				_uiState.enterErrorState(payload);
+				// This may have come from another thread while we are only drawing on demand, so ask for a frame.
+				Gdx.graphics.requestRendering();
 			}
 		});
 	}
@@ -7,7 +7,7 @@ import java.nio.FloatBuffer;
 
 import com.badlogic.gdx.graphics.GL20;
 import com.jeffdisher.october.peaks.graphics.BufferBuilder;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.graphics.Program;
 import com.jeffdisher.october.peaks.graphics.VertexArray;
 import com.jeffdisher.october.peaks.textures.TextureHelpers;
@@ -79,23 +79,25 @@ public class SkyBox
 
 	private final GL20 _gl;
 	private final Resources _resources;
-	private Matrix _viewMatrix;
-	private Matrix _dayTimeModelMatrix;
+	private final MutableMatrix _viewMatrix;
+	private final MutableMatrix _dayTimeModelMatrix;
 	private float _skyDayFraction;
 
 	public SkyBox(GL20 gl, LoadedResources resources)
 	{
 		_gl = gl;
 		_resources = resources.skyBox();
-		_viewMatrix = Matrix.identity();
-		_dayTimeModelMatrix = Matrix.identity();
+		_viewMatrix = new MutableMatrix();
+		_dayTimeModelMatrix = new MutableMatrix();
 	}
 
 	public void updateView(Vector eye, Vector target, Vector upVector)
 	{
-		Vector origin = new Vector(0.0f, 0.0f, 0.0f);
-		Vector relative = new Vector(target.x() - eye.x(), target.y() - eye.y(), target.z() - eye.z());
-		_viewMatrix = Matrix.lookAt(origin, relative, upVector);
+		// The sky box is always centred on the camera so we look from the origin in the same direction as the camera.
+		_viewMatrix.setLookAt(0.0f, 0.0f, 0.0f
+			, target.x() - eye.x(), target.y() - eye.y(), target.z() - eye.z()
+			, upVector.x(), upVector.y(), upVector.z()
+		);
 	}
 
 	public void setDayProgression(float dayProgression, float skyLightMultiplier)
@@ -105,7 +107,7 @@ public class SkyBox
 		// The day progression is [0.0 .. 1.0] so map that on to the 2pi radian arc of the sky.
 		float dayOffset = dayProgression * 2.0f * (float)Math.PI;
 		// We rotate around the X axis, due to how the cube maps interpret Y as "up" and Z is normally our "up".
-		_dayTimeModelMatrix = Matrix.rotateX(dayStart + dayOffset);
+		_dayTimeModelMatrix.setRotateX(dayStart + dayOffset);
 		
 		// We want to map most of the day to day sky and most of the night to night sky so we will pick a twilight range to transition.
 		if (skyLightMultiplier > 0.6f)
@@ -123,7 +125,7 @@ public class SkyBox
 		}
 	}
 
-	public void render(Matrix projectionMatrix)
+	public void render(MutableMatrix projectionMatrix)
 	{
 		_resources._program.useProgram();
 		_dayTimeModelMatrix.uploadAsUniform(_gl, _resources._uModelMatrix);
@@ -38,11 +38,12 @@ public class UiData
 	public UiData(File localStorageDirectory
 		, MutableControls mutableControls
 		, MutablePreferences mutablePreferences
+		, Runnable serverStatusDidChange
 	)
 	{
 		this.mutableControls = mutableControls;
 		this.mutablePreferences = mutablePreferences;
-		this.serverList = new MutableServerList(localStorageDirectory);
+		this.serverList = new MutableServerList(localStorageDirectory, serverStatusDidChange);
 		
 		this.isRunningOnServerBinding = new Binding<>(false);
 		this.worldListBinding = new Binding<>(null);
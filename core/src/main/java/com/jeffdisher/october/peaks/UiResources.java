@@ -4,6 +4,7 @@ import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import com.jeffdisher.october.peaks.persistence.MutableControls;
+import com.jeffdisher.october.peaks.persistence.MutablePreferences;
 import com.jeffdisher.october.peaks.persistence.MutableServerList;
 import com.jeffdisher.october.peaks.profiling.ProfilingModes;
 import com.jeffdisher.october.peaks.ui.Binding;
@@ -232,6 +233,8 @@ public class UiResources
 		ViewTextButton<Boolean> fullScreenButton = UiResources._buildToggleFullScreenButton(ui, actions, uiData);
 		ViewControlPlusMinus<Integer> viewDistanceControl = UiResources._buildViewDistanceSlider(ui, actions, uiData);
 		ViewControlPlusMinus<Float> brightnessControl = UiResources._buildBrightnessSlider(ui, actions, uiData);
+		ViewControlPlusMinus<Float> renderScaleControl = UiResources._buildRenderScaleSlider(ui, actions, uiData);
+		ViewTextButton<Boolean> adaptiveViewDistanceButton = UiResources._buildToggleAdaptiveViewDistanceButton(ui, actions, uiData);
 		ViewTextField<String> clientNameTextField = UiResources._buildClientNameTextField(ui, actions, uiData);
 		ViewTextButton<String> backButton = UiResources._buildBackButton(ui, actions);
 		
@@ -250,7 +253,13 @@ public class UiResources
 			.add(new ViewTextLabel(ui, new Binding<>("Multiplayer Name")), new Rect(-0.6f, 0.2f, -0.2f, 0.3f))
 			.add(clientNameTextField, new Rect(-0.2f, 0.2f, 0.6f, 0.3f))
 			
-			.add(backButton, new Rect(-0.3f, -0.1f, 0.3f, 0.0f))
+			.add(new ViewTextLabel(ui, new Binding<>("Render Scale")), new Rect(-0.6f, 0.1f, -0.2f, 0.2f))
+			.add(renderScaleControl, new Rect(-0.2f, 0.1f, 0.6f, 0.2f))
+			
+			.add(new ViewTextLabel(ui, new Binding<>("Adapt Distance")), new Rect(-0.6f, 0.0f, -0.2f, 0.1f))
+			.add(adaptiveViewDistanceButton, new Rect(-0.2f, 0.0f, 0.6f, 0.1f))
+			
+			.add(backButton, new Rect(-0.3f, -0.2f, 0.3f, -0.1f))
 			.finish()
 		;
 	}
@@ -611,6 +620,16 @@ public class UiResources
 		);
 	}
 
+	private static ViewTextButton<Boolean> _buildToggleAdaptiveViewDistanceButton(GlUi ui, UiStateManager actions, UiData uiData)
+	{
+		return new ViewTextButton<>(ui, uiData.mutablePreferences.adaptiveViewDistance
+			, (Boolean isAdaptive) -> isAdaptive ? "Lower When Slow" : "Fixed"
+			, (ViewTextButton<Boolean> button, Boolean isAdaptive) -> {
+				actions.action_clickAdaptiveViewDistanceToggle(isAdaptive);
+			}
+		);
+	}
+
 	private static ViewControlPlusMinus<Float> _buildBrightnessSlider(GlUi ui, UiStateManager actions, UiData uiData)
 	{
 		return new ViewControlPlusMinus<>(ui, uiData.mutablePreferences.screenBrightness
@@ -621,6 +640,18 @@ public class UiResources
 		);
 	}
 
+	private static ViewControlPlusMinus<Float> _buildRenderScaleSlider(GlUi ui, UiStateManager actions, UiData uiData)
+	{
+		return new ViewControlPlusMinus<>(ui, uiData.mutablePreferences.renderScale
+			, (Float scale) -> (MutablePreferences.RENDER_SCALE_AUTOMATIC == scale)
+				? "Auto"
+				: String.format("%d%%", Math.round(100.0f * scale))
+			, (boolean plus) -> {
+				actions.action_clickRenderScaleSlider(plus);
+			}
+		);
+	}
+
 	private static ViewTextField<String> _buildClientNameTextField(GlUi ui, UiStateManager actions, UiData uiData)
 	{
 		return new ViewTextField<>(ui, uiData.mutablePreferences.clientName
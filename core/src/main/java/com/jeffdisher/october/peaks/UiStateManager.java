@@ -27,6 +27,9 @@ import com.jeffdisher.october.peaks.persistence.MutablePreferences;
 import com.jeffdisher.october.peaks.persistence.MutableServerList;
 import com.jeffdisher.october.peaks.profiling.ProfilingModes;
 import com.jeffdisher.october.peaks.profiling.ProfilingSession;
+import com.jeffdisher.october.peaks.scene.BlockRenderer;
+import com.jeffdisher.october.peaks.scene.CuboidMeshManager;
+import com.jeffdisher.october.peaks.scene.SceneRenderer;
 import com.jeffdisher.october.peaks.types.Vector;
 import com.jeffdisher.october.peaks.types.WorldSelection;
 import com.jeffdisher.october.peaks.ui.Binding;
@@ -40,6 +43,7 @@ import com.jeffdisher.october.peaks.ui.SubBinding;
 import com.jeffdisher.october.peaks.ui.UiIdioms;
 import com.jeffdisher.october.peaks.ui.ViewArmour;
 import com.jeffdisher.october.peaks.ui.ViewCraftingPanel;
+import com.jeffdisher.october.peaks.ui.ViewDebugOverlay;
 import com.jeffdisher.october.peaks.ui.ViewEntityInventory;
 import com.jeffdisher.october.peaks.ui.ViewFuelSlot;
 import com.jeffdisher.october.peaks.ui.ViewHotbar;
@@ -118,6 +122,7 @@ public class UiStateManager implements GameSession.ICallouts
 	private Craft _continuousInInventory;
 	private Craft _continuousInBlock;
 	private boolean _isManualCraftingStation;
+	private boolean _isDebugOverlayVisible;
 
 	// Tracking related to orientation change updates.
 	private boolean _orientationNeedsFlush;
@@ -133,6 +138,7 @@ public class UiStateManager implements GameSession.ICallouts
 	private final Binding<ViewFuelSlot.FuelTuple> _bottomWindowFuelBinding;
 	private final Binding<String> _craftingPanelTitleBinding;
 	private final Binding<List<CraftDescription>> _craftingPanelBinding;
+	private final Binding<List<ViewDebugOverlay.Line>> _debugLinesBinding;
 	
 	// Views for rendering parts of the UI in specific modes.
 	private final Window _thisEntityInventoryWindow;
@@ -142,6 +148,7 @@ public class UiStateManager implements GameSession.ICallouts
 	private final Window _hotbarWindow;
 	private final Window _armourWindow;
 	private final Window _selectionWindow;
+	private final Window _debugOverlayWindow;
 
 	// We don't currently use a binding for the error payload so store it here, directly.
 	private String[] _errorPayload;
@@ -184,7 +191,8 @@ public class UiStateManager implements GameSession.ICallouts
 	{
 		_env = environment;
 		_ui = new GlUi(gl, resources);
-		_uiData = new UiData(localStorageDirectory, mutableControls, mutablePreferences);
+		// The server list is updated in the background so we need to ask for a new frame in case we are drawing on demand.
+		_uiData = new UiData(localStorageDirectory, mutableControls, mutablePreferences, () -> Gdx.graphics.requestRendering());
 		_playerVolume = environment.creatures.PLAYER.volume();
 		_captureState = captureState;
 		_gl = gl;
@@ -205,6 +213,7 @@ public class UiStateManager implements GameSession.ICallouts
 		_bottomWindowFuelBinding = new Binding<>(null);
 		_craftingPanelTitleBinding = new Binding<>(null);
 		_craftingPanelBinding = new Binding<>(null);
+		_debugLinesBinding = new Binding<>(List.of());
 	
 		// Create our views.
 		IntConsumer mouseOverTopRightKeyConsumer = (int key) -> {
@@ -274,6 +283,7 @@ public class UiStateManager implements GameSession.ICallouts
 		// The ViewSelection should only use block lookup during play state so the _currentGameSession should never be null.
 		Function<AbsoluteLocation, BlockProxy> blockLookup = (AbsoluteLocation location) -> _currentGameSession.blockLookup.readBlock(location);
 		_selectionWindow = new Window(ViewSelection.LOCATION, new ViewSelection(_ui, _env, _selectionBinding, blockLookup, _otherPlayersById));
+		_debugOverlayWindow = new Window(ViewDebugOverlay.LOCATION, new ViewDebugOverlay(_ui, _debugLinesBinding));
 		
 		// Look up the liquid overlay types.
 		_waterBlockTypes = Set.of(_env.blocks.fromItem(_env.items.getItemById("op.water_source"))
@@ -524,6 +534,11 @@ public class UiStateManager implements GameSession.ICallouts
 		_continuousInBlock = null;
 	}
 
+	public void handleKeyF3()
+	{
+		_isDebugOverlayVisible = !_isDebugOverlayVisible;
+	}
+
 	public void handleKeyQ(boolean isCtrlPressed)
 	{
 		if (isCtrlPressed)
@@ -553,8 +568,10 @@ public class UiStateManager implements GameSession.ICallouts
 	 * UI state.
 	 * Internally, this is also an opportunity for the state manager to act on, flush, or reset any input events it has
 	 * received since the last frame.
+	 * 
+	 * @param isInBackground True if the window is in the background (so this frame will be throttled).
 	 */
-	public void renderFrame()
+	public void renderFrame(boolean isInBackground)
 	{
 		// Find the selection, if the mode supports this.
 		WorldSelection selection = null;
@@ -597,15 +614,21 @@ public class UiStateManager implements GameSession.ICallouts
 		
 		if (null != _currentGameSession)
 		{
+			// Give the scene any cuboids which arrived since the last frame (this is limited so a burst can't stall us).
+			_currentGameSession.ingestPendingCuboids();
+			
 			// Draw the main scene first (since we only draw the other data on top of this).
-			_currentGameSession.scene.render(entity, stopBlock, stopBlockType);
+			_currentGameSession.scene.render(entity, stopBlock, stopBlockType, isInBackground);
+			
+			// Let the view distance follow the frame time, if the user enabled that.
+			_currentGameSession.updateViewDistance(_uiData.mutablePreferences.adaptiveViewDistance.get(), _uiData.mutablePreferences.preferredViewDistance.get(), isInBackground);
 			
 			// Draw any eye effect overlay.
 			_currentGameSession.eyeEffect.drawEyeEffect();
 		}
 		else if (null != _profilingSession)
 		{
-			_profilingSession.scene.render(entity, stopBlock, stopBlockType);
+			_profilingSession.scene.render(entity, stopBlock, stopBlockType, isInBackground);
 			_profilingSession.eyeEffect.drawEyeEffect();
 		}
 		
@@ -693,6 +716,39 @@ public class UiStateManager implements GameSession.ICallouts
 		_clearEvents();
 	}
 
+	/**
+	 * Checks if the current state only changes in response to input, meaning that frames only need to be drawn on
+	 * demand (when an input event arrives, for example), instead of continuously.
+	 * 
+	 * @return True if nothing on screen changes on its own in this state.
+	 */
+	public boolean isStaticState()
+	{
+		boolean isStatic;
+		switch (_uiState)
+		{
+		case START:
+		case LIST_SINGLE_PLAYER:
+		case CONFIRM_DELETE_SINGLE_PLAYER:
+		case NEW_SINGLE_PLAYER:
+		case LIST_MULTI_PLAYER:
+		case NEW_MULTI_PLAYER:
+		case LIST_FOR_PROFILE:
+		case ERROR:
+			isStatic = true;
+			break;
+		case OPTIONS:
+		case KEY_BINDINGS:
+			// These are also reachable from the pause menu, where the game is still running behind them.
+			isStatic = (null == _currentGameSession) && (null == _pendingGameSession);
+			break;
+		default:
+			isStatic = false;
+			break;
+		}
+		return isStatic;
+	}
+
 	public void handleScreenResize(int width, int height)
 	{
 		if (null != _currentGameSession)
@@ -1120,6 +1176,16 @@ public class UiStateManager implements GameSession.ICallouts
 		}
 	}
 
+	public void action_clickAdaptiveViewDistanceToggle(boolean isAdaptive)
+	{
+		if (_leftClick)
+		{
+			// The game session checks this every frame so we just need to update and save it.
+			_uiData.mutablePreferences.adaptiveViewDistance.set(!isAdaptive);
+			_uiData.mutablePreferences.saveToDisk();
+		}
+	}
+
 	public void action_clickBrightnessSlider(boolean shouldIncrease)
 	{
 		if (_leftClick)
@@ -1140,6 +1206,34 @@ public class UiStateManager implements GameSession.ICallouts
 		}
 	}
 
+	public void action_clickRenderScaleSlider(boolean shouldIncrease)
+	{
+		if (_leftClick)
+		{
+			// We step by 10% between 50% and 100%, with the automatic setting just below 50%.
+			float current = _uiData.mutablePreferences.renderScale.get();
+			int percent = (MutablePreferences.RENDER_SCALE_AUTOMATIC == current)
+				? 40
+				: Math.round(100.0f * current)
+			;
+			int next;
+			if (shouldIncrease)
+			{
+				next = Math.min(100, percent + 10);
+			}
+			else
+			{
+				next = Math.max(40, percent - 10);
+			}
+			float updated = (next < 50)
+				? MutablePreferences.RENDER_SCALE_AUTOMATIC
+				: ((float) next) / 100.0f
+			;
+			_uiData.mutablePreferences.renderScale.set(updated);
+			_uiData.mutablePreferences.saveToDisk();
+		}
+	}
+
 	public void action_clickClientNameTextField()
 	{
 		if (_leftClick)
@@ -1186,7 +1280,7 @@ public class UiStateManager implements GameSession.ICallouts
 		if (_leftClick)
 		{
 			// This just changes state.
-			_profilingSession = new ProfilingSession(_env, _gl, _uiData.mutablePreferences.screenBrightness, _resources);
+			_profilingSession = new ProfilingSession(_env, _gl, _uiData.mutablePreferences.screenBrightness, _uiData.mutablePreferences.gpuMeshBudgetMegabytes, _uiData.mutablePreferences.renderScale, _resources);
 			mode.populate.accept(_env, _profilingSession);
 			_uiState = _UiState.PROFILE;
 		}
@@ -1198,6 +1292,11 @@ public class UiStateManager implements GameSession.ICallouts
 		{
 			_currentGameSession.shutdown();
 		}
+		// A session might still be connecting, and it needs to return the shared resources it borrowed.
+		if (null != _pendingGameSession)
+		{
+			_pendingGameSession.shutdown();
+		}
 		_uiData.serverList.shutdown();
 	}
 
@@ -1547,6 +1646,10 @@ public class UiStateManager implements GameSession.ICallouts
 		
 		_ui.drawReticle(RETICLE_SIZE, RETICLE_SIZE);
 		
+		if (_isDebugOverlayVisible)
+		{
+			_drawDebugOverlay();
+		}
 		return null;
 	}
 
@@ -1610,6 +1713,30 @@ public class UiStateManager implements GameSession.ICallouts
 		_ui.drawWholeTextureRect(_ui.pixelDarkGreyAlpha, -1.0f, -1.0f, 1.0f, 1.0f);
 	}
 
+	private void _drawDebugOverlay()
+	{
+		// This is drawn in the play state of both normal and profiling sessions.
+		SceneRenderer scene = (null != _currentGameSession)
+			? _currentGameSession.scene
+			: _profilingSession.scene
+		;
+		CuboidMeshManager.MemoryStats meshStats = scene.getMeshMemoryStats();
+		BlockRenderer.CullingStats cullingStats = scene.getCullingStats();
+		long bytesPerMegabyte = 1024L * 1024L;
+		String meshMemory = String.format("%d / %d MB", meshStats.residentBytes() / bytesPerMegabyte, meshStats.budgetBytes() / bytesPerMegabyte);
+		String arenaMemory = String.format("%d MB", scene.getArenaBytes() / bytesPerMegabyte);
+		_debugLinesBinding.set(List.of(new ViewDebugOverlay.Line("GPU meshes", meshMemory)
+			, new ViewDebugOverlay.Line("GPU buffers", arenaMemory)
+			, new ViewDebugOverlay.Line("Evicted cuboids", Integer.toString(meshStats.evictedCuboids()))
+			, new ViewDebugOverlay.Line("Drawn cuboids", Integer.toString(cullingStats.drawnCuboids()))
+			, new ViewDebugOverlay.Line("Culled cuboids", Integer.toString(cullingStats.culledCuboids()))
+			, new ViewDebugOverlay.Line("Occluded cuboids", Integer.toString(cullingStats.occludedCuboids()))
+			, new ViewDebugOverlay.Line("Pending bakes", Integer.toString(scene.getPendingBakeCount()))
+		));
+		IAction noAction = _debugOverlayWindow.doRender(_cursor);
+		Assert.assertTrue(null == noAction);
+	}
+
 	private void _handleEyeFilter()
 	{
 		// If our eye is under a liquid, draw the liquid over the screen (we do this here since it is part of the orthographic plane and not logically part of the scene).
@@ -1955,6 +2082,8 @@ public class UiStateManager implements GameSession.ICallouts
 			_pendingGameSession = new GameSession(_env
 				, gl
 				, _uiData.mutablePreferences.screenBrightness
+				, _uiData.mutablePreferences.gpuMeshBudgetMegabytes
+				, _uiData.mutablePreferences.renderScale
 				, resources
 				, "Local"
 				, _uiData.mutablePreferences.preferredViewDistance.get()
@@ -1981,7 +2110,7 @@ public class UiStateManager implements GameSession.ICallouts
 		Assert.assertTrue(null == _pendingGameSession);
 		try
 		{
-			_pendingGameSession = new GameSession(_env, gl, _uiData.mutablePreferences.screenBrightness, resources, clientName, startingViewDistance, serverAddress, null, null, null, null, null, this);
+			_pendingGameSession = new GameSession(_env, gl, _uiData.mutablePreferences.screenBrightness, _uiData.mutablePreferences.gpuMeshBudgetMegabytes, _uiData.mutablePreferences.renderScale, resources, clientName, startingViewDistance, serverAddress, null, null, null, null, null, this);
 			
 			// This was a success, so change state.
 			_uiState = _UiState.CONNECTING;
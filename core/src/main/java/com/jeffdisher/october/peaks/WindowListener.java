@@ -9,12 +9,16 @@ import com.jeffdisher.october.utils.Assert;
  * This class also contains the "logical cursor capture state" set by UiStateManager and it will internally convert that
  * into events into the InputManager to enable/disable the "physical cursor capture state" based on this logical state
  * and the current state of focus in the window manager.
+ * It also tracks if the window is in the background (unfocused or minimized) so that we can draw less often.
  */
 public class WindowListener
 {
 	private InputManager _inputManager;
 	private boolean _windowDoesHaveFocus;
 	private boolean _logicalCaptureState;
+	// We track these separately from _windowDoesHaveFocus since we only want to assume we are in the background once told.
+	private boolean _didLoseFocus;
+	private boolean _isIconified;
 
 	public void setInputManager(InputManager input)
 	{
@@ -30,9 +34,18 @@ public class WindowListener
 			_inputManager.enterCaptureState(_logicalCaptureState);
 		}
 	}
+	/**
+	 * @return True if the window is unfocused or minimized, meaning that it doesn't need a high frame rate.
+	 */
+	public boolean isInBackground()
+	{
+		return _didLoseFocus || _isIconified;
+	}
+
 	public void focusLost()
 	{
 		_windowDoesHaveFocus = false;
+		_didLoseFocus = true;
 		
 		// If we should have this captured, we need to disable it.
 		if (_logicalCaptureState)
@@ -44,6 +57,7 @@ public class WindowListener
 	public void focusGained()
 	{
 		_windowDoesHaveFocus = true;
+		_didLoseFocus = false;
 		
 		// When regaining focus, set the capture state to whatever it logically should be.
 		if (_logicalCaptureState)
@@ -51,4 +65,9 @@ public class WindowListener
 			_inputManager.enterCaptureState(_logicalCaptureState);
 		}
 	}
+
+	public void iconified(boolean isIconified)
+	{
+		_isIconified = isIconified;
+	}
 }
@@ -10,7 +10,7 @@ import com.jeffdisher.october.aspects.Environment;
 import com.jeffdisher.october.data.IReadOnlyCuboidData;
 import com.jeffdisher.october.logic.CraftingBlockSupport;
 import com.jeffdisher.october.logic.SparseByteCube;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.scene.BlockRenderer;
 import com.jeffdisher.october.peaks.scene.FireFaceBuilder;
 import com.jeffdisher.october.peaks.types.Vector;
@@ -291,7 +291,7 @@ public class AnimationManager
 		}
 	}
 
-	public void handleFireAnimation(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, BlockRenderer blockRenderer, long currentTimeMillis)
+	public void handleFireAnimation(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, BlockRenderer blockRenderer, long currentTimeMillis)
 	{
 		// Determine the fire frame based on time.
 		long cycleMillis = FIRE_FRAME_COUNT * FIRE_FRAME_PERIOD_MILLIS;
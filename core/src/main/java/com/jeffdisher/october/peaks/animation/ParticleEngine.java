@@ -8,7 +8,7 @@ import java.util.Random;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.graphics.Program;
 import com.jeffdisher.october.peaks.LoadedResources;
 import com.jeffdisher.october.peaks.graphics.Attribute;
@@ -170,10 +170,10 @@ public class ParticleEngine
 		}
 	}
 
-	public void renderAllParticles(Matrix commonViewMatrix, Matrix projectionMatrix, long currentTimeMillis)
+	public void renderAllParticles(MutableMatrix commonViewMatrix, MutableMatrix projectionMatrix, long currentTimeMillis)
 	{
 		// We want to rotate the model so that they always face the camera.
-		Matrix viewMatrix = commonViewMatrix;
+		MutableMatrix viewMatrix = commonViewMatrix;
 		
 		// For now we will just use the standard depth approach but we may want to make this read-only or change the comparison, in the future.
 		_gl.glEnable(GL20.GL_DEPTH_TEST);
@@ -44,6 +44,22 @@ public class BufferBuilder
 		}
 	}
 
+	/**
+	 * Checks if the shared backing-store has enough space left to write the given number of complete vertices.
+	 * 
+	 * @param vertexCount The number of vertices the caller wants to write.
+	 * @return True if these vertices can be written without overflowing the backing-store.
+	 */
+	public boolean canFitVertices(int vertexCount)
+	{
+		int floatsPerVertex = 0;
+		for (Attribute attribute : _attributes)
+		{
+			floatsPerVertex += attribute.floats();
+		}
+		return _sharedBackingStore.remaining() >= (vertexCount * floatsPerVertex);
+	}
+
 	/**
 	 * Carves off the current contents of the buffer as a buffer ready to upload.  The receiver can continue creating
 	 * the next buffer.
@@ -123,6 +139,22 @@ public class BufferBuilder
 			
 			return new VertexArray(buffer, this.vertexCount, _attributes);
 		}
+		/**
+		 * Returns a view of a range of the vertices in this buffer.
+		 * 
+		 * @param firstVertex The first vertex in the range.
+		 * @param count The number of vertices in the range.
+		 * @return A new FloatBuffer view of just these vertices.
+		 */
+		public FloatBuffer getVertices(int firstVertex, int count)
+		{
+			int floatsPerVertex = _flippedBuffer.remaining() / this.vertexCount;
+			FloatBuffer view = _flippedBuffer.duplicate();
+			int start = _flippedBuffer.position() + (firstVertex * floatsPerVertex);
+			view.limit(start + (count * floatsPerVertex));
+			view.position(start);
+			return view;
+		}
 		/**
 		 * This is just a testing helper and shouldn't used in a normal run.
 		 */
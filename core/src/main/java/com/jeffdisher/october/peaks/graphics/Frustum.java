@@ -0,0 +1,95 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import com.jeffdisher.october.peaks.types.Prism;
+
+
+/**
+ * The 6 clipping planes of a camera's view volume, used to skip drawing anything which is entirely outside of it.
+ * The planes are extracted directly from the combined projection and view matrix (the Gribb/Hartmann method) so this
+ * matches exactly what the GPU would clip.
+ */
+public class Frustum
+{
+	public static final int PLANE_COUNT = 6;
+
+	/**
+	 * Creates the frustum of the camera described by the given matrices.
+	 * 
+	 * @param viewMatrix The camera's view matrix.
+	 * @param projectionMatrix The camera's projection matrix.
+	 * @return The frustum of the view volume, in world coordinates.
+	 */
+	public static Frustum fromCamera(MutableMatrix viewMatrix, MutableMatrix projectionMatrix)
+	{
+		Frustum frustum = new Frustum();
+		frustum.setCamera(viewMatrix, projectionMatrix);
+		return frustum;
+	}
+
+
+	private final MutableMatrix _clip;
+	private final float[] _clipRowInner;
+	private final float[][] _planes;
+
+	/**
+	 * Creates a frustum which must be set with setCamera() before it is used.  Renderers should keep one of these and
+	 * update it every frame, instead of creating a new one.
+	 */
+	public Frustum()
+	{
+		_clip = new MutableMatrix();
+		_clipRowInner = new float[MutableMatrix.ELEMENTS];
+		_planes = new float[PLANE_COUNT][4];
+	}
+
+	/**
+	 * Updates the receiver to be the frustum of the camera described by the given matrices.
+	 * 
+	 * @param viewMatrix The camera's view matrix.
+	 * @param projectionMatrix The camera's projection matrix.
+	 */
+	public void setCamera(MutableMatrix viewMatrix, MutableMatrix projectionMatrix)
+	{
+		_clip.setMultiply(projectionMatrix, viewMatrix);
+		_clip.copyRowInner(_clipRowInner);
+		// Each plane is the sum or difference of the W row and one of the X/Y/Z rows of the clip transform.
+		for (int row = 0; row < 3; ++row)
+		{
+			_setPlane(_planes[2 * row], _clipRowInner, row, 1.0f);
+			_setPlane(_planes[(2 * row) + 1], _clipRowInner, row, -1.0f);
+		}
+	}
+
+	/**
+	 * Checks if any part of the given axis-aligned box could be inside the frustum.  Note that this is conservative:
+	 * Some boxes near the corners of the frustum will be reported as visible even though they are just outside.
+	 * 
+	 * @param box The box, in world coordinates.
+	 * @return True if the box may be visible, false if it is definitely outside the frustum.
+	 */
+	public boolean isBoxVisible(Prism box)
+	{
+		boolean isVisible = true;
+		for (int i = 0; isVisible && (i < PLANE_COUNT); ++i)
+		{
+			// We only need to check the corner of the box farthest along the plane's normal.
+			float[] plane = _planes[i];
+			float x = (plane[0] >= 0.0f) ? box.east() : box.west();
+			float y = (plane[1] >= 0.0f) ? box.north() : box.south();
+			float z = (plane[2] >= 0.0f) ? box.top() : box.bottom();
+			float distance = (plane[0] * x) + (plane[1] * y) + (plane[2] * z) + plane[3];
+			isVisible = (distance >= 0.0f);
+		}
+		return isVisible;
+	}
+
+
+	private static void _setPlane(float[] plane, float[] m, int row, float sign)
+	{
+		int base = 4 * row;
+		plane[0] = m[12] + (sign * m[base + 0]);
+		plane[1] = m[13] + (sign * m[base + 1]);
+		plane[2] = m[14] + (sign * m[base + 2]);
+		plane[3] = m[15] + (sign * m[base + 3]);
+	}
+}
@@ -0,0 +1,217 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.graphics.GL20;
+
+
+/**
+ * A thin layer over GL20 which remembers the program, textures, vertex buffer, and uniform values it last set, so that
+ * redundant calls can be skipped.  This matters most in loops which draw many small vertex arrays with the same setup.
+ * Note that this only knows about the state changes made through it:  Any code which changes GL state directly must
+ * be followed by a call to invalidate() before this is used again (renderers which share the context with others
+ * should call it at the start of each pass).
+ */
+public class GlStateCache
+{
+	public static final int TEXTURE_UNITS = 2;
+
+	private final GL20 _gl;
+	private Program _program;
+	private final Map<Integer, Object> _uniforms;
+	private int _activeTextureUnit;
+	private final int[] _boundTextures;
+	private int _arrayBuffer;
+	private Attribute[] _pointerAttributes;
+	private int _enabledAttributes;
+
+	public GlStateCache(GL20 gl)
+	{
+		_gl = gl;
+		_uniforms = new HashMap<>();
+		_boundTextures = new int[TEXTURE_UNITS];
+		invalidate();
+	}
+
+	/**
+	 * Forgets everything known about the GL state so that the next call of each kind will always reach GL.
+	 */
+	public void invalidate()
+	{
+		_program = null;
+		_uniforms.clear();
+		_activeTextureUnit = -1;
+		for (int i = 0; i < _boundTextures.length; ++i)
+		{
+			_boundTextures[i] = -1;
+		}
+		_arrayBuffer = -1;
+		_pointerAttributes = null;
+		_enabledAttributes = 0;
+	}
+
+	public void useProgram(Program program)
+	{
+		if (program != _program)
+		{
+			program.useProgram();
+			_program = program;
+			// Uniform values belong to the program so we only track those of the current program.
+			_uniforms.clear();
+		}
+	}
+
+	/**
+	 * Binds the given texture to a texture unit.  Note that this leaves the given unit as the active unit.
+	 * 
+	 * @param unit The texture unit (GL_TEXTURE0, for example).
+	 * @param texture The 2D texture to bind.
+	 */
+	public void bindTexture(int unit, int texture)
+	{
+		if (unit != _activeTextureUnit)
+		{
+			_gl.glActiveTexture(unit);
+			_activeTextureUnit = unit;
+		}
+		int index = unit - GL20.GL_TEXTURE0;
+		if (texture != _boundTextures[index])
+		{
+			_gl.glBindTexture(GL20.GL_TEXTURE_2D, texture);
+			_boundTextures[index] = texture;
+		}
+	}
+
+	/**
+	 * Uploads a matrix uniform of the current program.  Since the matrix may have been changed in-place since it was
+	 * last uploaded, this compares the elements, not the instance, and is skipped if they are all the same.
+	 * 
+	 * @param location The uniform location.
+	 * @param matrix The matrix to upload.
+	 */
+	public void uniformMatrix(int location, MutableMatrix matrix)
+	{
+		Object cached = _uniforms.get(location);
+		float[] values = (cached instanceof float[])
+			? (float[])cached
+			: null
+		;
+		if ((null == values) || !matrix.matchesRowInner(values))
+		{
+			matrix.uploadAsUniform(_gl, location);
+			// We reuse the existing array, if there is one, so that repeated uploads don't allocate.
+			if (null == values)
+			{
+				values = new float[MutableMatrix.ELEMENTS];
+				_uniforms.put(location, values);
+			}
+			matrix.copyRowInner(values);
+		}
+	}
+
+	public void uniform1i(int location, int value)
+	{
+		float[] cached = _cachedFloats(location);
+		if ((null == cached) || (cached[0] != (float)value))
+		{
+			_gl.glUniform1i(location, value);
+			_storeFloats(location, cached, (float)value, 0.0f, 0.0f);
+		}
+	}
+
+	public void uniform1f(int location, float value)
+	{
+		float[] cached = _cachedFloats(location);
+		if ((null == cached) || (cached[0] != value))
+		{
+			_gl.glUniform1f(location, value);
+			_storeFloats(location, cached, value, 0.0f, 0.0f);
+		}
+	}
+
+	public void uniform2f(int location, float x, float y)
+	{
+		float[] cached = _cachedFloats(location);
+		if ((null == cached) || (cached[0] != x) || (cached[1] != y))
+		{
+			_gl.glUniform2f(location, x, y);
+			_storeFloats(location, cached, x, y, 0.0f);
+		}
+	}
+
+	public void uniform3f(int location, float x, float y, float z)
+	{
+		float[] cached = _cachedFloats(location);
+		if ((null == cached) || (cached[0] != x) || (cached[1] != y) || (cached[2] != z))
+		{
+			_gl.glUniform3f(location, x, y, z);
+			_storeFloats(location, cached, x, y, z);
+		}
+	}
+
+	/**
+	 * Binds the given vertex buffer and points the vertex attributes into it.  This is skipped entirely if the same
+	 * buffer is already set up with the same attributes.
+	 * 
+	 * @param buffer The GL vertex buffer.
+	 * @param attributes The interleaved attributes of each vertex.
+	 * @param floatsPerVertex The total floats of all attributes in a vertex.
+	 */
+	public void bindVertexBuffer(int buffer, Attribute[] attributes, int floatsPerVertex)
+	{
+		if ((buffer != _arrayBuffer) || (attributes != _pointerAttributes))
+		{
+			if (buffer != _arrayBuffer)
+			{
+				_gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, buffer);
+				_arrayBuffer = buffer;
+			}
+			for (int i = _enabledAttributes; i < attributes.length; ++i)
+			{
+				_gl.glEnableVertexAttribArray(i);
+			}
+			_enabledAttributes = Math.max(_enabledAttributes, attributes.length);
+			
+			// The pointers capture the buffer bound when they are set so these must be set for every new buffer.
+			int floatOffset = 0;
+			for (int i = 0; i < attributes.length; ++i)
+			{
+				Attribute attribute = attributes[i];
+				_gl.glVertexAttribPointer(i, attribute.floats(), GL20.GL_FLOAT, false, floatsPerVertex * Float.BYTES, floatOffset * Float.BYTES);
+				floatOffset += attribute.floats();
+			}
+			_pointerAttributes = attributes;
+		}
+	}
+
+	public void drawTriangles(int firstVertex, int vertexCount)
+	{
+		_gl.glDrawArrays(GL20.GL_TRIANGLES, firstVertex, vertexCount);
+	}
+
+
+	private float[] _cachedFloats(int location)
+	{
+		// A location always has the same type so we store every vector size as a 3-element array, only comparing what is used.
+		Object cached = _uniforms.get(location);
+		return (cached instanceof float[])
+			? (float[])cached
+			: null
+		;
+	}
+
+	private void _storeFloats(int location, float[] cached, float x, float y, float z)
+	{
+		// We reuse the existing array, if there is one, so that repeated uploads don't allocate.
+		float[] values = cached;
+		if (null == values)
+		{
+			values = new float[] { x, y, z };
+			_uniforms.put(location, values);
+		}
+		values[0] = x;
+		values[1] = y;
+		values[2] = z;
+	}
+}
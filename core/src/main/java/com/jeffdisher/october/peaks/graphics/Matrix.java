@@ -246,6 +246,16 @@ public class Matrix
 		return _multiplyVectorComponents(x, y, z, w);
 	}
 
+	/**
+	 * Returns a copy of the 16 elements of the receiver, in row-inner order (that is, each row is contiguous).
+	 * 
+	 * @return A new array of the matrix elements.
+	 */
+	public float[] copyRowInner()
+	{
+		return _rowInner4x4.clone();
+	}
+
 	@Override
 	public String toString()
 	{
@@ -0,0 +1,313 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.jeffdisher.october.peaks.types.Vector;
+
+
+/**
+ * A 4x4 matrix which is changed in-place, for the transforms rebuilt every frame (or for every object in a frame).
+ * Unlike Matrix, none of the operations allocate:  Each instance owns its elements and the native buffer used to
+ * upload them as a uniform, so a renderer can keep a few of these as fields and reuse them forever.
+ * The elements are stored in the same row-inner order as Matrix.
+ */
+public class MutableMatrix
+{
+	public static final int ELEMENTS = 16;
+
+	private final float[] _rowInner4x4;
+	private final float[] _scratch;
+	private final FloatBuffer _uploadBuffer;
+
+	/**
+	 * Creates a new matrix, initialized to the identity.
+	 */
+	public MutableMatrix()
+	{
+		_rowInner4x4 = new float[ELEMENTS];
+		_scratch = new float[ELEMENTS];
+		ByteBuffer direct = ByteBuffer.allocateDirect(ELEMENTS * Float.BYTES);
+		direct.order(ByteOrder.nativeOrder());
+		_uploadBuffer = direct.asFloatBuffer();
+		setIdentity();
+	}
+
+	public void setIdentity()
+	{
+		_set(_rowInner4x4
+			, 1.0f, 0.0f, 0.0f, 0.0f
+			, 0.0f, 1.0f, 0.0f, 0.0f
+			, 0.0f, 0.0f, 1.0f, 0.0f
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	public void setTranslate(float x, float y, float z)
+	{
+		_set(_rowInner4x4
+			, 1.0f, 0.0f, 0.0f, x
+			, 0.0f, 1.0f, 0.0f, y
+			, 0.0f, 0.0f, 1.0f, z
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	public void setRotateX(float radians)
+	{
+		float sin = (float)Math.sin(radians);
+		float cos = (float)Math.cos(radians);
+		_set(_rowInner4x4
+			, 1.0f, 0.0f, 0.0f, 0.0f
+			, 0.0f, cos, -sin, 0.0f
+			, 0.0f, sin, cos, 0.0f
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	public void setRotateZ(float radians)
+	{
+		float sin = (float)Math.sin(radians);
+		float cos = (float)Math.cos(radians);
+		_set(_rowInner4x4
+			, cos, -sin, 0.0f, 0.0f
+			, sin, cos, 0.0f, 0.0f
+			, 0.0f, 0.0f, 1.0f, 0.0f
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	/**
+	 * Sets the receiver to the same projection as Matrix.perspective().
+	 * 
+	 * @param fieldOfViewDegreesX The full horizontal field of view, in degrees.
+	 * @param aspectX The width divided by the height.
+	 * @param zNear The distance to the near plane.
+	 * @param zFar The distance to the far plane.
+	 */
+	public void setPerspective(float fieldOfViewDegreesX, float aspectX, float zNear, float zFar)
+	{
+		double fieldInRadians = fieldOfViewDegreesX / 180.0f * Math.PI;
+		float halfXTop = zNear * (float)Math.tan(fieldInRadians / 2.0);
+		float halfYTop = halfXTop / aspectX;
+		
+		// See Matrix._frustum() for the derivation (this is the same, with a symmetric frustum).
+		float width = 2.0f * halfXTop;
+		float height = 2.0f * halfYTop;
+		float depth = zFar - zNear;
+		float near2 = 2.0f * zNear;
+		_set(_rowInner4x4
+			, near2 / width, 0.0f, 0.0f, 0.0f
+			, 0.0f, near2 / height, 0.0f, 0.0f
+			, 0.0f, 0.0f, -(zFar + zNear) / depth, -(near2 * zFar) / depth
+			, 0.0f, 0.0f, -1.0f, 0.0f
+		);
+	}
+
+	/**
+	 * Sets the receiver to the same view transform as Matrix.lookAt().
+	 * 
+	 * @param eye The location of the camera.
+	 * @param target The location the camera is looking at.
+	 * @param up The up direction of the camera.
+	 */
+	public void setLookAt(Vector eye, Vector target, Vector up)
+	{
+		setLookAt(eye.x(), eye.y(), eye.z(), target.x(), target.y(), target.z(), up.x(), up.y(), up.z());
+	}
+
+	/**
+	 * Sets the receiver to the same view transform as Matrix.lookAt(), but with each vector as components, so that
+	 * callers which compute these don't need to allocate Vector instances.
+	 */
+	public void setLookAt(float eyeX, float eyeY, float eyeZ
+		, float targetX, float targetY, float targetZ
+		, float upX, float upY, float upZ
+	)
+	{
+		// forward = normalize(target - eye)
+		float forwardX = targetX - eyeX;
+		float forwardY = targetY - eyeY;
+		float forwardZ = targetZ - eyeZ;
+		float forwardLength = _length(forwardX, forwardY, forwardZ);
+		forwardX /= forwardLength;
+		forwardY /= forwardLength;
+		forwardZ /= forwardLength;
+		
+		// side = normalize(forward x up)
+		float sideX = (forwardY * upZ) - (forwardZ * upY);
+		float sideY = (forwardZ * upX) - (forwardX * upZ);
+		float sideZ = (forwardX * upY) - (forwardY * upX);
+		float sideLength = _length(sideX, sideY, sideZ);
+		sideX /= sideLength;
+		sideY /= sideLength;
+		sideZ /= sideLength;
+		
+		// normalUp = normalize(side x forward)
+		float normalUpX = (sideY * forwardZ) - (sideZ * forwardY);
+		float normalUpY = (sideZ * forwardX) - (sideX * forwardZ);
+		float normalUpZ = (sideX * forwardY) - (sideY * forwardX);
+		float normalUpLength = _length(normalUpX, normalUpY, normalUpZ);
+		normalUpX /= normalUpLength;
+		normalUpY /= normalUpLength;
+		normalUpZ /= normalUpLength;
+		
+		float translateX = -(sideX * eyeX) - (sideY * eyeY) - (sideZ * eyeZ);
+		float translateY = -(normalUpX * eyeX) - (normalUpY * eyeY) - (normalUpZ * eyeZ);
+		float translateZ = (forwardX * eyeX) + (forwardY * eyeY) + (forwardZ * eyeZ);
+		_set(_rowInner4x4
+			, sideX, sideY, sideZ, translateX
+			, normalUpX, normalUpY, normalUpZ, translateY
+			, -forwardX, -forwardY, -forwardZ, translateZ
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	/**
+	 * Sets the receiver to the same rotation as Matrix.rotateToFace():  A pitch around X followed by a yaw around Z
+	 * which turns the Y axis to face the given direction.
+	 * 
+	 * @param x The X component of the facing vector.
+	 * @param y The Y component of the facing vector.
+	 * @param z The Z component of the facing vector.
+	 */
+	public void setRotateToFace(float x, float y, float z)
+	{
+		float xyLength = (float)Math.sqrt((x * x) + (y * y));
+		double pitchRadians = (xyLength > 0.0f)
+			? Math.atan(z / xyLength)
+			: Math.signum(z) * 0.5f * Math.PI
+		;
+		// Note that the Y is North and the X is East, but the yaw is counter-clockwise radians from North, so we need to negate X.
+		double yawRadians = Math.atan(-x / y);
+		if (y < 0.0f)
+		{
+			yawRadians += Math.PI;
+		}
+		float sinPitch = (float)Math.sin(pitchRadians);
+		float cosPitch = (float)Math.cos(pitchRadians);
+		float sinYaw = (float)Math.sin(yawRadians);
+		float cosYaw = (float)Math.cos(yawRadians);
+		// This is rotateZ(yaw) * rotateX(pitch), multiplied out.
+		_set(_rowInner4x4
+			, cosYaw, -sinYaw * cosPitch, sinYaw * sinPitch, 0.0f
+			, sinYaw, cosYaw * cosPitch, -cosYaw * sinPitch, 0.0f
+			, 0.0f, sinPitch, cosPitch, 0.0f
+			, 0.0f, 0.0f, 0.0f, 1.0f
+		);
+	}
+
+	/**
+	 * Sets the receiver to left * right.  Either argument may be the receiver.
+	 * 
+	 * @param left The matrix on the left of the product.
+	 * @param right The matrix on the right of the product.
+	 */
+	public void setMultiply(MutableMatrix left, MutableMatrix right)
+	{
+		_multiply(left._rowInner4x4, right._rowInner4x4, _scratch);
+		System.arraycopy(_scratch, 0, _rowInner4x4, 0, ELEMENTS);
+	}
+
+	public void uploadAsUniform(GL20 gl, int uniform)
+	{
+		_uploadBuffer.clear();
+		_uploadBuffer.put(_rowInner4x4);
+		_uploadBuffer.flip();
+		// We want to use the transposition since we use a row-inner representation.
+		gl.glUniformMatrix4fv(uniform, 1, true, _uploadBuffer);
+	}
+
+	/**
+	 * Multiplies the receiver against the given vector, writing the result into out.
+	 * 
+	 * @param x X vector component.
+	 * @param y Y vector component.
+	 * @param z Z vector component.
+	 * @param w W vector component.
+	 * @param out The 4-element array to receive the result.
+	 */
+	public void multiplyVectorComponents(float x, float y, float z, float w, float[] out)
+	{
+		for (int row = 0; row < 4; ++row)
+		{
+			int base = 4 * row;
+			out[row] = (_rowInner4x4[base] * x) + (_rowInner4x4[base + 1] * y) + (_rowInner4x4[base + 2] * z) + (_rowInner4x4[base + 3] * w);
+		}
+	}
+
+	/**
+	 * Copies the 16 elements of the receiver, in row-inner order, into the given array.
+	 * 
+	 * @param out The 16-element array to receive the elements.
+	 */
+	public void copyRowInner(float[] out)
+	{
+		System.arraycopy(_rowInner4x4, 0, out, 0, ELEMENTS);
+	}
+
+	/**
+	 * Checks if the receiver has exactly the given elements.
+	 * 
+	 * @param rowInner The 16 elements to compare, in row-inner order.
+	 * @return True if every element is the same.
+	 */
+	public boolean matchesRowInner(float[] rowInner)
+	{
+		boolean matches = true;
+		for (int i = 0; matches && (i < ELEMENTS); ++i)
+		{
+			matches = (rowInner[i] == _rowInner4x4[i]);
+		}
+		return matches;
+	}
+
+
+	private static float _length(float x, float y, float z)
+	{
+		return (float)Math.sqrt((x * x) + (y * y) + (z * z));
+	}
+
+	private static void _multiply(float[] l, float[] r, float[] out)
+	{
+		for (int row = 0; row < 4; ++row)
+		{
+			int base = 4 * row;
+			for (int column = 0; column < 4; ++column)
+			{
+				out[base + column] = (l[base] * r[column])
+					+ (l[base + 1] * r[4 + column])
+					+ (l[base + 2] * r[8 + column])
+					+ (l[base + 3] * r[12 + column])
+				;
+			}
+		}
+	}
+
+	private static void _set(float[] m
+		, float m00, float m01, float m02, float m03
+		, float m10, float m11, float m12, float m13
+		, float m20, float m21, float m22, float m23
+		, float m30, float m31, float m32, float m33
+	)
+	{
+		m[0] = m00;
+		m[1] = m01;
+		m[2] = m02;
+		m[3] = m03;
+		m[4] = m10;
+		m[5] = m11;
+		m[6] = m12;
+		m[7] = m13;
+		m[8] = m20;
+		m[9] = m21;
+		m[10] = m22;
+		m[11] = m23;
+		m[12] = m30;
+		m[13] = m31;
+		m[14] = m32;
+		m[15] = m33;
+	}
+}
@@ -0,0 +1,108 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * A framebuffer with a colour texture and a depth buffer, used to render into something other than the screen.
+ * The storage is only reallocated when the requested size changes.
+ */
+public class OffscreenTarget
+{
+	private final GL20 _gl;
+	private final int _framebuffer;
+	private final int _colourTexture;
+	private final int _depthBuffer;
+	private final int _depthFormat;
+	private int _width;
+	private int _height;
+
+	public OffscreenTarget(GL20 gl)
+	{
+		_gl = gl;
+		_framebuffer = gl.glGenFramebuffer();
+		_colourTexture = gl.glGenTexture();
+		_depthBuffer = gl.glGenRenderbuffer();
+		_depthFormat = _supportsDepth24(gl)
+			? GL30.GL_DEPTH_COMPONENT24
+			: GL20.GL_DEPTH_COMPONENT16
+		;
+		_width = 0;
+		_height = 0;
+	}
+
+	/**
+	 * Binds this framebuffer for drawing, at the given size, and sets the viewport to cover it.  Note that this leaves
+	 * texture unit 0 bound to the colour texture if it was resized.
+	 * 
+	 * @param width The width, in pixels.
+	 * @param height The height, in pixels.
+	 */
+	public void bindForDrawing(int width, int height)
+	{
+		Assert.assertTrue((width > 0) && (height > 0));
+		if ((width != _width) || (height != _height))
+		{
+			_allocateStorage(width, height);
+		}
+		else
+		{
+			_gl.glBindFramebuffer(GL20.GL_FRAMEBUFFER, _framebuffer);
+		}
+		_gl.glViewport(0, 0, width, height);
+	}
+
+	/**
+	 * @return The texture containing what was drawn into this framebuffer.
+	 */
+	public int getColourTexture()
+	{
+		return _colourTexture;
+	}
+
+	public void delete()
+	{
+		_gl.glDeleteFramebuffer(_framebuffer);
+		_gl.glDeleteTexture(_colourTexture);
+		_gl.glDeleteRenderbuffer(_depthBuffer);
+	}
+
+
+	private void _allocateStorage(int width, int height)
+	{
+		// The colour texture is sampled with linear filtering since it is stretched over the screen.
+		_gl.glActiveTexture(GL20.GL_TEXTURE0);
+		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _colourTexture);
+		_gl.glTexImage2D(GL20.GL_TEXTURE_2D, 0, GL20.GL_RGBA, width, height, 0, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, null);
+		_gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_S, GL20.GL_CLAMP_TO_EDGE);
+		_gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_WRAP_T, GL20.GL_CLAMP_TO_EDGE);
+		_gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MIN_FILTER, GL20.GL_LINEAR);
+		_gl.glTexParameteri(GL20.GL_TEXTURE_2D, GL20.GL_TEXTURE_MAG_FILTER, GL20.GL_LINEAR);
+		
+		// We prefer a 24-bit depth buffer for precision near the far plane but will fall back to 16 bits (which is all
+		// GLES2 guarantees) if that isn't supported.
+		_gl.glBindRenderbuffer(GL20.GL_RENDERBUFFER, _depthBuffer);
+		_gl.glRenderbufferStorage(GL20.GL_RENDERBUFFER, _depthFormat, width, height);
+		
+		_gl.glBindFramebuffer(GL20.GL_FRAMEBUFFER, _framebuffer);
+		_gl.glFramebufferTexture2D(GL20.GL_FRAMEBUFFER, GL20.GL_COLOR_ATTACHMENT0, GL20.GL_TEXTURE_2D, _colourTexture, 0);
+		_gl.glFramebufferRenderbuffer(GL20.GL_FRAMEBUFFER, GL20.GL_DEPTH_ATTACHMENT, GL20.GL_RENDERBUFFER, _depthBuffer);
+		Assert.assertTrue(GL20.GL_FRAMEBUFFER_COMPLETE == _gl.glCheckFramebufferStatus(GL20.GL_FRAMEBUFFER));
+		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
+		_width = width;
+		_height = height;
+	}
+
+	private static boolean _supportsDepth24(GL20 gl)
+	{
+		// Desktop GL and GLES3 always support 24-bit depth renderbuffers while GLES2 only has them with GL_OES_depth24
+		// (which uses the same enum value as GL_DEPTH_COMPONENT24).
+		String version = gl.glGetString(GL20.GL_VERSION);
+		String extensions = gl.glGetString(GL20.GL_EXTENSIONS);
+		boolean isGles2 = (null != version) && version.startsWith("OpenGL ES 2");
+		boolean hasExtension = (null != extensions) && extensions.contains("GL_OES_depth24");
+		return !isGles2 || hasExtension;
+	}
+}
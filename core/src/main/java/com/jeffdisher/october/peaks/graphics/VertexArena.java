@@ -0,0 +1,253 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Sub-allocates vertex arrays from a few large GL buffers ("chunks"), so that meshes which are constantly created and
+ * discarded don't each need to create and delete their own GL buffer.  New meshes are written into existing storage
+ * with glBufferSubData.
+ * Every allocation is rounded up to a power-of-two size class.  Freed ranges are kept on a free list for their class,
+ * so the next allocation of that class can reuse them directly.  When no chunk has room, the free lists are first
+ * returned to their chunks (where neighbouring ranges merge) before a new chunk is created.
+ * When the last live range of a chunk is freed, the chunk's GL buffer is deleted, unless it is the only chunk left.
+ * Note that the VertexArray instances returned from this must be passed back to free(), not deleted.
+ */
+public class VertexArena
+{
+	public static final int CHUNK_VERTICES = 512 * 1024;
+	public static final int MIN_CLASS_VERTICES = 64;
+
+	/**
+	 * Returns the size class of an allocation of the given number of vertices.
+	 * 
+	 * @param vertexCount The number of vertices required.
+	 * @return The number of vertices which will actually be reserved.
+	 */
+	public static int sizeClass(int vertexCount)
+	{
+		Assert.assertTrue(vertexCount > 0);
+		int size = MIN_CLASS_VERTICES;
+		while (size < vertexCount)
+		{
+			size <<= 1;
+		}
+		return size;
+	}
+
+
+	private final GL20 _gl;
+	private final Attribute[] _attributes;
+	private final int _floatsPerVertex;
+	private final int _chunkVertices;
+	private final Map<Integer, _Chunk> _chunksByBuffer;
+	private final Map<Integer, List<_Range>> _freeBySizeClass;
+
+	public VertexArena(GL20 gl, Attribute[] attributes)
+	{
+		this(gl, attributes, CHUNK_VERTICES);
+	}
+
+	/**
+	 * Creates an arena whose chunks hold the given number of vertices, for meshes much smaller than the cuboid layers.
+	 * 
+	 * @param gl The GL interface.
+	 * @param attributes The vertex layout of everything in the arena.
+	 * @param chunkVertices The number of vertices in each new chunk (larger allocations get a chunk of their own size).
+	 */
+	public VertexArena(GL20 gl, Attribute[] attributes, int chunkVertices)
+	{
+		Assert.assertTrue(chunkVertices >= MIN_CLASS_VERTICES);
+		_gl = gl;
+		_attributes = attributes;
+		int floatsPerVertex = 0;
+		for (Attribute attribute : attributes)
+		{
+			floatsPerVertex += attribute.floats();
+		}
+		_floatsPerVertex = floatsPerVertex;
+		_chunkVertices = chunkVertices;
+		_chunksByBuffer = new HashMap<>();
+		_freeBySizeClass = new HashMap<>();
+	}
+
+	/**
+	 * Reserves a range for the given number of vertices, without writing anything into it.
+	 * 
+	 * @param vertexCount The number of vertices to reserve.
+	 * @return The VertexArray over the range, drawing vertexCount vertices.
+	 */
+	public VertexArray reserve(int vertexCount)
+	{
+		int size = sizeClass(vertexCount);
+		_Range range = null;
+		List<_Range> free = _freeBySizeClass.get(size);
+		if ((null != free) && !free.isEmpty())
+		{
+			range = free.remove(free.size() - 1);
+		}
+		else
+		{
+			range = _carve(size);
+			if (null == range)
+			{
+				// Return everything on the free lists to the chunks, so it can merge, before growing.
+				_releaseFreeLists();
+				range = _carve(size);
+			}
+			if (null == range)
+			{
+				_Chunk chunk = _createChunk(Math.max(_chunkVertices, size));
+				int firstVertex = chunk.ranges.allocate(size);
+				range = new _Range(chunk, firstVertex, size);
+			}
+		}
+		range.chunk().live.put(range.firstVertex(), range);
+		return new VertexArray(range.chunk().buffer, range.firstVertex(), vertexCount, _attributes);
+	}
+
+	/**
+	 * Writes the given vertices into a new range.
+	 * 
+	 * @param vertices The vertices to write.
+	 * @return The VertexArray over the new range, drawing all of the written vertices.
+	 */
+	public VertexArray upload(BufferBuilder.Buffer vertices)
+	{
+		VertexArray array = reserve(vertices.vertexCount);
+		array.replaceVertices(_gl, 0, vertices.getVertices(0, vertices.vertexCount));
+		return array;
+	}
+
+	/**
+	 * Frees a range previously returned by reserve() or upload(), or any view of it created by withTotalVertices().
+	 * 
+	 * @param array The vertex array over the range.
+	 */
+	public void free(VertexArray array)
+	{
+		_Chunk chunk = _chunksByBuffer.get(array.getBuffer());
+		Assert.assertTrue(null != chunk);
+		_Range range = chunk.live.remove(array.getFirstVertex());
+		Assert.assertTrue(null != range);
+		if (chunk.live.isEmpty() && (_chunksByBuffer.size() > 1))
+		{
+			// Nothing else is in this chunk so give its storage back to GL, instead of keeping the free ranges.
+			// We keep the last chunk, though, so that a scene which is briefly empty doesn't need to recreate it.
+			_deleteChunk(chunk);
+		}
+		else
+		{
+			List<_Range> free = _freeBySizeClass.get(range.size());
+			if (null == free)
+			{
+				free = new ArrayList<>();
+				_freeBySizeClass.put(range.size(), free);
+			}
+			free.add(range);
+		}
+	}
+
+	/**
+	 * @return The total bytes of GL buffer storage held by the arena.
+	 */
+	public long getChunkBytes()
+	{
+		long vertices = 0L;
+		for (_Chunk chunk : _chunksByBuffer.values())
+		{
+			vertices += chunk.ranges.getCapacity();
+		}
+		return vertices * _floatsPerVertex * Float.BYTES;
+	}
+
+	public void shutdown()
+	{
+		for (_Chunk chunk : _chunksByBuffer.values())
+		{
+			_gl.glDeleteBuffer(chunk.buffer);
+		}
+		_chunksByBuffer.clear();
+		_freeBySizeClass.clear();
+	}
+
+
+	private _Range _carve(int size)
+	{
+		_Range range = null;
+		for (_Chunk chunk : _chunksByBuffer.values())
+		{
+			if (null == range)
+			{
+				int firstVertex = chunk.ranges.allocate(size);
+				if (firstVertex >= 0)
+				{
+					range = new _Range(chunk, firstVertex, size);
+				}
+			}
+		}
+		return range;
+	}
+
+	private void _releaseFreeLists()
+	{
+		for (List<_Range> free : _freeBySizeClass.values())
+		{
+			for (_Range range : free)
+			{
+				range.chunk().ranges.free(range.firstVertex(), range.size());
+			}
+		}
+		_freeBySizeClass.clear();
+	}
+
+	private void _deleteChunk(_Chunk chunk)
+	{
+		// Any free ranges in this chunk are still on the free lists so drop them before the buffer goes away.
+		for (List<_Range> free : _freeBySizeClass.values())
+		{
+			free.removeIf((_Range range) -> (chunk == range.chunk()));
+		}
+		_chunksByBuffer.remove(chunk.buffer);
+		_gl.glDeleteBuffer(chunk.buffer);
+	}
+
+	private _Chunk _createChunk(int capacityVertices)
+	{
+		int buffer = _gl.glGenBuffer();
+		Assert.assertTrue(buffer > 0);
+		_gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, buffer);
+		_gl.glBufferData(GL20.GL_ARRAY_BUFFER, capacityVertices * _floatsPerVertex * Float.BYTES, null, GL20.GL_DYNAMIC_DRAW);
+		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
+		_Chunk chunk = new _Chunk(buffer, capacityVertices);
+		_chunksByBuffer.put(buffer, chunk);
+		return chunk;
+	}
+
+
+	private static class _Chunk
+	{
+		public final int buffer;
+		public final VertexRangeAllocator ranges;
+		// The ranges currently in use, keyed by their first vertex.
+		public final Map<Integer, _Range> live;
+		
+		public _Chunk(int buffer, int capacityVertices)
+		{
+			this.buffer = buffer;
+			this.ranges = new VertexRangeAllocator(capacityVertices);
+			this.live = new HashMap<>();
+		}
+	}
+
+	private static record _Range(_Chunk chunk
+		, int firstVertex
+		, int size
+	) {}
+}
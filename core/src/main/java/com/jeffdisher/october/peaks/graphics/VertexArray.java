@@ -1,9 +1,11 @@
 package com.jeffdisher.october.peaks.graphics;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
 import com.badlogic.gdx.graphics.GL20;
+import com.jeffdisher.october.utils.Assert;
 
 
 /**
@@ -12,13 +14,29 @@ import com.badlogic.gdx.graphics.GL20;
 public class VertexArray
 {
 	private final int _buffer;
+	private final int _firstVertex;
 	public final int totalVertices;
 	private final Attribute[] _attributes;
 	private final int _totalFloats;
 
 	public VertexArray(int buffer, int totalVertices, Attribute[] attributes)
+	{
+		this(buffer, 0, totalVertices, attributes);
+	}
+
+	/**
+	 * Creates a vertex array over a range of a GL buffer which may be shared with other vertex arrays.  Note that the
+	 * owner of the shared buffer is responsible for deleting it, not the VertexArray.
+	 * 
+	 * @param buffer The GL buffer.
+	 * @param firstVertex The first vertex of this array within the buffer.
+	 * @param totalVertices The number of vertices in this array.
+	 * @param attributes The attributes of each vertex.
+	 */
+	public VertexArray(int buffer, int firstVertex, int totalVertices, Attribute[] attributes)
 	{
 		_buffer = buffer;
+		_firstVertex = firstVertex;
 		this.totalVertices = totalVertices;
 		_attributes = attributes;
 		_totalFloats = Arrays.stream(_attributes)
@@ -29,13 +47,63 @@ public class VertexArray
 	public void drawAllTriangles(GL20 gl)
 	{
 		_setupBuffer(gl);
-		gl.glDrawArrays(GL20.GL_TRIANGLES, 0, this.totalVertices);
+		gl.glDrawArrays(GL20.GL_TRIANGLES, _firstVertex, this.totalVertices);
+	}
+
+	/**
+	 * Draws the triangles through the given state cache, which skips setting up the buffer if it was the last one
+	 * drawn.
+	 * 
+	 * @param state The GL state cache.
+	 */
+	public void drawAllTriangles(GlStateCache state)
+	{
+		state.bindVertexBuffer(_buffer, _attributes, _totalFloats);
+		state.drawTriangles(_firstVertex, this.totalVertices);
 	}
 
 	public void drawAllLines(GL20 gl)
 	{
 		_setupBuffer(gl);
-		gl.glDrawArrays(GL20.GL_LINES, 0, this.totalVertices);
+		gl.glDrawArrays(GL20.GL_LINES, _firstVertex, this.totalVertices);
+	}
+
+	/**
+	 * Overwrites part of the buffer, in-place, with the given vertices.
+	 * 
+	 * @param gl The GL interface.
+	 * @param firstVertex The index of the first vertex to overwrite, relative to the start of this array.
+	 * @param vertices The vertex data to write (all remaining floats are written).
+	 */
+	public void replaceVertices(GL20 gl, int firstVertex, FloatBuffer vertices)
+	{
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, _buffer);
+		gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, (_firstVertex + firstVertex) * _totalFloats * Float.BYTES, vertices.remaining() * Float.BYTES, vertices);
+		Assert.assertTrue(GL20.GL_NO_ERROR == gl.glGetError());
+	}
+
+	/**
+	 * Creates a new view of the same GL buffer which draws a different number of vertices.  This is used when vertices
+	 * have been written into the unused capacity at the end of the buffer.
+	 * 
+	 * @param totalVertices The number of vertices to draw.
+	 * @return The new VertexArray, sharing the same GL buffer.
+	 */
+	public VertexArray withTotalVertices(int totalVertices)
+	{
+		return new VertexArray(_buffer, _firstVertex, totalVertices, _attributes);
+	}
+
+	/**
+	 * Creates a view of a sub-range of the receiver's vertices, in the same GL buffer.
+	 * 
+	 * @param firstVertex The first vertex of the view, relative to the start of this array.
+	 * @param totalVertices The number of vertices in the view.
+	 * @return The new VertexArray, sharing the same GL buffer.
+	 */
+	public VertexArray subArray(int firstVertex, int totalVertices)
+	{
+		return new VertexArray(_buffer, _firstVertex + firstVertex, totalVertices, _attributes);
 	}
 
 	public void delete(GL20 gl)
@@ -44,6 +112,16 @@ public class VertexArray
 	}
 
 
+	int getBuffer()
+	{
+		return _buffer;
+	}
+
+	int getFirstVertex()
+	{
+		return _firstVertex;
+	}
+
 	private void _setupBuffer(GL20 gl)
 	{
 		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, _buffer);
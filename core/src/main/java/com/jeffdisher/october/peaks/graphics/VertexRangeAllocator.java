@@ -0,0 +1,125 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Hands out ranges of vertices from a fixed-size GL buffer, first-fit.  Freed ranges are merged with any free
+ * neighbours so that they can be reused for larger ranges.
+ * This only does the book-keeping:  The caller owns the GL buffer itself.
+ */
+public class VertexRangeAllocator
+{
+	private final int _capacity;
+	// Maps the first vertex of each free range to its vertex count.
+	private final TreeMap<Integer, Integer> _freeRanges;
+	private int _allocatedVertices;
+
+	public VertexRangeAllocator(int capacity)
+	{
+		Assert.assertTrue(capacity > 0);
+		_capacity = capacity;
+		_freeRanges = new TreeMap<>();
+		_freeRanges.put(0, capacity);
+		_allocatedVertices = 0;
+	}
+
+	/**
+	 * Allocates a range of the given number of vertices, from the lowest free range where it fits.
+	 *
+	 * @param count The number of vertices.
+	 * @return The first vertex of the range, or -1 if there is no free range large enough.
+	 */
+	public int allocate(int count)
+	{
+		Assert.assertTrue(count > 0);
+		int first = -1;
+		Map.Entry<Integer, Integer> fit = null;
+		for (Map.Entry<Integer, Integer> elt : _freeRanges.entrySet())
+		{
+			if ((null == fit) && (elt.getValue() >= count))
+			{
+				fit = elt;
+			}
+		}
+		if (null != fit)
+		{
+			first = fit.getKey();
+			int remaining = fit.getValue() - count;
+			_freeRanges.remove(first);
+			if (remaining > 0)
+			{
+				_freeRanges.put(first + count, remaining);
+			}
+			_allocatedVertices += count;
+		}
+		return first;
+	}
+
+	/**
+	 * Returns a range, previously allocated, to the free ranges.
+	 *
+	 * @param first The first vertex of the range.
+	 * @param count The number of vertices in the range.
+	 */
+	public void free(int first, int count)
+	{
+		Assert.assertTrue((first >= 0) && ((first + count) <= _capacity));
+		int start = first;
+		int end = first + count;
+
+		// Merge with the free range before this one, if they touch.
+		Map.Entry<Integer, Integer> before = _freeRanges.floorEntry(first);
+		if (null != before)
+		{
+			int beforeEnd = before.getKey() + before.getValue();
+			Assert.assertTrue(beforeEnd <= first);
+			if (beforeEnd == first)
+			{
+				start = before.getKey();
+				_freeRanges.remove(start);
+			}
+		}
+		// Merge with the free range after this one, if they touch.
+		Map.Entry<Integer, Integer> after = _freeRanges.ceilingEntry(first);
+		if (null != after)
+		{
+			Assert.assertTrue(after.getKey() >= end);
+			if (after.getKey() == end)
+			{
+				end += after.getValue();
+				_freeRanges.remove(after.getKey());
+			}
+		}
+		_freeRanges.put(start, end - start);
+		_allocatedVertices -= count;
+		Assert.assertTrue(_allocatedVertices >= 0);
+	}
+
+	/**
+	 * @return True if nothing is allocated.
+	 */
+	public boolean isEmpty()
+	{
+		return (0 == _allocatedVertices);
+	}
+
+	/**
+	 * @return The total number of vertices in the buffer.
+	 */
+	public int getCapacity()
+	{
+		return _capacity;
+	}
+
+	/**
+	 * @return The number of vertices currently allocated.
+	 */
+	public int getAllocatedVertices()
+	{
+		return _allocatedVertices;
+	}
+}
@@ -30,6 +30,16 @@ public class MutablePreferences
 	public static final String KEY_SCREEN_BRIGHTNESS = "SCREEN_BRIGHTNESS";
 	public static final String KEY_VIEW_DISTANCE = "VIEW_DISTANCE";
 	public static final float DEFAULT_SCREEN_BRIGHTNESS = 1.0f;
+	public static final String KEY_GPU_MESH_BUDGET = "GPU_MESH_BUDGET_MB";
+	public static final int DEFAULT_GPU_MESH_BUDGET_MB = 512;
+	public static final String KEY_RENDER_SCALE = "RENDER_SCALE";
+	/**
+	 * The render scale which means that the scene resolution is chosen automatically, to keep the frame rate up.
+	 */
+	public static final float RENDER_SCALE_AUTOMATIC = 0.0f;
+	public static final float DEFAULT_RENDER_SCALE = RENDER_SCALE_AUTOMATIC;
+	public static final String KEY_ADAPTIVE_VIEW_DISTANCE = "ADAPTIVE_VIEW_DISTANCE";
+	public static final boolean DEFAULT_ADAPTIVE_VIEW_DISTANCE = false;
 	// TODO:  Add the other options to the storage once we start applying them on start-up or connection.
 
 
@@ -38,6 +48,13 @@ public class MutablePreferences
 	public final Binding<Integer> preferredViewDistance;
 	public final Binding<String> clientName;
 	public final Binding<Float> screenBrightness;
+	public final Binding<Integer> gpuMeshBudgetMegabytes;
+	public final Binding<Float> renderScale;
+	/**
+	 * If true, the view distance is lowered when frames are slow or baking falls behind (preferredViewDistance is then
+	 * the most it will be raised back to).
+	 */
+	public final Binding<Boolean> adaptiveViewDistance;
 
 	public MutablePreferences(File localStorageDirectory)
 	{
@@ -48,6 +65,9 @@ public class MutablePreferences
 		this.preferredViewDistance = new Binding<>(MiscConstants.DEFAULT_CUBOID_VIEW_DISTANCE);
 		this.clientName = new Binding<>(DEFAULT_CLIENT_NAME);
 		this.screenBrightness = new Binding<>(DEFAULT_SCREEN_BRIGHTNESS);
+		this.gpuMeshBudgetMegabytes = new Binding<>(DEFAULT_GPU_MESH_BUDGET_MB);
+		this.renderScale = new Binding<>(DEFAULT_RENDER_SCALE);
+		this.adaptiveViewDistance = new Binding<>(DEFAULT_ADAPTIVE_VIEW_DISTANCE);
 		
 		// See if there is a version on disk with overrides.
 		if (_backingFile.exists())
@@ -69,6 +89,18 @@ public class MutablePreferences
 				{
 					this.screenBrightness.set(Float.valueOf(callbacks.data.get(KEY_SCREEN_BRIGHTNESS)));
 				}
+				if (callbacks.data.containsKey(KEY_GPU_MESH_BUDGET))
+				{
+					this.gpuMeshBudgetMegabytes.set(Integer.valueOf(callbacks.data.get(KEY_GPU_MESH_BUDGET)));
+				}
+				if (callbacks.data.containsKey(KEY_RENDER_SCALE))
+				{
+					this.renderScale.set(Float.valueOf(callbacks.data.get(KEY_RENDER_SCALE)));
+				}
+				if (callbacks.data.containsKey(KEY_ADAPTIVE_VIEW_DISTANCE))
+				{
+					this.adaptiveViewDistance.set(Boolean.valueOf(callbacks.data.get(KEY_ADAPTIVE_VIEW_DISTANCE)));
+				}
 				// TODO:  Read the other values here once we start persisting them.
 			}
 			catch (FileNotFoundException e)
@@ -98,6 +130,9 @@ public class MutablePreferences
 			stream.write(String.format("%s\t%d%n", KEY_VIEW_DISTANCE, this.preferredViewDistance.get()).getBytes(StandardCharsets.UTF_8));
 			stream.write(String.format("%s\t%s%n", KEY_CLIENT_NAME, this.clientName.get()).getBytes(StandardCharsets.UTF_8));
 			stream.write(String.format("%s\t%.2f%n", KEY_SCREEN_BRIGHTNESS, this.screenBrightness.get()).getBytes(StandardCharsets.UTF_8));
+			stream.write(String.format("%s\t%d%n", KEY_GPU_MESH_BUDGET, this.gpuMeshBudgetMegabytes.get()).getBytes(StandardCharsets.UTF_8));
+			stream.write(String.format("%s\t%.2f%n", KEY_RENDER_SCALE, this.renderScale.get()).getBytes(StandardCharsets.UTF_8));
+			stream.write(String.format("%s\t%b%n", KEY_ADAPTIVE_VIEW_DISTANCE, this.adaptiveViewDistance.get()).getBytes(StandardCharsets.UTF_8));
 			// TODO:  Write the other values here once we start persisting them.
 		}
 		catch (FileNotFoundException e)
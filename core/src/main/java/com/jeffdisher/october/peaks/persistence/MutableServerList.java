@@ -40,6 +40,8 @@ public class MutableServerList implements PollingClient.IListener
 	private final Thread _mainThread;
 	private final File _backingFile;
 	private final PollingClient _pollingClient;
+	// Called on the background thread whenever the status of a server changes.
+	private final Runnable _statusDidChange;
 	public final Binding<List<ServerRecord>> servers;
 
 	// A record is stored here while being checked for a special-case external call.  This is used for records which are
@@ -47,11 +49,12 @@ public class MutableServerList implements PollingClient.IListener
 	// It can only be accessed under lock.
 	private ServerRecord _shared_specialRequest;
 
-	public MutableServerList(File localStorageDirectory)
+	public MutableServerList(File localStorageDirectory, Runnable statusDidChange)
 	{
 		_mainThread = Thread.currentThread();
 		_backingFile = new File(localStorageDirectory, SERVER_LIST_FILE_NAME);
 		_pollingClient = new PollingClient(this);
+		_statusDidChange = statusDidChange;
 		
 		// Default to a mutable list.
 		this.servers = new Binding<>(new ArrayList<>());
@@ -168,6 +171,7 @@ public class MutableServerList implements PollingClient.IListener
 		{
 			found.isGood = false;
 			found.humanReadableStatus = "Timeout";
+			_statusDidChange.run();
 		}
 	}
 
@@ -200,6 +204,7 @@ public class MutableServerList implements PollingClient.IListener
 					? String.format("Ready(%d ms): %s", millisDelay, serverName)
 					: String.format("Wrong version: %d", version)
 			;
+			_statusDidChange.run();
 		}
 	}
 
@@ -32,6 +32,8 @@ public class ProfilingSession
 	public ProfilingSession(Environment environment
 		, GL20 gl
 		, Binding<Float> screenBrightness
+		, Binding<Integer> gpuMeshBudgetMegabytes
+		, Binding<Float> renderScale
 		, LoadedResources resources
 	)
 	{
@@ -44,6 +46,9 @@ public class ProfilingSession
 		this.scene = new SceneRenderer(environment
 			, gl
 			, screenBrightness
+			, gpuMeshBudgetMegabytes
+			, renderScale
+			, SceneRenderer.targetFrameNanos(Gdx.graphics.getDisplayMode().refreshRate)
 			, particleEngine
 			, resources
 			, _worldCache
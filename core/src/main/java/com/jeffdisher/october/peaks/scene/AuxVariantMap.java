@@ -3,7 +3,6 @@ package com.jeffdisher.october.peaks.scene;
 import com.jeffdisher.october.aspects.AspectRegistry;
 import com.jeffdisher.october.aspects.Environment;
 import com.jeffdisher.october.aspects.FlagsAspect;
-import com.jeffdisher.october.data.BlockProxy;
 import com.jeffdisher.october.data.IReadOnlyCuboidData;
 import com.jeffdisher.october.peaks.textures.AuxilliaryTextureAtlas;
 import com.jeffdisher.october.types.Block;
@@ -11,16 +10,46 @@ import com.jeffdisher.october.types.BlockAddress;
 
 
 /**
- * Used to combine various data sources we use to determine the AUX texture variant for a given block.
+ * Used to combine various data sources we use to determine the AUX texture data for a given block.
+ * Note that block damage is NOT part of this map since it is drawn as a dynamic decal layer, on top of the baked
+ * cuboid mesh (see getDamageVariant()), so the baked mesh always uses the NONE variant.
  */
 public class AuxVariantMap
 {
-	private final Environment _env;
+	/**
+	 * Determines the AUX texture variant used to show the damage on a block in the decal layer.
+	 * 
+	 * @param env The environment.
+	 * @param block The block type which is damaged.
+	 * @param damage The damage value of the block.
+	 * @return The BREAK_* variant to show for this damage.
+	 */
+	public static AuxilliaryTextureAtlas.Variant getDamageVariant(Environment env, Block block, int damage)
+	{
+		// We will favour showing cracks at a low damage, so the feedback is obvious
+		float damaged = (float) damage / (float)env.damage.getToughness(block);
+		
+		AuxilliaryTextureAtlas.Variant variant;
+		if (damaged > 0.6f)
+		{
+			variant = AuxilliaryTextureAtlas.Variant.BREAK_HIGH;
+		}
+		else if (damaged > 0.3f)
+		{
+			variant = AuxilliaryTextureAtlas.Variant.BREAK_MEDIUM;
+		}
+		else
+		{
+			variant = AuxilliaryTextureAtlas.Variant.BREAK_LOW;
+		}
+		return variant;
+	}
+
+
 	private final IReadOnlyCuboidData _cuboid;
 
 	public AuxVariantMap(Environment env, IReadOnlyCuboidData cuboid)
 	{
-		_env = env;
 		_cuboid = cuboid;
 	}
 
@@ -29,35 +58,4 @@ public class AuxVariantMap
 		byte flags = _cuboid.getData7(AspectRegistry.FLAGS, blockAddress);
 		return FlagsAspect.isSet(flags, FlagsAspect.FLAG_BURNING);
 	}
-
-	public AuxilliaryTextureAtlas.Variant get(BlockAddress blockAddress)
-	{
-		AuxilliaryTextureAtlas.Variant variant;
-		Integer obj = _cuboid.getDataSpecial(AspectRegistry.DAMAGE, blockAddress);
-		if (null != obj)
-		{
-			// We will favour showing cracks at a low damage, so the feedback is obvious
-			int damage = obj.intValue();
-			Block block = BlockProxy.load(blockAddress, _cuboid).getBlock();
-			float damaged = (float) damage / (float)_env.damage.getToughness(block);
-			
-			if (damaged > 0.6f)
-			{
-				variant = AuxilliaryTextureAtlas.Variant.BREAK_HIGH;
-			}
-			else if (damaged > 0.3f)
-			{
-				variant = AuxilliaryTextureAtlas.Variant.BREAK_MEDIUM;
-			}
-			else
-			{
-				variant = AuxilliaryTextureAtlas.Variant.BREAK_LOW;
-			}
-		}
-		else
-		{
-			variant = AuxilliaryTextureAtlas.Variant.NONE;
-		}
-		return variant;
-	}
 }
@@ -2,6 +2,7 @@ package com.jeffdisher.october.peaks.scene;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -11,6 +12,7 @@ import java.util.Set;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
+import com.jeffdisher.october.peaks.textures.BasicBlockAtlas;
 import com.jeffdisher.october.peaks.textures.RawTextureAtlas;
 import com.jeffdisher.october.peaks.textures.TextureHelpers;
 import com.jeffdisher.october.peaks.types.Prism;
@@ -34,43 +36,7 @@ public class BlockModelsAndAtlas
 		Map<Block, Indices> blockToIndex = new HashMap<>();
 		List<ModelBuffer> modelList = new ArrayList<>();
 		List<FileHandle> textureHandleList = new ArrayList<>();
-		for (Block block : blocks)
-		{
-			String itemId = block.item().id();
-			_ModelPair inactive = _loadPair("model_" + itemId + ".obj", "model_" + itemId + ".png");
-			if (null != inactive)
-			{
-				short inactiveIndex = (short)modelList.size();
-				String text = inactive.model.readString();
-				ModelBuffer model = ModelBuffer.buildFromWavefront(text);
-				modelList.add(model);
-				textureHandleList.add(inactive.texture);
-				
-				_ModelPair active = _loadPair("model_" + itemId + "_ACTIVE.obj", "model_" + itemId + "_ACTIVE.png");
-				short activeIndex = inactiveIndex;
-				if (null != active)
-				{
-					activeIndex = (short)modelList.size();
-					text = active.model.readString();
-					model = ModelBuffer.buildFromWavefront(text);
-					modelList.add(model);
-					textureHandleList.add(active.texture);
-				}
-				
-				_ModelPair down = _loadPair("model_" + itemId + "_DOWN.obj", "model_" + itemId + "_DOWN.png");
-				short downIndex = inactiveIndex;
-				if (null != down)
-				{
-					downIndex = (short)modelList.size();
-					text = down.model.readString();
-					model = ModelBuffer.buildFromWavefront(text);
-					modelList.add(model);
-					textureHandleList.add(down.texture);
-				}
-				
-				blockToIndex.put(block, new Indices(inactiveIndex, activeIndex, downIndex));
-			}
-		}
+		_loadModels(blocks, blockToIndex, modelList, textureHandleList);
 		
 		// Assemble the atlas.
 		FileHandle[] handles = textureHandleList.toArray((int size) -> new FileHandle[size]);
@@ -80,6 +46,37 @@ public class BlockModelsAndAtlas
 		return new BlockModelsAndAtlas(blockToIndex, models, atlas);
 	}
 
+	/**
+	 * Loads the block models, as loadForItems() does, but packs their textures into one atlas with the basic textures
+	 * of all the blocks which don't have models.  This way, the basic blocks and models can be drawn together.
+	 * Note that the returned BasicBlockAtlas owns the shared texture:  Only it should be shut down.
+	 * 
+	 * @param gl The GL interface.
+	 * @param blocks All the blocks, with or without models.
+	 * @param missingTextureName The texture to use for any basic block texture which is missing.
+	 * @return The models and the basic block atlas, sharing an atlas texture.
+	 */
+	public static SharedTextures loadWithBasicBlocks(GL20 gl
+			, Block[] blocks
+			, String missingTextureName
+	) throws IOException
+	{
+		Map<Block, Indices> blockToIndex = new HashMap<>();
+		List<ModelBuffer> modelList = new ArrayList<>();
+		List<FileHandle> textureHandleList = new ArrayList<>();
+		_loadModels(blocks, blockToIndex, modelList, textureHandleList);
+		Block[] basicBlocks = Arrays.stream(blocks)
+				.filter((Block block) -> !blockToIndex.containsKey(block))
+				.toArray((int size) -> new Block[size])
+		;
+		
+		FileHandle[] handles = textureHandleList.toArray((int size) -> new FileHandle[size]);
+		TextureHelpers.SharedBlockAtlas shared = TextureHelpers.loadSharedAtlasForBlocksAndModels(gl, basicBlocks, missingTextureName, handles);
+		
+		ModelBuffer[] models = modelList.toArray((int size) -> new ModelBuffer[size]);
+		return new SharedTextures(new BlockModelsAndAtlas(blockToIndex, models, shared.modelAtlas()), shared.blockAtlas());
+	}
+
 	public static BlockModelsAndAtlas testInstance(Map<Block, Indices> blockToIndex, ModelBuffer[] models, RawTextureAtlas atlas)
 	{
 		return new BlockModelsAndAtlas(blockToIndex, models, atlas);
@@ -161,6 +158,51 @@ public class BlockModelsAndAtlas
 	}
 
 
+	private static void _loadModels(Block[] blocks
+			, Map<Block, Indices> out_blockToIndex
+			, List<ModelBuffer> out_modelList
+			, List<FileHandle> out_textureHandleList
+	) throws IOException
+	{
+		for (Block block : blocks)
+		{
+			String itemId = block.item().id();
+			_ModelPair inactive = _loadPair("model_" + itemId + ".obj", "model_" + itemId + ".png");
+			if (null != inactive)
+			{
+				short inactiveIndex = (short)out_modelList.size();
+				String text = inactive.model.readString();
+				ModelBuffer model = ModelBuffer.buildFromWavefront(text);
+				out_modelList.add(model);
+				out_textureHandleList.add(inactive.texture);
+				
+				_ModelPair active = _loadPair("model_" + itemId + "_ACTIVE.obj", "model_" + itemId + "_ACTIVE.png");
+				short activeIndex = inactiveIndex;
+				if (null != active)
+				{
+					activeIndex = (short)out_modelList.size();
+					text = active.model.readString();
+					model = ModelBuffer.buildFromWavefront(text);
+					out_modelList.add(model);
+					out_textureHandleList.add(active.texture);
+				}
+				
+				_ModelPair down = _loadPair("model_" + itemId + "_DOWN.obj", "model_" + itemId + "_DOWN.png");
+				short downIndex = inactiveIndex;
+				if (null != down)
+				{
+					downIndex = (short)out_modelList.size();
+					text = down.model.readString();
+					model = ModelBuffer.buildFromWavefront(text);
+					out_modelList.add(model);
+					out_textureHandleList.add(down.texture);
+				}
+				
+				out_blockToIndex.put(block, new Indices(inactiveIndex, activeIndex, downIndex));
+			}
+		}
+	}
+
 	private static Prism _buildBounds(ModelBuffer buffer)
 	{
 		float west = Float.MAX_VALUE;
@@ -211,5 +253,10 @@ public class BlockModelsAndAtlas
 	// This is only public for testing reasons.
 	public static record Indices(short inactive, short active, short down) {}
 
+	/**
+	 * The models and the basic block atlas loaded by loadWithBasicBlocks(), sharing one atlas texture.
+	 */
+	public static record SharedTextures(BlockModelsAndAtlas models, BasicBlockAtlas basicBlocks) {}
+
 	private static record _ModelPair(FileHandle model, FileHandle texture) {}
 }
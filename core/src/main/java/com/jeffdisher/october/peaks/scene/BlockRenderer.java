@@ -18,8 +18,11 @@ import com.jeffdisher.october.aspects.Environment;
 import com.jeffdisher.october.data.ColumnHeightMap;
 import com.jeffdisher.october.data.IReadOnlyCuboidData;
 import com.jeffdisher.october.logic.SparseByteCube;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.Frustum;
+import com.jeffdisher.october.peaks.graphics.GlStateCache;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.graphics.Program;
+import com.jeffdisher.october.peaks.graphics.VertexArena;
 import com.jeffdisher.october.peaks.graphics.VertexArray;
 import com.jeffdisher.october.peaks.LoadedResources;
 import com.jeffdisher.october.peaks.graphics.Attribute;
@@ -36,10 +39,10 @@ import com.jeffdisher.october.types.AbsoluteLocation;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
 import com.jeffdisher.october.types.CuboidAddress;
-import com.jeffdisher.october.types.EntityLocation;
 import com.jeffdisher.october.types.Item;
 import com.jeffdisher.october.types.PassiveType;
 import com.jeffdisher.october.utils.Assert;
+import com.jeffdisher.october.utils.Encoding;
 
 
 /**
@@ -49,7 +52,12 @@ import com.jeffdisher.october.utils.Assert;
 public class BlockRenderer
 {
 	public static final int BUFFER_SIZE = 1 * 1024 * 1024;
+	public static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
 	public static final float TWO_PI_RADIANS = (float)(2.0 * Math.PI);
+	/**
+	 * Item slots are only a few vertices each so their arena uses much smaller chunks than the cuboid layers.
+	 */
+	public static final int ITEM_SLOT_CHUNK_VERTICES = 16 * 1024;
 
 	public static class Resources
 	{
@@ -66,6 +74,7 @@ public class BlockRenderer
 		private final int _uSkyLight;
 		private final int _uBrightness;
 		private final int[] _fireTextures;
+		private final CuboidMeshManager.Resources _meshResources;
 		
 		public Resources(Environment environment, GL20 gl, ItemTextureAtlas itemAtlas) throws IOException
 		{
@@ -77,16 +86,13 @@ public class BlockRenderer
 					.filter((Block block) -> null != block)
 					.toArray((int size) -> new Block[size])
 			;
-			_blockModels = BlockModelsAndAtlas.loadForItems(gl, blocks);
-			Set<Block> models = _blockModels.getBlockSet();
-			blocks = Arrays.stream(blocks)
-					.filter((Block block) -> !models.contains(block))
-					.toArray((int size) -> new Block[size])
-			;
-			_blockTextures = TextureHelpers.loadAtlasForBlocks(gl
+			// The model textures are packed into the same atlas as the basic blocks so that both can be drawn together.
+			BlockModelsAndAtlas.SharedTextures shared = BlockModelsAndAtlas.loadWithBasicBlocks(gl
 					, blocks
 					, "missing_texture.png"
 			);
+			_blockModels = shared.models();
+			_blockTextures = shared.basicBlocks();
 			
 			// Load the secondary atlas for secondary textures.
 			_auxBlockTextures = TextureHelpers.loadAuxTextureAtlas(gl
@@ -113,14 +119,18 @@ public class BlockRenderer
 			{
 				_fireTextures[i] = TextureHelpers.loadInternalRGBA(gl, "fire_" + i + ".png");
 			}
+			
+			// The baking thread and scratch memory are reused by the mesh manager of every game session.
+			_meshResources = new CuboidMeshManager.Resources();
 		}
 		
 		public void shutdown(GL20 gl)
 		{
-			// We don't own _itemAtlas.
+			// We don't own _itemAtlas and _blockModels shares the texture of _blockTextures.
 			_blockTextures.shutdown(gl);
 			_auxBlockTextures.shutdown(gl);
 			_program.delete();
+			_meshResources.shutdown();
 		}
 	}
 
@@ -222,12 +232,15 @@ public class BlockRenderer
 		private final int _uWorldLightLocation;
 		private final int _uTexture0;
 		private final int _uBrightness;
-		private final int _uUvBase;
 		private final int _uAnimation;
-		private final int _uCentre;
-		private final VertexArray _itemSlotVertices;
+		// The vertices of a single slot (position, normal, texture), copied for every slot in a cuboid's vertex array.
+		private final float[] _slotShape;
+		private final int _slotShapeVertices;
+		private final int _floatsPerVertex;
+		// The {u, v} texture base of every item, by item number, so building slots doesn't look these up in the atlas.
+		private final float[] _itemUvBases;
 		
-		public ItemSlotResources(GL20 gl, ItemTextureAtlas itemAtlas) throws IOException
+		public ItemSlotResources(Environment environment, GL20 gl, ItemTextureAtlas itemAtlas) throws IOException
 		{
 			// Create the shader program.
 			_program = Program.fullyLinkedProgram(gl
@@ -237,6 +250,7 @@ public class BlockRenderer
 						"aPosition",
 						"aNormal",
 						"aTexture0",
+						"aCentre",
 					}
 				);
 			_uViewMatrix = _program.getUniformLocation("uViewMatrix");
@@ -244,9 +258,7 @@ public class BlockRenderer
 			_uWorldLightLocation = _program.getUniformLocation("uWorldLightLocation");
 			_uTexture0 = _program.getUniformLocation("uTexture0");
 			_uBrightness = _program.getUniformLocation("uBrightness");
-			_uUvBase = _program.getUniformLocation("uUvBase");
 			_uAnimation = _program.getUniformLocation("uAnimation");
-			_uCentre = _program.getUniformLocation("uCentre");
 			
 			ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
 			direct.order(ByteOrder.nativeOrder());
@@ -254,19 +266,37 @@ public class BlockRenderer
 			
 			float itemEdge = PassiveType.ITEM_SLOT.volume().width();
 			float textureSize = itemAtlas.coordinateSize;
-			BufferBuilder builder = new BufferBuilder(meshBuffer, _program.attributes);
-			boolean[] attributesToUse = MeshHelperBufferBuilder.useActiveAttributes(_program.attributes);
+			// The shape is built without the centre attribute, since that is different for every slot.
+			Attribute[] shapeAttributes = Arrays.copyOf(_program.attributes, _program.attributes.length - 1);
+			BufferBuilder builder = new BufferBuilder(meshBuffer, shapeAttributes);
+			boolean[] attributesToUse = MeshHelperBufferBuilder.useActiveAttributes(shapeAttributes);
 			MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, attributesToUse);
 			SceneMeshHelpers.drawPassiveStandingSquare(builderWrapper
 				, itemEdge
 				, textureSize
 			);
-			_itemSlotVertices = builder.finishOne().flush(gl);
+			BufferBuilder.Buffer shape = builder.finishOne();
+			FloatBuffer shapeVertices = shape.getVertices(0, shape.vertexCount);
+			_slotShape = new float[shapeVertices.remaining()];
+			shapeVertices.get(_slotShape);
+			_slotShapeVertices = shape.vertexCount;
+			_floatsPerVertex = Arrays.stream(_program.attributes).mapToInt((Attribute attribute) -> attribute.floats()).sum();
+			// Each slot vertex is the shape vertex (position, normal, texture) followed by the centre.
+			Assert.assertTrue((8 * _slotShapeVertices) == _slotShape.length);
+			Assert.assertTrue(11 == _floatsPerVertex);
+			
+			int itemCount = environment.items.ITEMS_BY_TYPE.length;
+			_itemUvBases = new float[2 * itemCount];
+			for (int i = 0; i < itemCount; ++i)
+			{
+				float[] uvBase = itemAtlas.baseOfTexture((short)i);
+				_itemUvBases[2 * i] = uvBase[0];
+				_itemUvBases[(2 * i) + 1] = uvBase[1];
+			}
 		}
 		
 		public void shutdown(GL20 gl)
 		{
-			_itemSlotVertices.delete(gl);
 			_program.delete();
 		}
 	}
@@ -274,42 +304,95 @@ public class BlockRenderer
 
 	private final Environment _environment;
 	private final GL20 _gl;
+	private final GlStateCache _glState;
+	private final VertexArena _arena;
+	private final VertexArena _itemSlotArena;
 	private final Binding<Float> _screenBrightness;
+	private final Binding<Integer> _gpuMeshBudgetMegabytes;
 	private final Resources _resources;
 	private final SelectionResources _selectionResources;
 	private final ItemSlotResources _itemSlotResources;
 
-	private final List<_CuboidData> _opaqueCuboids;
-	private final List<_CuboidData> _modelCuboids;
-	private final List<_CuboidData> _transparentCuboids;
-	private final List<_CuboidData> _waterCuboids;
-	private final List<_CuboidData> _itemSlotCuboids;
+	private final RegionVertexBuffers<_CuboidData> _opaqueRegions;
+	private final CuboidDrawOrder<_CuboidData> _transparentCuboids;
+	private final CuboidDrawOrder<_CuboidData> _waterCuboids;
+	private final CuboidDrawOrder<_CuboidData> _itemSlotCuboids;
 	private final Map<CuboidAddress, SparseByteCube> _fireFacesCuboids;
 	private final List<_CuboidData> _burningFaceCuboids;
+	private final List<_CuboidData> _boundedCuboids;
+	private int _drawnCuboids;
+	private int _culledCuboids;
+	private int _occludedCuboids;
+	private final Frustum _frustum;
+	private final MutableMatrix _selectionModelMatrix;
+	private final Map<CuboidAddress, _DecalData> _damageDecals;
+	private final FloatBuffer _decalBuffer;
+	private final FloatBuffer _zeroQuad;
+	private FloatBuffer _itemSlotScratch;
+	private final float[] _itemSlotVertex;
 
 	private final CuboidMeshManager _cuboidMeshes;
 
-	public BlockRenderer(Environment environment, GL20 gl, Binding<Float> screenBrightness, LoadedResources resources)
+	public BlockRenderer(Environment environment
+		, GL20 gl
+		, Binding<Float> screenBrightness
+		, Binding<Integer> gpuMeshBudgetMegabytes
+		, LoadedResources resources
+	)
 	{
 		_environment = environment;
 		_gl = gl;
+		// The other renderers change GL state directly between our passes so each pass starts by invalidating this.
+		_glState = new GlStateCache(gl);
 		_screenBrightness = screenBrightness;
+		_gpuMeshBudgetMegabytes = gpuMeshBudgetMegabytes;
 		_resources = resources.blockRenderer();
+		// All cuboid meshes and decals are written into the same few large GL buffers, instead of one buffer per mesh.
+		_arena = new VertexArena(gl, _resources._program.attributes);
 		_selectionResources = resources.blockSelectionRenderer();
 		_itemSlotResources = resources.blockItemSlotRenderer();
+		// Item slots use their own program, with a different vertex layout, so they get their own arena.
+		_itemSlotArena = new VertexArena(gl, _itemSlotResources._program.attributes, ITEM_SLOT_CHUNK_VERTICES);
 		
-		_opaqueCuboids = new ArrayList<>();
-		_modelCuboids = new ArrayList<>();
-		_transparentCuboids = new ArrayList<>();
-		_waterCuboids = new ArrayList<>();
-		_itemSlotCuboids = new ArrayList<>();
+		// The opaque and model layers share an atlas so they are packed together into region buffers, drawn nearest-first
+		// so the depth test can reject hidden fragments, while the blended layers are drawn per-cuboid, farthest-first, so
+		// they blend over what is behind them.
+		_opaqueRegions = new RegionVertexBuffers<>(gl, _arena, _resources._program.attributes);
+		_transparentCuboids = new CuboidDrawOrder<>((_CuboidData data) -> data.address, false);
+		_waterCuboids = new CuboidDrawOrder<>((_CuboidData data) -> data.address, false);
+		_itemSlotCuboids = new CuboidDrawOrder<>((_CuboidData data) -> data.address, false);
 		_fireFacesCuboids = new HashMap<>();
 		_burningFaceCuboids = new ArrayList<>();
+		// Every cuboid with any geometry is checked against the view frustum once per frame, before any layer is drawn.
+		_boundedCuboids = new ArrayList<>();
+		_drawnCuboids = 0;
+		_culledCuboids = 0;
+		_occludedCuboids = 0;
+		_frustum = new Frustum();
+		_selectionModelMatrix = new MutableMatrix();
+		
+		// Damage decals are small and rebuilt on the main thread so they just need a modest scratch buffer.
+		_damageDecals = new HashMap<>();
+		ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		direct.order(ByteOrder.nativeOrder());
+		_decalBuffer = direct.asFloatBuffer();
+		
+		// Patches clear quads by overwriting them with zeros.
+		int floatsPerVertex = Arrays.stream(_resources._program.attributes).mapToInt((Attribute attribute) -> attribute.floats()).sum();
+		ByteBuffer zeroDirect = ByteBuffer.allocateDirect(OpaqueQuadLayout.VERTICES_PER_QUAD * floatsPerVertex * Float.BYTES);
+		zeroDirect.order(ByteOrder.nativeOrder());
+		_zeroQuad = zeroDirect.asFloatBuffer();
+		// The item slot scratch buffer is allocated on demand, since few cuboids have item slots, but every slot vertex is
+		// written through the same array.
+		_itemSlotScratch = null;
+		_itemSlotVertex = new float[_itemSlotResources._floatsPerVertex];
 		
-		_cuboidMeshes = new CuboidMeshManager(_environment, new CuboidMeshManager.IGpu() {
+		_cuboidMeshes = new CuboidMeshManager(_environment, _resources._meshResources, new CuboidMeshManager.IGpu() {
 			@Override
 			public Object createToken(CuboidAddress address
+				, Prism bounds
 				, BufferBuilder.Buffer opaqueArray
+				, int opaqueSlackVertices
 				, BufferBuilder.Buffer modelArray
 				, BufferBuilder.Buffer transparentArray
 				, BufferBuilder.Buffer waterArray
@@ -319,29 +402,36 @@ public class BlockRenderer
 			)
 			{
 				_CuboidData cuboidData = new _CuboidData(address);
+				if (null != bounds)
+				{
+					cuboidData.bounds = bounds;
+					cuboidData.isVisible = true;
+					_boundedCuboids.add(cuboidData);
+				}
 				if (null != opaqueArray)
 				{
-					cuboidData.opaqueArray = opaqueArray.flush(_gl);
-					_opaqueCuboids.add(cuboidData);
+					// If this buffer can be patched, we reserve extra capacity at the end.
+					cuboidData.opaqueArray = _opaqueRegions.allocate(cuboidData, address, opaqueArray, opaqueArray.vertexCount + opaqueSlackVertices);
 				}
 				if (null != modelArray)
 				{
-					cuboidData.modelArray = modelArray.flush(_gl);
-					_modelCuboids.add(cuboidData);
+					// This is allocated right after the opaque range so the two are normally drawn with one call.
+					cuboidData.modelArray = _opaqueRegions.allocate(cuboidData, address, modelArray, modelArray.vertexCount);
 				}
 				if (null != transparentArray)
 				{
-					cuboidData.transparentArray = transparentArray.flush(_gl);
+					cuboidData.transparentArray = _arena.upload(transparentArray);
 					_transparentCuboids.add(cuboidData);
 				}
 				if (null != waterArray)
 				{
-					cuboidData.waterArray = waterArray.flush(_gl);
+					cuboidData.waterArray = _arena.upload(waterArray);
 					_waterCuboids.add(cuboidData);
 				}
 				if (null != itemSlotArray)
 				{
-					cuboidData.itemSlotArray = itemSlotArray;
+					// All the slots in the cuboid are written into one vertex array so they can be drawn with one call.
+					cuboidData.itemSlotArray = _buildItemSlotArray(itemSlotArray);
 					_itemSlotCuboids.add(cuboidData);
 				}
 				if (null != fireFaces)
@@ -350,7 +440,7 @@ public class BlockRenderer
 				}
 				if (null != burningFaceArray)
 				{
-					cuboidData.burningFaceArray = burningFaceArray.flush(_gl);
+					cuboidData.burningFaceArray = _arena.upload(burningFaceArray);
 					_burningFaceCuboids.add(cuboidData);
 				}
 				return cuboidData;
@@ -360,35 +450,76 @@ public class BlockRenderer
 			{
 				_CuboidData cuboidData = (_CuboidData)token;
 				
-				if (null != cuboidData.opaqueArray)
+				if ((null != cuboidData.opaqueArray) || (null != cuboidData.modelArray))
 				{
-					cuboidData.opaqueArray.delete(_gl);
+					// This frees both layers.
+					_opaqueRegions.free(cuboidData);
 					cuboidData.opaqueArray = null;
-				}
-				if (null != cuboidData.modelArray)
-				{
-					cuboidData.modelArray.delete(_gl);
 					cuboidData.modelArray = null;
 				}
 				if (null != cuboidData.transparentArray)
 				{
-					cuboidData.transparentArray.delete(_gl);
+					_arena.free(cuboidData.transparentArray);
 					cuboidData.transparentArray = null;
 				}
 				if (null != cuboidData.waterArray)
 				{
-					cuboidData.waterArray.delete(_gl);
+					_arena.free(cuboidData.waterArray);
 					cuboidData.waterArray = null;
 				}
-				cuboidData.itemSlotArray = null;
+				if (null != cuboidData.itemSlotArray)
+				{
+					_itemSlotArena.free(cuboidData.itemSlotArray);
+					cuboidData.itemSlotArray = null;
+				}
+				cuboidData.bounds = null;
 				_fireFacesCuboids.remove(cuboidData.address);
 				if (null != cuboidData.burningFaceArray)
 				{
-					cuboidData.burningFaceArray.delete(_gl);
+					_arena.free(cuboidData.burningFaceArray);
 					cuboidData.burningFaceArray = null;
 				}
 			}
-		}, _resources._program.attributes, _resources._blockModels, _resources._blockTextures, _resources._auxBlockTextures);
+			@Override
+			public long getItemSlotBytes(int slotCount)
+			{
+				// The slots are all written into one range of the item slot arena, which reserves a whole size class.
+				int vertexCount = slotCount * _itemSlotResources._slotShapeVertices;
+				return (long)VertexArena.sizeClass(vertexCount) * _itemSlotResources._floatsPerVertex * Float.BYTES;
+			}
+			@Override
+			public void patchOpaqueQuads(Object token, BufferBuilder.Buffer quads, Prism quadBounds, int[] targetSlots, int[] clearedSlots, int totalVertices)
+			{
+				_CuboidData cuboidData = (_CuboidData)token;
+				VertexArray opaqueArray = cuboidData.opaqueArray;
+				Assert.assertTrue(null != opaqueArray);
+				
+				int verticesPerQuad = OpaqueQuadLayout.VERTICES_PER_QUAD;
+				for (int i = 0; i < targetSlots.length; ++i)
+				{
+					opaqueArray.replaceVertices(_gl, targetSlots[i] * verticesPerQuad, quads.getVertices(i * verticesPerQuad, verticesPerQuad));
+				}
+				// Cleared quads are written as all zeros, which is degenerate so it isn't drawn.
+				for (int slot : clearedSlots)
+				{
+					opaqueArray.replaceVertices(_gl, slot * verticesPerQuad, _zeroQuad.duplicate());
+				}
+				cuboidData.opaqueArray = opaqueArray.withTotalVertices(totalVertices);
+				
+				// New quads may extend past the previous bounds (cleared quads don't shrink them but that is still correct).
+				if (null != quadBounds)
+				{
+					Prism old = cuboidData.bounds;
+					cuboidData.bounds = new Prism(Math.min(old.west(), quadBounds.west())
+						, Math.min(old.south(), quadBounds.south())
+						, Math.min(old.bottom(), quadBounds.bottom())
+						, Math.max(old.east(), quadBounds.east())
+						, Math.max(old.north(), quadBounds.north())
+						, Math.max(old.top(), quadBounds.top())
+					);
+				}
+			}
+		}, _resources._program.attributes, _resources._blockTextures, new ReferenceCuboidMesher(_environment, _resources._blockModels, _resources._blockTextures, _resources._auxBlockTextures));
 	}
 
 	public Map<Block, Prism> getModelBoundingBoxes()
@@ -396,95 +527,153 @@ public class BlockRenderer
 		return _selectionResources._blockModelBounds;
 	}
 
-	public void renderOpaqueBlocks(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	/**
+	 * Checks the bounds of every cuboid against the view frustum, and which cuboids could be seen through the
+	 * connectivity of those around the camera, so that the render calls for this frame skip any cuboids which can't be
+	 * seen.  This must be called before any of the render calls in a frame.
+	 * 
+	 * @param viewMatrix The camera's view matrix.
+	 * @param projectionMatrix The camera's projection matrix.
+	 */
+	public void cullCuboids(MutableMatrix viewMatrix, MutableMatrix projectionMatrix)
 	{
-		// We want to use the perspective projection and depth buffer for the main scene.
-		_gl.glEnable(GL20.GL_DEPTH_TEST);
-		_gl.glDepthFunc(GL20.GL_LESS);
-		_resources._program.useProgram();
-		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
-		_gl.glUniform1f(_resources._uSkyLight, skyLightMultiplier);
-		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
-		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
-		
-		// This shader uses 2 textures.
-		_gl.glUniform1i(_resources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glUniform1i(_resources._uTexture1, 1);
-		_gl.glActiveTexture(GL20.GL_TEXTURE1);
-		
-		// We will bind the AUX texture atlas for texture unit 1 in all invocations, but we usually just reference "NONE" where not applicable.
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._auxBlockTextures.texture);
-		
-		// Render the opaque cuboid vertices.
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._blockTextures.getAtlasTexture());
-		Iterator<_CuboidData> iter = _opaqueCuboids.iterator();
+		_frustum.setCamera(viewMatrix, projectionMatrix);
+		Set<CuboidAddress> reachable = _cuboidMeshes.findCuboidsInView(_frustum);
+		int drawn = 0;
+		int culled = 0;
+		int occluded = 0;
+		Iterator<_CuboidData> iter = _boundedCuboids.iterator();
 		while (iter.hasNext())
 		{
 			_CuboidData value = iter.next();
-			if (null != value.opaqueArray)
+			if (null != value.bounds)
 			{
-				value.opaqueArray.drawAllTriangles(_gl);
+				boolean isInFrustum = _frustum.isBoxVisible(value.bounds);
+				boolean isReachable = (null == reachable) || reachable.contains(value.address);
+				value.isVisible = isInFrustum && isReachable;
+				if (value.isVisible)
+				{
+					drawn += 1;
+				}
+				else if (!isInFrustum)
+				{
+					culled += 1;
+				}
+				else
+				{
+					occluded += 1;
+				}
 			}
 			else
 			{
 				iter.remove();
 			}
 		}
+		_drawnCuboids = drawn;
+		_culledCuboids = culled;
+		_occludedCuboids = occluded;
 		
-		// Render the complex models
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._blockModels.getModelAtlasTexture());
-		iter = _modelCuboids.iterator();
-		while (iter.hasNext())
+		// Decals are drawn over their cuboid's faces so they are only visible when the whole cuboid could be.
+		for (_DecalData decals : _damageDecals.values())
 		{
-			_CuboidData value = iter.next();
-			if (null != value.modelArray)
-			{
-				value.modelArray.drawAllTriangles(_gl);
-			}
-			else
+			boolean isReachable = (null == reachable) || reachable.contains(decals.address);
+			decals.isVisible = isReachable && _frustum.isBoxVisible(decals.bounds);
+		}
+	}
+
+	public void renderOpaqueBlocks(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	{
+		// We want to use the perspective projection and depth buffer for the main scene.
+		_gl.glEnable(GL20.GL_DEPTH_TEST);
+		_gl.glDepthFunc(GL20.GL_LESS);
+		_glState.invalidate();
+		_glState.useProgram(_resources._program);
+		_glState.uniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_resources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_resources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_resources._uSkyLight, skyLightMultiplier);
+		_glState.uniform1f(_resources._uBrightness, _screenBrightness.get());
+		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
+		
+		// This shader uses 2 textures.
+		_glState.uniform1i(_resources._uTexture0, 0);
+		_glState.uniform1i(_resources._uTexture1, 1);
+		
+		// We will bind the AUX texture atlas for texture unit 1 in all invocations, but we usually just reference "NONE" where not applicable.
+		_glState.bindTexture(GL20.GL_TEXTURE1, _resources._auxBlockTextures.texture);
+		
+		// Render the opaque cuboid vertices and the complex models, which share the block atlas.
+		_glState.bindTexture(GL20.GL_TEXTURE0, _resources._blockTextures.getAtlasTexture());
+		// Each region draws the visible cuboids which are next to each other in its buffers with a single call.
+		_opaqueRegions.drawVisible(_glState, (_CuboidData value) -> value.isVisible);
+	}
+
+	public void renderDamageDecals(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	{
+		// NOTE:  We use GL_LEQUAL for the decals since they are drawn exactly over the existing block faces and we offset
+		// them slightly toward the camera to avoid fighting with the baked opaque mesh.
+		_gl.glEnable(GL20.GL_DEPTH_TEST);
+		_gl.glDepthFunc(GL20.GL_LEQUAL);
+		_gl.glDepthMask(false);
+		_gl.glEnable(GL20.GL_POLYGON_OFFSET_FILL);
+		_gl.glPolygonOffset(-1.0f, -1.0f);
+		_glState.invalidate();
+		_glState.useProgram(_resources._program);
+		_glState.uniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_resources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_resources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_resources._uSkyLight, skyLightMultiplier);
+		_glState.uniform1f(_resources._uBrightness, _screenBrightness.get());
+		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
+		
+		// This shader uses 2 textures:  "air" from the block atlas and the BREAK_* variants from the AUX atlas.
+		_glState.uniform1i(_resources._uTexture0, 0);
+		_glState.uniform1i(_resources._uTexture1, 1);
+		_glState.bindTexture(GL20.GL_TEXTURE1, _resources._auxBlockTextures.texture);
+		_glState.bindTexture(GL20.GL_TEXTURE0, _resources._blockTextures.getAtlasTexture());
+		
+		for (_DecalData decals : _damageDecals.values())
+		{
+			if (decals.isVisible)
 			{
-				iter.remove();
+				decals.vertices.drawAllTriangles(_glState);
 			}
 		}
+		
+		_gl.glDisable(GL20.GL_POLYGON_OFFSET_FILL);
+		_gl.glDepthMask(true);
 	}
 
-	public void renderTransparentBlocks(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	public void renderTransparentBlocks(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier)
 	{
 		// We want to use the perspective projection and depth buffer for the main scene.
 		_gl.glEnable(GL20.GL_DEPTH_TEST);
 		_gl.glDepthFunc(GL20.GL_LESS);
-		_resources._program.useProgram();
-		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
-		_gl.glUniform1f(_resources._uSkyLight, skyLightMultiplier);
-		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
+		_glState.invalidate();
+		_glState.useProgram(_resources._program);
+		_glState.uniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_resources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_resources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_resources._uSkyLight, skyLightMultiplier);
+		_glState.uniform1f(_resources._uBrightness, _screenBrightness.get());
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
 		// This shader uses 2 textures.
-		_gl.glUniform1i(_resources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glUniform1i(_resources._uTexture1, 1);
-		_gl.glActiveTexture(GL20.GL_TEXTURE1);
+		_glState.uniform1i(_resources._uTexture0, 0);
+		_glState.uniform1i(_resources._uTexture1, 1);
 		
 		// We will bind the AUX texture atlas for texture unit 1 in all invocations, but we usually just reference "NONE" where not applicable.
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._auxBlockTextures.texture);
+		_glState.bindTexture(GL20.GL_TEXTURE1, _resources._auxBlockTextures.texture);
 		
 		// Render the transparent cuboid vertices.
 		// Note that we may want to consider rendering this with _gl.glDepthMask(false) but there doesn't seem to be an
 		// ideal blending function to make this look right.  Leaving it read-write seems to produce better results, for
 		// now.  In the future, more of the non-opaque blocks will be replaced by complex models.
-		// Most likely, we will need to slice every cuboid by which of the 6 faces they include, and sort that way, but
+		// The cuboids are drawn farthest-first but the faces within each cuboid are not sorted.  Most likely, we will need to slice every cuboid by which of the 6 faces they include, and sort that way, but
 		// this may not work for complex models.
 		
 		// We want to render the water before other transparent blocks since we don't want to see through the water if looking at leaves, for example.
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._blockTextures.getAtlasTexture());
+		_glState.bindTexture(GL20.GL_TEXTURE0, _resources._blockTextures.getAtlasTexture());
 		// We will render the water first, since we are usually looking down at it.
 		Iterator<_CuboidData> iter = _waterCuboids.iterator();
 		while (iter.hasNext())
@@ -492,7 +681,10 @@ public class BlockRenderer
 			_CuboidData value = iter.next();
 			if (null != value.waterArray)
 			{
-				value.waterArray.drawAllTriangles(_gl);
+				if (value.isVisible)
+				{
+					value.waterArray.drawAllTriangles(_glState);
+				}
 			}
 			else
 			{
@@ -507,7 +699,10 @@ public class BlockRenderer
 			_CuboidData value = iter.next();
 			if (null != value.transparentArray)
 			{
-				value.transparentArray.drawAllTriangles(_gl);
+				if (value.isVisible)
+				{
+					value.transparentArray.drawAllTriangles(_glState);
+				}
 			}
 			else
 			{
@@ -516,44 +711,34 @@ public class BlockRenderer
 		}
 	}
 
-	public void renderItemSlots(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	public void renderItemSlots(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier)
 	{
-		_itemSlotResources._program.useProgram();
-		_gl.glUniform3f(_itemSlotResources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _itemSlotResources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _itemSlotResources._uProjectionMatrix);
-		_gl.glUniform1f(_itemSlotResources._uBrightness, _screenBrightness.get());
+		_glState.invalidate();
+		_glState.useProgram(_itemSlotResources._program);
+		_glState.uniform3f(_itemSlotResources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_itemSlotResources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_itemSlotResources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_itemSlotResources._uBrightness, _screenBrightness.get());
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
 		// The texture is just the item texture so we reach into that common atlas.
-		_gl.glUniform1i(_itemSlotResources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._itemAtlas.texture);
+		_glState.uniform1i(_itemSlotResources._uTexture0, 0);
+		_glState.bindTexture(GL20.GL_TEXTURE0, _resources._itemAtlas.texture);
 		
 		// We want to set the animation frame from 0.0f - 1.0f based on the time in a second.
 		float animationTime = (float)(System.currentTimeMillis() % 2048L) / 2048.0f;
-		_gl.glUniform1f(_itemSlotResources._uAnimation, animationTime * TWO_PI_RADIANS);
+		_glState.uniform1f(_itemSlotResources._uAnimation, animationTime * TWO_PI_RADIANS);
 		
-		// Render any item slot locations in this cuboid.
+		// Render the item slots of each cuboid, with a single call per cuboid.
 		Iterator<_CuboidData> iter = _itemSlotCuboids.iterator();
 		while (iter.hasNext())
 		{
 			_CuboidData value = iter.next();
 			if (null != value.itemSlotArray)
 			{
-				CuboidAddress key = value.address;
-				EntityLocation base = key.getBase().toEntityLocation();
-				for (CuboidMeshManager.VisibleItemSlot slot : value.itemSlotArray)
+				if (value.isVisible)
 				{
-					// We precomputed the centre of this when creating it, since it is based on what block it is part of.
-					_gl.glUniform3f(_itemSlotResources._uCentre, base.x() + slot.centreX(), base.y() + slot.centreY(), base.z() + slot.baseZ());
-					
-					// We need to pass in the base texture coordinates of this type.
-					float[] uvBase = _resources._itemAtlas.baseOfTexture(slot.item().number());
-					_gl.glUniform2f(_itemSlotResources._uUvBase, uvBase[0], uvBase[1]);
-					
-					// Just draw the square.
-					_itemSlotResources._itemSlotVertices.drawAllTriangles(_gl);
+					value.itemSlotArray.drawAllTriangles(_glState);
 				}
 			}
 			else
@@ -563,62 +748,58 @@ public class BlockRenderer
 		}
 	}
 
-	public void renderSelectedBlock(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier, AbsoluteLocation selectedBlock, Block selectedType)
+	public void renderSelectedBlock(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier, AbsoluteLocation selectedBlock, Block selectedType)
 	{
 		// We want to use the perspective projection and depth buffer for the main scene.
 		_gl.glEnable(GL20.GL_DEPTH_TEST);
 		_gl.glDepthFunc(GL20.GL_LESS);
-		_selectionResources._program.useProgram();
-		_gl.glUniform3f(_selectionResources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _selectionResources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _selectionResources._uProjectionMatrix);
-		_gl.glUniform1f(_selectionResources._uSkyLight, skyLightMultiplier);
-		_gl.glUniform1f(_selectionResources._uBrightness, _screenBrightness.get());
+		_glState.invalidate();
+		_glState.useProgram(_selectionResources._program);
+		_glState.uniform3f(_selectionResources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_selectionResources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_selectionResources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_selectionResources._uSkyLight, skyLightMultiplier);
+		_glState.uniform1f(_selectionResources._uBrightness, _screenBrightness.get());
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
 		// This shader uses 2 textures.
-		_gl.glUniform1i(_selectionResources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glUniform1i(_selectionResources._uTexture1, 1);
-		_gl.glActiveTexture(GL20.GL_TEXTURE1);
+		_glState.uniform1i(_selectionResources._uTexture0, 0);
+		_glState.uniform1i(_selectionResources._uTexture1, 1);
 		
 		// We will bind the AUX texture atlas for texture unit 1 in all invocations, but we usually just reference "NONE" where not applicable.
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _selectionResources._auxBlockTextures.texture);
+		_glState.bindTexture(GL20.GL_TEXTURE1, _selectionResources._auxBlockTextures.texture);
 		
 		// Highlight the selected entity or block - prioritize the block since the entity will restrict the block check distance.
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _selectionResources._highlightTexture);
+		_glState.bindTexture(GL20.GL_TEXTURE0, _selectionResources._highlightTexture);
 		_gl.glDepthFunc(GL20.GL_LEQUAL);
-		Matrix model = Matrix.translate(selectedBlock.x(), selectedBlock.y(), selectedBlock.z());
-		model.uploadAsUniform(_gl, _selectionResources._uModelMatrix);
+		_selectionModelMatrix.setTranslate(selectedBlock.x(), selectedBlock.y(), selectedBlock.z());
+		_glState.uniformMatrix(_selectionResources._uModelMatrix, _selectionModelMatrix);
 		VertexArray highlighter = _selectionResources._blockModelHighlightCubes.getOrDefault(selectedType, _selectionResources._defaultHighlightCube);
-		highlighter.drawAllTriangles(_gl);
+		highlighter.drawAllTriangles(_glState);
 	}
 
-	public Map<CuboidAddress, SparseByteCube> renderFireBlocksAndReturnValidFaces(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, int fireAnimationFrame)
+	public Map<CuboidAddress, SparseByteCube> renderFireBlocksAndReturnValidFaces(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, int fireAnimationFrame)
 	{
 		// We want to use the perspective projection and depth buffer for the main scene.
 		// NOTE:  We use GL_LEQUAL for the fire since it renders inside an existing block face.
 		_gl.glEnable(GL20.GL_DEPTH_TEST);
 		_gl.glDepthFunc(GL20.GL_LEQUAL);
-		_resources._program.useProgram();
-		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
-		_gl.glUniform1f(_resources._uSkyLight, 0.0f);
-		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
+		_glState.invalidate();
+		_glState.useProgram(_resources._program);
+		_glState.uniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		_glState.uniformMatrix(_resources._uViewMatrix, viewMatrix);
+		_glState.uniformMatrix(_resources._uProjectionMatrix, projectionMatrix);
+		_glState.uniform1f(_resources._uSkyLight, 0.0f);
+		_glState.uniform1f(_resources._uBrightness, _screenBrightness.get());
 		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
 		// This shader uses 2 textures.
-		_gl.glUniform1i(_resources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glUniform1i(_resources._uTexture1, 1);
-		_gl.glActiveTexture(GL20.GL_TEXTURE1);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._fireTextures[fireAnimationFrame]);
+		_glState.uniform1i(_resources._uTexture0, 0);
+		_glState.uniform1i(_resources._uTexture1, 1);
+		_glState.bindTexture(GL20.GL_TEXTURE1, _resources._fireTextures[fireAnimationFrame]);
 		
 		// We just bind the block textures to select a blank one for "air".
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._blockTextures.getAtlasTexture());
+		_glState.bindTexture(GL20.GL_TEXTURE0, _resources._blockTextures.getAtlasTexture());
 		
 		Iterator<_CuboidData> iter = _burningFaceCuboids.iterator();
 		while (iter.hasNext())
@@ -626,7 +807,10 @@ public class BlockRenderer
 			_CuboidData value = iter.next();
 			if (null != value.burningFaceArray)
 			{
-				value.burningFaceArray.drawAllTriangles(_gl);
+				if (value.isVisible)
+				{
+					value.burningFaceArray.drawAllTriangles(_glState);
+				}
 			}
 			else
 			{
@@ -638,10 +822,34 @@ public class BlockRenderer
 		return Map.copyOf(_fireFacesCuboids);
 	}
 
-	public void handleEndOfFrame()
+	public void handleEndOfFrame(long currentTimeMillis)
+	{
+		// Handle any background baking (the budget preference can change at any time so we re-apply it here).
+		_cuboidMeshes.setGpuMeshBudgetBytes((long)_gpuMeshBudgetMegabytes.get() * BYTES_PER_MEGABYTE);
+		_cuboidMeshes.processBackground(currentTimeMillis);
+	}
+
+	public CuboidMeshManager.MemoryStats getMeshMemoryStats()
+	{
+		return _cuboidMeshes.getMemoryStats();
+	}
+
+	/**
+	 * @return The bytes of GL buffer storage held by the shared vertex arenas, including any unused space in them.
+	 */
+	public long getArenaBytes()
+	{
+		return _arena.getChunkBytes() + _itemSlotArena.getChunkBytes();
+	}
+
+	public int getPendingBakeCount()
 	{
-		// Handle any background baking.
-		_cuboidMeshes.processBackground();
+		return _cuboidMeshes.getPendingBakeCount();
+	}
+
+	public CullingStats getCullingStats()
+	{
+		return new CullingStats(_drawnCuboids, _culledCuboids, _occludedCuboids);
 	}
 
 	public void setCuboid(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap, Set<BlockAddress> changedBlocks)
@@ -649,18 +857,109 @@ public class BlockRenderer
 		_cuboidMeshes.setCuboid(cuboid, heightMap, changedBlocks);
 	}
 
+	public void setCameraCuboid(CuboidAddress cameraCuboid)
+	{
+		_cuboidMeshes.setCameraCuboid(cameraCuboid);
+		// The draw orders are only re-sorted if this is a different cuboid.
+		_opaqueRegions.setCameraCuboid(cameraCuboid);
+		_transparentCuboids.setCameraCuboid(cameraCuboid);
+		_waterCuboids.setCameraCuboid(cameraCuboid);
+		_itemSlotCuboids.setCameraCuboid(cameraCuboid);
+	}
+
+	public void speculateBlockChange(long currentTimeMillis, AbsoluteLocation location, Block block)
+	{
+		_cuboidMeshes.speculateBlockChange(currentTimeMillis, location, block);
+	}
+
+	public void setDamagedBlocks(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap)
+	{
+		// Damage is only a handful of quads per block so we rebuild the decals for the whole cuboid on the main thread,
+		// rather than asking the CuboidMeshManager to re-bake the cuboid.
+		CuboidAddress address = cuboid.getCuboidAddress();
+		_DecalData previous = _damageDecals.remove(address);
+		if (null != previous)
+		{
+			_arena.free(previous.vertices);
+		}
+		
+		BufferBuilder builder = new BufferBuilder(_decalBuffer, _resources._program.attributes);
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		SceneMeshHelpers.populateDamageDecalsForCuboid(_environment
+			, builderWrapper
+			, _resources._blockTextures
+			, _resources._auxBlockTextures
+			, _selectionResources._blockModelBounds
+			, cuboid
+			, heightMap
+		);
+		BufferBuilder.Buffer buffer = builder.finishOne();
+		if (null != buffer)
+		{
+			_damageDecals.put(address, new _DecalData(address, _cuboidBox(address), _arena.upload(buffer)));
+		}
+	}
+
 	public void removeCuboid(CuboidAddress address)
 	{
 		_cuboidMeshes.removeCuboid(address);
+		_DecalData decals = _damageDecals.remove(address);
+		if (null != decals)
+		{
+			_arena.free(decals.vertices);
+		}
 	}
 
 	public void shutdown()
 	{
 		// Resources are shut down on their own lifecycle.
 		_cuboidMeshes.shutdown();
+		_opaqueRegions.shutdown();
+		_damageDecals.clear();
+		_arena.shutdown();
+		_itemSlotArena.shutdown();
 	}
 
 
+	private VertexArray _buildItemSlotArray(List<CuboidMeshManager.VisibleItemSlot> slots)
+	{
+		Attribute[] attributes = _itemSlotResources._program.attributes;
+		float[] shape = _itemSlotResources._slotShape;
+		float[] uvBases = _itemSlotResources._itemUvBases;
+		int shapeVertices = _itemSlotResources._slotShapeVertices;
+		int shapeFloatsPerVertex = shape.length / shapeVertices;
+		int vertexCount = slots.size() * shapeVertices;
+		int floatsRequired = vertexCount * _itemSlotVertex.length;
+		if ((null == _itemSlotScratch) || (_itemSlotScratch.capacity() < floatsRequired))
+		{
+			ByteBuffer direct = ByteBuffer.allocateDirect(floatsRequired * Float.BYTES);
+			direct.order(ByteOrder.nativeOrder());
+			_itemSlotScratch = direct.asFloatBuffer();
+		}
+		
+		_itemSlotScratch.clear();
+		for (CuboidMeshManager.VisibleItemSlot slot : slots)
+		{
+			// The bake already placed the centre in world coordinates, since it is based on what block it is part of.
+			_itemSlotVertex[8] = slot.centreX();
+			_itemSlotVertex[9] = slot.centreY();
+			_itemSlotVertex[10] = slot.baseZ();
+			// The texture coordinates of the shape are relative to the base of the item's texture.
+			int uvIndex = 2 * slot.item().number();
+			for (int i = 0; i < shapeVertices; ++i)
+			{
+				// The shape vertices are position, normal, texture, which are the same first attributes as the program.
+				int start = i * shapeFloatsPerVertex;
+				System.arraycopy(shape, start, _itemSlotVertex, 0, 6);
+				_itemSlotVertex[6] = shape[start + 6] + uvBases[uvIndex];
+				_itemSlotVertex[7] = shape[start + 7] + uvBases[uvIndex + 1];
+				_itemSlotScratch.put(_itemSlotVertex);
+			}
+		}
+		_itemSlotScratch.flip();
+		return _itemSlotArena.upload(new BufferBuilder.Buffer(_itemSlotScratch, vertexCount, attributes));
+	}
+
 	private static VertexArray _createOutlinePrism(GL20 gl
 		, Attribute[] attributes
 		, FloatBuffer meshBuffer
@@ -674,6 +973,13 @@ public class BlockRenderer
 		return builder.finishOne().flush(gl);
 	}
 
+	private static Prism _cuboidBox(CuboidAddress address)
+	{
+		AbsoluteLocation base = address.getBase();
+		float edge = (float)Encoding.CUBOID_EDGE_SIZE;
+		return new Prism(base.x(), base.y(), base.z(), base.x() + edge, base.y() + edge, base.z() + edge);
+	}
+
 	private static class _CuboidData
 	{
 		public final CuboidAddress address;
@@ -681,12 +987,40 @@ public class BlockRenderer
 		public VertexArray modelArray;
 		public VertexArray transparentArray;
 		public VertexArray waterArray;
-		public List<CuboidMeshManager.VisibleItemSlot> itemSlotArray;
+		public VertexArray itemSlotArray;
 		public VertexArray burningFaceArray;
+		public Prism bounds;
+		public boolean isVisible;
 		
 		public _CuboidData(CuboidAddress address)
 		{
 			this.address = address;
 		}
 	}
+
+	private static class _DecalData
+	{
+		public final CuboidAddress address;
+		public final Prism bounds;
+		public final VertexArray vertices;
+		public boolean isVisible;
+		
+		public _DecalData(CuboidAddress address, Prism bounds, VertexArray vertices)
+		{
+			this.address = address;
+			this.bounds = bounds;
+			this.vertices = vertices;
+			// New decals are drawn until the next culling pass decides otherwise.
+			this.isVisible = true;
+		}
+	}
+
+	/**
+	 * The result of the most recent culling pass.
+	 * 
+	 * @param drawnCuboids The number of cuboids with geometry which are at least partially in view.
+	 * @param culledCuboids The number of cuboids with geometry which were skipped since they are out of view.
+	 * @param occludedCuboids The number of cuboids in view which were skipped since they can't be seen from the camera.
+	 */
+	public static record CullingStats(int drawnCuboids, int culledCuboids, int occludedCuboids) {}
 }
@@ -0,0 +1,514 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.jeffdisher.october.aspects.AspectRegistry;
+import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.data.IOctree;
+import com.jeffdisher.october.data.IReadOnlyCuboidData;
+import com.jeffdisher.october.types.BlockAddress;
+import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.utils.Assert;
+import com.jeffdisher.october.utils.Encoding;
+
+
+/**
+ * Helpers to compute which faces of a cuboid can "see" each other through non-opaque blocks, and to use that
+ * connectivity to find which cuboids could possibly be visible from the camera's cuboid.
+ * The connectivity of a cuboid is represented as an int bit set with one bit for each of the 15 pairs of faces.
+ */
+public class CuboidConnectivity
+{
+	public static final int FACE_UP = 0;
+	public static final int FACE_DOWN = 1;
+	public static final int FACE_NORTH = 2;
+	public static final int FACE_SOUTH = 3;
+	public static final int FACE_EAST = 4;
+	public static final int FACE_WEST = 5;
+	public static final int FACE_COUNT = 6;
+
+	/**
+	 * The connectivity of a cuboid where every face can see every other face (all air, for example).
+	 */
+	public static final int ALL_CONNECTED = (1 << 15) - 1;
+	/**
+	 * The connectivity of a cuboid where no face can see any other face (all stone, for example).
+	 */
+	public static final int NONE_CONNECTED = 0;
+
+	private static final int EDGE = Encoding.CUBOID_EDGE_SIZE;
+	private static final int BLOCKS_PER_CUBOID = EDGE * EDGE * EDGE;
+
+	/**
+	 * The walk of findVisibleInView(), but keeping its containers between calls since it is run every frame.
+	 * Note that the set returned by find() is owned by the receiver so it is only valid until the next call.
+	 */
+	public static class ViewSearch
+	{
+		private final Set<CuboidAddress> _visible;
+		private final Map<CuboidAddress, _SearchNode> _nodes;
+		private CuboidAddress[] _stepAddresses;
+		private int[] _stepEntryFaces;
+		private int[] _stepTravelledFaces;
+		private int _searchNumber;
+		
+		public ViewSearch()
+		{
+			_visible = new HashSet<>();
+			// Each cuboid keeps its neighbour addresses and the faces it was entered through, so the walk doesn't
+			// allocate anything for cuboids it has seen before.
+			_nodes = new HashMap<>();
+			// The steps are kept as a growable array queue, since each cuboid can only be entered once per face.
+			_stepAddresses = new CuboidAddress[FACE_COUNT];
+			_stepEntryFaces = new int[FACE_COUNT];
+			_stepTravelledFaces = new int[FACE_COUNT];
+			_searchNumber = 0;
+		}
+		
+		/**
+		 * Finds the cuboids which could be visible in the view, as described in findVisibleInView().
+		 * 
+		 * @param cameraCuboid The cuboid containing the camera.
+		 * @param connectivityByCuboid The connectivity of every loaded cuboid.
+		 * @param isInView Returns true if the given cuboid is at least partially inside the view.
+		 * @return The set of cuboids which could be visible in this view (only valid until the next call).
+		 */
+		public Set<CuboidAddress> find(CuboidAddress cameraCuboid, Map<CuboidAddress, Integer> connectivityByCuboid, Predicate<CuboidAddress> isInView)
+		{
+			_visible.clear();
+			// The entered faces of each node are only valid for the search number which set them.
+			_searchNumber += 1;
+			// Drop the nodes of unloaded cuboids once they outnumber the loaded ones.
+			if (_nodes.size() > (2 * connectivityByCuboid.size()))
+			{
+				_nodes.keySet().retainAll(connectivityByCuboid.keySet());
+			}
+			if (connectivityByCuboid.containsKey(cameraCuboid))
+			{
+				// As with findPotentiallyVisible, we track the faces we have entered each cuboid through.
+				_visible.add(cameraCuboid);
+				_SearchNode camera = _getNode(cameraCuboid);
+				int head = 0;
+				int tail = 0;
+				for (int face = 0; face < FACE_COUNT; ++face)
+				{
+					tail = _enqueueViewStep(connectivityByCuboid, isInView, camera, face, 0, tail);
+				}
+				while (head < tail)
+				{
+					CuboidAddress address = _stepAddresses[head];
+					int entryFace = _stepEntryFaces[head];
+					int travelledFaces = _stepTravelledFaces[head];
+					head += 1;
+					_visible.add(address);
+					int connectivity = connectivityByCuboid.get(address);
+					_SearchNode node = _getNode(address);
+					for (int face = 0; face < FACE_COUNT; ++face)
+					{
+						boolean isBackward = (0 != (travelledFaces & (1 << oppositeFace(face))));
+						if ((face != entryFace) && !isBackward && canPass(connectivity, entryFace, face))
+						{
+							tail = _enqueueViewStep(connectivityByCuboid, isInView, node, face, travelledFaces, tail);
+						}
+					}
+				}
+			}
+			else
+			{
+				// If we don't know where the camera is, we can't rule anything out.
+				_visible.addAll(connectivityByCuboid.keySet());
+			}
+			return _visible;
+		}
+		
+		private int _enqueueViewStep(Map<CuboidAddress, Integer> connectivityByCuboid, Predicate<CuboidAddress> isInView, _SearchNode from, int exitFace, int travelledFaces, int tail)
+		{
+			CuboidAddress next = from.neighbours[exitFace];
+			int newTail = tail;
+			if (connectivityByCuboid.containsKey(next) && isInView.test(next))
+			{
+				_SearchNode nextNode = _getNode(next);
+				int entryFace = oppositeFace(exitFace);
+				int previous = (_searchNumber == nextNode.searchNumber)
+					? nextNode.enteredFaces
+					: 0
+				;
+				int bit = 1 << entryFace;
+				if (0 == (previous & bit))
+				{
+					nextNode.searchNumber = _searchNumber;
+					nextNode.enteredFaces = previous | bit;
+					if (tail == _stepAddresses.length)
+					{
+						int capacity = 2 * tail;
+						_stepAddresses = Arrays.copyOf(_stepAddresses, capacity);
+						_stepEntryFaces = Arrays.copyOf(_stepEntryFaces, capacity);
+						_stepTravelledFaces = Arrays.copyOf(_stepTravelledFaces, capacity);
+					}
+					_stepAddresses[tail] = next;
+					_stepEntryFaces[tail] = entryFace;
+					_stepTravelledFaces[tail] = travelledFaces | (1 << exitFace);
+					newTail = tail + 1;
+				}
+			}
+			return newTail;
+		}
+		
+		private _SearchNode _getNode(CuboidAddress address)
+		{
+			_SearchNode node = _nodes.get(address);
+			if (null == node)
+			{
+				node = new _SearchNode(address);
+				_nodes.put(address, node);
+			}
+			return node;
+		}
+	}
+
+	/**
+	 * Computes the face-to-face connectivity of the given cuboid by flood-filling through the blocks which aren't
+	 * opaque.
+	 * 
+	 * @param env The environment.
+	 * @param cuboid The cuboid to check.
+	 * @param isOpaque Returns true if the given block number cannot be seen through.
+	 * @return The connectivity bit set of the cuboid.
+	 */
+	public static int compute(Environment env, IReadOnlyCuboidData cuboid, Predicate<Short> isOpaque)
+	{
+		// We start by flattening the opacity of the cuboid since the flood-fill will check every block multiple times.
+		// Note that we skip air in the walk so we need to seed the array with whatever air is.
+		short airNumber = env.special.AIR.item().number();
+		boolean[] open = new boolean[BLOCKS_PER_CUBOID];
+		int openCount;
+		if (isOpaque.test(airNumber))
+		{
+			openCount = 0;
+		}
+		else
+		{
+			for (int i = 0; i < open.length; ++i)
+			{
+				open[i] = true;
+			}
+			openCount = open.length;
+		}
+		int[] changedOpenCount = new int[] { openCount };
+		cuboid.walkData(AspectRegistry.BLOCK, new IOctree.IWalkerCallback<Short>() {
+			@Override
+			public void visit(BlockAddress base, byte size, Short value)
+			{
+				boolean isOpen = !isOpaque.test(value);
+				for (int z = base.z(); z < (base.z() + size); ++z)
+				{
+					for (int y = base.y(); y < (base.y() + size); ++y)
+					{
+						for (int x = base.x(); x < (base.x() + size); ++x)
+						{
+							int index = _index(x, y, z);
+							if (open[index] != isOpen)
+							{
+								open[index] = isOpen;
+								changedOpenCount[0] += isOpen ? 1 : -1;
+							}
+						}
+					}
+				}
+			}
+		}, airNumber);
+		openCount = changedOpenCount[0];
+		
+		int connectivity;
+		if (BLOCKS_PER_CUBOID == openCount)
+		{
+			connectivity = ALL_CONNECTED;
+		}
+		else if (0 == openCount)
+		{
+			connectivity = NONE_CONNECTED;
+		}
+		else
+		{
+			connectivity = _floodFill(open);
+		}
+		return connectivity;
+	}
+
+	/**
+	 * Checks if the given connectivity allows the camera to see through the cuboid from one face to another.
+	 * 
+	 * @param connectivity The connectivity bit set of the cuboid.
+	 * @param fromFace The face where the view enters the cuboid.
+	 * @param toFace The face where the view exits the cuboid.
+	 * @return True if there is some path through non-opaque blocks between these faces.
+	 */
+	public static boolean canPass(int connectivity, int fromFace, int toFace)
+	{
+		return (fromFace == toFace)
+			|| (0 != (connectivity & _pairBit(fromFace, toFace)))
+		;
+	}
+
+	/**
+	 * Returns the face on the opposite side of the cuboid from the given face.
+	 * 
+	 * @param face The face.
+	 * @return The opposite face.
+	 */
+	public static int oppositeFace(int face)
+	{
+		// The faces are defined in opposing pairs.
+		return face ^ 0x1;
+	}
+
+	/**
+	 * Returns the address of the cuboid on the other side of the given face.
+	 * 
+	 * @param address The cuboid address.
+	 * @param face The face.
+	 * @return The neighbouring cuboid address.
+	 */
+	public static CuboidAddress neighbour(CuboidAddress address, int face)
+	{
+		CuboidAddress neighbour;
+		switch (face)
+		{
+			case FACE_UP:
+				neighbour = address.getRelative(0, 0, 1);
+				break;
+			case FACE_DOWN:
+				neighbour = address.getRelative(0, 0, -1);
+				break;
+			case FACE_NORTH:
+				neighbour = address.getRelative(0, 1, 0);
+				break;
+			case FACE_SOUTH:
+				neighbour = address.getRelative(0, -1, 0);
+				break;
+			case FACE_EAST:
+				neighbour = address.getRelative(1, 0, 0);
+				break;
+			case FACE_WEST:
+				neighbour = address.getRelative(-1, 0, 0);
+				break;
+			default:
+				throw Assert.unreachable();
+		}
+		return neighbour;
+	}
+
+	/**
+	 * Walks the graph of loaded cuboids, starting from the camera's cuboid, and only passing through cuboids in ways
+	 * allowed by their connectivity.  The returned set includes every cuboid entered, even those we can't pass through,
+	 * since a solid cuboid still owns the faces which are visible from its neighbour.
+	 * 
+	 * @param cameraCuboid The cuboid containing the camera.
+	 * @param connectivityByCuboid The connectivity of every loaded cuboid.
+	 * @return The set of cuboids which could be visible from the camera.
+	 */
+	public static Set<CuboidAddress> findPotentiallyVisible(CuboidAddress cameraCuboid, Map<CuboidAddress, Integer> connectivityByCuboid)
+	{
+		Set<CuboidAddress> visible = new HashSet<>();
+		if (connectivityByCuboid.containsKey(cameraCuboid))
+		{
+			// We track which faces we have entered each cuboid through, since that determines where we can leave it.
+			Map<CuboidAddress, Integer> enteredFaces = new HashMap<>();
+			Queue<_Step> toVisit = new LinkedList<>();
+			visible.add(cameraCuboid);
+			for (int face = 0; face < FACE_COUNT; ++face)
+			{
+				_enqueueStep(toVisit, enteredFaces, connectivityByCuboid, cameraCuboid, face);
+			}
+			while (!toVisit.isEmpty())
+			{
+				_Step step = toVisit.poll();
+				visible.add(step.address);
+				int connectivity = connectivityByCuboid.get(step.address);
+				for (int face = 0; face < FACE_COUNT; ++face)
+				{
+					if ((face != step.entryFace) && canPass(connectivity, step.entryFace, face))
+					{
+						_enqueueStep(toVisit, enteredFaces, connectivityByCuboid, step.address, face);
+					}
+				}
+			}
+		}
+		else
+		{
+			// If we don't know where the camera is, we can't rule anything out.
+			visible.addAll(connectivityByCuboid.keySet());
+		}
+		return visible;
+	}
+
+	/**
+	 * Like findPotentiallyVisible but for a specific view, so it is used to decide what to draw each frame:  The walk
+	 * only enters cuboids accepted by isInView and never steps in the opposite direction of any step it already took
+	 * to get there (so it always moves away from the camera, which stops it from wrapping around occluders).
+	 * 
+	 * @param cameraCuboid The cuboid containing the camera.
+	 * @param connectivityByCuboid The connectivity of every loaded cuboid.
+	 * @param isInView Returns true if the given cuboid is at least partially inside the view.
+	 * @return The set of cuboids which could be visible in this view.
+	 */
+	public static Set<CuboidAddress> findVisibleInView(CuboidAddress cameraCuboid, Map<CuboidAddress, Integer> connectivityByCuboid, Predicate<CuboidAddress> isInView)
+	{
+		// Callers which search every frame should keep their own ViewSearch so that its containers are reused.
+		return new ViewSearch().find(cameraCuboid, connectivityByCuboid, isInView);
+	}
+
+
+	private static void _enqueueStep(Queue<_Step> toVisit, Map<CuboidAddress, Integer> enteredFaces, Map<CuboidAddress, Integer> connectivityByCuboid, CuboidAddress from, int exitFace)
+	{
+		CuboidAddress next = neighbour(from, exitFace);
+		if (connectivityByCuboid.containsKey(next))
+		{
+			int entryFace = oppositeFace(exitFace);
+			int previous = enteredFaces.getOrDefault(next, 0);
+			int bit = 1 << entryFace;
+			if (0 == (previous & bit))
+			{
+				enteredFaces.put(next, previous | bit);
+				toVisit.add(new _Step(next, entryFace));
+			}
+		}
+	}
+
+	private static int _floodFill(boolean[] open)
+	{
+		// We walk each connected region of open blocks, collecting the faces it touches, and connect all of them.
+		boolean[] visited = new boolean[BLOCKS_PER_CUBOID];
+		int[] stack = new int[BLOCKS_PER_CUBOID];
+		int connectivity = NONE_CONNECTED;
+		for (int start = 0; (start < BLOCKS_PER_CUBOID) && (ALL_CONNECTED != connectivity); ++start)
+		{
+			if (open[start] && !visited[start])
+			{
+				int touchedFaces = 0;
+				int stackSize = 0;
+				visited[start] = true;
+				stack[stackSize] = start;
+				stackSize += 1;
+				while (stackSize > 0)
+				{
+					stackSize -= 1;
+					int index = stack[stackSize];
+					int x = index % EDGE;
+					int y = (index / EDGE) % EDGE;
+					int z = index / (EDGE * EDGE);
+					touchedFaces |= _facesOfBlock(x, y, z);
+					
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x + 1, y, z);
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x - 1, y, z);
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x, y + 1, z);
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x, y - 1, z);
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x, y, z + 1);
+					stackSize = _pushIfOpen(open, visited, stack, stackSize, x, y, z - 1);
+				}
+				
+				for (int from = 0; from < FACE_COUNT; ++from)
+				{
+					for (int to = from + 1; to < FACE_COUNT; ++to)
+					{
+						if ((0 != (touchedFaces & (1 << from))) && (0 != (touchedFaces & (1 << to))))
+						{
+							connectivity |= _pairBit(from, to);
+						}
+					}
+				}
+			}
+		}
+		return connectivity;
+	}
+
+	private static int _pushIfOpen(boolean[] open, boolean[] visited, int[] stack, int stackSize, int x, int y, int z)
+	{
+		int newSize = stackSize;
+		if ((x >= 0) && (x < EDGE) && (y >= 0) && (y < EDGE) && (z >= 0) && (z < EDGE))
+		{
+			int index = _index(x, y, z);
+			if (open[index] && !visited[index])
+			{
+				visited[index] = true;
+				stack[newSize] = index;
+				newSize += 1;
+			}
+		}
+		return newSize;
+	}
+
+	private static int _facesOfBlock(int x, int y, int z)
+	{
+		int faces = 0;
+		int last = EDGE - 1;
+		if (0 == x)
+		{
+			faces |= (1 << FACE_WEST);
+		}
+		else if (last == x)
+		{
+			faces |= (1 << FACE_EAST);
+		}
+		if (0 == y)
+		{
+			faces |= (1 << FACE_SOUTH);
+		}
+		else if (last == y)
+		{
+			faces |= (1 << FACE_NORTH);
+		}
+		if (0 == z)
+		{
+			faces |= (1 << FACE_DOWN);
+		}
+		else if (last == z)
+		{
+			faces |= (1 << FACE_UP);
+		}
+		return faces;
+	}
+
+	private static int _pairBit(int faceA, int faceB)
+	{
+		// We map the (low, high) pair into the 15 unique pairs:  5 for face 0, 4 for face 1, etc.
+		int low = Math.min(faceA, faceB);
+		int high = Math.max(faceA, faceB);
+		int offset = (low * (2 * FACE_COUNT - low - 1)) / 2;
+		int index = offset + (high - low - 1);
+		return 1 << index;
+	}
+
+	private static int _index(int x, int y, int z)
+	{
+		return (z * EDGE * EDGE) + (y * EDGE) + x;
+	}
+
+
+	private static record _Step(CuboidAddress address, int entryFace) {}
+
+	private static class _SearchNode
+	{
+		public final CuboidAddress[] neighbours;
+		public int searchNumber;
+		public int enteredFaces;
+		
+		public _SearchNode(CuboidAddress address)
+		{
+			this.neighbours = new CuboidAddress[FACE_COUNT];
+			for (int face = 0; face < FACE_COUNT; ++face)
+			{
+				this.neighbours[face] = neighbour(address, face);
+			}
+			this.searchNumber = 0;
+			this.enteredFaces = 0;
+		}
+	}
+}
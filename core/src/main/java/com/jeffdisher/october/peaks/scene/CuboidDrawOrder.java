@@ -0,0 +1,124 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import com.jeffdisher.october.types.CuboidAddress;
+
+
+/**
+ * A list of per-cuboid draw entries kept in order of their distance from the camera's cuboid.
+ * Opaque layers should be drawn front-to-back, so that the depth test rejects the hidden fragments of farther cuboids
+ * before they are shaded, while blended layers should be drawn back-to-front, so that nearer surfaces blend over those
+ * behind them.
+ * The distance is only measured between cuboids so the order only needs to change when the camera crosses into a
+ * different cuboid.  When that happens, the list is nearly sorted already so re-sorting it is close to linear.  New
+ * entries are inserted directly into their sorted position.
+ * 
+ * @param <T> The type of the draw entries.
+ */
+public class CuboidDrawOrder<T> implements Iterable<T>
+{
+	/**
+	 * Returns the squared distance between 2 cuboids, measured in cuboids.
+	 * 
+	 * @param one One cuboid.
+	 * @param two Another cuboid.
+	 * @return The squared distance between the cuboid addresses.
+	 */
+	public static int distanceSquared(CuboidAddress one, CuboidAddress two)
+	{
+		int dx = one.x() - two.x();
+		int dy = one.y() - two.y();
+		int dz = one.z() - two.z();
+		return (dx * dx) + (dy * dy) + (dz * dz);
+	}
+
+
+	private final Function<T, CuboidAddress> _addressOf;
+	private final boolean _isFrontToBack;
+	private final List<T> _elements;
+	private CuboidAddress _cameraCuboid;
+	private Comparator<T> _comparator;
+
+	/**
+	 * Creates an empty draw order.
+	 * 
+	 * @param addressOf Returns the cuboid address of a draw entry.
+	 * @param isFrontToBack True if the nearest entries should be first, false if the farthest should be first.
+	 */
+	public CuboidDrawOrder(Function<T, CuboidAddress> addressOf, boolean isFrontToBack)
+	{
+		_addressOf = addressOf;
+		_isFrontToBack = isFrontToBack;
+		_elements = new ArrayList<>();
+		_cameraCuboid = null;
+		_comparator = null;
+	}
+
+	/**
+	 * Adds a new entry to the list, in its sorted position if the camera's cuboid is known.
+	 * 
+	 * @param element The new entry.
+	 */
+	public void add(T element)
+	{
+		if (null != _comparator)
+		{
+			// If there are ties, it doesn't matter where we land among them.
+			int index = Collections.binarySearch(_elements, element, _comparator);
+			if (index < 0)
+			{
+				index = -(index + 1);
+			}
+			_elements.add(index, element);
+		}
+		else
+		{
+			_elements.add(element);
+		}
+	}
+
+	/**
+	 * Updates the cuboid where the camera is, re-sorting the list only if this is a different cuboid.
+	 * 
+	 * @param cameraCuboid The cuboid containing the camera.
+	 */
+	public void setCameraCuboid(CuboidAddress cameraCuboid)
+	{
+		if (!cameraCuboid.equals(_cameraCuboid))
+		{
+			_cameraCuboid = cameraCuboid;
+			Comparator<T> nearestFirst = Comparator.comparingInt((T element) -> distanceSquared(cameraCuboid, _addressOf.apply(element)));
+			_comparator = _isFrontToBack
+				? nearestFirst
+				: nearestFirst.reversed()
+			;
+			_elements.sort(_comparator);
+		}
+	}
+
+	/**
+	 * @return The number of entries in the list.
+	 */
+	public int size()
+	{
+		return _elements.size();
+	}
+
+	/**
+	 * Returns an iterator over the entries in draw order.  The iterator supports remove(), which doesn't change the
+	 * order of the remaining entries.
+	 * 
+	 * @return The iterator over the entries.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return _elements.iterator();
+	}
+}
@@ -1,29 +1,45 @@
 package com.jeffdisher.october.peaks.scene;
 
 import java.nio.ByteBuffer;
+import java.nio.BufferOverflowException;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 import com.jeffdisher.october.aspects.AspectRegistry;
 import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.aspects.FlagsAspect;
 import com.jeffdisher.october.data.BlockProxy;
 import com.jeffdisher.october.data.ColumnHeightMap;
+import com.jeffdisher.october.data.CuboidData;
 import com.jeffdisher.october.data.IOctree;
 import com.jeffdisher.october.data.IReadOnlyCuboidData;
 import com.jeffdisher.october.logic.SparseByteCube;
 import com.jeffdisher.october.peaks.graphics.Attribute;
 import com.jeffdisher.october.peaks.graphics.BufferBuilder;
-import com.jeffdisher.october.peaks.textures.AuxilliaryTextureAtlas;
+import com.jeffdisher.october.peaks.graphics.Frustum;
+import com.jeffdisher.october.peaks.graphics.VertexArena;
 import com.jeffdisher.october.peaks.textures.BasicBlockAtlas;
+import com.jeffdisher.october.peaks.types.Prism;
 import com.jeffdisher.october.types.AbsoluteLocation;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
@@ -44,71 +60,213 @@ public class CuboidMeshManager
 {
 	public static final int SCRATCH_BUFFER_COUNT = 2;
 	public static final int BUFFER_SIZE = 64 * 1024 * 1024;
+	/**
+	 * If the authoritative cuboid hasn't arrived within this many milliseconds of a speculative edit, we assume that the
+	 * edit was rejected and roll back to the authoritative mesh.
+	 */
+	public static final long SPECULATION_TIMEOUT_MILLIS = 2_000L;
+	/**
+	 * The number of threads used to bake the layers of a latency-critical cuboid in parallel.
+	 */
+	public static final int PARALLEL_BAKE_THREADS = 4;
+	/**
+	 * The relative share of the scratch buffer given to each layer when baking in parallel:  opaque, models,
+	 * transparent, water, burning faces.
+	 */
+	public static final int[] PARALLEL_REGION_WEIGHTS = new int[] { 8, 3, 2, 2, 1 };
+	/**
+	 * Changed cuboids within this many cuboids of the camera (on every axis) are also baked in parallel, since the user
+	 * is likely waiting to see their own edits there.
+	 */
+	public static final int PARALLEL_BAKE_RADIUS = 1;
+	/**
+	 * The number of unused quads allocated at the end of each opaque buffer, so single-block edits can be patched into
+	 * it, in-place.  Setting this to 0 disables patching.
+	 */
+	public static final int PATCH_SLACK_QUADS = 64;
+	public static final int PATCH_BUFFER_COUNT = 2;
+	public static final int PATCH_BUFFER_SIZE = 64 * 1024;
+	/**
+	 * The default limit on the bytes of vertex data we will keep on the GPU before evicting the farthest cuboids.
+	 */
+	public static final long DEFAULT_GPU_MESH_BUDGET_BYTES = 512L * 1024L * 1024L;
 
 	// Block type IDs which have some special use.
 	public static final String ITEM_ID_PEDESTAL = "op.pedestal";
 	public static final String ITEM_ID_ENCHANTING_TABLE = "op.enchanting_table";
 
+	/**
+	 * The baking thread, parallel bake pool, and native scratch buffers are expensive to create and slow to reclaim, so
+	 * they are owned by the application and lent to each CuboidMeshManager instance, in turn.  Only one instance can
+	 * use them at a time:  The next can only be created once the previous one has been shut down.
+	 */
+	public static class Resources
+	{
+		private final ExecutorService _bakeThread;
+		private final ForkJoinPool _parallelBakePool;
+		private final FloatBuffer[] _scratchBuffers;
+		private final FloatBuffer[] _patchBuffers;
+		private boolean _isInUse;
+		
+		public Resources()
+		{
+			_bakeThread = Executors.newSingleThreadExecutor((Runnable runnable) -> new Thread(runnable, "Cuboid Mesh Baking Thread"));
+			_parallelBakePool = new ForkJoinPool(PARALLEL_BAKE_THREADS);
+			_scratchBuffers = new FloatBuffer[SCRATCH_BUFFER_COUNT];
+			for (int i = 0; i < _scratchBuffers.length; ++i)
+			{
+				_scratchBuffers[i] = _allocateScratch(BUFFER_SIZE);
+			}
+			// Single-block edits are patched into the existing opaque buffer using their own small scratch buffers.
+			_patchBuffers = new FloatBuffer[PATCH_BUFFER_COUNT];
+			for (int i = 0; i < _patchBuffers.length; ++i)
+			{
+				_patchBuffers[i] = _allocateScratch(PATCH_BUFFER_SIZE);
+			}
+			_isInUse = false;
+		}
+		
+		public void shutdown()
+		{
+			// The last CuboidMeshManager must have been shut down before this.
+			Assert.assertTrue(!_isInUse);
+			_bakeThread.shutdown();
+			try
+			{
+				boolean didTerminate = _bakeThread.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				Assert.assertTrue(didTerminate);
+			}
+			catch (InterruptedException e)
+			{
+				// Interruption not used.
+				throw Assert.unexpected(e);
+			}
+			_parallelBakePool.shutdown();
+		}
+		
+		private static FloatBuffer _allocateScratch(int bytes)
+		{
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes);
+			direct.order(ByteOrder.nativeOrder());
+			return direct.asFloatBuffer();
+		}
+	}
+
 	// Non-mutated data.
 	private final Environment _env;
+	private final Resources _resources;
 	private final IGpu _gpu;
 	private final Attribute[] _programAttributes;
-	private final BlockModelsAndAtlas _blockModels;
-	private final BasicBlockAtlas _blockTextures;
-	private final AuxilliaryTextureAtlas _auxBlockTextures;
+	private final ICuboidMesher _mesher;
 	private final Map<Block, Float> _itemSlotBlocksHeights;
+	private final Set<Short> _lavaNumbers;
+	private final Predicate<Short> _isOpaque;
 
 	// Foreground-only data.
 	private final Map<CuboidAddress, _InternalData> _foregroundCuboids;
 	private final Map<CuboidColumnAddress, _HeightWrapper> _foregroundHeightMaps;
 	private final List<CuboidAddress> _foregroundRequestOrder;
 	private final Queue<FloatBuffer> _foregroundGraphicsBuffers;
+	private final Map<CuboidAddress, _Speculation> _foregroundSpeculations;
+	private final Map<CuboidAddress, Integer> _foregroundConnectivity;
+	private final Map<CuboidAddress, IReadOnlyCuboidData> _foregroundConnectivityPending;
+	private final Map<CuboidAddress, Prism> _foregroundCuboidBoxes;
+	private final Set<CuboidAddress> _foregroundDeferred;
+	private final Set<CuboidAddress> _foregroundChanged;
+	private CuboidAddress _foregroundCameraCuboid;
+	private Set<CuboidAddress> _foregroundPotentiallyVisible;
+	private final CuboidConnectivity.ViewSearch _foregroundViewSearch;
+	private final Predicate<CuboidAddress> _foregroundIsInViewFrustum;
+	private Frustum _foregroundViewFrustum;
+	private final Map<CuboidAddress, OpaqueQuadLayout> _foregroundLayouts;
+	private final Queue<FloatBuffer> _foregroundPatchBuffers;
+	private final Map<CuboidAddress, Integer> _foregroundBakesInFlight;
+	private final Map<CuboidAddress, Long> _foregroundTokenBytes;
+	private final Set<CuboidAddress> _foregroundEvicted;
+	private long _foregroundResidentBytes;
+	private long _foregroundBudgetBytes;
+	private Set<CuboidAddress> _foregroundOverBudget;
+	private final Set<CuboidAddress> _foregroundPendingCount;
 	
 	// Objects related to the handoff.
 	private boolean _keepRunning;
+	private final Queue<_Request> _priorityRequests;
 	private final Queue<_Request> _requests;
 	private final Queue<_Response> _responses;
-	private final Thread _background;
+	private final Queue<IReadOnlyCuboidData> _connectivityRequests;
+	private final Queue<_ConnectivityResponse> _connectivityResponses;
 
 	public CuboidMeshManager(Environment env
+			, Resources resources
 			, IGpu gpu
 			, Attribute[] programAttributes
-			, BlockModelsAndAtlas blockModels
 			, BasicBlockAtlas blockTextures
-			, AuxilliaryTextureAtlas auxBlockTextures
+			, ICuboidMesher mesher
 	)
 	{
+		// We borrow the shared resources until shutdown.
+		Assert.assertTrue(!resources._isInUse);
+		resources._isInUse = true;
 		_env = env;
+		_resources = resources;
 		_gpu = gpu;
-		_programAttributes = programAttributes;;
-		_blockModels = blockModels;
-		_blockTextures = blockTextures;
-		_auxBlockTextures = auxBlockTextures;
+		_programAttributes = programAttributes;
+		_mesher = mesher;
 		_itemSlotBlocksHeights = Map.of(env.blocks.fromItem(env.items.getItemById(ITEM_ID_PEDESTAL)), 0.8f
 			, env.blocks.fromItem(env.items.getItemById(ITEM_ID_ENCHANTING_TABLE)), 1.0f
 		);
+		_lavaNumbers = Set.of(env.items.getItemById("op.lava_source").number()
+			, env.items.getItemById("op.lava_strong").number()
+			, env.items.getItemById("op.lava_weak").number()
+		);
+		// We use the same definition of opaque as the mesh builder, since these are the blocks which hide what is behind them.
+		_isOpaque = (Short value) -> {
+			return blockTextures.isInBasicAtlas(value)
+					&& !blockTextures.textureHasNonOpaquePixels(value)
+			;
+		};
 		
 		// Foreground-only data.
 		_foregroundCuboids = new HashMap<>();
 		_foregroundHeightMaps = new HashMap<>();
 		_foregroundRequestOrder = new LinkedList<>();
-		_foregroundGraphicsBuffers = new LinkedList<>();
-		for (int i = 0; i < SCRATCH_BUFFER_COUNT; ++i)
-		{
-			ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
-			direct.order(ByteOrder.nativeOrder());
-			FloatBuffer buffer = direct.asFloatBuffer();
-			_foregroundGraphicsBuffers.add(buffer);
-		}
+		_foregroundGraphicsBuffers = new LinkedList<>(List.of(resources._scratchBuffers));
+		_foregroundSpeculations = new HashMap<>();
+		// Cuboids which can't be seen from the camera are deferred until the camera or their connectivity changes.
+		_foregroundConnectivity = new HashMap<>();
+		// Connectivity is computed on the bake thread so we remember the cuboid we last sent, to ignore stale results.
+		_foregroundConnectivityPending = new HashMap<>();
+		// The bounds of each cuboid are kept for the per-frame view search so it doesn't build a box for every test.
+		_foregroundCuboidBoxes = new HashMap<>();
+		_foregroundDeferred = new HashSet<>();
+		// Changed cuboids in the request order, so that those near the camera can be baked in parallel.
+		_foregroundChanged = new HashSet<>();
+		_foregroundCameraCuboid = null;
+		_foregroundPotentiallyVisible = null;
+		// The per-frame view search reuses its containers and this predicate, rather than allocating them every frame.
+		_foregroundViewSearch = new CuboidConnectivity.ViewSearch();
+		_foregroundIsInViewFrustum = (CuboidAddress address) -> _foregroundViewFrustum.isBoxVisible(_foregroundCuboidBoxes.get(address));
+		_foregroundViewFrustum = null;
+		_foregroundLayouts = new HashMap<>();
+		_foregroundPatchBuffers = new LinkedList<>(List.of(resources._patchBuffers));
+		_foregroundBakesInFlight = new HashMap<>();
+		// We track the size of every token so that we can evict the farthest cuboids when we exceed the GPU budget.
+		// Note that we keep the last known size of evicted cuboids so we know how much space they need to come back.
+		_foregroundTokenBytes = new HashMap<>();
+		_foregroundEvicted = new HashSet<>();
+		_foregroundResidentBytes = 0L;
+		_foregroundBudgetBytes = DEFAULT_GPU_MESH_BUDGET_BYTES;
+		_foregroundOverBudget = null;
+		// This is only used to count the distinct pending cuboids but is kept to avoid building a new set every frame.
+		_foregroundPendingCount = new HashSet<>();
 		
-		// Setup the background processing thread.
+		// Setup the handoff to the shared background baking thread.
 		_keepRunning = true;
+		_priorityRequests = new LinkedList<>();
 		_requests = new LinkedList<>();
 		_responses = new LinkedList<>();
-		_background = new Thread(() -> _backgroundMain()
-				, "Cuboid Mesh Baking Thread"
-		);
-		_background.start();
+		_connectivityRequests = new LinkedList<>();
+		_connectivityResponses = new LinkedList<>();
 	}
 
 	public void setCuboid(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap, Set<BlockAddress> changedBlocks)
@@ -116,23 +274,58 @@ public class CuboidMeshManager
 		// Remove the old record and replace it, marking it needing processing.
 		CuboidAddress address = cuboid.getCuboidAddress();
 		_InternalData existing = _foregroundCuboids.remove(address);
+		// If this is a small edit, we can patch it into the existing opaque buffer, instead of re-baking everything.
+		Set<BlockAddress> patchBlocks = (null != existing)
+			? _findPatchBlocks(address, existing, cuboid, heightMap, changedBlocks)
+			: null
+		;
+		boolean requiresProcessing = (null == patchBlocks);
 		_InternalData internal;
 		if (null != existing)
 		{
-			internal = new _InternalData(true
+			internal = new _InternalData(requiresProcessing
 				, cuboid
 				, existing.token
 			);
 		}
 		else
 		{
-			internal = new _InternalData(true
+			internal = new _InternalData(requiresProcessing
 				, cuboid
 				, null
 			);
 		}
 		_foregroundCuboids.put(address, internal);
 		
+		// Any speculative edit on this cuboid is reconciled against the authoritative data:  The re-bake of the
+		// authoritative data will show the predictions it confirms or contradicts, but the predictions it doesn't cover
+		// yet are kept, on top of this new data.
+		_Speculation speculation = _foregroundSpeculations.remove(address);
+		if (null != speculation)
+		{
+			_Speculation pending = _reconcileSpeculation(speculation, cuboid);
+			if (null != pending)
+			{
+				_foregroundSpeculations.put(address, pending);
+				_dispatchSpeculation();
+			}
+		}
+		
+		// The connectivity only depends on the block types so we only recompute it (in the background) when those change.
+		boolean needsConnectivity = (null == existing)
+			? true
+			: _didAnyBlockTypeChange(existing.cuboid, cuboid, changedBlocks)
+		;
+		if (needsConnectivity)
+		{
+			_foregroundConnectivityPending.put(address, cuboid);
+			_enqueueConnectivityRequest(cuboid);
+		}
+		if (null == existing)
+		{
+			_foregroundCuboidBoxes.put(address, _cuboidBox(address));
+		}
+		
 		// Do the same thing to the column height maps.
 		CuboidColumnAddress column = address.getColumn();
 		_HeightWrapper wrapper = _foregroundHeightMaps.get(column);
@@ -143,10 +336,24 @@ public class CuboidMeshManager
 		_foregroundHeightMaps.put(column, new _HeightWrapper(count, heightMap));
 		
 		// We need to enqueue a request to re-bake this (will be skipped if this is a redundant change).
-		if (null != changedBlocks)
+		if (null != patchBlocks)
+		{
+			// Patches are sent immediately, on the priority lane, since they are small and latency-sensitive.
+			FloatBuffer patchBuffer = _foregroundPatchBuffers.poll();
+			_Request request = new _Request(patchBuffer
+					, false
+					, false
+					, new _PatchInfo(patchBlocks, existing.cuboid)
+					, _packageRequestInput(address, cuboid)
+			);
+			_enqueuePriorityRequest(request);
+			_noteBakeStarted(address);
+		}
+		else if (null != changedBlocks)
 		{
 			// Changed cuboids are prioritized.
 			_foregroundRequestOrder.add(0, address);
+			_foregroundChanged.add(address);
 		}
 		else
 		{
@@ -238,11 +445,64 @@ public class CuboidMeshManager
 		}
 	}
 
+	/**
+	 * Applies a predicted block change on top of the cuboid we are currently showing and bakes it on the priority lane,
+	 * so that the local user sees their own edits without waiting for the server round-trip.  The speculation is kept
+	 * until an authoritative cuboid from setCuboid() contains the predicted block, and is rolled back if that replaces
+	 * the block with something else or takes too long.
+	 * 
+	 * @param currentTimeMillis The current time, in milliseconds, used to time out the speculation.
+	 * @param location The location of the block being changed.
+	 * @param block The block type we expect to see at this location.
+	 */
+	public void speculateBlockChange(long currentTimeMillis, AbsoluteLocation location, Block block)
+	{
+		// We can only speculate on top of cuboids we already have.
+		CuboidAddress address = location.getCuboidAddress();
+		_InternalData existing = _foregroundCuboids.get(address);
+		if (null != existing)
+		{
+			// If there are multiple outstanding edits in this cuboid, we build on top of the previous speculation.
+			_Speculation previous = _foregroundSpeculations.get(address);
+			IReadOnlyCuboidData base = (null != previous)
+				? previous.speculativeCuboid
+				: existing.cuboid
+			;
+			BlockAddress blockAddress = location.getBlockAddress();
+			short number = block.item().number();
+			CuboidData speculative = CuboidData.mutableClone(base);
+			speculative.setData15(AspectRegistry.BLOCK, blockAddress, number);
+			
+			// We remember what the authoritative data had before each prediction so we can tell when it is resolved.
+			Map<BlockAddress, _PredictedBlock> predictions = new HashMap<>();
+			if (null != previous)
+			{
+				predictions.putAll(previous.predictions);
+			}
+			predictions.put(blockAddress, new _PredictedBlock(existing.cuboid.getData15(AspectRegistry.BLOCK, blockAddress), number));
+			long expiryMillis = currentTimeMillis + SPECULATION_TIMEOUT_MILLIS;
+			_foregroundSpeculations.put(address, new _Speculation(true, existing.cuboid, speculative, predictions, expiryMillis));
+			
+			// We want to start this immediately, if a scratch buffer is free.
+			_dispatchSpeculation();
+		}
+	}
+
 	public void removeCuboid(CuboidAddress address)
 	{
 		// We assume that this is an address we have received in the past so this can't be missing from any collection.
 		_InternalData previous = _foregroundCuboids.remove(address);
 		Assert.assertTrue(null != previous);
+		_foregroundSpeculations.remove(address);
+		_foregroundConnectivity.remove(address);
+		_foregroundConnectivityPending.remove(address);
+		_foregroundCuboidBoxes.remove(address);
+		_foregroundDeferred.remove(address);
+		_foregroundChanged.remove(address);
+		_foregroundPotentiallyVisible = null;
+		_foregroundLayouts.remove(address);
+		_foregroundEvicted.remove(address);
+		_foregroundOverBudget = null;
 		
 		// Decrement count on height map.
 		CuboidColumnAddress column = address.getColumn();
@@ -256,48 +516,270 @@ public class CuboidMeshManager
 		// Delete any buffers backing it.
 		if (null != previous.token)
 		{
-			_gpu.deleteToken(previous.token);
+			_deleteToken(address, previous.token);
+		}
+		_foregroundTokenBytes.remove(address);
+	}
+
+	/**
+	 * Updates the cuboid containing the camera, which is used to decide which cuboids could possibly be visible (and
+	 * therefore worth baking).  Passing null disables this check so that everything is baked.
+	 * 
+	 * @param cameraCuboid The cuboid containing the camera (null if unknown).
+	 */
+	public void setCameraCuboid(CuboidAddress cameraCuboid)
+	{
+		boolean didChange = (null != cameraCuboid)
+			? !cameraCuboid.equals(_foregroundCameraCuboid)
+			: (null != _foregroundCameraCuboid)
+		;
+		if (didChange)
+		{
+			_foregroundCameraCuboid = cameraCuboid;
+			_foregroundPotentiallyVisible = null;
+			_foregroundOverBudget = null;
+		}
+	}
+
+	/**
+	 * Finds the cuboids which could be seen in the given view by walking out from the camera's cuboid through the
+	 * connectivity of the cuboids between.  Cuboids hidden behind solid ground (or caves hidden from the surface) are
+	 * not included, even if they are inside the frustum.
+	 * 
+	 * Note that the returned set is reused by the next call so it must not be kept.
+	 * 
+	 * @param frustum The camera's view frustum.
+	 * @return The set of cuboids which could be seen, or null if the camera's cuboid isn't known.
+	 */
+	public Set<CuboidAddress> findCuboidsInView(Frustum frustum)
+	{
+		Set<CuboidAddress> inView = null;
+		if (null != _foregroundCameraCuboid)
+		{
+			_foregroundViewFrustum = frustum;
+			inView = _foregroundViewSearch.find(_foregroundCameraCuboid
+				, _foregroundConnectivity
+				, _foregroundIsInViewFrustum
+			);
+		}
+		return inView;
+	}
+
+	/**
+	 * Sets the limit on the bytes of vertex data kept on the GPU.  When this is exceeded, the buffers of the cuboids
+	 * farthest from the camera are evicted (their cuboid data is kept) and they are re-baked once they fit again.
+	 * 
+	 * @param budgetBytes The maximum number of bytes of vertex data to keep on the GPU.
+	 */
+	public void setGpuMeshBudgetBytes(long budgetBytes)
+	{
+		Assert.assertTrue(budgetBytes > 0L);
+		if (budgetBytes != _foregroundBudgetBytes)
+		{
+			_foregroundBudgetBytes = budgetBytes;
+			_foregroundOverBudget = null;
+		}
+	}
+
+	/**
+	 * @return A snapshot of how much GPU memory is used by cuboid meshes, for debugging purposes.
+	 */
+	public MemoryStats getMemoryStats()
+	{
+		return new MemoryStats(_foregroundResidentBytes
+			, _foregroundBudgetBytes
+			, _foregroundEvicted.size()
+		);
+	}
+
+	/**
+	 * Returns how many distinct cuboids are waiting to be baked, including those currently being baked.  Cuboids which
+	 * are deferred (hidden from the camera) or evicted (over the GPU budget) aren't counted since they won't be baked
+	 * until something else changes.
+	 * 
+	 * @return The number of cuboids waiting on a bake.
+	 */
+	public int getPendingBakeCount()
+	{
+		// The request order can contain the same cuboid more than once, as well as stale entries which are dropped when
+		// reached, so we only count each cuboid which still needs processing once.
+		_foregroundPendingCount.clear();
+		_foregroundPendingCount.addAll(_foregroundBakesInFlight.keySet());
+		for (CuboidAddress address : _foregroundRequestOrder)
+		{
+			_InternalData internal = _foregroundCuboids.get(address);
+			boolean isPending = (null != internal)
+				&& internal.requiresProcessing
+				&& !_foregroundDeferred.contains(address)
+				&& !_foregroundEvicted.contains(address)
+			;
+			if (isPending)
+			{
+				_foregroundPendingCount.add(address);
+			}
 		}
+		return _foregroundPendingCount.size();
 	}
 
-	public void processBackground()
+	/**
+	 * Handles any finished bakes, rolls back any expired speculations, and sends new bake requests.  Called once per
+	 * frame.
+	 * 
+	 * @param currentTimeMillis The current time, in milliseconds.
+	 */
+	public void processBackground(long currentTimeMillis)
 	{
 		// First, see if anything has come back to us.
 		_Response response = _dequeueResponse();
 		while (null != response)
 		{
 			CuboidAddress address = response.cuboid.getCuboidAddress();
-			_InternalData internal = _foregroundCuboids.remove(address);
+			_InternalData internal = _foregroundCuboids.get(address);
+			_Speculation speculation = _foregroundSpeculations.get(address);
+			_noteBakeFinished(address);
+			boolean shouldReplace;
+			if (null != response.patch)
+			{
+				// Patches are applied in-place, below, instead of replacing the whole token.
+				_applyPatch(address, internal, response);
+				shouldReplace = false;
+			}
+			else if (response.isSpeculative)
+			{
+				// We only show the speculative mesh if it hasn't already been reconciled or rolled back.
+				shouldReplace = (null != speculation);
+			}
+			else
+			{
+				// A bake of the authoritative data from before the speculation would hide the predicted edit, so skip it.
+				shouldReplace = (null == speculation) || (speculation.basedOn != response.cuboid);
+			}
 			
 			// We only replace this if it wasn't deleted.
-			if (null != internal)
+			if ((null != internal) && shouldReplace)
 			{
 				// Delete the old GPU resources.
 				if (null != internal.token)
 				{
-					_gpu.deleteToken(internal.token);
+					_deleteToken(address, internal.token);
 				}
 				
-				Object token = _gpu.createToken(response.cuboid.getCuboidAddress()
-					, response.opaqueBuffer
-					, response.modelBuffer
-					, response.transparentBuffer
-					, response.waterBuffer
-					, response.itemSlotArray
-					, response.fireFaces
-					, response.burningFaceBuffer
-				);
+				// We only allow patching normal bakes, and not when there is fire, since that is tracked in another layer.
+				boolean canPatch = !response.isSpeculative
+					&& (null != response.opaqueBuffer)
+					&& (null != response.opaqueQuadOwners)
+					&& (null == response.fireFaces)
+					&& (0 == (response.opaqueBuffer.vertexCount % OpaqueQuadLayout.VERTICES_PER_QUAD))
+				;
+				int slackQuads = canPatch ? PATCH_SLACK_QUADS : 0;
+				Object token = _createToken(address, response, slackQuads * OpaqueQuadLayout.VERTICES_PER_QUAD);
 				// We only clear internal.requiresProcessing when sending the request, not handling the response.
+				// Note that we always store the authoritative cuboid, even when showing a speculative mesh.
 				_InternalData newInstance = new _InternalData(internal.requiresProcessing, internal.cuboid, token);
 				_foregroundCuboids.put(address, newInstance);
+				if (canPatch)
+				{
+					int totalQuads = response.opaqueBuffer.vertexCount / OpaqueQuadLayout.VERTICES_PER_QUAD;
+					_foregroundLayouts.put(address, new OpaqueQuadLayout(response.opaqueQuadOwners, totalQuads, slackQuads, response.cuboid));
+				}
+				else
+				{
+					_foregroundLayouts.remove(address);
+				}
 			}
 			
 			// We can now return the scratch buffer since we uploaded the related buffers.
-			_foregroundGraphicsBuffers.add(response.meshBuffer);
+			if (null != response.patch)
+			{
+				_foregroundPatchBuffers.add(response.meshBuffer);
+			}
+			else
+			{
+				_foregroundGraphicsBuffers.add(response.meshBuffer);
+			}
 			
 			response = _dequeueResponse();
 		}
 		
+		// Apply any connectivity which is still current, invalidating the visible set if it changed.
+		_ConnectivityResponse connectivityResponse = _dequeueConnectivityResponse();
+		while (null != connectivityResponse)
+		{
+			CuboidAddress address = connectivityResponse.cuboid.getCuboidAddress();
+			if (_foregroundConnectivityPending.get(address) == connectivityResponse.cuboid)
+			{
+				_foregroundConnectivityPending.remove(address);
+				Integer oldConnectivity = _foregroundConnectivity.put(address, connectivityResponse.connectivity);
+				if ((null == oldConnectivity) || (connectivityResponse.connectivity != oldConnectivity))
+				{
+					_foregroundPotentiallyVisible = null;
+				}
+			}
+			connectivityResponse = _dequeueConnectivityResponse();
+		}
+		
+		// Roll back any speculations which were never confirmed by the server.
+		Iterator<Map.Entry<CuboidAddress, _Speculation>> speculations = _foregroundSpeculations.entrySet().iterator();
+		while (speculations.hasNext())
+		{
+			Map.Entry<CuboidAddress, _Speculation> elt = speculations.next();
+			if (elt.getValue().expiryMillis <= currentTimeMillis)
+			{
+				speculations.remove();
+				CuboidAddress address = elt.getKey();
+				_InternalData existing = _foregroundCuboids.get(address);
+				_foregroundCuboids.put(address, new _InternalData(true, existing.cuboid, existing.token));
+				_foregroundRequestOrder.add(0, address);
+			}
+		}
+		
+		// If a speculation was waiting for a scratch buffer, send it now, before any normal requests take them.
+		_dispatchSpeculation();
+		
+		// If the camera or the connectivity of the world changed, find what is visible and un-defer anything now visible.
+		if ((null != _foregroundCameraCuboid) && (null == _foregroundPotentiallyVisible))
+		{
+			_foregroundPotentiallyVisible = CuboidConnectivity.findPotentiallyVisible(_foregroundCameraCuboid, _foregroundConnectivity);
+			Iterator<CuboidAddress> deferred = _foregroundDeferred.iterator();
+			while (deferred.hasNext())
+			{
+				CuboidAddress address = deferred.next();
+				if (_foregroundPotentiallyVisible.contains(address))
+				{
+					deferred.remove();
+					_foregroundRequestOrder.add(address);
+				}
+			}
+		}
+		
+		// If the GPU memory use or the camera changed, evict anything now over budget and re-request anything which fits.
+		if (null == _foregroundOverBudget)
+		{
+			_foregroundOverBudget = _findOverBudget();
+			for (CuboidAddress address : _foregroundOverBudget)
+			{
+				_InternalData internal = _foregroundCuboids.get(address);
+				if (null != internal.token)
+				{
+					// We keep the cuboid but drop its buffers, so it will be re-baked if it comes back into range.
+					_deleteToken(address, internal.token);
+					_foregroundLayouts.remove(address);
+					_foregroundCuboids.put(address, new _InternalData(true, internal.cuboid, null));
+					_foregroundEvicted.add(address);
+				}
+			}
+			Iterator<CuboidAddress> evicted = _foregroundEvicted.iterator();
+			while (evicted.hasNext())
+			{
+				CuboidAddress address = evicted.next();
+				if (!_foregroundOverBudget.contains(address))
+				{
+					evicted.remove();
+					_foregroundRequestOrder.add(address);
+				}
+			}
+		}
+		
 		// Now that we have freed up any scratch buffers, see if we can request something else.
 		// Adjacent cuboid views assume the order of requests so check that queue for the order.
 		Iterator<CuboidAddress> iterator = _foregroundRequestOrder.iterator();
@@ -305,15 +787,32 @@ public class CuboidMeshManager
 		{
 			CuboidAddress address = iterator.next();
 			_InternalData next = _foregroundCuboids.get(address);
+			boolean wasChanged = _foregroundChanged.remove(address);
 			// It is possible that there are redundant requests in the list so double-check that processing is still required.
-			if ((null != next) && next.requiresProcessing)
+			boolean isVisible = (null == _foregroundCameraCuboid) || _foregroundPotentiallyVisible.contains(address);
+			if ((null != next) && next.requiresProcessing && !isVisible)
+			{
+				// This can't be seen from the camera so leave it stale until the camera or connectivity changes.
+				_foregroundDeferred.add(address);
+			}
+			else if ((null != next) && next.requiresProcessing && _foregroundOverBudget.contains(address))
 			{
-				// This is stale so regenerate it.
+				// This is too far away to fit in the GPU budget so leave it un-baked until it comes back into range.
+				_foregroundEvicted.add(address);
+			}
+			else if ((null != next) && next.requiresProcessing)
+			{
+				// This is stale so regenerate it (in parallel, if this is an edit the user is probably waiting to see).
 				FloatBuffer meshBuffer = _foregroundGraphicsBuffers.poll();
+				boolean isUrgent = wasChanged && _isNearCamera(address);
 				_Request request = new _Request(meshBuffer
-						, _packageRequestInput(address)
+						, false
+						, isUrgent
+						, null
+						, _packageRequestInput(address, next.cuboid)
 				);
 				_enqueueRequest(request);
+				_noteBakeStarted(address);
 				_foregroundCuboids.put(address, new _InternalData(false, next.cuboid, next.token));
 			}
 			// Whether we processed this or not, we have handled the request.
@@ -323,20 +822,22 @@ public class CuboidMeshManager
 
 	public void shutdown()
 	{
-		// First, stop the background thread.
+		// First, tell the background thread to drop our remaining requests and wait for it to finish anything in progress.
+		// Since the thread is single-threaded and in-order, an empty task is finished only once everything before it is.
 		synchronized(this)
 		{
 			_keepRunning = false;
-			this.notifyAll();
 		}
 		try
 		{
-			_background.join();
+			_resources._bakeThread.submit(() -> {}).get();
 		}
-		catch (InterruptedException e)
+		catch (InterruptedException | ExecutionException e)
 		{
 			throw Assert.unexpected(e);
 		}
+		// Nothing else of ours is running in the background so the shared resources can be lent to the next instance.
+		_resources._isInUse = false;
 		
 		// Now we can clean up the buffers which made it to GPU memory.
 		for (_InternalData data : _foregroundCuboids.values())
@@ -347,48 +848,93 @@ public class CuboidMeshManager
 			}
 		}
 		_foregroundCuboids.clear();
+		_foregroundTokenBytes.clear();
+		_foregroundEvicted.clear();
+		_foregroundResidentBytes = 0L;
+		_foregroundSpeculations.clear();
+		_foregroundConnectivity.clear();
+		_foregroundConnectivityPending.clear();
+		_foregroundCuboidBoxes.clear();
+		_foregroundDeferred.clear();
+		_foregroundChanged.clear();
+		_foregroundLayouts.clear();
 	}
 
+	/**
+	 * Bakes the given inputs on the calling thread, serially or with the parallel bake pool, for tests to compare.
+	 * 
+	 * @param meshBuffer The scratch buffer to write into.
+	 * @param inputs The cuboid and its neighbours.
+	 * @param isParallel True if the layers should be baked in parallel.
+	 * @return The baked layers (null if the parallel bake didn't fit in its regions).
+	 */
+	TestBakedLayers testBake(FloatBuffer meshBuffer, SceneMeshHelpers.MeshInputData inputs, boolean isParallel)
+	{
+		_Request request = new _Request(meshBuffer, false, isParallel, null, inputs);
+		_Response response = isParallel
+			? _backgroundBuildMeshParallel(request)
+			: _backgroundBuildMesh(request)
+		;
+		return (null != response)
+			? new TestBakedLayers(response.opaqueBuffer
+				, response.opaqueQuadOwners
+				, response.modelBuffer
+				, response.transparentBuffer
+				, response.waterBuffer
+				, response.burningFaceBuffer
+			)
+			: null
+		;
+	}
 
-	private void _backgroundMain()
+	private void _backgroundRunOne()
 	{
-		_Request request = _backgroundGetRequest(null);
-		while (null != request)
+		// Each enqueued request schedules one of these so we always have enough to drain the queues, but each one takes
+		// whichever request is most important at the time it runs.
+		_Request request = _backgroundGetRequest();
+		if (null != request)
 		{
 			_Response response = _backgroundProcessRequest(request);
-			request = _backgroundGetRequest(response);
+			_backgroundAddResponse(response);
 		}
 	}
 
-	private synchronized _Request _backgroundGetRequest(_Response response)
+	private synchronized _Request _backgroundGetRequest()
 	{
-		if (null != response)
+		_Request request = null;
+		if (_keepRunning)
 		{
-			_responses.add(response);
-			// (We don't notify here since the foreground thread never waits on this response - just picks it up later)
+			// Speculative requests are always handled before normal ones.
+			request = _priorityRequests.isEmpty()
+					? _requests.poll()
+					: _priorityRequests.poll()
+			;
 		}
-		while (_keepRunning && _requests.isEmpty())
+		return request;
+	}
+
+	private synchronized void _backgroundAddResponse(_Response response)
+	{
+		// (We don't notify here since the foreground thread never waits on this response - just picks it up later)
+		_responses.add(response);
+	}
+
+	private void _enqueueRequest(_Request request)
+	{
+		synchronized(this)
 		{
-			try
-			{
-				this.wait();
-			}
-			catch (InterruptedException e)
-			{
-				// Interruption not used.
-				throw Assert.unexpected(e);
-			}
+			_requests.add(request);
 		}
-		return _keepRunning
-				? _requests.poll()
-				: null
-		;
+		_resources._bakeThread.execute(() -> _backgroundRunOne());
 	}
 
-	private synchronized void _enqueueRequest(_Request request)
+	private void _enqueuePriorityRequest(_Request request)
 	{
-		_requests.add(request);
-		this.notifyAll();
+		synchronized(this)
+		{
+			_priorityRequests.add(request);
+		}
+		_resources._bakeThread.execute(() -> _backgroundRunOne());
 	}
 
 	private synchronized _Response _dequeueResponse()
@@ -396,10 +942,61 @@ public class CuboidMeshManager
 		return _responses.poll();
 	}
 
+	private void _enqueueConnectivityRequest(IReadOnlyCuboidData cuboid)
+	{
+		synchronized(this)
+		{
+			_connectivityRequests.add(cuboid);
+		}
+		_resources._bakeThread.execute(() -> _backgroundComputeConnectivity());
+	}
+
+	private void _backgroundComputeConnectivity()
+	{
+		IReadOnlyCuboidData cuboid;
+		synchronized(this)
+		{
+			cuboid = _keepRunning
+				? _connectivityRequests.poll()
+				: null
+			;
+		}
+		if (null != cuboid)
+		{
+			int connectivity = CuboidConnectivity.compute(_env, cuboid, _isOpaque);
+			synchronized(this)
+			{
+				_connectivityResponses.add(new _ConnectivityResponse(cuboid, connectivity));
+			}
+		}
+	}
+
+	private synchronized _ConnectivityResponse _dequeueConnectivityResponse()
+	{
+		return _connectivityResponses.poll();
+	}
+
 	private _Response _backgroundProcessRequest(_Request request)
 	{
 		Assert.assertTrue(null != request.meshBuffer);
-		_Response response = _backgroundBuildMesh(request);
+		_Response response;
+		if (null != request.patch)
+		{
+			response = _backgroundBuildPatch(request);
+		}
+		else
+		{
+			// Latency-critical requests are split across the parallel bake pool, falling back to the serial path if they
+			// don't fit in the split scratch buffer.
+			response = request.isUrgent
+				? _backgroundBuildMeshParallel(request)
+				: null
+			;
+			if (null == response)
+			{
+				response = _backgroundBuildMesh(request);
+			}
+		}
 		return response;
 	}
 
@@ -410,97 +1007,157 @@ public class CuboidMeshManager
 		AuxVariantMap variantMap = new AuxVariantMap(_env, cuboid);
 		
 		BufferBuilder builder = new BufferBuilder(request.meshBuffer, _programAttributes);
-		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
 		
 		// We need to track which visible faces are on fire, for animation reasons.
 		FireFaceBuilder fireTracker = new FireFaceBuilder();
 		
-		// Create the opaque cuboid vertices.
-		SceneMeshHelpers.populateMeshBufferForCuboid(_env
-				, builderWrapper
-				, _blockTextures
-				, variantMap
-				, _auxBlockTextures
-				, fireTracker
-				, request.inputs
-				, true
-		);
-		// Lava is also treated as an opaque surface.
-		short lavaSourceNumber = _env.items.getItemById("op.lava_source").number();
-		short lavaStrongNumber = _env.items.getItemById("op.lava_strong").number();
-		short lavaWeakNumber = _env.items.getItemById("op.lava_weak").number();
-		SceneMeshHelpers.populateWaterMeshBufferForCuboid(_env
-				, builderWrapper
-				, _blockTextures
-				, _auxBlockTextures
-				, request.inputs
-				, lavaSourceNumber
-				, lavaStrongNumber
-				, lavaWeakNumber
-				, false
-		);
-		BufferBuilder.Buffer opaqueBuffer = builder.finishOne();
-		
-		// We will render the complex models (they need a different texture binding so they can't be part of the opaque buffer).
-		SceneMeshHelpers.populateBufferWithComplexModels(_env
-				, builder
-				, _blockModels
-				, variantMap
-				, _auxBlockTextures
-				, request.inputs
-		);
-		BufferBuilder.Buffer modelBuffer = builder.finishOne();
-		
-		// Create the transparent (non-water) cuboid vertices.
-		// Note that this may be removed in the future if we end up with no transparent block textures after converting associated blocks to models.
-		SceneMeshHelpers.populateMeshBufferForCuboid(_env
-				, builderWrapper
-				, _blockTextures
-				, variantMap
-				, _auxBlockTextures
-				, fireTracker
-				, request.inputs
-				, false
-		);
-		BufferBuilder.Buffer transparentBuffer = builder.finishOne();
+		// Note that these layers are written to the same buffer, in sequence, so their order must be preserved.
+		// We record the owning block of each opaque quad so that later single-block edits can be patched in-place.
+		List<Integer> opaqueQuadOwners = new ArrayList<>();
+		BufferBuilder.Buffer opaqueBuffer = _mesher.bakeOpaqueLayer(builder, variantMap, fireTracker, request.inputs, (int owner) -> opaqueQuadOwners.add(owner));
+		BufferBuilder.Buffer modelBuffer = _mesher.bakeModelLayer(builder, variantMap, request.inputs);
+		BufferBuilder.Buffer transparentBuffer = _mesher.bakeTransparentLayer(builder, variantMap, fireTracker, request.inputs);
 		
 		// By this point, the fire face tracker is complete.
 		SparseByteCube fireFaces = fireTracker.extractNonEmptyCollection();
 		fireTracker = null;
 		
-		// Create the water cuboid vertices.
-		short waterSourceNumber = _env.items.getItemById("op.water_source").number();
-		short waterStrongNumber = _env.items.getItemById("op.water_strong").number();
-		short waterWeakNumber = _env.items.getItemById("op.water_weak").number();
-		SceneMeshHelpers.populateWaterMeshBufferForCuboid(_env
-				, builderWrapper
-				, _blockTextures
-				, _auxBlockTextures
-				, request.inputs
-				, waterSourceNumber
-				, waterStrongNumber
-				, waterWeakNumber
-				, true
+		BufferBuilder.Buffer waterBuffer = _mesher.bakeWaterLayer(builder, request.inputs);
+		BufferBuilder.Buffer burningFaceBuffer = _mesher.bakeBurningLayer(builder, fireFaces, cuboid);
+		List<VisibleItemSlot> itemSlotArray = _findItemSlots(cuboid);
+		Prism bounds = _computeBounds(itemSlotArray, opaqueBuffer, modelBuffer, transparentBuffer, waterBuffer, burningFaceBuffer);
+		
+		return new _Response(request.meshBuffer
+			, request.isSpeculative
+			, null
+			, cuboid
+			, opaqueBuffer
+			, _toArray(opaqueQuadOwners)
+			, modelBuffer
+			, transparentBuffer
+			, waterBuffer
+			, itemSlotArray
+			, fireFaces
+			, burningFaceBuffer
+			, bounds
+		);
+	}
+
+	private _Response _backgroundBuildMeshParallel(_Request request)
+	{
+		// We split the scratch buffer into independent regions so that each layer can be written by its own task.
+		IReadOnlyCuboidData cuboid = request.inputs.cuboid();
+		AuxVariantMap variantMap = new AuxVariantMap(_env, cuboid);
+		FloatBuffer[] regions = _splitScratchBuffer(request.meshBuffer, PARALLEL_REGION_WEIGHTS);
+		FireFaceBuilder opaqueFireTracker = new FireFaceBuilder();
+		FireFaceBuilder transparentFireTracker = new FireFaceBuilder();
+		// Only the opaque task writes the quad owners so this doesn't need to be synchronized.
+		List<Integer> opaqueQuadOwners = new ArrayList<>();
+		
+		List<Callable<Object>> tasks = List.of(
+			() -> _mesher.bakeOpaqueLayer(new BufferBuilder(regions[0], _programAttributes), variantMap, opaqueFireTracker, request.inputs, (int owner) -> opaqueQuadOwners.add(owner))
+			, () -> _mesher.bakeModelLayer(new BufferBuilder(regions[1], _programAttributes), variantMap, request.inputs)
+			, () -> _mesher.bakeTransparentLayer(new BufferBuilder(regions[2], _programAttributes), variantMap, transparentFireTracker, request.inputs)
+			, () -> _mesher.bakeWaterLayer(new BufferBuilder(regions[3], _programAttributes), request.inputs)
+			, () -> _findItemSlots(cuboid)
 		);
-		BufferBuilder.Buffer waterBuffer = builder.finishOne();
+		List<Future<Object>> results = _resources._parallelBakePool.invokeAll(tasks);
 		
-		// Create any of the burning block faces.
-		BufferBuilder.Buffer burningFaceBuffer = null;
-		if (null != fireFaces)
+		_Response response;
+		try
 		{
-			AbsoluteLocation cuboidBase = cuboid.getCuboidAddress().getBase();
-			SceneMeshHelpers.populateBurningFacesForCuboid(_env
-				, builderWrapper
-				, _blockTextures
+			BufferBuilder.Buffer opaqueBuffer = (BufferBuilder.Buffer) results.get(0).get();
+			BufferBuilder.Buffer modelBuffer = (BufferBuilder.Buffer) results.get(1).get();
+			BufferBuilder.Buffer transparentBuffer = (BufferBuilder.Buffer) results.get(2).get();
+			BufferBuilder.Buffer waterBuffer = (BufferBuilder.Buffer) results.get(3).get();
+			@SuppressWarnings("unchecked")
+			List<VisibleItemSlot> itemSlotArray = (List<VisibleItemSlot>) results.get(4).get();
+			
+			// The burning faces depend on both fire trackers so they are built once the other tasks are joined.
+			SparseByteCube transparentFireFaces = transparentFireTracker.extractNonEmptyCollection();
+			if (null != transparentFireFaces)
+			{
+				opaqueFireTracker.mergeFrom(transparentFireFaces);
+			}
+			SparseByteCube fireFaces = opaqueFireTracker.extractNonEmptyCollection();
+			BufferBuilder.Buffer burningFaceBuffer = _mesher.bakeBurningLayer(new BufferBuilder(regions[4], _programAttributes), fireFaces, cuboid);
+			Prism bounds = _computeBounds(itemSlotArray, opaqueBuffer, modelBuffer, transparentBuffer, waterBuffer, burningFaceBuffer);
+			
+			response = new _Response(request.meshBuffer
+				, request.isSpeculative
+				, null
+				, cuboid
+				, opaqueBuffer
+				, _toArray(opaqueQuadOwners)
+				, modelBuffer
+				, transparentBuffer
+				, waterBuffer
+				, itemSlotArray
 				, fireFaces
-				, cuboidBase
+				, burningFaceBuffer
+				, bounds
 			);
-			burningFaceBuffer = builder.finishOne();
 		}
+		catch (ExecutionException e)
+		{
+			// The only expected failure is that a layer didn't fit in its region so we will let the caller bake serially.
+			if (!(e.getCause() instanceof BufferOverflowException))
+			{
+				throw Assert.unexpected(e);
+			}
+			response = null;
+		}
+		catch (BufferOverflowException e)
+		{
+			// The burning faces didn't fit in their region.
+			response = null;
+		}
+		catch (InterruptedException e)
+		{
+			// Interruption not used.
+			throw Assert.unexpected(e);
+		}
+		return response;
+	}
+
+	private _Response _backgroundBuildPatch(_Request request)
+	{
+		// We only build the opaque faces of the blocks in the patch, recording which block owns each quad.
+		IReadOnlyCuboidData cuboid = request.inputs.cuboid();
+		AuxVariantMap variantMap = new AuxVariantMap(_env, cuboid);
+		BufferBuilder builder = new BufferBuilder(request.meshBuffer, _programAttributes);
+		List<Integer> quadOwners = new ArrayList<>();
+		BufferBuilder.Buffer opaqueBuffer = _mesher.bakeOpaqueBlocks(builder
+			, variantMap
+			, request.inputs
+			, (BlockAddress address) -> request.patch.blocks.contains(address)
+			, (int owner) -> quadOwners.add(owner)
+		);
+		// The patch can only grow the existing bounds so we just send the bounds of the new quads.
+		Prism bounds = _computeBounds(null, opaqueBuffer);
 		
+		return new _Response(request.meshBuffer
+			, false
+			, request.patch
+			, cuboid
+			, opaqueBuffer
+			, _toArray(quadOwners)
+			, null
+			, null
+			, null
+			, null
+			, null
+			, null
+			, bounds
+		);
+	}
+
+	private List<VisibleItemSlot> _findItemSlots(IReadOnlyCuboidData cuboid)
+	{
 		// Find the list of visible item slots in this cuboid.
 		List<VisibleItemSlot> buildingItemSlotArray = new ArrayList<>();
-		// Create the vertex array for any item slots.
+		// The centres are given in world coordinates so the GPU side only needs to copy them into each slot's vertices.
+		AbsoluteLocation cuboidBase = cuboid.getCuboidAddress().getBase();
 		cuboid.walkData(AspectRegistry.SPECIAL_ITEM_SLOT, new IOctree.IWalkerCallback<ItemSlot>() {
 			@Override
 			public void visit(BlockAddress base, byte size, ItemSlot specialSlot)
@@ -511,9 +1168,9 @@ public class CuboidMeshManager
 				if (_itemSlotBlocksHeights.containsKey(blockType))
 				{
 					Item type = specialSlot.getType();
-					float blockX = (float) base.x();
-					float blockY = (float) base.y();
-					float blockZ = (float) base.z();
+					float blockX = (float) (cuboidBase.x() + base.x());
+					float blockY = (float) (cuboidBase.y() + base.y());
+					float blockZ = (float) (cuboidBase.z() + base.z());
 					
 					// Note that we need to provide the base as the XY centre and Z base.
 					float topHeight = _itemSlotBlocksHeights.get(blockType);
@@ -522,21 +1179,394 @@ public class CuboidMeshManager
 				}
 			}
 		}, null);
-		List<VisibleItemSlot> itemSlotArray = buildingItemSlotArray.isEmpty()
+		return buildingItemSlotArray.isEmpty()
 			? null
 			: Collections.unmodifiableList(buildingItemSlotArray)
 		;
+	}
+
+	private static FloatBuffer[] _splitScratchBuffer(FloatBuffer buffer, int[] weights)
+	{
+		int totalWeight = 0;
+		for (int weight : weights)
+		{
+			totalWeight += weight;
+		}
+		int capacity = buffer.capacity();
+		FloatBuffer[] regions = new FloatBuffer[weights.length];
+		int start = 0;
+		for (int i = 0; i < weights.length; ++i)
+		{
+			int size = (int)((long)capacity * (long)weights[i] / (long)totalWeight);
+			FloatBuffer duplicate = buffer.duplicate();
+			duplicate.clear();
+			duplicate.position(start);
+			duplicate.limit(start + size);
+			regions[i] = duplicate.slice();
+			start += size;
+		}
+		return regions;
+	}
+
+	private Prism _computeBounds(List<VisibleItemSlot> itemSlots, BufferBuilder.Buffer... buffers)
+	{
+		// We walk the position of every vertex (always the first attribute) to find the tight bounds of the geometry.
+		Assert.assertTrue(3 == _programAttributes[0].floats());
+		int floatsPerVertex = 0;
+		for (Attribute attribute : _programAttributes)
+		{
+			floatsPerVertex += attribute.floats();
+		}
+		float[] bounds = new float[] { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+		boolean isEmpty = true;
+		for (BufferBuilder.Buffer buffer : buffers)
+		{
+			if (null != buffer)
+			{
+				FloatBuffer vertices = buffer.getVertices(0, buffer.vertexCount);
+				int start = vertices.position();
+				for (int i = 0; i < buffer.vertexCount; ++i)
+				{
+					int base = start + (i * floatsPerVertex);
+					_extendBounds(bounds, vertices.get(base), vertices.get(base + 1), vertices.get(base + 2));
+				}
+				isEmpty = false;
+			}
+		}
+		if (null != itemSlots)
+		{
+			// Item slots are drawn as a floating square so we just give them a whole block.
+			for (VisibleItemSlot slot : itemSlots)
+			{
+				float x = slot.centreX();
+				float y = slot.centreY();
+				float z = slot.baseZ();
+				_extendBounds(bounds, x - 0.5f, y - 0.5f, z);
+				_extendBounds(bounds, x + 0.5f, y + 0.5f, z + 1.0f);
+				isEmpty = false;
+			}
+		}
+		return isEmpty
+			? null
+			: new Prism(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5])
+		;
+	}
+
+	private static Prism _cuboidBox(CuboidAddress address)
+	{
+		AbsoluteLocation base = address.getBase();
+		float edge = (float)Encoding.CUBOID_EDGE_SIZE;
+		return new Prism(base.x(), base.y(), base.z(), base.x() + edge, base.y() + edge, base.z() + edge);
+	}
+
+	private static void _extendBounds(float[] bounds, float x, float y, float z)
+	{
+		bounds[0] = Math.min(bounds[0], x);
+		bounds[1] = Math.min(bounds[1], y);
+		bounds[2] = Math.min(bounds[2], z);
+		bounds[3] = Math.max(bounds[3], x);
+		bounds[4] = Math.max(bounds[4], y);
+		bounds[5] = Math.max(bounds[5], z);
+	}
+
+	private static int[] _toArray(List<Integer> list)
+	{
+		return list.stream().mapToInt((Integer value) -> value).toArray();
+	}
+
+	private void _dispatchSpeculation()
+	{
+		// Speculations use the same scratch buffers as normal bakes but are sent first, on the priority lane.
+		Iterator<Map.Entry<CuboidAddress, _Speculation>> iterator = _foregroundSpeculations.entrySet().iterator();
+		while (!_foregroundGraphicsBuffers.isEmpty() && iterator.hasNext())
+		{
+			Map.Entry<CuboidAddress, _Speculation> elt = iterator.next();
+			_Speculation speculation = elt.getValue();
+			if (speculation.needsBake)
+			{
+				CuboidAddress address = elt.getKey();
+				_Request request = new _Request(_foregroundGraphicsBuffers.poll()
+						, true
+						, true
+						, null
+						, _packageRequestInput(address, speculation.speculativeCuboid)
+				);
+				_enqueuePriorityRequest(request);
+				_noteBakeStarted(address);
+				elt.setValue(new _Speculation(false, speculation.basedOn, speculation.speculativeCuboid, speculation.predictions, speculation.expiryMillis));
+			}
+		}
+	}
+
+	private static _Speculation _reconcileSpeculation(_Speculation speculation, IReadOnlyCuboidData authoritative)
+	{
+		// Each prediction is confirmed if the authoritative data now has the predicted block, contradicted if it has
+		// something else, or still pending if it has the same block as when we predicted it.
+		// Confirmed predictions are dropped since the authoritative data already shows them.
+		Map<BlockAddress, _PredictedBlock> pending = new HashMap<>();
+		boolean isContradicted = false;
+		for (Map.Entry<BlockAddress, _PredictedBlock> elt : speculation.predictions.entrySet())
+		{
+			short actual = authoritative.getData15(AspectRegistry.BLOCK, elt.getKey());
+			_PredictedBlock prediction = elt.getValue();
+			if (actual != prediction.predicted)
+			{
+				if (actual == prediction.previous)
+				{
+					pending.put(elt.getKey(), prediction);
+				}
+				else
+				{
+					isContradicted = true;
+				}
+			}
+		}
 		
-		return new _Response(request.meshBuffer
-			, cuboid
-			, opaqueBuffer
-			, modelBuffer
-			, transparentBuffer
-			, waterBuffer
-			, itemSlotArray
-			, fireFaces
-			, burningFaceBuffer
+		// If anything was contradicted, we roll back the whole speculation since later predictions may depend on it.
+		_Speculation result = null;
+		if (!isContradicted && !pending.isEmpty())
+		{
+			CuboidData speculative = CuboidData.mutableClone(authoritative);
+			for (Map.Entry<BlockAddress, _PredictedBlock> elt : pending.entrySet())
+			{
+				speculative.setData15(AspectRegistry.BLOCK, elt.getKey(), elt.getValue().predicted);
+			}
+			result = new _Speculation(true, authoritative, speculative, pending, speculation.expiryMillis);
+		}
+		return result;
+	}
+
+	private Set<BlockAddress> _findPatchBlocks(CuboidAddress address
+		, _InternalData existing
+		, IReadOnlyCuboidData cuboid
+		, ColumnHeightMap heightMap
+		, Set<BlockAddress> changedBlocks
+	)
+	{
+		// We can only patch a single changed block into a buffer which represents the previous cuboid and has nothing
+		// else in flight which could replace it.
+		OpaqueQuadLayout layout = _foregroundLayouts.get(address);
+		boolean canPatch = (PATCH_SLACK_QUADS > 0)
+			&& (null != changedBlocks)
+			&& (1 == changedBlocks.size())
+			&& (null != layout)
+			&& (existing.cuboid == layout.getBakedFrom())
+			&& !existing.requiresProcessing
+			&& !_foregroundBakesInFlight.containsKey(address)
+			&& !_foregroundSpeculations.containsKey(address)
+			&& !_foregroundPatchBuffers.isEmpty()
+		;
+		Set<BlockAddress> patchBlocks = null;
+		if (canPatch)
+		{
+			// The faces of the block and those around it depend on each other's type and light so we need all 27.
+			// Since these can't touch the cuboid edge, no neighbouring cuboid needs to change.
+			BlockAddress changed = changedBlocks.iterator().next();
+			byte edge = Encoding.CUBOID_EDGE_SIZE - 1;
+			canPatch = (changed.x() > 0) && (changed.x() < edge)
+				&& (changed.y() > 0) && (changed.y() < edge)
+				&& (changed.z() > 0) && (changed.z() < edge)
+			;
+			Set<BlockAddress> candidates = new HashSet<>();
+			for (int z = -1; canPatch && (z <= 1); ++z)
+			{
+				for (int y = -1; canPatch && (y <= 1); ++y)
+				{
+					for (int x = -1; canPatch && (x <= 1); ++x)
+					{
+						BlockAddress block = new BlockAddress((byte)(changed.x() + x), (byte)(changed.y() + y), (byte)(changed.z() + z));
+						canPatch = _isPatchableBlock(existing.cuboid, block) && _isPatchableBlock(cuboid, block);
+						candidates.add(block);
+					}
+				}
+			}
+			
+			// The sky light of these faces depends on the height of their columns so those can't change.
+			_HeightWrapper oldHeights = _foregroundHeightMaps.get(address.getColumn());
+			canPatch = canPatch && (null != oldHeights);
+			for (int y = -1; canPatch && (y <= 1); ++y)
+			{
+				for (int x = -1; canPatch && (x <= 1); ++x)
+				{
+					int columnX = changed.x() + x;
+					int columnY = changed.y() + y;
+					canPatch = (oldHeights.heightMap.getHeight(columnX, columnY) == heightMap.getHeight(columnX, columnY));
+				}
+			}
+			if (canPatch)
+			{
+				patchBlocks = candidates;
+			}
+		}
+		return patchBlocks;
+	}
+
+	private boolean _isPatchableBlock(IReadOnlyCuboidData cuboid, BlockAddress block)
+	{
+		// We can only patch air and opaque blocks, since everything else is drawn in other layers which may depend on
+		// these blocks, and nothing which is burning (as those faces are also drawn in another layer).
+		short value = cuboid.getData15(AspectRegistry.BLOCK, block);
+		boolean isBurning = FlagsAspect.isSet(cuboid.getData7(AspectRegistry.FLAGS, block), FlagsAspect.FLAG_BURNING);
+		boolean isAir = (_env.special.AIR.item().number() == value);
+		boolean isOpaque = _isOpaque.test(value) && !_lavaNumbers.contains(value);
+		return !isBurning && (isAir || isOpaque);
+	}
+
+	private void _applyPatch(CuboidAddress address, _InternalData internal, _Response response)
+	{
+		// The patch is only valid if the buffer still represents the cuboid it was computed against.
+		OpaqueQuadLayout layout = _foregroundLayouts.get(address);
+		boolean didPatch = false;
+		if ((null != internal) && (null != layout) && (response.patch.base == layout.getBakedFrom()))
+		{
+			Set<Integer> blockIndices = response.patch.blocks.stream()
+				.map((BlockAddress block) -> OpaqueQuadLayout.blockIndex(block))
+				.collect(Collectors.toSet())
+			;
+			OpaqueQuadLayout.Patch plan = layout.applyPatch(blockIndices, response.opaqueQuadOwners, response.cuboid);
+			if (null != plan)
+			{
+				_gpu.patchOpaqueQuads(internal.token
+					, response.opaqueBuffer
+					, response.bounds
+					, plan.targetSlots()
+					, plan.clearedSlots()
+					, layout.getUsedQuads() * OpaqueQuadLayout.VERTICES_PER_QUAD
+				);
+				didPatch = true;
+			}
+		}
+		if ((null != internal) && !didPatch)
+		{
+			// We ran out of slack (or the buffer changed under us) so fall back to re-baking the whole cuboid.
+			_foregroundLayouts.remove(address);
+			_foregroundCuboids.put(address, new _InternalData(true, internal.cuboid, internal.token));
+			_foregroundRequestOrder.add(0, address);
+		}
+	}
+
+	private void _noteBakeStarted(CuboidAddress address)
+	{
+		_foregroundBakesInFlight.put(address, _foregroundBakesInFlight.getOrDefault(address, 0) + 1);
+	}
+
+	private void _noteBakeFinished(CuboidAddress address)
+	{
+		int count = _foregroundBakesInFlight.remove(address);
+		if (count > 1)
+		{
+			_foregroundBakesInFlight.put(address, count - 1);
+		}
+	}
+
+	private Object _createToken(CuboidAddress address, _Response response, int opaqueSlackVertices)
+	{
+		Object token = _gpu.createToken(address
+			, response.bounds
+			, response.opaqueBuffer
+			, opaqueSlackVertices
+			, response.modelBuffer
+			, response.transparentBuffer
+			, response.waterBuffer
+			, response.itemSlotArray
+			, response.fireFaces
+			, response.burningFaceBuffer
 		);
+		// The opaque and model layers are packed into shared regions, so they take their exact size, but the other layers
+		// each take a whole size class of the VertexArena so we charge the budget for that.
+		long vertices = (long)opaqueSlackVertices
+			+ _vertexCount(response.opaqueBuffer)
+			+ _vertexCount(response.modelBuffer)
+			+ _reservedVertexCount(response.transparentBuffer)
+			+ _reservedVertexCount(response.waterBuffer)
+			+ _reservedVertexCount(response.burningFaceBuffer)
+		;
+		int floatsPerVertex = 0;
+		for (Attribute attribute : _programAttributes)
+		{
+			floatsPerVertex += attribute.floats();
+		}
+		// Item slots are drawn with their own program so only the GPU side knows how large their vertices are.
+		long itemSlotBytes = (null != response.itemSlotArray)
+			? _gpu.getItemSlotBytes(response.itemSlotArray.size())
+			: 0L
+		;
+		long bytes = (vertices * floatsPerVertex * Float.BYTES) + itemSlotBytes;
+		_foregroundTokenBytes.put(address, bytes);
+		_foregroundResidentBytes += bytes;
+		// Finding what is over budget sorts every cuboid so we only redo it when this pushes us over the budget.  Space
+		// freed by smaller re-bakes is only reclaimed by evicted cuboids once the camera moves or a cuboid is unloaded.
+		if (_foregroundResidentBytes > _foregroundBudgetBytes)
+		{
+			_foregroundOverBudget = null;
+		}
+		return token;
+	}
+
+	private void _deleteToken(CuboidAddress address, Object token)
+	{
+		// Note that we leave the size in _foregroundTokenBytes since we use it to decide when evicted cuboids fit again.
+		_gpu.deleteToken(token);
+		_foregroundResidentBytes -= _foregroundTokenBytes.get(address);
+	}
+
+	private Set<CuboidAddress> _findOverBudget()
+	{
+		// We walk the cuboids from nearest to farthest, adding up their last known sizes, and everything past the point
+		// where we exceed the budget is over budget.  Cuboids which haven't been baked yet count as empty.
+		Set<CuboidAddress> overBudget = new HashSet<>();
+		boolean mightBeOver = (_foregroundResidentBytes > _foregroundBudgetBytes) || !_foregroundEvicted.isEmpty();
+		if ((null != _foregroundCameraCuboid) && mightBeOver)
+		{
+			CuboidAddress camera = _foregroundCameraCuboid;
+			List<CuboidAddress> byDistance = new ArrayList<>(_foregroundCuboids.keySet());
+			byDistance.sort(Comparator.comparingInt((CuboidAddress address) -> _distanceSquared(camera, address)));
+			long totalBytes = 0L;
+			for (CuboidAddress address : byDistance)
+			{
+				totalBytes += _foregroundTokenBytes.getOrDefault(address, 0L);
+				if (totalBytes > _foregroundBudgetBytes)
+				{
+					overBudget.add(address);
+				}
+			}
+		}
+		return overBudget;
+	}
+
+	private boolean _isNearCamera(CuboidAddress address)
+	{
+		// Without a camera, we don't know what the user is looking at so nothing is near.
+		CuboidAddress camera = _foregroundCameraCuboid;
+		return (null != camera)
+			&& (Math.abs(camera.x() - address.x()) <= PARALLEL_BAKE_RADIUS)
+			&& (Math.abs(camera.y() - address.y()) <= PARALLEL_BAKE_RADIUS)
+			&& (Math.abs(camera.z() - address.z()) <= PARALLEL_BAKE_RADIUS)
+		;
+	}
+
+	private static int _distanceSquared(CuboidAddress one, CuboidAddress two)
+	{
+		int x = one.x() - two.x();
+		int y = one.y() - two.y();
+		int z = one.z() - two.z();
+		return (x * x) + (y * y) + (z * z);
+	}
+
+	private static int _vertexCount(BufferBuilder.Buffer buffer)
+	{
+		return (null != buffer)
+			? buffer.vertexCount
+			: 0
+		;
+	}
+
+	private static int _reservedVertexCount(BufferBuilder.Buffer buffer)
+	{
+		return (null != buffer)
+			? VertexArena.sizeClass(buffer.vertexCount)
+			: 0
+		;
 	}
 
 	private void _markDirty(CuboidAddress address)
@@ -560,7 +1590,20 @@ public class CuboidMeshManager
 		;
 	}
 
-	private SceneMeshHelpers.MeshInputData _packageRequestInput(CuboidAddress address)
+	private static boolean _didAnyBlockTypeChange(IReadOnlyCuboidData oldCuboid, IReadOnlyCuboidData newCuboid, Set<BlockAddress> changedBlocks)
+	{
+		// Light, flags, and item slot changes don't change what can be seen through the cuboid.
+		boolean didChange = false;
+		Iterator<BlockAddress> iterator = changedBlocks.iterator();
+		while (!didChange && iterator.hasNext())
+		{
+			BlockAddress blockAddress = iterator.next();
+			didChange = (oldCuboid.getData15(AspectRegistry.BLOCK, blockAddress) != newCuboid.getData15(AspectRegistry.BLOCK, blockAddress));
+		}
+		return didChange;
+	}
+
+	private SceneMeshHelpers.MeshInputData _packageRequestInput(CuboidAddress address, IReadOnlyCuboidData cuboid)
 	{
 		CuboidAddress otherUpAddress = address.getRelative(0, 0, 1);
 		CuboidAddress otherDownAddress = address.getRelative(0, 0, -1);
@@ -569,7 +1612,6 @@ public class CuboidMeshManager
 		CuboidAddress otherEastAddress = address.getRelative(1, 0, 0);
 		CuboidAddress otherWestAddress = address.getRelative(-1, 0, 0);
 		
-		IReadOnlyCuboidData cuboid = _getCuboidOrNull(address);
 		IReadOnlyCuboidData otherUp = _getCuboidOrNull(otherUpAddress);
 		IReadOnlyCuboidData otherDown = _getCuboidOrNull(otherDownAddress);
 		IReadOnlyCuboidData otherNorth = _getCuboidOrNull(otherNorthAddress);
@@ -664,8 +1706,26 @@ public class CuboidMeshManager
 	 */
 	public static interface IGpu
 	{
+		/**
+		 * Uploads the baked layers of a cuboid.
+		 * 
+		 * @param address The cuboid address.
+		 * @param bounds The tight bounds of all the geometry in the layers, in world coordinates (null if they are all
+		 * empty).
+		 * @param opaqueArray The opaque layer.
+		 * @param opaqueSlackVertices The number of extra vertices to allocate after the opaque layer, for patches.
+		 * @param modelArray The complex model layer.
+		 * @param transparentArray The transparent layer.
+		 * @param waterArray The water layer.
+		 * @param itemSlotArray The item slots to draw.
+		 * @param fireFaces The faces which are on fire.
+		 * @param burningFaceArray The burning face layer.
+		 * @return The token representing this data.
+		 */
 		Object createToken(CuboidAddress address
+			, Prism bounds
 			, BufferBuilder.Buffer opaqueArray
+			, int opaqueSlackVertices
 			, BufferBuilder.Buffer modelArray
 			, BufferBuilder.Buffer transparentArray
 			, BufferBuilder.Buffer waterArray
@@ -674,14 +1734,63 @@ public class CuboidMeshManager
 			, BufferBuilder.Buffer burningFaceArray
 		);
 		void deleteToken(Object token);
+		/**
+		 * Returns the bytes of GPU memory used to draw the given number of item slots, so they count against the budget.
+		 * 
+		 * @param slotCount The number of item slots in the cuboid.
+		 * @return The bytes reserved for their vertices.
+		 */
+		long getItemSlotBytes(int slotCount);
+		/**
+		 * Writes quads into the opaque buffer of an existing token, in-place.
+		 * 
+		 * @param token The token to patch.
+		 * @param quads The new quads (null if there are none).
+		 * @param quadBounds The bounds of the new quads, in world coordinates (null if there are none).
+		 * @param targetSlots The quad slot where each of the new quads should be written.
+		 * @param clearedSlots The quad slots which should be cleared.
+		 * @param totalVertices The new number of vertices to draw from the opaque buffer.
+		 */
+		void patchOpaqueQuads(Object token, BufferBuilder.Buffer quads, Prism quadBounds, int[] targetSlots, int[] clearedSlots, int totalVertices);
 	}
 
+	/**
+	 * A snapshot of the GPU memory used by cuboid meshes.
+	 * 
+	 * @param residentBytes The bytes of vertex data currently on the GPU.
+	 * @param budgetBytes The limit on the bytes of vertex data on the GPU.
+	 * @param evictedCuboids The number of cuboids which are loaded but not on the GPU since they are over budget.
+	 */
+	public static record MemoryStats(long residentBytes
+		, long budgetBytes
+		, int evictedCuboids
+	) {}
+
+	/**
+	 * An item shown on top of a pedestal (or similar block).
+	 * 
+	 * @param item The item to draw.
+	 * @param centreX The X centre of the slot, in world coordinates.
+	 * @param centreY The Y centre of the slot, in world coordinates.
+	 * @param baseZ The Z base of the slot (the top of its block), in world coordinates.
+	 */
 	public static record VisibleItemSlot(Item item
 		, float centreX
 		, float centreY
 		, float baseZ
 	) {}
 
+	/**
+	 * The layers returned by testBake().
+	 */
+	static record TestBakedLayers(BufferBuilder.Buffer opaqueBuffer
+		, int[] opaqueQuadOwners
+		, BufferBuilder.Buffer modelBuffer
+		, BufferBuilder.Buffer transparentBuffer
+		, BufferBuilder.Buffer waterBuffer
+		, BufferBuilder.Buffer burningFaceBuffer
+	) {}
+
 
 	private static record _InternalData(boolean requiresProcessing
 		, IReadOnlyCuboidData cuboid
@@ -689,19 +1798,45 @@ public class CuboidMeshManager
 	) {}
 
 	private static record _Request(FloatBuffer meshBuffer
+			, boolean isSpeculative
+			, boolean isUrgent
+			, _PatchInfo patch
 			, SceneMeshHelpers.MeshInputData inputs
 	) {}
 
 	// Note that most of these fields prefer null instead of empty (all but meshBuffer and cuboid).
 	private static record _Response(FloatBuffer meshBuffer
+		, boolean isSpeculative
+		, _PatchInfo patch
 		, IReadOnlyCuboidData cuboid
 		, BufferBuilder.Buffer opaqueBuffer
+		, int[] opaqueQuadOwners
 		, BufferBuilder.Buffer modelBuffer
 		, BufferBuilder.Buffer transparentBuffer
 		, BufferBuilder.Buffer waterBuffer
 		, List<VisibleItemSlot> itemSlotArray
 		, SparseByteCube fireFaces
 		, BufferBuilder.Buffer burningFaceBuffer
+		, Prism bounds
+	) {}
+
+	private static record _ConnectivityResponse(IReadOnlyCuboidData cuboid
+		, int connectivity
+	) {}
+
+	private static record _Speculation(boolean needsBake
+		, IReadOnlyCuboidData basedOn
+		, IReadOnlyCuboidData speculativeCuboid
+		, Map<BlockAddress, _PredictedBlock> predictions
+		, long expiryMillis
+	) {}
+
+	private static record _PredictedBlock(short previous
+		, short predicted
+	) {}
+
+	private static record _PatchInfo(Set<BlockAddress> blocks
+		, IReadOnlyCuboidData base
 	) {}
 
 	private static record _HeightWrapper(int refCount
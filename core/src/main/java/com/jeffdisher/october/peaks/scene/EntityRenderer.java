@@ -21,6 +21,7 @@ import com.jeffdisher.october.peaks.animation.GhostManager;
 import com.jeffdisher.october.peaks.animation.Rigging;
 import com.jeffdisher.october.peaks.graphics.BufferBuilder;
 import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.graphics.Program;
 import com.jeffdisher.october.peaks.graphics.VertexArray;
 import com.jeffdisher.october.peaks.textures.TextureHelpers;
@@ -38,21 +39,43 @@ import com.jeffdisher.october.utils.Assert;
 
 /**
  * Responsible for rendering the entities within the OpenGL scene, but not the world/blocks.
+ * GLES2 has no instanced drawing so entities are drawn with "pseudo-instancing":  The mesh of each entity type (all of
+ * its parts) is copied INSTANCES_PER_DRAW times into one vertex array, with each vertex tagged with its copy (instance)
+ * and part index.  The per-instance data is uploaded as uniform arrays which the vertex shader indexes, so entities of
+ * the same type are drawn INSTANCES_PER_DRAW at a time.
+ * The per-instance data is just a few scalars (position, yaw, head pitch, limb swing, damage tint, and opacity) since
+ * the vertex shader builds the transform of each part from these, so no matrices are composed per entity or per part.
  */
 public class EntityRenderer
 {
-	public static final int BUFFER_SIZE = 1 * 1024 * 1024;
+	/**
+	 * The buffer must hold INSTANCES_PER_DRAW copies of the largest entity mesh.
+	 */
+	public static final int BUFFER_SIZE = 4 * 1024 * 1024;
+	/**
+	 * The number of entities drawn by each call.  GLES2 only guarantees 128 vec4 vertex uniforms and each instance uses
+	 * 2 of them (this must match INSTANCES in entity.vert).
+	 */
+	public static final int INSTANCES_PER_DRAW = 32;
+	/**
+	 * The most parts (body, head, and limbs) an entity type can have (this must match PARTS in entity.vert).
+	 */
+	public static final int MAX_PARTS = 8;
+	public static final int FLOATS_PER_INSTANCE_PLACEMENT = 4;
+	public static final int FLOATS_PER_INSTANCE_PARAMS = 4;
+
 	public static class Resources
 	{
 		private final Program _program;
-		private final int _uModelMatrix;
 		private final int _uViewMatrix;
 		private final int _uProjectionMatrix;
 		private final int _uWorldLightLocation;
 		private final int _uTexture0;
-		private final int _uDamage;
 		private final int _uBrightness;
-		private final int _uOpacity;
+		private final int _uInstancePlacements;
+		private final int _uInstanceParams;
+		private final int _uPartOffsets;
+		private final int _uPartRotations;
 		private final Map<EntityType, _EntityData> _entityData;
 		private final int _highlightTexture;
 		
@@ -66,16 +89,19 @@ public class EntityRenderer
 							"aPosition",
 							"aNormal",
 							"aTexture0",
+							"aInstance",
+							"aPart",
 					}
 			);
-			_uModelMatrix = _program.getUniformLocation("uModelMatrix");
 			_uViewMatrix = _program.getUniformLocation("uViewMatrix");
 			_uProjectionMatrix = _program.getUniformLocation("uProjectionMatrix");
 			_uWorldLightLocation = _program.getUniformLocation("uWorldLightLocation");
 			_uTexture0 = _program.getUniformLocation("uTexture0");
-			_uDamage = _program.getUniformLocation("uDamage");
 			_uBrightness = _program.getUniformLocation("uBrightness");
-			_uOpacity = _program.getUniformLocation("uOpacity");
+			_uInstancePlacements = _program.getUniformLocation("uInstancePlacements");
+			_uInstanceParams = _program.getUniformLocation("uInstanceParams");
+			_uPartOffsets = _program.getUniformLocation("uPartOffsets");
+			_uPartRotations = _program.getUniformLocation("uPartRotations");
 			
 			ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
 			direct.order(ByteOrder.nativeOrder());
@@ -112,6 +138,10 @@ public class EntityRenderer
 	private final WorldCache _worldCache;
 	private final AnimationManager _animationManager;
 	private final GhostManager _ghostManager;
+	private final float[] _instancePlacements;
+	private final float[] _instanceParams;
+	private _EntityData _batchData;
+	private int _batchCount;
 
 	public EntityRenderer(GL20 gl
 		, Binding<Float> screenBrightness
@@ -128,39 +158,33 @@ public class EntityRenderer
 		_worldCache = worldCache;
 		_animationManager = animationManager;
 		_ghostManager = ghostManager;
+		_instancePlacements = new float[INSTANCES_PER_DRAW * FLOATS_PER_INSTANCE_PLACEMENT];
+		_instanceParams = new float[INSTANCES_PER_DRAW * FLOATS_PER_INSTANCE_PARAMS];
+		_batchData = null;
+		_batchCount = 0;
 	}
 
-	public void renderEntities(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier)
+	public void renderEntities(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier)
 	{
-		// We want to use the perspective projection and depth buffer for the main scene.
-		_gl.glEnable(GL20.GL_DEPTH_TEST);
-		_gl.glDepthFunc(GL20.GL_LESS);
-		_resources._program.useProgram();
-		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
-		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
-		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
-		
-		// We just use the texture for the entity.
-		_gl.glUniform1i(_resources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
+		_setupProgram(viewMatrix, projectionMatrix, eye);
 		
-		// Render any entities.
+		// Render any entities, grouped by type so that each group can be drawn as a few batches.
 		long currentMillis = System.currentTimeMillis();
-		_gl.glUniform1f(_resources._uOpacity, 1.0f);
+		Map<EntityType, List<PartialEntity>> byType = new HashMap<>();
 		for (PartialEntity entity : _worldCache.getOtherEntities())
 		{
-			_drawPartialEntity(currentMillis, entity);
+			_groupByType(byType, entity);
 		}
+		_drawGroups(currentMillis, byType, null);
 		
 		// Walk any ghosts.
 		// Note that blending is normally disabled for entities, since they are all opaque, but ghosts have partial opacity.
 		_gl.glEnable(GL20.GL_BLEND);
+		Map<EntityType, List<PartialEntity>> ghostsByType = new HashMap<>();
+		Map<Integer, Float> ghostOpacity = new HashMap<>();
 		for (GhostManager.GhostSnapshot<PartialEntity> snapshot : _ghostManager.pruneAndSnapshotEntities(currentMillis))
 		{
 			float opacity = 1.0f - snapshot.animationCompleteFraction();
-			_gl.glUniform1f(_resources._uOpacity, opacity);
 			PartialEntity corpse = snapshot.corpse();
 			PartialEntity entity = new PartialEntity(corpse.id()
 				, corpse.type()
@@ -170,32 +194,24 @@ public class EntityRenderer
 				, corpse.health()
 				, corpse.extendedData()
 			);
-			_drawPartialEntity(currentMillis, entity);
+			_groupByType(ghostsByType, entity);
+			ghostOpacity.put(entity.id(), opacity);
 		}
+		_drawGroups(currentMillis, ghostsByType, ghostOpacity);
 		_gl.glDisable(GL20.GL_BLEND);
 	}
 
-	public void renderSelectedEntity(Matrix viewMatrix, Matrix projectionMatrix, Vector eye, float skyLightMultiplier, PartialEntity selectedEntity)
+	public void renderSelectedEntity(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye, float skyLightMultiplier, PartialEntity selectedEntity)
 	{
-		// We want to use the perspective projection and depth buffer for the main scene.
-		_gl.glEnable(GL20.GL_DEPTH_TEST);
-		_gl.glDepthFunc(GL20.GL_LESS);
-		_resources._program.useProgram();
-		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
-		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
-		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
-		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
-		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
+		_setupProgram(viewMatrix, projectionMatrix, eye);
 		
-		// We just use the texture for the entity.
-		_gl.glUniform1i(_resources._uTexture0, 0);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
 		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _resources._highlightTexture);
 		_gl.glDepthFunc(GL20.GL_LEQUAL);
 		
-		_renderEntityWithExistingTexture(selectedEntity);
+		// The highlight is drawn without any damage tint.
+		_startBatch(_resources._entityData.get(selectedEntity.type()));
+		_addInstance(selectedEntity, 0.0f, 1.0f);
+		_flushBatch();
 	}
 
 
@@ -211,20 +227,15 @@ public class EntityRenderer
 		Assert.assertTrue(textureFile.exists());
 		
 		// We either need a file for the entire entity mesh, or one split out into body parts.
-		VertexArray bodyBuffer;
-		_RiggingData headRig;
-		_RiggingData[] limbRigs;
-		
+		List<_PartMesh> parts = new ArrayList<>();
 		FileHandle riggingFile = Gdx.files.internal("entity_" + name + "_rigging.tablist");
 		if (riggingFile.exists())
 		{
 			// There is a rigging definition so load that and then process referenced files.
 			List<Rigging.LimbRig> limbs = Rigging.loadFromTablistFile(riggingFile);
 			
-			BufferBuilder builder = new BufferBuilder(meshBuffer, program.attributes);
-			bodyBuffer = null;
-			headRig = null;
-			List<_RiggingData> otherRigs = new ArrayList<>();
+			boolean hasBody = false;
+			boolean hasHead = false;
 			for (Rigging.LimbRig limb : limbs)
 			{
 				FileHandle meshFile = Gdx.files.internal("entity_" + name + "_" + limb.name() + ".obj");
@@ -234,187 +245,230 @@ public class EntityRenderer
 				{
 					case BODY:
 					{
-						Assert.assertTrue(null == bodyBuffer);
-						WavefrontReader.readFile(new _AdaptingVertexLoader(builder, null, width, height), meshFile.readString());
-						bodyBuffer = builder.finishOne().flush(gl);
+						Assert.assertTrue(!hasBody);
+						parts.add(_loadPart(meshFile, null, 0.0f, 0.0f, width, height));
+						hasBody = true;
 						break;
 					}
 					case PITCH:
 					{
-						Assert.assertTrue(null == headRig);
-						headRig = _loadRig(gl, builder, _RigType.PITCH, limb.base(), meshFile, width, height);
+						Assert.assertTrue(!hasHead);
+						parts.add(_loadPart(meshFile, limb.base(), 1.0f, 0.0f, width, height));
+						hasHead = true;
 						break;
 					}
 					case POSITIVE:
 					{
-						_RiggingData other = _loadRig(gl, builder, _RigType.POSITIVE, limb.base(), meshFile, width, height);
-						otherRigs.add(other);
+						parts.add(_loadPart(meshFile, limb.base(), 0.0f, 1.0f, width, height));
 						break;
 					}
 					case NEGATIVE:
 					{
-						_RiggingData other = _loadRig(gl, builder, _RigType.NEGATIVE, limb.base(), meshFile, width, height);
-						otherRigs.add(other);
+						parts.add(_loadPart(meshFile, limb.base(), 0.0f, -1.0f, width, height));
 						break;
 					}
 				}
 			}
-			
-			limbRigs = otherRigs.toArray((int size) -> new _RiggingData[size]);
+			Assert.assertTrue(hasBody);
 		}
 		else
 		{
 			FileHandle meshFile = Gdx.files.internal("entity_" + name + ".obj");
-			String rawMesh = meshFile.readString();
-			BufferBuilder builder = new BufferBuilder(meshBuffer, program.attributes);
-			WavefrontReader.readFile(new _AdaptingVertexLoader(builder, null, width, height), rawMesh);
-			bodyBuffer = builder.finishOne().flush(gl);
-			headRig = null;
-			limbRigs = new _RiggingData[0];
+			parts.add(_loadPart(meshFile, null, 0.0f, 0.0f, width, height));
+		}
+		Assert.assertTrue(parts.size() <= MAX_PARTS);
+		
+		// Write out the copies of all the parts, tagging each vertex with its instance and part index.
+		BufferBuilder builder = new BufferBuilder(meshBuffer, program.attributes);
+		int verticesPerInstance = 0;
+		for (_PartMesh part : parts)
+		{
+			verticesPerInstance += part.vertices.size();
+		}
+		for (int instance = 0; instance < INSTANCES_PER_DRAW; ++instance)
+		{
+			float[] instanceIndex = new float[] { (float)instance };
+			for (int partIndex = 0; partIndex < parts.size(); ++partIndex)
+			{
+				float[] partIndexValue = new float[] { (float)partIndex };
+				for (float[][] vertex : parts.get(partIndex).vertices)
+				{
+					builder.appendVertex(vertex[0]
+						, vertex[1]
+						, vertex[2]
+						, instanceIndex
+						, partIndexValue
+					);
+				}
+			}
+		}
+		VertexArray vertices = builder.finishOne().flush(gl);
+		
+		// The part rig points are uploaded relative to the centre of the entity (where the body model is placed).
+		float halfWidth = width / 2.0f;
+		float halfHeight = height / 2.0f;
+		float[] partOffsets = new float[3 * parts.size()];
+		float[] partRotations = new float[2 * parts.size()];
+		for (int i = 0; i < parts.size(); ++i)
+		{
+			_PartMesh part = parts.get(i);
+			EntityLocation offset = part.offsetWorldCoords;
+			partOffsets[3 * i] = (null != offset) ? (offset.x() - halfWidth) : 0.0f;
+			partOffsets[3 * i + 1] = (null != offset) ? (offset.y() - halfWidth) : 0.0f;
+			partOffsets[3 * i + 2] = (null != offset) ? (offset.z() - halfHeight) : 0.0f;
+			partRotations[2 * i] = part.pitchWeight;
+			partRotations[2 * i + 1] = part.swingWeight;
 		}
 		
 		int texture = TextureHelpers.loadHandleRGBA(gl, textureFile);
-		_EntityData data = new _EntityData(bodyBuffer, texture, headRig, limbRigs);
+		_EntityData data = new _EntityData(vertices, verticesPerInstance, texture, partOffsets, partRotations);
 		return data;
 	}
 
-	private static Matrix _generateEntityBodyModelMatrix(EntityType type, EntityLocation location, byte yaw)
+	private static _PartMesh _loadPart(FileHandle meshFile
+		, EntityLocation offsetFileCoords
+		, float pitchWeight
+		, float swingWeight
+		, float width
+		, float height
+	)
 	{
-		// Note that model definitions are moved to be centred on 0,0,0 during load, and scaled.
-		// This means that we need to add half the width and height to the base location when positioning them but that
-		// rotation can be done first, without changing anything.
-		EntityVolume volume = type.volume();
-		float width = volume.width();
-		float height = volume.height();
-		float halfWidth = width / 2.0f;
-		float halfHeight = height / 2.0f;
-		Matrix translate = Matrix.translate(location.x() + halfWidth, location.y() + halfWidth, location.z() + halfHeight);
-		Matrix rotate = Matrix.rotateZ(OrientationHelpers.getYawRadians(yaw));
-		Matrix model = Matrix.multiply(translate, rotate);
-		return model;
+		List<float[][]> vertices = new ArrayList<>();
+		WavefrontReader.readFile(new _AdaptingVertexLoader(vertices, offsetFileCoords, width, height), meshFile.readString());
+		EntityLocation offsetWorldCoords = (null != offsetFileCoords)
+			? new EntityLocation(offsetFileCoords.x() * width
+				, offsetFileCoords.y() * width
+				, offsetFileCoords.z() * height
+			)
+			: null
+		;
+		return new _PartMesh(vertices, offsetWorldCoords, pitchWeight, swingWeight);
 	}
 
-	private static Matrix _generateEntityPartModelMatrix(EntityType type, EntityLocation base, EntityLocation offset, byte yaw, byte pitch)
+	private static void _groupByType(Map<EntityType, List<PartialEntity>> byType, PartialEntity entity)
 	{
-		// Note that model part definitions are moved to be centred on 0,0,0 during load, and scaled.
-		
-		// We want to rotate by pitch before anything else, since that just orients the limb, not where it is in space.
-		Matrix rotatePitch = Matrix.rotateX(OrientationHelpers.getPitchRadians(pitch));
-		
-		// Then, we will translate to where in the entity it should be.
-		EntityVolume volume = type.volume();
-		float width = volume.width();
-		float height = volume.height();
-		float halfWidth = width / 2.0f;
-		float halfHeight = height / 2.0f;
-		Matrix translateToEntity = Matrix.translate(offset.x() - halfWidth, offset.y() - halfWidth, offset.z() - halfHeight);
-		
-		// Then, we will rotate by yaw so that it moves in sync with the rest of the model.
-		Matrix rotateYaw = Matrix.rotateZ(OrientationHelpers.getYawRadians(yaw));
-		
-		// Finally, translate to where the entity would be drawn in the world.
-		Matrix translateToWorld = Matrix.translate(base.x() + halfWidth, base.y() + halfWidth, base.z() + halfHeight);
-		
-		return Matrix.multiply(translateToWorld, Matrix.multiply(rotateYaw, Matrix.multiply(translateToEntity, rotatePitch)));
+		List<PartialEntity> list = byType.get(entity.type());
+		if (null == list)
+		{
+			list = new ArrayList<>();
+			byType.put(entity.type(), list);
+		}
+		list.add(entity);
 	}
 
-	private void _drawPartialEntity(long currentMillis, PartialEntity entity)
+	private void _setupProgram(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye)
 	{
-		EntityType type = entity.type();
-		// In the future, we should change how we do this drawing to avoid so many state changes (either batch by type or combine the types into fewer GL objects).
-		_EntityData data = _resources._entityData.get(type);
-		_gl.glActiveTexture(GL20.GL_TEXTURE0);
-		_gl.glBindTexture(GL20.GL_TEXTURE_2D, data.texture);
-		
-		// Ask the animation manager if this entity recently took damage (as we discolour it in reponse for a short time).
-		float fraction = _animationManager.getDamageFreshnessFraction(currentMillis, entity.id());
-		_gl.glUniform1f(_resources._uDamage, fraction);
+		// We want to use the perspective projection and depth buffer for the main scene.
+		_gl.glEnable(GL20.GL_DEPTH_TEST);
+		_gl.glDepthFunc(GL20.GL_LESS);
+		_resources._program.useProgram();
+		_gl.glUniform3f(_resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
+		viewMatrix.uploadAsUniform(_gl, _resources._uViewMatrix);
+		projectionMatrix.uploadAsUniform(_gl, _resources._uProjectionMatrix);
+		_gl.glUniform1f(_resources._uBrightness, _screenBrightness.get());
+		Assert.assertTrue(GL20.GL_NO_ERROR == _gl.glGetError());
 		
-		_renderEntityWithExistingTexture(entity);
+		// We just use the texture for the entity.
+		_gl.glUniform1i(_resources._uTexture0, 0);
+		_gl.glActiveTexture(GL20.GL_TEXTURE0);
 	}
 
-	private static _RiggingData _loadRig(GL20 gl
-		, BufferBuilder builder
-		, _RigType type
-		, EntityLocation offsetFileCoords
-		, FileHandle meshFile
-		, float width
-		, float height
-	)
+	private void _drawGroups(long currentMillis, Map<EntityType, List<PartialEntity>> byType, Map<Integer, Float> opacityById)
 	{
-		_RiggingData rig;
-		if (meshFile.exists())
-		{
-			WavefrontReader.readFile(new _AdaptingVertexLoader(builder, offsetFileCoords, width, height), meshFile.readString());
-			VertexArray buffer = builder.finishOne().flush(gl);
-			EntityLocation offsetWorldCoords = new EntityLocation(offsetFileCoords.x() * width
-				, offsetFileCoords.y() * width
-				, offsetFileCoords.z() * height
-			);
-			rig = new _RiggingData(type, offsetWorldCoords, buffer);
-		}
-		else
+		for (Map.Entry<EntityType, List<PartialEntity>> group : byType.entrySet())
 		{
-			rig = null;
+			_EntityData data = _resources._entityData.get(group.getKey());
+			_gl.glBindTexture(GL20.GL_TEXTURE_2D, data.texture);
+			_startBatch(data);
+			for (PartialEntity entity : group.getValue())
+			{
+				// Ask the animation manager if this entity recently took damage (as we discolour it in reponse for a short time).
+				float damage = _animationManager.getDamageFreshnessFraction(currentMillis, entity.id());
+				float opacity = (null != opacityById) ? opacityById.get(entity.id()) : 1.0f;
+				_addInstance(entity, damage, opacity);
+			}
+			_flushBatch();
 		}
-		return rig;
 	}
 
-	private void _renderEntityWithExistingTexture(PartialEntity entity)
+	private void _startBatch(_EntityData data)
 	{
-		EntityType type = entity.type();
-		_EntityData data = _resources._entityData.get(type);
-		EntityLocation entityLocation = entity.location();
-		Matrix bodyModel = _generateEntityBodyModelMatrix(type, entityLocation, entity.yaw());
-		bodyModel.uploadAsUniform(_gl, _resources._uModelMatrix);
-		data.vertices.drawAllTriangles(_gl);
+		_batchData = data;
+		_batchCount = 0;
+		// The part data is the same for every batch of this type.
+		int parts = data.partRotations.length / 2;
+		_gl.glUniform3fv(_resources._uPartOffsets, parts, data.partOffsets, 0);
+		_gl.glUniform2fv(_resources._uPartRotations, parts, data.partRotations, 0);
+	}
+
+	private void _addInstance(PartialEntity entity, float damage, float opacity)
+	{
+		// Note that model definitions are moved to be centred on 0,0,0 during load, and scaled.
+		// This means that we place them at the base location plus half the width and height, and the shader rotates
+		// them by yaw before moving them there.
+		EntityVolume volume = entity.type().volume();
+		float halfWidth = volume.width() / 2.0f;
+		float halfHeight = volume.height() / 2.0f;
+		EntityLocation location = entity.location();
+		int placementBase = _batchCount * FLOATS_PER_INSTANCE_PLACEMENT;
+		_instancePlacements[placementBase] = location.x() + halfWidth;
+		_instancePlacements[placementBase + 1] = location.y() + halfWidth;
+		_instancePlacements[placementBase + 2] = location.z() + halfHeight;
+		_instancePlacements[placementBase + 3] = OrientationHelpers.getYawRadians(entity.yaw());
+		
+		// Note that pitch radians are linear in the byte value so the negative limbs can just negate the swing.
+		byte animationFrame = _animationManager.getWalkingAnimationFrame(entity);
+		int paramsBase = _batchCount * FLOATS_PER_INSTANCE_PARAMS;
+		_instanceParams[paramsBase] = OrientationHelpers.getPitchRadians(entity.pitch());
+		_instanceParams[paramsBase + 1] = OrientationHelpers.getPitchRadians(animationFrame);
+		_instanceParams[paramsBase + 2] = damage;
+		_instanceParams[paramsBase + 3] = opacity;
+		_batchCount += 1;
 		
-		// Draw rigged limbs.
-		_RiggingData headRig = data.headRig;
-		if (null != headRig)
+		if (INSTANCES_PER_DRAW == _batchCount)
 		{
-			Matrix headModel = _generateEntityPartModelMatrix(type, entityLocation, headRig.offsetWorldCoords, entity.yaw(), entity.pitch());
-			headModel.uploadAsUniform(_gl, _resources._uModelMatrix);
-			headRig.vertices.drawAllTriangles(_gl);
+			_flushBatch();
 		}
-		byte animationFrame = _animationManager.getWalkingAnimationFrame(entity);
-		for (_RiggingData limb : data.limbRigs)
+	}
+
+	private void _flushBatch()
+	{
+		if (_batchCount > 0)
 		{
-			byte animation = (_RigType.POSITIVE == limb.type) ? (byte)animationFrame : (byte)-animationFrame;
-			Matrix model = _generateEntityPartModelMatrix(type, entityLocation, limb.offsetWorldCoords, entity.yaw(), animation);
-			model.uploadAsUniform(_gl, _resources._uModelMatrix);
-			limb.vertices.drawAllTriangles(_gl);
+			_gl.glUniform4fv(_resources._uInstancePlacements, _batchCount, _instancePlacements, 0);
+			_gl.glUniform4fv(_resources._uInstanceParams, _batchCount, _instanceParams, 0);
+			// The copies are written one instance after the other so we just draw the copies we filled.
+			_batchData.vertices.subArray(0, _batchCount * _batchData.verticesPerInstance).drawAllTriangles(_gl);
+			_batchCount = 0;
 		}
 	}
 
 
 	private static record _EntityData(VertexArray vertices
+		, int verticesPerInstance
 		, int texture
-		, _RiggingData headRig
-		, _RiggingData[] limbRigs
+		, float[] partOffsets
+		, float[] partRotations
 	) {}
 
-	private static record _RiggingData(_RigType type
+	/**
+	 * A single part of an entity mesh, as loaded (centred on its rig point).  The weights are how much the part
+	 * rotates with the head pitch and the walking limb swing.
+	 */
+	private static record _PartMesh(List<float[][]> vertices
 		, EntityLocation offsetWorldCoords
-		, VertexArray vertices
+		, float pitchWeight
+		, float swingWeight
 	) {}
 
-	private static enum _RigType
-	{
-		PITCH,
-		POSITIVE,
-		NEGATIVE,
-		;
-	}
-
 	private static class _AdaptingVertexLoader implements WavefrontReader.VertexConsumer
 	{
-		private final BufferBuilder _builder;
+		private final List<float[][]> _vertices;
 		private final Matrix _transform;
 		
-		public _AdaptingVertexLoader(BufferBuilder builder, EntityLocation relativeBase, float width, float height)
+		public _AdaptingVertexLoader(List<float[][]> vertices, EntityLocation relativeBase, float width, float height)
 		{
-			_builder = builder;
+			_vertices = vertices;
 			
 			Matrix scale = Matrix.scale(width, width, height);
 			
@@ -442,10 +496,10 @@ public class EntityRenderer
 			
 			float[] temp = _transform.multiplyVectorComponents(x, y, z, w);
 			float[] shiftedPosition = new float[] { temp[0], temp[1], temp[2] };
-			_builder.appendVertex(shiftedPosition
+			_vertices.add(new float[][] { shiftedPosition
 				, normal
 				, texture
-			);
+			});
 		}
 	}
 }
@@ -53,6 +53,25 @@ public class FireFaceBuilder
 		}
 	}
 
+	/**
+	 * Sets all the bits from the given collection in the receiver.  This is used to combine trackers which were
+	 * populated independently, such as when layers are baked in parallel.
+	 * 
+	 * @param other The collection of bits to add to the receiver.
+	 */
+	public void mergeFrom(SparseByteCube other)
+	{
+		other.walkAllValues((int x, int y, int z, byte value) -> {
+			byte bits = _fireFaces.get(x, y, z);
+			if (IByteLookup.NOT_FOUND == bits)
+			{
+				bits = 0x0;
+			}
+			_fireFaces.set(x, y, z, (byte)(bits | value));
+			_hasContents = true;
+		}, 0, 0, 0, Encoding.CUBOID_EDGE_SIZE);
+	}
+
 	/**
 	 * Extracts the underlying SparseByteCube if any bits were set by the receiver (otherwise, returns null).
 	 * Note that continued interactions with the receiver will have undefined impacts on the returned value after this
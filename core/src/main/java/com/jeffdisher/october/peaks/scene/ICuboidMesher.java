@@ -0,0 +1,110 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+import com.jeffdisher.october.data.IReadOnlyCuboidData;
+import com.jeffdisher.october.logic.SparseByteCube;
+import com.jeffdisher.october.peaks.graphics.BufferBuilder;
+import com.jeffdisher.october.types.BlockAddress;
+
+
+/**
+ * The strategy used by CuboidMeshManager to convert a cuboid, and its neighbours, into the vertex data of each of its
+ * rendering layers.
+ * Each method writes a single layer into the given builder and returns the finished buffer (null if the layer is
+ * empty).  Implementations are called from background threads, potentially several at once for the same cuboid, so
+ * they must not hold any mutable state.
+ * ReferenceCuboidMesher is the reference implementation:  Any other implementation must produce the same set of
+ * visible triangles in each layer (see TestCuboidMesherEquivalence).
+ */
+public interface ICuboidMesher
+{
+	/**
+	 * Writes the opaque faces of the cuboid, including lava surfaces.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param variantMap The aux texture variants of the cuboid.
+	 * @param fireTracker Collects the faces which are on fire.
+	 * @param inputs The cuboid and its neighbours.
+	 * @param quadOwners If non-null, is given the owning block index of every block quad, in the order written (these
+	 * are always written before any quads without a single owner).
+	 * @return The finished buffer.
+	 */
+	public BufferBuilder.Buffer bakeOpaqueLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, FireFaceBuilder fireTracker
+		, SceneMeshHelpers.MeshInputData inputs
+		, IntConsumer quadOwners
+	);
+
+	/**
+	 * Writes only the opaque faces of the blocks selected by blockFilter, for patching them into an existing opaque
+	 * buffer.  Note that lava surfaces are never included.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param variantMap The aux texture variants of the cuboid.
+	 * @param inputs The cuboid and its neighbours.
+	 * @param blockFilter Returns true for the blocks whose faces should be written.
+	 * @param quadOwners Is given the owning block index of every quad, in the order written.
+	 * @return The finished buffer.
+	 */
+	public BufferBuilder.Buffer bakeOpaqueBlocks(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, SceneMeshHelpers.MeshInputData inputs
+		, Predicate<BlockAddress> blockFilter
+		, IntConsumer quadOwners
+	);
+
+	/**
+	 * Writes the complex block models of the cuboid.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param variantMap The aux texture variants of the cuboid.
+	 * @param inputs The cuboid and its neighbours.
+	 * @return The finished buffer.
+	 */
+	public BufferBuilder.Buffer bakeModelLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, SceneMeshHelpers.MeshInputData inputs
+	);
+
+	/**
+	 * Writes the transparent (non-water) faces of the cuboid.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param variantMap The aux texture variants of the cuboid.
+	 * @param fireTracker Collects the faces which are on fire.
+	 * @param inputs The cuboid and its neighbours.
+	 * @return The finished buffer.
+	 */
+	public BufferBuilder.Buffer bakeTransparentLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, FireFaceBuilder fireTracker
+		, SceneMeshHelpers.MeshInputData inputs
+	);
+
+	/**
+	 * Writes the water surfaces of the cuboid.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param inputs The cuboid and its neighbours.
+	 * @return The finished buffer.
+	 */
+	public BufferBuilder.Buffer bakeWaterLayer(BufferBuilder builder
+		, SceneMeshHelpers.MeshInputData inputs
+	);
+
+	/**
+	 * Writes the burning overlay of the faces collected by the other layers.
+	 * 
+	 * @param builder The builder where the vertices are written.
+	 * @param fireFaces The faces which are on fire (null if there are none).
+	 * @param cuboid The cuboid.
+	 * @return The finished buffer, or null if there are no burning faces.
+	 */
+	public BufferBuilder.Buffer bakeBurningLayer(BufferBuilder builder
+		, SparseByteCube fireFaces
+		, IReadOnlyCuboidData cuboid
+	);
+}
@@ -79,4 +79,9 @@ public class MeshHelperBufferBuilder
 			attribute += 1;
 		}
 	}
+
+	public boolean canFitVertices(int vertexCount)
+	{
+		return _builder.canFitVertices(vertexCount);
+	}
 }
@@ -0,0 +1,171 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.jeffdisher.october.data.IReadOnlyCuboidData;
+import com.jeffdisher.october.types.BlockAddress;
+import com.jeffdisher.october.utils.Assert;
+import com.jeffdisher.october.utils.Encoding;
+
+
+/**
+ * Records which block owns each quad in the opaque vertex buffer of a cuboid, so that the faces of a few blocks can be
+ * patched into the existing GPU buffer, instead of re-baking and re-uploading the whole thing.
+ * The buffer is allocated with some slack quads at the end, and quads freed by patches are reused before the slack.
+ * Note that this is only accessed on the foreground thread.
+ */
+public class OpaqueQuadLayout
+{
+	public static final int VERTICES_PER_QUAD = 6;
+	/**
+	 * The owner of quads which aren't owned by any single block (lava surfaces, for example), so can't be patched.
+	 */
+	public static final short NO_OWNER = -1;
+	/**
+	 * The owner of quads which have been cleared and can be reused by a later patch.
+	 */
+	public static final short FREE_SLOT = -2;
+
+	/**
+	 * Returns the index used to identify the given block as the owner of a quad.
+	 * 
+	 * @param address The block address within the cuboid.
+	 * @return The owner index of the block.
+	 */
+	public static int blockIndex(BlockAddress address)
+	{
+		return (address.z() * Encoding.CUBOID_EDGE_SIZE * Encoding.CUBOID_EDGE_SIZE)
+			+ (address.y() * Encoding.CUBOID_EDGE_SIZE)
+			+ address.x()
+		;
+	}
+
+	private final short[] _owners;
+	private int _usedQuads;
+	private IReadOnlyCuboidData _bakedFrom;
+
+	/**
+	 * Creates the layout of a freshly-baked opaque buffer.
+	 * 
+	 * @param blockOwners The owner index of each of the first quads in the buffer.
+	 * @param totalQuads The total number of quads in the buffer (any beyond blockOwners are NO_OWNER).
+	 * @param slackQuads The number of unused quads allocated at the end of the buffer.
+	 * @param bakedFrom The cuboid this buffer was baked from.
+	 */
+	public OpaqueQuadLayout(int[] blockOwners, int totalQuads, int slackQuads, IReadOnlyCuboidData bakedFrom)
+	{
+		Assert.assertTrue(blockOwners.length <= totalQuads);
+		_owners = new short[totalQuads + slackQuads];
+		for (int i = 0; i < totalQuads; ++i)
+		{
+			_owners[i] = (i < blockOwners.length)
+				? (short)blockOwners[i]
+				: NO_OWNER
+			;
+		}
+		_usedQuads = totalQuads;
+		_bakedFrom = bakedFrom;
+	}
+
+	/**
+	 * @return The number of quads which must be drawn (including any freed by patches).
+	 */
+	public int getUsedQuads()
+	{
+		return _usedQuads;
+	}
+
+	/**
+	 * @return The cuboid the buffer currently represents.
+	 */
+	public IReadOnlyCuboidData getBakedFrom()
+	{
+		return _bakedFrom;
+	}
+
+	/**
+	 * Replaces all the quads owned by the given blocks with newOwners.length new quads.  On success, the layout is
+	 * updated to represent patchedFrom and the returned plan describes where the new quads go and which old quads must
+	 * be cleared.  On failure (there isn't enough space), the layout is unchanged and null is returned.
+	 * 
+	 * @param blockIndices The owner indices of the blocks being replaced.
+	 * @param newOwners The owner index of each new quad, in the order they were written.
+	 * @param patchedFrom The cuboid the new quads were baked from.
+	 * @return The plan for how to write the quads into the buffer, or null if there isn't space.
+	 */
+	public Patch applyPatch(Set<Integer> blockIndices, int[] newOwners, IReadOnlyCuboidData patchedFrom)
+	{
+		// Find the slots we can reuse:  Those owned by the blocks being replaced and those previously freed.
+		List<Integer> available = new ArrayList<>();
+		for (int i = 0; i < _usedQuads; ++i)
+		{
+			short owner = _owners[i];
+			if (FREE_SLOT == owner)
+			{
+				available.add(i);
+			}
+			else if ((NO_OWNER != owner) && blockIndices.contains((int)owner))
+			{
+				available.add(i);
+			}
+		}
+		int slack = _owners.length - _usedQuads;
+		
+		Patch patch;
+		if (newOwners.length <= (available.size() + slack))
+		{
+			int[] targetSlots = new int[newOwners.length];
+			int usedQuads = _usedQuads;
+			for (int i = 0; i < newOwners.length; ++i)
+			{
+				int slot;
+				if (i < available.size())
+				{
+					slot = available.get(i);
+				}
+				else
+				{
+					slot = usedQuads;
+					usedQuads += 1;
+				}
+				targetSlots[i] = slot;
+			}
+			
+			// Anything replaced but not reused needs to be cleared in the buffer (previously free slots are already clear).
+			List<Integer> toClear = new ArrayList<>();
+			for (int i = newOwners.length; i < available.size(); ++i)
+			{
+				int slot = available.get(i);
+				if (FREE_SLOT != _owners[slot])
+				{
+					toClear.add(slot);
+				}
+				_owners[slot] = FREE_SLOT;
+			}
+			for (int i = 0; i < newOwners.length; ++i)
+			{
+				_owners[targetSlots[i]] = (short)newOwners[i];
+			}
+			_usedQuads = usedQuads;
+			_bakedFrom = patchedFrom;
+			patch = new Patch(targetSlots, toClear.stream().mapToInt((Integer slot) -> slot).toArray());
+		}
+		else
+		{
+			// There isn't enough space so the caller will need to re-bake the whole cuboid.
+			patch = null;
+		}
+		return patch;
+	}
+
+
+	/**
+	 * The plan for writing a patch into the GPU buffer.
+	 * 
+	 * @param targetSlots The quad slot where each new quad should be written.
+	 * @param clearedSlots The quad slots which must be cleared since their block no longer owns them.
+	 */
+	public static record Patch(int[] targetSlots, int[] clearedSlots) {}
+}
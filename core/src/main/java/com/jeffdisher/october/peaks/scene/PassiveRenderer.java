@@ -14,7 +14,7 @@ import com.jeffdisher.october.peaks.LoadedResources;
 import com.jeffdisher.october.peaks.animation.AnimationManager;
 import com.jeffdisher.october.peaks.animation.GhostManager;
 import com.jeffdisher.october.peaks.graphics.BufferBuilder;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
 import com.jeffdisher.october.peaks.graphics.Program;
 import com.jeffdisher.october.peaks.graphics.VertexArray;
 import com.jeffdisher.october.peaks.textures.ItemTextureAtlas;
@@ -250,6 +250,8 @@ public class PassiveRenderer
 	private final GhostManager _ghostManager;
 	private final float _halfWidth;
 	private final float _halfHeight;
+	private final MutableMatrix _modelMatrix;
+	private final MutableMatrix _rotateMatrix;
 
 	public PassiveRenderer(GL20 gl
 		, Binding<Float> screenBrightness
@@ -266,9 +268,12 @@ public class PassiveRenderer
 		
 		_halfWidth = PassiveType.ITEM_SLOT.volume().width() / 2.0f;
 		_halfHeight = PassiveType.ITEM_SLOT.volume().height() / 2.0f;
+		// The model matrices are rebuilt for every passive so we reuse the same instances.
+		_modelMatrix = new MutableMatrix();
+		_rotateMatrix = new MutableMatrix();
 	}
 
-	public void renderEntities(Matrix viewMatrix, Matrix projectionMatrix, Vector eye)
+	public void renderEntities(MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye)
 	{
 		// We want to use the perspective projection and depth buffer for the main scene.
 		_gl.glEnable(GL20.GL_DEPTH_TEST);
@@ -299,8 +304,8 @@ public class PassiveRenderer
 	private void _renderItemSlots(ItemSlotResources resources
 		, Collection<PartialPassive> itemSlotPassives
 		, Collection<GhostManager.GhostSnapshot<PartialPassive>> itemSlotGhosts
-		, Matrix viewMatrix
-		, Matrix projectionMatrix
+		, MutableMatrix viewMatrix
+		, MutableMatrix projectionMatrix
 		, Vector eye
 	)
 	{
@@ -356,7 +361,7 @@ public class PassiveRenderer
 		resources._itemSlotVertices.drawAllTriangles(_gl);
 	}
 
-	private void _renderFallingBlocks(FallingBlockResources resources, Collection<PartialPassive> fallingBlockPassives, Matrix viewMatrix, Matrix projectionMatrix, Vector eye)
+	private void _renderFallingBlocks(FallingBlockResources resources, Collection<PartialPassive> fallingBlockPassives, MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye)
 	{
 		resources._program.useProgram();
 		_gl.glUniform3f(resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
@@ -376,8 +381,8 @@ public class PassiveRenderer
 		{
 			// Create a model matrix just based on this translation.
 			EntityLocation location = fallingBlockPassive.location();
-			Matrix translation = Matrix.translate(location.x(), location.y(), location.z());
-			translation.uploadAsUniform(_gl, resources._uModelMatrix);
+			_modelMatrix.setTranslate(location.x(), location.y(), location.z());
+			_modelMatrix.uploadAsUniform(_gl, resources._uModelMatrix);
 			
 			// We need to pass in the base texture coordinates of this type.
 			Block block = (Block)fallingBlockPassive.extendedData();
@@ -389,7 +394,7 @@ public class PassiveRenderer
 		}
 	}
 
-	private void _renderArrows(ArrowResources resources, Collection<PartialPassive> arrowPassives, Matrix viewMatrix, Matrix projectionMatrix, Vector eye)
+	private void _renderArrows(ArrowResources resources, Collection<PartialPassive> arrowPassives, MutableMatrix viewMatrix, MutableMatrix projectionMatrix, Vector eye)
 	{
 		resources._program.useProgram();
 		_gl.glUniform3f(resources._uWorldLightLocation, eye.x(), eye.y(), eye.z());
@@ -409,19 +414,18 @@ public class PassiveRenderer
 		{
 			EntityLocation location = arrowPassive.location();
 			EntityLocation velocity = arrowPassive.velocity();
-			Matrix translation = _generateArrowModelMatrix(location, velocity);
-			translation.uploadAsUniform(_gl, resources._uModelMatrix);
+			_setArrowModelMatrix(location, velocity);
+			_modelMatrix.uploadAsUniform(_gl, resources._uModelMatrix);
 			
 			resources._arrowVertices.drawAllTriangles(_gl);
 		}
 	}
 
-	private static Matrix _generateArrowModelMatrix(EntityLocation location, EntityLocation velocity)
+	private void _setArrowModelMatrix(EntityLocation location, EntityLocation velocity)
 	{
 		// Note that the arrow model is already the expected size, centred at (0,0,0), and facing North.
-		Matrix translate = Matrix.translate(location.x(), location.y(), location.z());
-		Matrix rotate = Matrix.rotateToFace(Vector.fromEntityLocation(velocity));
-		Matrix model = Matrix.multiply(translate, rotate);
-		return model;
+		_modelMatrix.setTranslate(location.x(), location.y(), location.z());
+		_rotateMatrix.setRotateToFace(velocity.x(), velocity.y(), velocity.z());
+		_modelMatrix.setMultiply(_modelMatrix, _rotateMatrix);
 	}
 }
@@ -0,0 +1,201 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.data.IReadOnlyCuboidData;
+import com.jeffdisher.october.logic.SparseByteCube;
+import com.jeffdisher.october.peaks.graphics.BufferBuilder;
+import com.jeffdisher.october.peaks.textures.AuxilliaryTextureAtlas;
+import com.jeffdisher.october.peaks.textures.BasicBlockAtlas;
+import com.jeffdisher.october.types.AbsoluteLocation;
+import com.jeffdisher.october.types.BlockAddress;
+
+
+/**
+ * The reference implementation of ICuboidMesher, built on the face-culling helpers in SceneMeshHelpers.
+ * Any alternative mesher is checked against this one so changes here change what "correct" means.
+ */
+public class ReferenceCuboidMesher implements ICuboidMesher
+{
+	private final Environment _env;
+	private final BlockModelsAndAtlas _blockModels;
+	private final BasicBlockAtlas _blockTextures;
+	private final AuxilliaryTextureAtlas _auxBlockTextures;
+
+	public ReferenceCuboidMesher(Environment env
+			, BlockModelsAndAtlas blockModels
+			, BasicBlockAtlas blockTextures
+			, AuxilliaryTextureAtlas auxBlockTextures
+	)
+	{
+		_env = env;
+		_blockModels = blockModels;
+		_blockTextures = blockTextures;
+		_auxBlockTextures = auxBlockTextures;
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeOpaqueLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, FireFaceBuilder fireTracker
+		, SceneMeshHelpers.MeshInputData inputs
+		, IntConsumer quadOwners
+	)
+	{
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		
+		// Create the opaque cuboid vertices.
+		if (null != quadOwners)
+		{
+			SceneMeshHelpers.populateOpaqueMeshWithOwners(_env
+					, builderWrapper
+					, _blockTextures
+					, variantMap
+					, _auxBlockTextures
+					, fireTracker
+					, inputs
+					, null
+					, quadOwners
+			);
+		}
+		else
+		{
+			SceneMeshHelpers.populateMeshBufferForCuboid(_env
+					, builderWrapper
+					, _blockTextures
+					, variantMap
+					, _auxBlockTextures
+					, fireTracker
+					, inputs
+					, true
+			);
+		}
+		// Lava is also treated as an opaque surface.
+		short lavaSourceNumber = _env.items.getItemById("op.lava_source").number();
+		short lavaStrongNumber = _env.items.getItemById("op.lava_strong").number();
+		short lavaWeakNumber = _env.items.getItemById("op.lava_weak").number();
+		SceneMeshHelpers.populateWaterMeshBufferForCuboid(_env
+				, builderWrapper
+				, _blockTextures
+				, _auxBlockTextures
+				, inputs
+				, lavaSourceNumber
+				, lavaStrongNumber
+				, lavaWeakNumber
+				, false
+		);
+		return builder.finishOne();
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeOpaqueBlocks(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, SceneMeshHelpers.MeshInputData inputs
+		, Predicate<BlockAddress> blockFilter
+		, IntConsumer quadOwners
+	)
+	{
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		
+		// This is only used for patches, which are never made near burning blocks, so the fire tracker will be empty.
+		SceneMeshHelpers.populateOpaqueMeshWithOwners(_env
+				, builderWrapper
+				, _blockTextures
+				, variantMap
+				, _auxBlockTextures
+				, new FireFaceBuilder()
+				, inputs
+				, blockFilter
+				, quadOwners
+		);
+		return builder.finishOne();
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeModelLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, SceneMeshHelpers.MeshInputData inputs
+	)
+	{
+		// We will render the complex models (they need a different texture binding so they can't be part of the opaque buffer).
+		SceneMeshHelpers.populateBufferWithComplexModels(_env
+				, builder
+				, _blockModels
+				, _auxBlockTextures
+				, inputs
+		);
+		return builder.finishOne();
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeTransparentLayer(BufferBuilder builder
+		, AuxVariantMap variantMap
+		, FireFaceBuilder fireTracker
+		, SceneMeshHelpers.MeshInputData inputs
+	)
+	{
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		
+		// Create the transparent (non-water) cuboid vertices.
+		// Note that this may be removed in the future if we end up with no transparent block textures after converting associated blocks to models.
+		SceneMeshHelpers.populateMeshBufferForCuboid(_env
+				, builderWrapper
+				, _blockTextures
+				, variantMap
+				, _auxBlockTextures
+				, fireTracker
+				, inputs
+				, false
+		);
+		return builder.finishOne();
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeWaterLayer(BufferBuilder builder
+		, SceneMeshHelpers.MeshInputData inputs
+	)
+	{
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		
+		// Create the water cuboid vertices.
+		short waterSourceNumber = _env.items.getItemById("op.water_source").number();
+		short waterStrongNumber = _env.items.getItemById("op.water_strong").number();
+		short waterWeakNumber = _env.items.getItemById("op.water_weak").number();
+		SceneMeshHelpers.populateWaterMeshBufferForCuboid(_env
+				, builderWrapper
+				, _blockTextures
+				, _auxBlockTextures
+				, inputs
+				, waterSourceNumber
+				, waterStrongNumber
+				, waterWeakNumber
+				, true
+		);
+		return builder.finishOne();
+	}
+
+	@Override
+	public BufferBuilder.Buffer bakeBurningLayer(BufferBuilder builder
+		, SparseByteCube fireFaces
+		, IReadOnlyCuboidData cuboid
+	)
+	{
+		// Create any of the burning block faces.
+		BufferBuilder.Buffer burningFaceBuffer = null;
+		if (null != fireFaces)
+		{
+			MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+			AbsoluteLocation cuboidBase = cuboid.getCuboidAddress().getBase();
+			SceneMeshHelpers.populateBurningFacesForCuboid(_env
+				, builderWrapper
+				, _blockTextures
+				, fireFaces
+				, cuboidBase
+			);
+			burningFaceBuffer = builder.finishOne();
+		}
+		return burningFaceBuffer;
+	}
+}
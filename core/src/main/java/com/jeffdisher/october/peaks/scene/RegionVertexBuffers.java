@@ -0,0 +1,308 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.jeffdisher.october.peaks.graphics.Attribute;
+import com.jeffdisher.october.peaks.graphics.BufferBuilder;
+import com.jeffdisher.october.peaks.graphics.GlStateCache;
+import com.jeffdisher.october.peaks.graphics.VertexArena;
+import com.jeffdisher.october.peaks.graphics.VertexArray;
+import com.jeffdisher.october.peaks.graphics.VertexRangeAllocator;
+import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Packs the rendering layers of nearby cuboids into shared GL buffers so that a region of cuboids can be drawn with a
+ * few draw calls, instead of several per cuboid.  All the layers in the same instance must be drawn with the same
+ * program and textures.
+ * Each region is a cube of REGION_EDGE_CUBOIDS cuboids per edge and owns a list of pages:  ranges of the shared
+ * VertexArena where each cuboid is given a contiguous range of vertices for each of its layers.  When drawing, the
+ * ranges of visible cuboids which are next to each other in a page are drawn with a single call.
+ * Any capacity reserved at the end of a cuboid's range is filled with zeros (degenerate triangles) so that it can be
+ * drawn along with the rest of the range without breaking up the calls.
+ * Regions are drawn nearest-first, as this is only used for layers which don't blend.
+ * 
+ * @param <T> The type of the owner of each range.
+ */
+public class RegionVertexBuffers<T>
+{
+	public static final int REGION_SHIFT = 2;
+	public static final int REGION_EDGE_CUBOIDS = 1 << REGION_SHIFT;
+	/**
+	 * The smallest page we will allocate.  Later pages of the same region double in size, up to the maximum.
+	 */
+	public static final int MIN_PAGE_VERTICES = 16 * 1024;
+	public static final int MAX_PAGE_VERTICES = 256 * 1024;
+
+	/**
+	 * Returns the address of the region containing the given cuboid (the region addresses are just the cuboid
+	 * addresses, scaled down).
+	 * 
+	 * @param cuboid The cuboid address.
+	 * @return The address of its region.
+	 */
+	public static CuboidAddress regionOf(CuboidAddress cuboid)
+	{
+		return new CuboidAddress((short)(cuboid.x() >> REGION_SHIFT), (short)(cuboid.y() >> REGION_SHIFT), (short)(cuboid.z() >> REGION_SHIFT));
+	}
+
+
+	private final GL20 _gl;
+	private final VertexArena _arena;
+	private final int _floatsPerVertex;
+	private final Map<CuboidAddress, _Region<T>> _regionsByAddress;
+	private final CuboidDrawOrder<_Region<T>> _regions;
+	private final Map<T, List<_Allocation<T>>> _allocations;
+	private FloatBuffer _zeros;
+
+	public RegionVertexBuffers(GL20 gl, VertexArena arena, Attribute[] attributes)
+	{
+		_gl = gl;
+		_arena = arena;
+		int floatsPerVertex = 0;
+		for (Attribute attribute : attributes)
+		{
+			floatsPerVertex += attribute.floats();
+		}
+		_floatsPerVertex = floatsPerVertex;
+		_regionsByAddress = new HashMap<>();
+		_regions = new CuboidDrawOrder<>((_Region<T> region) -> region.address, true);
+		// The owners are looked up by identity since they are just tokens.
+		_allocations = new IdentityHashMap<>();
+		_zeros = null;
+	}
+
+	/**
+	 * Uploads the given vertices into the region of the given cuboid.  An owner can allocate several ranges (one per
+	 * layer, for example) and ranges allocated one after the other are usually next to each other, so they are drawn
+	 * with the same call.
+	 * 
+	 * @param owner The owner of the range, used to free it and to decide if it should be drawn.
+	 * @param cuboid The address of the cuboid containing these vertices.
+	 * @param vertices The vertices to upload.
+	 * @param capacityVertices The size of the range to reserve, at least the number of vertices (the rest is zeroed).
+	 * @return The VertexArray over the new range, drawing only the vertices uploaded.
+	 */
+	public VertexArray allocate(T owner, CuboidAddress cuboid, BufferBuilder.Buffer vertices, int capacityVertices)
+	{
+		Assert.assertTrue(capacityVertices >= vertices.vertexCount);
+		CuboidAddress regionAddress = regionOf(cuboid);
+		_Region<T> region = _regionsByAddress.get(regionAddress);
+		if (null == region)
+		{
+			region = new _Region<>(regionAddress);
+			_regionsByAddress.put(regionAddress, region);
+			_regions.add(region);
+		}
+		
+		// Take the range from the first page where it fits, adding a new page if it doesn't fit anywhere.
+		_Page<T> page = null;
+		int firstVertex = -1;
+		for (_Page<T> check : region.pages)
+		{
+			if (-1 == firstVertex)
+			{
+				firstVertex = check.ranges.allocate(capacityVertices);
+				page = check;
+			}
+		}
+		if (-1 == firstVertex)
+		{
+			int growth = Math.min(MIN_PAGE_VERTICES << region.pages.size(), MAX_PAGE_VERTICES);
+			// The arena rounds up to its size class anyway so we make that whole class available to the page.
+			page = new _Page<>(_arena.reserve(VertexArena.sizeClass(Math.max(capacityVertices, growth))));
+			region.pages.add(page);
+			firstVertex = page.ranges.allocate(capacityVertices);
+		}
+		
+		VertexArray array = page.storage.subArray(firstVertex, vertices.vertexCount);
+		array.replaceVertices(_gl, 0, vertices.getVertices(0, vertices.vertexCount));
+		int slack = capacityVertices - vertices.vertexCount;
+		if (slack > 0)
+		{
+			array.replaceVertices(_gl, vertices.vertexCount, _getZeros(slack));
+		}
+		
+		_Allocation<T> allocation = new _Allocation<>(owner, region, page, firstVertex, capacityVertices);
+		page.allocations.put(firstVertex, allocation);
+		List<_Allocation<T>> owned = _allocations.get(owner);
+		if (null == owned)
+		{
+			owned = new ArrayList<>();
+			_allocations.put(owner, owned);
+		}
+		owned.add(allocation);
+		return array;
+	}
+
+	/**
+	 * Frees all the ranges of the given owner, deleting any page which is now empty.
+	 * 
+	 * @param owner The owner passed to allocate().
+	 */
+	public void free(T owner)
+	{
+		List<_Allocation<T>> owned = _allocations.remove(owner);
+		Assert.assertTrue(null != owned);
+		for (_Allocation<T> allocation : owned)
+		{
+			_Page<T> page = allocation.page();
+			page.allocations.remove(allocation.firstVertex());
+			page.ranges.free(allocation.firstVertex(), allocation.capacityVertices());
+			if (page.ranges.isEmpty())
+			{
+				_arena.free(page.storage);
+				allocation.region().pages.remove(page);
+			}
+		}
+		// Empty regions are removed during the next draw, since that walks the draw order.
+	}
+
+	/**
+	 * Updates the camera so that the regions are drawn nearest-first.
+	 * 
+	 * @param cameraCuboid The cuboid containing the camera.
+	 */
+	public void setCameraCuboid(CuboidAddress cameraCuboid)
+	{
+		_regions.setCameraCuboid(regionOf(cameraCuboid));
+	}
+
+	/**
+	 * Draws the ranges whose owners are visible, merging the draws of visible ranges next to each other in a page.
+	 * 
+	 * @param state The GL state cache.
+	 * @param isVisible Returns true if the given owner's range should be drawn.
+	 */
+	public void drawVisible(GlStateCache state, Predicate<T> isVisible)
+	{
+		Iterator<_Region<T>> iter = _regions.iterator();
+		while (iter.hasNext())
+		{
+			_Region<T> region = iter.next();
+			if (!region.pages.isEmpty())
+			{
+				for (_Page<T> page : region.pages)
+				{
+					_drawPage(state, page, isVisible);
+				}
+			}
+			else
+			{
+				iter.remove();
+				_regionsByAddress.remove(region.address);
+			}
+		}
+	}
+
+	public void shutdown()
+	{
+		for (_Region<T> region : _regionsByAddress.values())
+		{
+			for (_Page<T> page : region.pages)
+			{
+				_arena.free(page.storage);
+			}
+			region.pages.clear();
+		}
+		_allocations.clear();
+	}
+
+
+	private void _drawPage(GlStateCache state, _Page<T> page, Predicate<T> isVisible)
+	{
+		// The allocations are sorted by their first vertex so we can extend a run for as long as the ranges touch.
+		int runStart = -1;
+		int runEnd = -1;
+		for (_Allocation<T> allocation : page.allocations.values())
+		{
+			if (isVisible.test(allocation.owner()))
+			{
+				if (allocation.firstVertex() != runEnd)
+				{
+					_drawRun(state, page, runStart, runEnd);
+					runStart = allocation.firstVertex();
+				}
+				runEnd = allocation.firstVertex() + allocation.capacityVertices();
+			}
+			else
+			{
+				_drawRun(state, page, runStart, runEnd);
+				runStart = -1;
+				runEnd = -1;
+			}
+		}
+		_drawRun(state, page, runStart, runEnd);
+	}
+
+	private void _drawRun(GlStateCache state, _Page<T> page, int runStart, int runEnd)
+	{
+		if (runStart >= 0)
+		{
+			page.storage.subArray(runStart, runEnd - runStart).drawAllTriangles(state);
+		}
+	}
+
+	private FloatBuffer _getZeros(int vertexCount)
+	{
+		int floats = vertexCount * _floatsPerVertex;
+		if ((null == _zeros) || (_zeros.capacity() < floats))
+		{
+			// Direct buffers start zeroed and we never write to this one.
+			ByteBuffer direct = ByteBuffer.allocateDirect(floats * Float.BYTES);
+			direct.order(ByteOrder.nativeOrder());
+			_zeros = direct.asFloatBuffer();
+		}
+		FloatBuffer view = _zeros.duplicate();
+		view.position(0);
+		view.limit(floats);
+		return view;
+	}
+
+
+	private static class _Region<T>
+	{
+		public final CuboidAddress address;
+		public final List<_Page<T>> pages;
+		
+		public _Region(CuboidAddress address)
+		{
+			this.address = address;
+			this.pages = new ArrayList<>();
+		}
+	}
+
+	private static class _Page<T>
+	{
+		public final VertexArray storage;
+		public final VertexRangeAllocator ranges;
+		// The allocations in this page, keyed by their first vertex.
+		public final TreeMap<Integer, _Allocation<T>> allocations;
+		
+		public _Page(VertexArray storage)
+		{
+			this.storage = storage;
+			this.ranges = new VertexRangeAllocator(storage.totalVertices);
+			this.allocations = new TreeMap<>();
+		}
+	}
+
+	private static record _Allocation<T>(T owner
+		, _Region<T> region
+		, _Page<T> page
+		, int firstVertex
+		, int capacityVertices
+	) {}
+}
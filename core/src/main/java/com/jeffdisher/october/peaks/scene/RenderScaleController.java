@@ -0,0 +1,125 @@
+package com.jeffdisher.october.peaks.scene;
+
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Chooses the resolution scale of the 3D scene so that frames fit in a target frame time.
+ * Frame times are averaged over windows of WINDOW_FRAMES frames.  A window well over the target lowers the scale by a
+ * step right away while the scale is only raised again after several windows close to the target.  If the frame time
+ * goes over the target right after a raise, the raise didn't fit so we wait twice as long before trying again.  This
+ * stops the scale from bouncing between 2 steps (which is common when v-sync halves the frame rate).
+ * The scale is tracked in whole percent to avoid accumulating float error over many steps.
+ */
+public class RenderScaleController
+{
+	public static final int MIN_SCALE_PERCENT = 50;
+	public static final int MAX_SCALE_PERCENT = 100;
+	public static final int SCALE_STEP_PERCENT = 10;
+	public static final int WINDOW_FRAMES = 30;
+	/**
+	 * The number of windows close to the target needed before raising the scale, at first.
+	 */
+	public static final int INITIAL_RAISE_DELAY_WINDOWS = 2;
+	public static final int MAX_RAISE_DELAY_WINDOWS = 32;
+
+	private final long _lowerAboveNanos;
+	private final long _raiseBelowNanos;
+	private int _scalePercent;
+	private long _windowNanos;
+	private int _windowFrames;
+	private int _headroomWindows;
+	private int _raiseDelayWindows;
+	private boolean _didJustRaise;
+
+	/**
+	 * Creates the controller, starting at full scale.
+	 * 
+	 * @param targetFrameNanos The frame time we want to stay within.
+	 */
+	public RenderScaleController(long targetFrameNanos)
+	{
+		Assert.assertTrue(targetFrameNanos > 0L);
+		// We lower the scale when 20% over the target but only raise it when within 5% of it.
+		_lowerAboveNanos = targetFrameNanos * 6L / 5L;
+		_raiseBelowNanos = targetFrameNanos * 21L / 20L;
+		_scalePercent = MAX_SCALE_PERCENT;
+		_windowNanos = 0L;
+		_windowFrames = 0;
+		_headroomWindows = 0;
+		_raiseDelayWindows = INITIAL_RAISE_DELAY_WINDOWS;
+		_didJustRaise = false;
+	}
+
+	/**
+	 * Records the time taken by the last frame, returning the scale to use for the next one.
+	 * 
+	 * @param frameNanos The time between the start of the last frame and the start of this one.
+	 * @return The scale to use, between MIN_SCALE_PERCENT and MAX_SCALE_PERCENT, as a fraction.
+	 */
+	public float recordFrame(long frameNanos)
+	{
+		_windowNanos += frameNanos;
+		_windowFrames += 1;
+		if (WINDOW_FRAMES == _windowFrames)
+		{
+			long averageNanos = _windowNanos / WINDOW_FRAMES;
+			_windowNanos = 0L;
+			_windowFrames = 0;
+			_endWindow(averageNanos);
+		}
+		return getScale();
+	}
+
+	/**
+	 * @return The current scale, as a fraction.
+	 */
+	public float getScale()
+	{
+		return (float)_scalePercent / 100.0f;
+	}
+
+	/**
+	 * Forgets the frame history, but keeps the current scale.  This should be called when frames stop being
+	 * representative for a while (when the window is in the background and throttled, for example).
+	 */
+	public void reset()
+	{
+		_windowNanos = 0L;
+		_windowFrames = 0;
+		_headroomWindows = 0;
+		_raiseDelayWindows = INITIAL_RAISE_DELAY_WINDOWS;
+		_didJustRaise = false;
+	}
+
+
+	private void _endWindow(long averageNanos)
+	{
+		boolean didRaise = false;
+		if (averageNanos > _lowerAboveNanos)
+		{
+			if (_didJustRaise)
+			{
+				_raiseDelayWindows = Math.min(2 * _raiseDelayWindows, MAX_RAISE_DELAY_WINDOWS);
+			}
+			_scalePercent = Math.max(MIN_SCALE_PERCENT, _scalePercent - SCALE_STEP_PERCENT);
+			_headroomWindows = 0;
+		}
+		else if (averageNanos < _raiseBelowNanos)
+		{
+			_headroomWindows += 1;
+			if ((_headroomWindows >= _raiseDelayWindows) && (_scalePercent < MAX_SCALE_PERCENT))
+			{
+				_scalePercent = Math.min(MAX_SCALE_PERCENT, _scalePercent + SCALE_STEP_PERCENT);
+				_headroomWindows = 0;
+				didRaise = true;
+			}
+		}
+		else
+		{
+			_headroomWindows = 0;
+		}
+		// Only the window right after a raise can decide that it didn't fit.
+		_didJustRaise = didRaise;
+	}
+}
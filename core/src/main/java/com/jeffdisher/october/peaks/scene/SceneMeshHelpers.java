@@ -2,6 +2,7 @@ package com.jeffdisher.october.peaks.scene;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -25,6 +26,7 @@ import com.jeffdisher.october.types.AbsoluteLocation;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
 import com.jeffdisher.october.types.FacingDirection;
+import com.jeffdisher.october.utils.Assert;
 import com.jeffdisher.october.utils.Encoding;
 
 
@@ -55,49 +57,61 @@ public class SceneMeshHelpers
 			, boolean opaqueVertices
 	)
 	{
-		Predicate<Short> shouldInclude;
-		if (opaqueVertices)
-		{
-			Set<Short> lava = _buildLavaNumberSet(env);
-			shouldInclude = (Short value) -> {
-				return blockAtlas.isInBasicAtlas(value)
-						&& !blockAtlas.textureHasNonOpaquePixels(value)
-						&& !lava.contains(value)
-				;
-			};
-		}
-		else
-		{
-			Set<Short> water = _buildWaterNumberSet(env);
-			shouldInclude = (Short value) -> {
-				return blockAtlas.isInBasicAtlas(value)
-						&& blockAtlas.textureHasNonOpaquePixels(value)
-						&& !water.contains(value)
-				;
-			};
-		}
-		FaceBuilder faces = new FaceBuilder();
-		_preSeed(faces
-				, shouldInclude
-				, null
-				, inputData
-		);
-		faces.populateMasks(inputData.cuboid, shouldInclude);
-		faces.buildFaces(inputData.cuboid, new _CommonVertexWriter(env
+		_populateMeshBufferForCuboid(env
 			, builder
+			, blockAtlas
 			, variantMap
+			, auxAtlas
+			, fireTracker
+			, inputData
+			, opaqueVertices
+			, null
+			, null
+		);
+	}
+
+	/**
+	 * Populates the opaque block faces of the cuboid, as populateMeshBufferForCuboid() does, but only for the blocks
+	 * accepted by blockFilter, and reports the block index (see OpaqueQuadLayout.blockIndex()) of each quad written.
+	 * This allows the caller to patch the faces of a few blocks into an existing buffer.
+	 * 
+	 * @param env The environment.
+	 * @param builder The builder where the vertices will be written.
+	 * @param blockAtlas The block texture atlas.
+	 * @param variantMap The aux texture variants for the cuboid.
+	 * @param auxAtlas The aux texture atlas.
+	 * @param fireTracker Updated with any faces which are burning.
+	 * @param inputData The cuboid and its neighbours.
+	 * @param blockFilter If not null, only faces of the blocks it accepts will be written.
+	 * @param quadOwners Told the owning block index for each quad, in the order they were written.
+	 */
+	public static void populateOpaqueMeshWithOwners(Environment env
+			, MeshHelperBufferBuilder builder
+			, BasicBlockAtlas blockAtlas
+			, AuxVariantMap variantMap
+			, AuxilliaryTextureAtlas auxAtlas
+			, FireFaceBuilder fireTracker
+			, MeshInputData inputData
+			, Predicate<BlockAddress> blockFilter
+			, IntConsumer quadOwners
+	)
+	{
+		_populateMeshBufferForCuboid(env
+			, builder
 			, blockAtlas
+			, variantMap
 			, auxAtlas
 			, fireTracker
-			, shouldInclude
 			, inputData
-		));
+			, true
+			, blockFilter
+			, quadOwners
+		);
 	}
 
 	public static void populateBufferWithComplexModels(Environment env
 			, BufferBuilder builder
 			, BlockModelsAndAtlas blockModels
-			, AuxVariantMap variantMap
 			, AuxilliaryTextureAtlas auxAtlas
 			, MeshInputData inputData
 	)
@@ -146,7 +160,6 @@ public class SceneMeshHelpers
 									float[] uv = blockModels.baseOfModelTexture(includedBlock, isActive, isDown);
 									ModelBuffer bufferForType = blockModels.getModelForBlock(includedBlock, isActive, isDown);
 									_renderModel(builder
-											, variantMap
 											, auxAtlas
 											, inputData
 											, uvCoordinateSize
@@ -304,7 +317,7 @@ public class SceneMeshHelpers
 		
 		// We always want the outline highlighted.
 		float blockLightMultiplier = 1.0f;
-		_buildCube(builder, uvBase, textureSize, auxUv, auxTextureSize, outline, blockLightMultiplier);
+		_buildCube(builder, uvBase, textureSize, auxUv, auxTextureSize, outline, blockLightMultiplier, SKY_LIGHT_SHADOW);
 	}
 
 	public static void drawPassiveStandingSquare(MeshHelperBufferBuilder builder
@@ -393,7 +406,7 @@ public class SceneMeshHelpers
 		
 		// Don't add any additional saturation to the cube.
 		float blockLightMultiplier = 0.0f;
-		_buildCube(builder, uvBase, textureSize, auxUv, auxTextureSize, outline, blockLightMultiplier);
+		_buildCube(builder, uvBase, textureSize, auxUv, auxTextureSize, outline, blockLightMultiplier, SKY_LIGHT_SHADOW);
 	}
 
 	public static void populateBurningFacesForCuboid(Environment env
@@ -512,6 +525,103 @@ public class SceneMeshHelpers
 		fireFaces.walkAllValues(walker, 0, 0, 0, Encoding.CUBOID_EDGE_SIZE);
 	}
 
+	public static void populateDamageDecalsForCuboid(Environment env
+		, MeshHelperBufferBuilder builder
+		, BasicBlockAtlas blockAtlas
+		, AuxilliaryTextureAtlas auxAtlas
+		, Map<Block, Prism> modelBounds
+		, IReadOnlyCuboidData cuboid
+		, ColumnHeightMap heightMap
+	)
+	{
+		// As with burning faces, we use "air" as the block texture so that only the AUX texture is visible.
+		float airCoords[] = blockAtlas.baseOfSideTexture(false, env.special.AIR.item().number());
+		float coordinateSize = blockAtlas.getCoordinateSize();
+		float auxTextureSize = auxAtlas.coordinateSize;
+		
+		// Decals are drawn over the existing block faces so they use the brightest light those faces could get (we don't
+		// blend light across a decal).
+		Prism unitCube = Prism.getBoundsAtOrigin(1.0f, 1.0f, 1.0f);
+		AbsoluteLocation cuboidBase = cuboid.getCuboidAddress().getBase();
+		int verticesPerDecal = 6 * OpaqueQuadLayout.VERTICES_PER_QUAD;
+		cuboid.walkData(AspectRegistry.DAMAGE, new IOctree.IWalkerCallback<Integer>() {
+			@Override
+			public void visit(BlockAddress base, byte size, Integer damage)
+			{
+				Assert.assertTrue((byte)1 == size);
+				// A cuboid full of damaged blocks won't fit in the scratch buffer, so we just skip the decals which don't.
+				if (builder.canFitVertices(verticesPerDecal))
+				{
+					Block block = BlockProxy.load(base, cuboid).getBlock();
+					float[] auxUv = auxAtlas.baseOfTexture(AuxVariantMap.getDamageVariant(env, block, damage.intValue()));
+					
+					// Complex models use their bounding box, since that is the closest we have to a surface.
+					Prism bounds = modelBounds.getOrDefault(block, unitCube);
+					Prism decal = bounds.getRelative(cuboidBase.x() + base.x(), cuboidBase.y() + base.y(), cuboidBase.z() + base.z());
+					float blockLightMultiplier = _mapBlockLight(_getDecalBlockLight(cuboid, base));
+					float skyLightMultiplier = _getDecalSkyLight(heightMap, cuboidBase.z() + base.z(), base);
+					_buildCube(builder, airCoords, coordinateSize, auxUv, auxTextureSize, decal, blockLightMultiplier, skyLightMultiplier);
+				}
+			}
+		}, null);
+	}
+
+
+	private static void _populateMeshBufferForCuboid(Environment env
+			, MeshHelperBufferBuilder builder
+			, BasicBlockAtlas blockAtlas
+			, AuxVariantMap variantMap
+			, AuxilliaryTextureAtlas auxAtlas
+			, FireFaceBuilder fireTracker
+			, MeshInputData inputData
+			, boolean opaqueVertices
+			, Predicate<BlockAddress> blockFilter
+			, IntConsumer quadOwners
+	)
+	{
+		Predicate<Short> shouldInclude;
+		if (opaqueVertices)
+		{
+			Set<Short> lava = _buildLavaNumberSet(env);
+			shouldInclude = (Short value) -> {
+				return blockAtlas.isInBasicAtlas(value)
+						&& !blockAtlas.textureHasNonOpaquePixels(value)
+						&& !lava.contains(value)
+				;
+			};
+		}
+		else
+		{
+			Set<Short> water = _buildWaterNumberSet(env);
+			shouldInclude = (Short value) -> {
+				return blockAtlas.isInBasicAtlas(value)
+						&& blockAtlas.textureHasNonOpaquePixels(value)
+						&& !water.contains(value)
+				;
+			};
+		}
+		FaceBuilder faces = new FaceBuilder();
+		_preSeed(faces
+				, shouldInclude
+				, null
+				, inputData
+		);
+		faces.populateMasks(inputData.cuboid, shouldInclude);
+		FaceBuilder.IWriter writer = new _CommonVertexWriter(env
+			, builder
+			, variantMap
+			, blockAtlas
+			, auxAtlas
+			, fireTracker
+			, shouldInclude
+			, inputData
+		);
+		if ((null != blockFilter) || (null != quadOwners))
+		{
+			writer = new _FilteringWriter(writer, blockFilter, quadOwners);
+		}
+		faces.buildFaces(inputData.cuboid, writer);
+	}
 
 	private static void _preSeed(FaceBuilder faces
 			, Predicate<Short> shouldInclude
@@ -753,8 +863,7 @@ public class SceneMeshHelpers
 			float[] uvBaseTop = _blockAtlas.baseOfTopTexture(isActive, value);
 			float[] uvBaseBottom = _blockAtlas.baseOfBottomTexture(isActive, value);
 			float uvCoordinateSize = _blockAtlas.getCoordinateSize();
-			AuxilliaryTextureAtlas.Variant variant = _variantMap.get(blockAddress);
-			float[] auxUv = _auxAtlas.baseOfTexture(variant);
+			float[] auxUv = _auxAtlas.baseOfTexture(AuxilliaryTextureAtlas.Variant.NONE);
 			
 			byte z = (byte)(baseZ + (isPositiveNormal ? 1 : -1));
 			byte westX = (byte)(baseX - 1);
@@ -841,8 +950,7 @@ public class SceneMeshHelpers
 			boolean isActive = _isActive(baseX, baseY, baseZ, value);
 			float[] uvBaseSide = _blockAtlas.baseOfSideTexture(isActive, value);
 			float uvCoordinateSize = _blockAtlas.getCoordinateSize();
-			AuxilliaryTextureAtlas.Variant variant = _variantMap.get(blockAddress);
-			float[] auxUv = _auxAtlas.baseOfTexture(variant);
+			float[] auxUv = _auxAtlas.baseOfTexture(AuxilliaryTextureAtlas.Variant.NONE);
 			
 			byte y = (byte)(baseY + (isPositiveNormal ? 1 : -1));
 			byte westX = (byte)(baseX - 1);
@@ -913,8 +1021,7 @@ public class SceneMeshHelpers
 			boolean isActive = _isActive(baseX, baseY, baseZ, value);
 			float[] uvBaseSide = _blockAtlas.baseOfSideTexture(isActive, value);
 			float uvCoordinateSize = _blockAtlas.getCoordinateSize();
-			AuxilliaryTextureAtlas.Variant variant = _variantMap.get(blockAddress);
-			float[] auxUv = _auxAtlas.baseOfTexture(variant);
+			float[] auxUv = _auxAtlas.baseOfTexture(AuxilliaryTextureAtlas.Variant.NONE);
 			
 			byte x = (byte)(baseX + (isPositiveNormal ? 1 : -1));
 			byte southY = (byte)(baseY - 1);
@@ -1113,6 +1220,63 @@ public class SceneMeshHelpers
 		;
 	}
 
+	private static byte _getDecalBlockLight(IReadOnlyCuboidData cuboid, BlockAddress block)
+	{
+		// A face takes the light of the block in front of it so we use the brightest of the block and its neighbours (we
+		// only have this cuboid so neighbours in other cuboids are ignored).
+		byte max = cuboid.getData7(AspectRegistry.LIGHT, block);
+		max = _maxInCuboidLight(cuboid, max, block.x() - 1, block.y(), block.z());
+		max = _maxInCuboidLight(cuboid, max, block.x() + 1, block.y(), block.z());
+		max = _maxInCuboidLight(cuboid, max, block.x(), block.y() - 1, block.z());
+		max = _maxInCuboidLight(cuboid, max, block.x(), block.y() + 1, block.z());
+		max = _maxInCuboidLight(cuboid, max, block.x(), block.y(), block.z() - 1);
+		max = _maxInCuboidLight(cuboid, max, block.x(), block.y(), block.z() + 1);
+		return max;
+	}
+
+	private static byte _maxInCuboidLight(IReadOnlyCuboidData cuboid, byte max, int x, int y, int z)
+	{
+		boolean isInside = (x >= 0) && (x < Encoding.CUBOID_EDGE_SIZE)
+			&& (y >= 0) && (y < Encoding.CUBOID_EDGE_SIZE)
+			&& (z >= 0) && (z < Encoding.CUBOID_EDGE_SIZE)
+		;
+		return isInside
+			? (byte)Math.max(max, cuboid.getData7(AspectRegistry.LIGHT, new BlockAddress((byte)x, (byte)y, (byte)z)))
+			: max
+		;
+	}
+
+	private static float _getDecalSkyLight(ColumnHeightMap heightMap, int realZ, BlockAddress block)
+	{
+		// This follows _getSkyLightMultiplier():  The top face is lit if nothing is above the block and a side face is
+		// lit if nothing in the neighbouring column is as high as the block.
+		float light;
+		if (realZ >= heightMap.getHeight(block.x(), block.y()))
+		{
+			light = SKY_LIGHT_DIRECT;
+		}
+		else if (_isColumnBelow(heightMap, realZ, block.x() - 1, block.y())
+			|| _isColumnBelow(heightMap, realZ, block.x() + 1, block.y())
+			|| _isColumnBelow(heightMap, realZ, block.x(), block.y() - 1)
+			|| _isColumnBelow(heightMap, realZ, block.x(), block.y() + 1)
+		)
+		{
+			light = SKY_LIGHT_PARTIAL;
+		}
+		else
+		{
+			light = SKY_LIGHT_SHADOW;
+		}
+		return light;
+	}
+
+	private static boolean _isColumnBelow(ColumnHeightMap heightMap, int realZ, int x, int y)
+	{
+		// Columns outside of this cuboid column aren't in the height map so we assume they are lit, as the meshes do.
+		boolean isInside = (x >= 0) && (x < Encoding.CUBOID_EDGE_SIZE) && (y >= 0) && (y < Encoding.CUBOID_EDGE_SIZE);
+		return !isInside || ((realZ - 1) >= heightMap.getHeight(x, y));
+	}
+
 	private static float _getSkyLightMultiplier(MeshInputData data, byte baseX, byte baseY, byte baseZ, float aboveOrMatchLight)
 	{
 		int realZ = data.cuboid.getCuboidAddress().getBase().z() + baseZ - 1;
@@ -1274,7 +1438,6 @@ public class SceneMeshHelpers
 	}
 
 	private static void _renderModel(BufferBuilder builder
-			, AuxVariantMap variantMap
 			, AuxilliaryTextureAtlas auxAtlas
 			, MeshInputData inputData
 			, float uvCoordinateSize
@@ -1289,7 +1452,7 @@ public class SceneMeshHelpers
 	)
 	{
 		BlockAddress blockAddress = new BlockAddress(baseX, baseY, baseZ);
-		float[] auxUv = auxAtlas.baseOfTexture(variantMap.get(blockAddress));
+		float[] auxUv = auxAtlas.baseOfTexture(AuxilliaryTextureAtlas.Variant.NONE);
 		// We interpret the max of the adjacent blocks as the light value of a model (since it has interior surfaces on all sides).
 		float[] blockLight = new float[] { _mapBlockLight(_getMaxAreaLight(inputData, baseX, baseY, baseZ)) };
 		// Sky light never falls in this block but we still want to account for it so check the block above with partial lighting.
@@ -1355,14 +1518,15 @@ public class SceneMeshHelpers
 		, float auxTextureSize
 		, Prism outline
 		, float blockLightMultiplier
+		, float skyLightMultiplier
 	)
 	{
 		// Note that no matter the scale, the quad vertices are the same magnitudes.
 		_PrismVertices v = _PrismVertices.from(outline);
 		float[] base = new float[] { 0.0f, 0.0f, 0.0f };
-		// The selection prism has no light blending.
+		// The cube has no light blending.
 		float[] blockLightMultipliers = new float[] {blockLightMultiplier, blockLightMultiplier, blockLightMultiplier, blockLightMultiplier};
-		float[] skyLightMultipliers = new float[] {0.0f, 0.0f, 0.0f, 0.0f};
+		float[] skyLightMultipliers = new float[] {skyLightMultiplier, skyLightMultiplier, skyLightMultiplier, skyLightMultiplier};
 		
 		// X-normal plane.
 		_populateQuad(builder, base, new float[][] {
@@ -1426,6 +1590,60 @@ public class SceneMeshHelpers
 		);
 	}
 
+	private static class _FilteringWriter implements FaceBuilder.IWriter
+	{
+		private final FaceBuilder.IWriter _next;
+		private final Predicate<BlockAddress> _blockFilter;
+		private final IntConsumer _quadOwners;
+		
+		public _FilteringWriter(FaceBuilder.IWriter next, Predicate<BlockAddress> blockFilter, IntConsumer quadOwners)
+		{
+			_next = next;
+			_blockFilter = blockFilter;
+			_quadOwners = quadOwners;
+		}
+		@Override
+		public boolean shouldInclude(short value)
+		{
+			return _next.shouldInclude(value);
+		}
+		@Override
+		public void writeXYPlane(byte baseX, byte baseY, byte baseZ, boolean isPositiveNormal, short value)
+		{
+			if (_accept(baseX, baseY, baseZ))
+			{
+				_next.writeXYPlane(baseX, baseY, baseZ, isPositiveNormal, value);
+			}
+		}
+		@Override
+		public void writeXZPlane(byte baseX, byte baseY, byte baseZ, boolean isPositiveNormal, short value)
+		{
+			if (_accept(baseX, baseY, baseZ))
+			{
+				_next.writeXZPlane(baseX, baseY, baseZ, isPositiveNormal, value);
+			}
+		}
+		@Override
+		public void writeYZPlane(byte baseX, byte baseY, byte baseZ, boolean isPositiveNormal, short value)
+		{
+			if (_accept(baseX, baseY, baseZ))
+			{
+				_next.writeYZPlane(baseX, baseY, baseZ, isPositiveNormal, value);
+			}
+		}
+		private boolean _accept(byte baseX, byte baseY, byte baseZ)
+		{
+			// Each of the write calls emits exactly one quad so we can report the owner before it is written.
+			BlockAddress address = new BlockAddress(baseX, baseY, baseZ);
+			boolean accept = (null == _blockFilter) || _blockFilter.test(address);
+			if (accept && (null != _quadOwners))
+			{
+				_quadOwners.accept(OpaqueQuadLayout.blockIndex(address));
+			}
+			return accept;
+		}
+	}
+
 	private static interface _IFaceWriter
 	{
 		public void buildQuad(float[] localBase, float[][] vertices, float[] normal);
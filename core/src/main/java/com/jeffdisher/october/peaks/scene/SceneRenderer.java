@@ -1,5 +1,8 @@
 package com.jeffdisher.october.peaks.scene;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.util.Map;
 import java.util.Set;
 
@@ -12,16 +15,22 @@ import com.jeffdisher.october.peaks.SkyBox;
 import com.jeffdisher.october.peaks.animation.AnimationManager;
 import com.jeffdisher.october.peaks.animation.GhostManager;
 import com.jeffdisher.october.peaks.animation.ParticleEngine;
-import com.jeffdisher.october.peaks.graphics.Matrix;
+import com.jeffdisher.october.peaks.graphics.BufferBuilder;
+import com.jeffdisher.october.peaks.graphics.MutableMatrix;
+import com.jeffdisher.october.peaks.graphics.OffscreenTarget;
+import com.jeffdisher.october.peaks.graphics.Program;
+import com.jeffdisher.october.peaks.graphics.VertexArray;
 import com.jeffdisher.october.peaks.types.Prism;
 import com.jeffdisher.october.peaks.types.Vector;
 import com.jeffdisher.october.peaks.ui.Binding;
+import com.jeffdisher.october.peaks.utils.MiscPeaksHelpers;
 import com.jeffdisher.october.peaks.utils.WorldCache;
 import com.jeffdisher.october.types.AbsoluteLocation;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
 import com.jeffdisher.october.types.CuboidAddress;
 import com.jeffdisher.october.types.PartialEntity;
+import com.jeffdisher.october.utils.Assert;
 
 
 /**
@@ -29,7 +38,61 @@ import com.jeffdisher.october.types.PartialEntity;
  */
 public class SceneRenderer
 {
+	/**
+	 * The refresh rate we assume when the display doesn't report one.
+	 */
+	public static final int DEFAULT_REFRESH_RATE = 60;
+
+	/**
+	 * The program used to stretch a scene rendered at a lower resolution over the screen.
+	 */
+	public static class Resources
+	{
+		private final Program _program;
+		private final int _uTexture;
+		private final VertexArray _screenSquare;
+		
+		public Resources(GL20 gl)
+		{
+			_program = Program.fullyLinkedProgram(gl
+				, MiscPeaksHelpers.readUtf8Asset("scene_upscale.vert")
+				, MiscPeaksHelpers.readUtf8Asset("scene_upscale.frag")
+				, new String[] {
+					"aPosition",
+					"aTexture",
+				}
+			);
+			_uTexture = _program.getUniformLocation("uTexture");
+			Assert.assertTrue(_uTexture >= 0);
+			
+			// 6 vertices of 2 2-float attributes.
+			ByteBuffer buffer = ByteBuffer.allocateDirect(6 * 4 * Float.BYTES);
+			buffer.order(ByteOrder.nativeOrder());
+			FloatBuffer meshBuffer = buffer.asFloatBuffer();
+			BufferBuilder builder = new BufferBuilder(meshBuffer, _program.attributes);
+			builder.appendVertex(new float[] {-1.0f, -1.0f}, new float[] {0.0f, 0.0f});
+			builder.appendVertex(new float[] { 1.0f,  1.0f}, new float[] {1.0f, 1.0f});
+			builder.appendVertex(new float[] {-1.0f,  1.0f}, new float[] {0.0f, 1.0f});
+			builder.appendVertex(new float[] {-1.0f, -1.0f}, new float[] {0.0f, 0.0f});
+			builder.appendVertex(new float[] { 1.0f, -1.0f}, new float[] {1.0f, 0.0f});
+			builder.appendVertex(new float[] { 1.0f,  1.0f}, new float[] {1.0f, 1.0f});
+			_screenSquare = builder.finishOne().flush(gl);
+		}
+		
+		public void shutdown(GL20 gl)
+		{
+			_program.delete();
+			_screenSquare.delete(gl);
+		}
+	}
+
+
 	private final GL20 _gl;
+	private final Resources _resources;
+	// The fraction of the screen resolution to draw the scene at, or 0.0 to choose it from the frame time.
+	private final Binding<Float> _renderScale;
+	private final RenderScaleController _scaleController;
+	private final OffscreenTarget _offscreen;
 	private final AnimationManager _animationManager;
 	private final BlockRenderer _blockRenderer;
 	private final EntityRenderer _entityRenderer;
@@ -37,14 +100,20 @@ public class SceneRenderer
 	private final ParticleEngine _particleEngine;
 	private final SkyBox _skyBox;
 
-	private Matrix _viewMatrix;
-	private Matrix _projectionMatrix;
+	private final MutableMatrix _viewMatrix;
+	private final MutableMatrix _projectionMatrix;
 	private Vector _eye;
 	private float _skyLightMultiplier;
+	private int _screenWidth;
+	private int _screenHeight;
+	private long _lastFrameNanos;
 
 	public SceneRenderer(Environment environment
 		, GL20 gl
 		, Binding<Float> screenBrightness
+		, Binding<Integer> gpuMeshBudgetMegabytes
+		, Binding<Float> renderScale
+		, long targetFrameNanos
 		, ParticleEngine particleEngine
 		, LoadedResources resources
 		, WorldCache worldCache
@@ -53,21 +122,28 @@ public class SceneRenderer
 	)
 	{
 		_gl = gl;
+		_resources = resources.sceneRenderer();
+		_renderScale = renderScale;
+		_scaleController = new RenderScaleController(targetFrameNanos);
+		_offscreen = new OffscreenTarget(gl);
 		_animationManager = animationManager;
-		_blockRenderer = new BlockRenderer(environment, gl, screenBrightness, resources);
+		_blockRenderer = new BlockRenderer(environment, gl, screenBrightness, gpuMeshBudgetMegabytes, resources);
 		_entityRenderer = new EntityRenderer(gl, screenBrightness, resources, worldCache, animationManager, ghostManager);
 		_passiveRenderer = new PassiveRenderer(gl, screenBrightness, resources, animationManager, ghostManager);
 		_particleEngine = particleEngine;
 		_skyBox = new SkyBox(gl, resources);
 		
-		_viewMatrix = Matrix.identity();
+		_viewMatrix = new MutableMatrix();
+		_projectionMatrix = new MutableMatrix();
 		_eye = new Vector(0.0f, 0.0f, 0.0f);
 	}
 
 	public void rebuildProjection(int width, int height)
 	{
+		_screenWidth = width;
+		_screenHeight = height;
 		float xMajorAspect = (float)width / (float)height;
-		_projectionMatrix = Matrix.perspective(90.0f, xMajorAspect, 0.1f, 200.0f);
+		_projectionMatrix.setPerspective(90.0f, xMajorAspect, 0.1f, 200.0f);
 	}
 
 	public Map<Block, Prism> getModelBoundingBoxes()
@@ -78,15 +154,43 @@ public class SceneRenderer
 	public void updatePosition(Vector eye, Vector target, Vector upVector)
 	{
 		_eye = eye;
-		_viewMatrix = Matrix.lookAt(eye, target, upVector);
+		_viewMatrix.setLookAt(eye, target, upVector);
 		_skyBox.updateView(eye, target, upVector);
+		
+		// The block renderer uses the camera's cuboid to decide which cuboids could possibly be seen, and what order to draw them.
+		AbsoluteLocation eyeBlock = new AbsoluteLocation((int)Math.floor(eye.x()), (int)Math.floor(eye.y()), (int)Math.floor(eye.z()));
+		_blockRenderer.setCameraCuboid(eyeBlock.getCuboidAddress());
 	}
 
-	public void render(PartialEntity selectedEntity, AbsoluteLocation selectedBlock, Block selectedType)
+	/**
+	 * Draws the scene.
+	 * 
+	 * @param selectedEntity The entity to highlight (can be null).
+	 * @param selectedBlock The block to highlight (can be null).
+	 * @param selectedType The type of selectedBlock (can be null).
+	 * @param isInBackground True if the window is in the background, so this frame's time shouldn't be measured.
+	 */
+	public void render(PartialEntity selectedEntity, AbsoluteLocation selectedBlock, Block selectedType, boolean isInBackground)
 	{
 		long currentTimeMillis = System.currentTimeMillis();
 		_animationManager.startNewFrame(currentTimeMillis);
 		
+		// If the scene is drawn at a lower resolution, we draw it into the offscreen target and stretch it over the
+		// screen at the end, so that the UI is still drawn on top at full resolution.
+		float scale = _chooseRenderScale(isInBackground);
+		boolean isScaled = (scale < 1.0f);
+		if (isScaled)
+		{
+			int width = Math.max(1, (int)(scale * (float)_screenWidth));
+			int height = Math.max(1, (int)(scale * (float)_screenHeight));
+			_offscreen.bindForDrawing(width, height);
+			_gl.glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+			_gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+		}
+		
+		// Decide which cuboids are in view once, up-front, so every block layer pass can skip the rest.
+		_blockRenderer.cullCuboids(_viewMatrix, _projectionMatrix);
+		
 		// We will begin with the sky box since we don't know if there are transparent blocks to render on top of it.
 		_skyBox.render(_projectionMatrix);
 		
@@ -98,6 +202,9 @@ public class SceneRenderer
 		_entityRenderer.renderEntities(_viewMatrix, _projectionMatrix, _eye, _skyLightMultiplier);
 		_gl.glEnable(GL20.GL_BLEND);
 		
+		// Damage cracks are a decal layer drawn over the opaque faces, so they need blending but not depth writes.
+		_blockRenderer.renderDamageDecals(_viewMatrix, _projectionMatrix, _eye, _skyLightMultiplier);
+		
 		// Ask the AnimationManager to animate any fire (includes rendering but also particle generation).
 		// This requires the BlockRenderer since fire is logically associated with blocks.
 		_animationManager.handleFireAnimation(_viewMatrix, _projectionMatrix, _eye, _blockRenderer, currentTimeMillis);
@@ -120,16 +227,51 @@ public class SceneRenderer
 		_blockRenderer.renderItemSlots(_viewMatrix, _projectionMatrix, _eye, _skyLightMultiplier);
 		_passiveRenderer.renderEntities(_viewMatrix, _projectionMatrix, _eye);
 		
+		if (isScaled)
+		{
+			_drawScaledScene();
+		}
+		
 		// Do any other end-of-frame cleanup or processing.
-		_blockRenderer.handleEndOfFrame();
+		_blockRenderer.handleEndOfFrame(currentTimeMillis);
 		_particleEngine.freeDeadParticles(currentTimeMillis);
 	}
 
+	public CuboidMeshManager.MemoryStats getMeshMemoryStats()
+	{
+		return _blockRenderer.getMeshMemoryStats();
+	}
+
+	public long getArenaBytes()
+	{
+		return _blockRenderer.getArenaBytes();
+	}
+
+	public int getPendingBakeCount()
+	{
+		return _blockRenderer.getPendingBakeCount();
+	}
+
+	public BlockRenderer.CullingStats getCullingStats()
+	{
+		return _blockRenderer.getCullingStats();
+	}
+
 	public void setCuboid(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap, Set<BlockAddress> changedBlocks)
 	{
 		_blockRenderer.setCuboid(cuboid, heightMap, changedBlocks);
 	}
 
+	public void speculateBlockChange(long currentTimeMillis, AbsoluteLocation location, Block block)
+	{
+		_blockRenderer.speculateBlockChange(currentTimeMillis, location, block);
+	}
+
+	public void setDamagedBlocks(IReadOnlyCuboidData cuboid, ColumnHeightMap heightMap)
+	{
+		_blockRenderer.setDamagedBlocks(cuboid, heightMap);
+	}
+
 	public void removeCuboid(CuboidAddress address)
 	{
 		_blockRenderer.removeCuboid(address);
@@ -160,5 +302,71 @@ public class SceneRenderer
 	public void shutdown()
 	{
 		_blockRenderer.shutdown();
+		_offscreen.delete();
+	}
+
+	/**
+	 * Finds the time of one frame on a display refreshing at the given rate, which is the time the adaptive controllers
+	 * try to keep frames within.
+	 * 
+	 * @param refreshRate The refresh rate of the display, in Hz (or 0 if it isn't known).
+	 * @return The time of one refresh, in nanoseconds.
+	 */
+	public static long targetFrameNanos(int refreshRate)
+	{
+		int rate = (refreshRate > 0)
+			? refreshRate
+			: DEFAULT_REFRESH_RATE
+		;
+		return 1_000_000_000L / (long)rate;
+	}
+
+
+	private float _chooseRenderScale(boolean isInBackground)
+	{
+		long currentNanos = System.nanoTime();
+		float preference = _renderScale.get();
+		float scale;
+		if (preference > 0.0f)
+		{
+			scale = preference;
+		}
+		else if (isInBackground)
+		{
+			// Background frames are throttled so they would only push the scale down.  We keep the current scale and
+			// forget the history, so that we start measuring again once we are back in the foreground.
+			_scaleController.reset();
+			scale = _scaleController.getScale();
+		}
+		else
+		{
+			// The controller measures the time between the start of each frame (we skip the first frame since there is nothing to measure).
+			scale = (0L != _lastFrameNanos)
+				? _scaleController.recordFrame(currentNanos - _lastFrameNanos)
+				: _scaleController.getScale()
+			;
+		}
+		// The first frame back from the background is also skipped since it includes the last throttled frame.
+		_lastFrameNanos = isInBackground
+			? 0L
+			: currentNanos
+		;
+		return scale;
+	}
+
+	private void _drawScaledScene()
+	{
+		// We just copy the colour, so there is no depth test or blending (this also means we don't write depth).
+		_gl.glBindFramebuffer(GL20.GL_FRAMEBUFFER, 0);
+		_gl.glViewport(0, 0, _screenWidth, _screenHeight);
+		_gl.glDisable(GL20.GL_DEPTH_TEST);
+		_gl.glDisable(GL20.GL_BLEND);
+		_resources._program.useProgram();
+		_gl.glActiveTexture(GL20.GL_TEXTURE0);
+		_gl.glBindTexture(GL20.GL_TEXTURE_2D, _offscreen.getColourTexture());
+		_gl.glUniform1i(_resources._uTexture, 0);
+		_resources._screenSquare.drawAllTriangles(_gl);
+		_gl.glEnable(GL20.GL_BLEND);
+		_gl.glEnable(GL20.GL_DEPTH_TEST);
 	}
 }
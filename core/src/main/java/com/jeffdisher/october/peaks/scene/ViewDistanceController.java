@@ -0,0 +1,153 @@
+package com.jeffdisher.october.peaks.scene;
+
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Chooses the view distance to request from the server so that the frame time and the backlog of cuboids waiting to be
+ * baked stay manageable, without exceeding the distance the user asked for.
+ * Like RenderScaleController, this works on windows of WINDOW_FRAMES frames, but it reacts much more slowly since every
+ * change of view distance loads or drops a whole shell of cuboids:  The distance is only lowered after PRESSURE_WINDOWS
+ * windows under pressure in a row and only raised after HEADROOM_WINDOWS windows with headroom in a row.  After any
+ * change, SETTLE_WINDOWS windows are ignored since the change itself causes a burst of loading and baking.
+ * The backlog of a window is the smallest number of pending bakes seen in it, since a brief burst of bakes is normal
+ * but a backlog which never drains means we are loading more than we can bake.
+ */
+public class ViewDistanceController
+{
+	public static final int WINDOW_FRAMES = 30;
+	public static final int MIN_VIEW_DISTANCE = 1;
+	public static final int PRESSURE_WINDOWS = 2;
+	public static final int HEADROOM_WINDOWS = 6;
+	public static final int SETTLE_WINDOWS = 4;
+	/**
+	 * A backlog of more pending bakes than this, through a whole window, counts as pressure.
+	 */
+	public static final int HIGH_PENDING_BAKES = 64;
+	/**
+	 * The backlog must be no more than this, through a whole window, to count as headroom.
+	 */
+	public static final int LOW_PENDING_BAKES = 8;
+
+	private final long _lowerAboveNanos;
+	private final long _raiseBelowNanos;
+	private long _windowNanos;
+	private int _windowFrames;
+	private int _windowMinPendingBakes;
+	private int _pressureWindows;
+	private int _headroomWindows;
+	private int _settleWindows;
+
+	/**
+	 * Creates the controller.
+	 * 
+	 * @param targetFrameNanos The frame time we want to stay within.
+	 */
+	public ViewDistanceController(long targetFrameNanos)
+	{
+		Assert.assertTrue(targetFrameNanos > 0L);
+		// We use the same thresholds as RenderScaleController:  20% over the target is pressure, within 5% is headroom.
+		_lowerAboveNanos = targetFrameNanos * 6L / 5L;
+		_raiseBelowNanos = targetFrameNanos * 21L / 20L;
+		_windowNanos = 0L;
+		_windowFrames = 0;
+		_windowMinPendingBakes = Integer.MAX_VALUE;
+		_pressureWindows = 0;
+		_headroomWindows = 0;
+		_settleWindows = 0;
+	}
+
+	/**
+	 * Records the time taken by the last frame and the current backlog, returning the view distance to request.
+	 * 
+	 * @param frameNanos The time between the start of the last frame and the start of this one.
+	 * @param pendingBakes The number of cuboids currently waiting to be baked.
+	 * @param currentDistance The view distance currently in effect.
+	 * @param ceiling The largest view distance we may request (the user's preference).
+	 * @return The view distance to request (currentDistance if it shouldn't change).
+	 */
+	public int recordFrame(long frameNanos, int pendingBakes, int currentDistance, int ceiling)
+	{
+		_windowNanos += frameNanos;
+		_windowFrames += 1;
+		_windowMinPendingBakes = Math.min(_windowMinPendingBakes, pendingBakes);
+		int distance = currentDistance;
+		if (WINDOW_FRAMES == _windowFrames)
+		{
+			long averageNanos = _windowNanos / WINDOW_FRAMES;
+			int minPendingBakes = _windowMinPendingBakes;
+			_windowNanos = 0L;
+			_windowFrames = 0;
+			_windowMinPendingBakes = Integer.MAX_VALUE;
+			distance = _endWindow(averageNanos, minPendingBakes, currentDistance, ceiling);
+		}
+		
+		// If the user lowered the ceiling below what we are using, follow it right away.
+		if (distance > ceiling)
+		{
+			distance = ceiling;
+		}
+		if (distance != currentDistance)
+		{
+			_startSettling();
+		}
+		return distance;
+	}
+
+	/**
+	 * Forgets any history, as though this was just created.  This should be called when the controller is re-enabled
+	 * after being unused for a while.
+	 */
+	public void reset()
+	{
+		_windowNanos = 0L;
+		_windowFrames = 0;
+		_windowMinPendingBakes = Integer.MAX_VALUE;
+		_pressureWindows = 0;
+		_headroomWindows = 0;
+		_settleWindows = 0;
+	}
+
+
+	private int _endWindow(long averageNanos, int minPendingBakes, int currentDistance, int ceiling)
+	{
+		int distance = currentDistance;
+		if (_settleWindows > 0)
+		{
+			// We are still waiting for the last change to finish loading.
+			_settleWindows -= 1;
+		}
+		else if ((averageNanos > _lowerAboveNanos) || (minPendingBakes > HIGH_PENDING_BAKES))
+		{
+			_pressureWindows += 1;
+			_headroomWindows = 0;
+			if ((_pressureWindows >= PRESSURE_WINDOWS) && (currentDistance > MIN_VIEW_DISTANCE))
+			{
+				distance = currentDistance - 1;
+			}
+		}
+		else if ((averageNanos < _raiseBelowNanos) && (minPendingBakes <= LOW_PENDING_BAKES))
+		{
+			_headroomWindows += 1;
+			_pressureWindows = 0;
+			if ((_headroomWindows >= HEADROOM_WINDOWS) && (currentDistance < ceiling))
+			{
+				distance = currentDistance + 1;
+			}
+		}
+		else
+		{
+			// This is between the thresholds so we count neither way.
+			_pressureWindows = 0;
+			_headroomWindows = 0;
+		}
+		return distance;
+	}
+
+	private void _startSettling()
+	{
+		_pressureWindows = 0;
+		_headroomWindows = 0;
+		_settleWindows = SETTLE_WINDOWS;
+	}
+}
@@ -13,12 +13,27 @@ public class RawTextureAtlas
 	public final int texture;
 	public final float coordinateSize;
 	private final int _texturesPerRow;
+	private final int _firstIndex;
 
 	public RawTextureAtlas(int tileTextureObject, int tileTexturesPerRow)
+	{
+		this(tileTextureObject, tileTexturesPerRow, 0);
+	}
+
+	/**
+	 * Creates a view of an atlas whose textures start at the tile index firstIndex, used when the atlas texture is
+	 * shared with other textures in the tiles before it.
+	 * 
+	 * @param tileTextureObject The atlas texture.
+	 * @param tileTexturesPerRow The number of tiles in each row of the atlas.
+	 * @param firstIndex The index of the tile where texture 0 of this view is found.
+	 */
+	public RawTextureAtlas(int tileTextureObject, int tileTexturesPerRow, int firstIndex)
 	{
 		this.texture = tileTextureObject;
 		this.coordinateSize = 1.0f / (float)tileTexturesPerRow;
 		_texturesPerRow = tileTexturesPerRow;
+		_firstIndex = firstIndex;
 	}
 
 	/**
@@ -29,8 +44,9 @@ public class RawTextureAtlas
 	 */
 	public float[] baseOfTexture(int index)
 	{
-		int row = index / _texturesPerRow;
-		int column = index % _texturesPerRow;
+		int tile = _firstIndex + index;
+		int row = tile / _texturesPerRow;
+		int column = tile % _texturesPerRow;
 		float u = this.coordinateSize * (float)column;
 		float v = this.coordinateSize * (float)row;
 		return new float[] {u, v};
@@ -4,6 +4,7 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 
 import javax.imageio.ImageIO;
@@ -103,40 +104,52 @@ public class TextureHelpers
 			, String missingTextureName
 	) throws IOException
 	{
-		// We want to build the BasicBlockAtlas with precisely what can be addressed for each block so see what is on disk.
-		int textureEdgePixels = COMMON_TEXTURE_EDGE_PIXELS;
-		BufferedImage missingTexture = _loadOneImage(missingTextureName, textureEdgePixels);
-		Assert.assertTrue(null != missingTexture);
-		BasicBlockCollector collector = new BasicBlockCollector(missingTexture);
-		for (int i = 0; i < blockItems.length; ++i)
-		{
-			Block block = blockItems[i];
-			String itemName = "item_" + block.item().id() + ".png";
-			BufferedImage fallback = _loadOneImage(itemName, textureEdgePixels);
-			if (null != fallback)
-			{
-				collector.setBlockFallback(block, fallback);
-			}
-			
-			for (BasicBlockAtlas.Variant variant : BasicBlockAtlas.Variant.values())
-			{
-				String name = "block_" + block.item().id() + "_" + variant.name() + ".png";
-				BufferedImage variantTexture = _loadOneImage(name, textureEdgePixels);
-				if (null != variantTexture)
-				{
-					collector.addVariant(block, variant, variantTexture);
-				}
-			}
-		}
+		BasicBlockCollector collector = _collectBlockTextures(blockItems, missingTextureName);
 		
 		// We will now stitch these into the atlas, using the common helper and RawTextureAtlas.
 		BufferedImage[] images = collector.getImagesInOrder(blockItems);
 		
 		boolean[] nonOpaqueVector = new boolean[images.length];
-		RawTextureAtlas rawAtlas = _allocateRawAtlas(gl, nonOpaqueVector, 1, images, textureEdgePixels);
+		RawTextureAtlas rawAtlas = _allocateRawAtlas(gl, nonOpaqueVector, 1, images, COMMON_TEXTURE_EDGE_PIXELS);
 		return collector.buildBlockAtlas(rawAtlas, blockItems, nonOpaqueVector);
 	}
 
+	/**
+	 * Loads the basic block textures and the block model textures into a single shared atlas, so that both kinds of
+	 * block geometry can be drawn without changing the bound texture.
+	 * The block textures fill whole rows of 32-square tiles at the bottom of the atlas and the model textures follow
+	 * in the 128-square tiles above them, so each is addressed by its own view of the atlas.
+	 * 
+	 * @param gl The GL interface.
+	 * @param blockItems The blocks which don't have models.
+	 * @param missingTextureName The texture to use for any block texture which is missing.
+	 * @param modelTextureHandles The model textures, in model index order.
+	 * @return The block atlas and the view of the model textures, both over the same texture.
+	 */
+	public static SharedBlockAtlas loadSharedAtlasForBlocksAndModels(GL20 gl
+			, Block[] blockItems
+			, String missingTextureName
+			, FileHandle[] modelTextureHandles
+	) throws IOException
+	{
+		BasicBlockCollector collector = _collectBlockTextures(blockItems, missingTextureName);
+		BufferedImage[] blockImages = collector.getImagesInOrder(blockItems);
+		BufferedImage[] modelImages = _loadFileHandles(modelTextureHandles, BLOCK_MODEL_TEXTURE_EDGE_PIXELS);
+		
+		int modelsPerRow = _sharedModelsPerRow(blockImages.length, modelImages.length);
+		boolean[] nonOpaqueVector = new boolean[blockImages.length];
+		ByteBuffer textureBufferData = _loadSharedTexturesIntoAtlas(nonOpaqueVector, blockImages, modelImages, modelsPerRow);
+		((java.nio.Buffer) textureBufferData).flip();
+		int textureAtlasEdge = modelsPerRow * BLOCK_MODEL_TEXTURE_EDGE_PIXELS;
+		// The mipmap levels are limited by the smaller block tiles, so that they don't blend into each other.
+		int levelsToLimit = Integer.numberOfTrailingZeros(COMMON_TEXTURE_EDGE_PIXELS);
+		int tileTexture = _uploadTextureAtlas(gl, textureBufferData, textureAtlasEdge, levelsToLimit);
+		
+		RawTextureAtlas blockView = new RawTextureAtlas(tileTexture, modelsPerRow * _blockTilesPerModelEdge());
+		RawTextureAtlas modelView = new RawTextureAtlas(tileTexture, modelsPerRow, _sharedFirstModelIndex(blockImages.length, modelsPerRow));
+		return new SharedBlockAtlas(collector.buildBlockAtlas(blockView, blockItems, nonOpaqueVector), modelView);
+	}
+
 	public static AuxilliaryTextureAtlas loadAuxTextureAtlas(GL20 gl
 			, String baseName
 			, String missingTextureName
@@ -173,6 +186,45 @@ public class TextureHelpers
 		return rawAtlas;
 	}
 
+	public static RawTextureAtlas[] testSharedRawAtlases(int blockTextures, int modelTextures)
+	{
+		int modelsPerRow = _sharedModelsPerRow(blockTextures, modelTextures);
+		return new RawTextureAtlas[] {
+			new RawTextureAtlas(1, modelsPerRow * _blockTilesPerModelEdge()),
+			new RawTextureAtlas(1, modelsPerRow, _sharedFirstModelIndex(blockTextures, modelsPerRow)),
+		};
+	}
+
+
+	private static BasicBlockCollector _collectBlockTextures(Block[] blockItems, String missingTextureName) throws IOException
+	{
+		// We want to build the BasicBlockAtlas with precisely what can be addressed for each block so see what is on disk.
+		int textureEdgePixels = COMMON_TEXTURE_EDGE_PIXELS;
+		BufferedImage missingTexture = _loadOneImage(missingTextureName, textureEdgePixels);
+		Assert.assertTrue(null != missingTexture);
+		BasicBlockCollector collector = new BasicBlockCollector(missingTexture);
+		for (int i = 0; i < blockItems.length; ++i)
+		{
+			Block block = blockItems[i];
+			String itemName = "item_" + block.item().id() + ".png";
+			BufferedImage fallback = _loadOneImage(itemName, textureEdgePixels);
+			if (null != fallback)
+			{
+				collector.setBlockFallback(block, fallback);
+			}
+			
+			for (BasicBlockAtlas.Variant variant : BasicBlockAtlas.Variant.values())
+			{
+				String name = "block_" + block.item().id() + "_" + variant.name() + ".png";
+				BufferedImage variantTexture = _loadOneImage(name, textureEdgePixels);
+				if (null != variantTexture)
+				{
+					collector.addVariant(block, variant, variantTexture);
+				}
+			}
+		}
+		return collector;
+	}
 
 	private static int _loadHandleRGBA(GL20 gl, FileHandle textureFile) throws IOException
 	{
@@ -282,25 +334,12 @@ public class TextureHelpers
 
 	private static int _texturesPerRow(int textureCount)
 	{
-		// We essentially just want the base2 logarithm of the array length rounded to the nearest power of 2.
-		// (a faster and generalizable algorithm using leading zeros could be used but is less obvious than this, for now)
+		// We want the smallest power of 2 whose square holds all the textures, so the atlas stays a power of 2.
+		// Note that there is no fixed limit here:  The atlas just grows and _uploadTextureAtlas() checks it fits in GL.
 		int texturesPerRow = 1;
-		if (textureCount > 1)
+		while ((texturesPerRow * texturesPerRow) < textureCount)
 		{
-			texturesPerRow = 2;
-			if (textureCount > 4)
-			{
-				texturesPerRow = 4;
-				if (textureCount > 16)
-				{
-					texturesPerRow = 8;
-					if (textureCount > 64)
-					{
-						texturesPerRow = 16;
-						Assert.assertTrue(textureCount <= 256);
-					}
-				}
-			}
+			texturesPerRow *= 2;
 		}
 		return texturesPerRow;
 	}
@@ -350,11 +389,119 @@ public class TextureHelpers
 		return textureBufferData;
 	}
 
+	private static int _blockTilesPerModelEdge()
+	{
+		return BLOCK_MODEL_TEXTURE_EDGE_PIXELS / COMMON_TEXTURE_EDGE_PIXELS;
+	}
+
+	private static int _sharedFirstModelIndex(int blockTextures, int modelsPerRow)
+	{
+		// The block tiles fill rows from the bottom and the models start in the first model row above all of them.
+		int blocksPerModelEdge = _blockTilesPerModelEdge();
+		int blocksPerRow = modelsPerRow * blocksPerModelEdge;
+		int blockRows = (blockTextures + blocksPerRow - 1) / blocksPerRow;
+		int modelRowsOfBlocks = (blockRows + blocksPerModelEdge - 1) / blocksPerModelEdge;
+		return modelRowsOfBlocks * modelsPerRow;
+	}
+
+	private static int _sharedModelsPerRow(int blockTextures, int modelTextures)
+	{
+		// Like _texturesPerRow(), we keep the atlas a power of 2 and let _uploadTextureAtlas() check that it fits in GL.
+		int modelsPerRow = 1;
+		while ((_sharedFirstModelIndex(blockTextures, modelsPerRow) + modelTextures) > (modelsPerRow * modelsPerRow))
+		{
+			modelsPerRow *= 2;
+		}
+		return modelsPerRow;
+	}
+
+	private static ByteBuffer _loadSharedTexturesIntoAtlas(boolean[] out_nonOpaqueVector, BufferedImage[] blockTextures, BufferedImage[] modelTextures, int modelsPerRow) throws IOException
+	{
+		Assert.assertTrue(out_nonOpaqueVector.length == blockTextures.length);
+		int blockEdge = COMMON_TEXTURE_EDGE_PIXELS;
+		int modelEdge = BLOCK_MODEL_TEXTURE_EDGE_PIXELS;
+		int blocksPerRow = modelsPerRow * _blockTilesPerModelEdge();
+		int firstModelIndex = _sharedFirstModelIndex(blockTextures.length, modelsPerRow);
+		int blockHeight = firstModelIndex / modelsPerRow * modelEdge;
+		int width = modelsPerRow * modelEdge;
+		int height = width;
+		
+		// 4 bytes per pixel since we are storing pixels as RGBA.
+		int bytesToAllocate = width * height * 4;
+		ByteBuffer textureBufferData = ByteBuffer.allocateDirect(bytesToAllocate);
+		textureBufferData.order(ByteOrder.nativeOrder());
+		
+		// As in _loadTexturesIntoAtlas(), we write the rows bottom-up, flipping each tile since BufferedImage defines 0,0 as top-left.
+		for (int yIndex = 0; yIndex < height; ++yIndex)
+		{
+			for (int x = 0; x < width; ++x)
+			{
+				BufferedImage loadedTexture = null;
+				int edge;
+				int blockIndex = -1;
+				if (yIndex < blockHeight)
+				{
+					edge = blockEdge;
+					blockIndex = (yIndex / blockEdge * blocksPerRow) + (x / blockEdge);
+					if (blockIndex < blockTextures.length)
+					{
+						loadedTexture = blockTextures[blockIndex];
+					}
+				}
+				else
+				{
+					edge = modelEdge;
+					int modelIndex = (yIndex / modelEdge * modelsPerRow) + (x / modelEdge) - firstModelIndex;
+					if (modelIndex < modelTextures.length)
+					{
+						loadedTexture = modelTextures[modelIndex];
+					}
+				}
+				
+				if (null != loadedTexture)
+				{
+					int localX = x % edge;
+					int localY = edge - 1 - (yIndex % edge);
+					int pixel = loadedTexture.getRGB(localX, localY);
+					// This data is pulled out as ARGB but we need to upload it as RGBA.
+					byte a = (byte)((0xFF000000 & pixel) >> 24);
+					byte r = (byte)((0x00FF0000 & pixel) >> 16);
+					byte g = (byte)((0x0000FF00 & pixel) >> 8);
+					byte b = (byte) (0x000000FF & pixel);
+					textureBufferData.put(new byte[] { r, g, b, a });
+					// We only track the opacity of the block textures since the models are always drawn as opaque.
+					if ((blockIndex >= 0) && (Byte.toUnsignedInt(a) < 255))
+					{
+						out_nonOpaqueVector[blockIndex] = true;
+					}
+				}
+				else
+				{
+					textureBufferData.put(new byte[4]);
+				}
+			}
+		}
+		return textureBufferData;
+	}
+
 	private static int _uploadTextureAtlas(GL20 gl, ByteBuffer textureBufferData, int textureAtlasEdge, int mipmapLevels) throws IOException
 	{
 		int width = textureAtlasEdge;
 		int height = textureAtlasEdge;
 		
+		// The atlas grows with the number of textures so a large enough set of textures won't fit in a single texture.
+		// We still want to draw every layer with one texture (GLES2 has no texture arrays and can't pick a sampler per
+		// vertex) so we just fail if it doesn't fit.  Note that this is at least 2048 on any desktop GL implementation,
+		// which is 4096 of the common 32-square tiles.
+		// (glGetIntegerv writes up to 16 values for some parameters so the buffer is sized for that)
+		IntBuffer maxSize = ByteBuffer.allocateDirect(16 * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+		gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_SIZE, maxSize);
+		int maxEdge = maxSize.get(0);
+		if (textureAtlasEdge > maxEdge)
+		{
+			throw new IOException("Texture atlas of " + textureAtlasEdge + " pixels exceeds GL_MAX_TEXTURE_SIZE of " + maxEdge);
+		}
+		
 		// Upload the texture.
 		int tileTexture = gl.glGenTexture();
 		gl.glBindTexture(GL20.GL_TEXTURE_2D, tileTexture);
@@ -398,4 +545,10 @@ public class TextureHelpers
 		int tileTexture = _uploadTextureAtlas(gl, textureBufferData, textureAtlasEdge, levelsToLimit);
 		return new RawTextureAtlas(tileTexture, texturesPerRow);
 	}
+
+
+	/**
+	 * The atlas of basic block textures and the view of the model textures, when they share a single texture.
+	 */
+	public static record SharedBlockAtlas(BasicBlockAtlas blockAtlas, RawTextureAtlas modelAtlas) {}
 }
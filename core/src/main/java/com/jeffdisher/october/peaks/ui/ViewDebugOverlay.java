@@ -0,0 +1,58 @@
+package com.jeffdisher.october.peaks.ui;
+
+import java.util.List;
+
+
+/**
+ * Rendering of the debug overlay window, which shows a list of labelled rendering statistics.
+ */
+public class ViewDebugOverlay implements IView
+{
+	public static final float SMALL_TEXT_HEIGHT = 0.05f;
+	public static final float DEBUG_LABEL_WIDTH = 0.25f;
+	public static final float DEBUG_BOX_LEFT = -0.95f;
+	public static final float DEBUG_BOX_TOP = 0.95f;
+	public static final int MAX_LINES = 7;
+
+	public static final Rect LOCATION = new Rect(DEBUG_BOX_LEFT, DEBUG_BOX_TOP - (float)MAX_LINES * SMALL_TEXT_HEIGHT, DEBUG_BOX_LEFT + 2.0f * DEBUG_LABEL_WIDTH, DEBUG_BOX_TOP);
+
+	private final GlUi _ui;
+	private final Binding<List<Line>> _binding;
+
+	public ViewDebugOverlay(GlUi ui
+			, Binding<List<Line>> binding
+	)
+	{
+		_ui = ui;
+		_binding = binding;
+	}
+
+	@Override
+	public IAction render(Rect location, Point cursor)
+	{
+		UiIdioms.drawOverlayFrame(_ui, _ui.pixelDarkGreyAlpha, _ui.pixelLightGrey, location.leftX(), location.bottomY(), location.rightX(), location.topY());
+		
+		float valueMargin = location.leftX() + DEBUG_LABEL_WIDTH;
+		
+		// We draw the lines from the top down, ignoring any which don't fit.
+		List<Line> lines = _binding.get();
+		int count = Math.min(lines.size(), MAX_LINES);
+		for (int i = 0; i < count; ++i)
+		{
+			Line line = lines.get(i);
+			float top = location.topY() - (float)i * SMALL_TEXT_HEIGHT;
+			float base = top - SMALL_TEXT_HEIGHT;
+			_ui.drawLabel(location.leftX(), base, top, line.label());
+			_ui.drawLabel(valueMargin, base, top, line.value());
+		}
+		
+		// No hover or action.
+		return null;
+	}
+
+
+	/**
+	 * A single labelled value in the overlay.
+	 */
+	public static record Line(String label, String value) {}
+}
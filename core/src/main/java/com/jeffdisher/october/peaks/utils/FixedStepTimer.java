@@ -0,0 +1,58 @@
+package com.jeffdisher.october.peaks.utils;
+
+import com.jeffdisher.october.utils.Assert;
+
+
+/**
+ * Decides when periodic work is due so that it runs at a fixed rate, no matter how often it is polled (once per frame,
+ * for example).  At high frame rates, most polls will find that nothing is due while, at low frame rates, every poll
+ * finds a step due.
+ * If several steps were missed, only one is reported and the rest are dropped, since the work this is used for looks
+ * at the current time rather than assuming a fixed step size.  This avoids a burst of back-to-back steps after a long
+ * frame.
+ */
+public class FixedStepTimer
+{
+	private final long _stepNanos;
+	private long _nextStepNanos;
+	private boolean _isStarted;
+
+	/**
+	 * Creates the timer such that the first poll will always find a step due.
+	 * 
+	 * @param stepsPerSecond The rate at which steps should be due (must be > 0).
+	 */
+	public FixedStepTimer(int stepsPerSecond)
+	{
+		Assert.assertTrue(stepsPerSecond > 0);
+		_stepNanos = 1_000_000_000L / stepsPerSecond;
+		_nextStepNanos = 0L;
+		_isStarted = false;
+	}
+
+	/**
+	 * Checks if a step is due at the given time, consuming it if it is.
+	 * 
+	 * @param currentNanos The current time, from System.nanoTime().
+	 * @return True if a step is due and should be run now.
+	 */
+	public boolean consumeStep(long currentNanos)
+	{
+		// Note that nanoTime() can be negative so we compare differences, not absolute values.
+		boolean isDue = !_isStarted || ((currentNanos - _nextStepNanos) >= 0L);
+		if (isDue)
+		{
+			// We schedule from the previous due time so the rate doesn't drift, unless we fell behind by a whole step.
+			_nextStepNanos = _isStarted
+				? (_nextStepNanos + _stepNanos)
+				: (currentNanos + _stepNanos)
+			;
+			if ((currentNanos - _nextStepNanos) >= 0L)
+			{
+				_nextStepNanos = currentNanos + _stepNanos;
+			}
+			_isStarted = true;
+		}
+		return isDue;
+	}
+}
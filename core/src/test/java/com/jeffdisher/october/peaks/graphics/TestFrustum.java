@@ -0,0 +1,58 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jeffdisher.october.peaks.types.Prism;
+import com.jeffdisher.october.peaks.types.Vector;
+
+
+public class TestFrustum
+{
+	@Test
+	public void lookNorth() throws Throwable
+	{
+		// Look North from the origin with a 90 degree field of view, so the sides of the frustum are the X=Y diagonals.
+		MutableMatrix view = new MutableMatrix();
+		view.setLookAt(new Vector(0.0f, 0.0f, 0.0f), new Vector(0.0f, 1.0f, 0.0f), new Vector(0.0f, 0.0f, 1.0f));
+		MutableMatrix projection = new MutableMatrix();
+		projection.setPerspective(90.0f, 1.0f, 0.1f, 200.0f);
+		Frustum frustum = Frustum.fromCamera(view, projection);
+		
+		// In front, behind, and around the camera.
+		Assert.assertTrue(frustum.isBoxVisible(new Prism(-1.0f, 10.0f, -1.0f, 1.0f, 11.0f, 1.0f)));
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(-1.0f, -11.0f, -1.0f, 1.0f, -10.0f, 1.0f)));
+		Assert.assertTrue(frustum.isBoxVisible(new Prism(-1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f)));
+		
+		// Off to the sides, above, and below.
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(-50.0f, 10.0f, -1.0f, -40.0f, 11.0f, 1.0f)));
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(40.0f, 10.0f, -1.0f, 50.0f, 11.0f, 1.0f)));
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(-1.0f, 10.0f, 40.0f, 1.0f, 11.0f, 50.0f)));
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(-1.0f, 10.0f, -50.0f, 1.0f, 11.0f, -40.0f)));
+		
+		// Partially inside the side plane and beyond the far plane.
+		Assert.assertTrue(frustum.isBoxVisible(new Prism(5.0f, 10.0f, -1.0f, 15.0f, 11.0f, 1.0f)));
+		Assert.assertFalse(frustum.isBoxVisible(new Prism(-1.0f, 250.0f, -1.0f, 1.0f, 260.0f, 1.0f)));
+	}
+
+	@Test
+	public void turnAround() throws Throwable
+	{
+		// The same frustum is reused from frame to frame so make sure that updating it replaces the old planes.
+		MutableMatrix view = new MutableMatrix();
+		view.setLookAt(new Vector(0.0f, 0.0f, 0.0f), new Vector(0.0f, 1.0f, 0.0f), new Vector(0.0f, 0.0f, 1.0f));
+		MutableMatrix projection = new MutableMatrix();
+		projection.setPerspective(90.0f, 1.0f, 0.1f, 200.0f);
+		Frustum frustum = new Frustum();
+		frustum.setCamera(view, projection);
+		Prism north = new Prism(-1.0f, 10.0f, -1.0f, 1.0f, 11.0f, 1.0f);
+		Prism south = new Prism(-1.0f, -11.0f, -1.0f, 1.0f, -10.0f, 1.0f);
+		Assert.assertTrue(frustum.isBoxVisible(north));
+		Assert.assertFalse(frustum.isBoxVisible(south));
+		
+		view.setLookAt(new Vector(0.0f, 0.0f, 0.0f), new Vector(0.0f, -1.0f, 0.0f), new Vector(0.0f, 0.0f, 1.0f));
+		frustum.setCamera(view, projection);
+		Assert.assertFalse(frustum.isBoxVisible(north));
+		Assert.assertTrue(frustum.isBoxVisible(south));
+	}
+}
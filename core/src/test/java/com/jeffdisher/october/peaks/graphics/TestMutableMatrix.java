@@ -0,0 +1,100 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jeffdisher.october.peaks.types.Vector;
+
+
+public class TestMutableMatrix
+{
+	@Test
+	public void identity() throws Throwable
+	{
+		MutableMatrix identity = new MutableMatrix();
+		_matches(Matrix.identity(), identity);
+		
+		identity.setTranslate(1.0f, 2.0f, 3.0f);
+		identity.setIdentity();
+		_matches(Matrix.identity(), identity);
+	}
+
+	@Test
+	public void sameAsMatrix() throws Throwable
+	{
+		float radians = 0.7f;
+		MutableMatrix matrix = new MutableMatrix();
+		matrix.setTranslate(10.0f, -20.0f, 0.1f);
+		_matches(Matrix.translate(10.0f, -20.0f, 0.1f), matrix);
+		matrix.setRotateX(radians);
+		_matches(Matrix.rotateX(radians), matrix);
+		matrix.setRotateZ(radians);
+		_matches(Matrix.rotateZ(radians), matrix);
+		matrix.setPerspective(90.0f, 1.6f, 0.1f, 200.0f);
+		_matches(Matrix.perspective(90.0f, 1.6f, 0.1f, 200.0f), matrix);
+		
+		Vector eye = new Vector(-2.0f, 2.0f, 2.0f);
+		Vector target = new Vector(0.0f, 0.0f, 0.0f);
+		Vector up = new Vector(0.0f, 0.0f, 1.0f);
+		matrix.setLookAt(eye, target, up);
+		_matches(Matrix.lookAt(eye, target, up), matrix);
+		
+		Vector facing = new Vector(-5.0f, -10.0f, 1.0f);
+		matrix.setRotateToFace(facing.x(), facing.y(), facing.z());
+		_matches(Matrix.rotateToFace(facing), matrix);
+	}
+
+	@Test
+	public void multiplyInPlace() throws Throwable
+	{
+		MutableMatrix translate = new MutableMatrix();
+		translate.setTranslate(10.0f, -20.0f, 0.1f);
+		MutableMatrix rotate = new MutableMatrix();
+		rotate.setRotateToFace(5.0f, 10.0f, 1.0f);
+		MutableMatrix combined = new MutableMatrix();
+		combined.setMultiply(translate, rotate);
+		Matrix expected = Matrix.multiply(Matrix.translate(10.0f, -20.0f, 0.1f), Matrix.rotateToFace(new Vector(5.0f, 10.0f, 1.0f)));
+		_matches(expected, combined);
+		
+		// The receiver can also be one of the arguments.
+		translate.setMultiply(translate, rotate);
+		_matches(expected, translate);
+		
+		float[] out = new float[4];
+		translate.multiplyVectorComponents(0.0f, 1.0f, 0.0f, 1.0f, out);
+		_vectorEquals(expected.multiplyVectorComponents(0.0f, 1.0f, 0.0f, 1.0f), out);
+	}
+
+	@Test
+	public void matchesElements() throws Throwable
+	{
+		MutableMatrix matrix = new MutableMatrix();
+		matrix.setTranslate(1.0f, 2.0f, 3.0f);
+		float[] copy = new float[MutableMatrix.ELEMENTS];
+		matrix.copyRowInner(copy);
+		Assert.assertTrue(matrix.matchesRowInner(copy));
+		
+		matrix.setTranslate(1.0f, 2.0f, 4.0f);
+		Assert.assertFalse(matrix.matchesRowInner(copy));
+	}
+
+
+	private static void _matches(Matrix expected, MutableMatrix test)
+	{
+		float[] expectedElements = expected.copyRowInner();
+		float[] testElements = new float[MutableMatrix.ELEMENTS];
+		test.copyRowInner(testElements);
+		for (int i = 0; i < MutableMatrix.ELEMENTS; ++i)
+		{
+			Assert.assertEquals(expectedElements[i], testElements[i], 0.0001f);
+		}
+	}
+
+	private static void _vectorEquals(float[] expected, float[] test)
+	{
+		Assert.assertEquals(expected[0], test[0], 0.01f);
+		Assert.assertEquals(expected[1], test[1], 0.01f);
+		Assert.assertEquals(expected[2], test[2], 0.01f);
+		Assert.assertEquals(expected[3], test[3], 0.01f);
+	}
+}
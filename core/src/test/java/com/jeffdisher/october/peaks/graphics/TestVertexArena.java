@@ -0,0 +1,119 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.GL20;
+
+
+public class TestVertexArena
+{
+	private static final Attribute[] ATTRIBUTES = new Attribute[] { new Attribute("aPosition", 3) };
+	private static final long CHUNK_BYTES = (long)VertexArena.CHUNK_VERTICES * 3 * Float.BYTES;
+
+	@Test
+	public void reuseSizeClass() throws Throwable
+	{
+		VertexArena arena = new VertexArena(_fakeGl(new ArrayList<>()), ATTRIBUTES);
+		VertexArray first = arena.reserve(100);
+		VertexArray second = arena.reserve(100);
+		Assert.assertEquals(100, first.totalVertices);
+		Assert.assertEquals(128, second.getFirstVertex());
+
+		// Anything else in the same size class reuses the freed range.
+		arena.free(first);
+		VertexArray reused = arena.reserve(120);
+		Assert.assertEquals(first.getBuffer(), reused.getBuffer());
+		Assert.assertEquals(first.getFirstVertex(), reused.getFirstVertex());
+		Assert.assertEquals(CHUNK_BYTES, arena.getChunkBytes());
+	}
+
+	@Test
+	public void mergeFreeRanges() throws Throwable
+	{
+		VertexArena arena = new VertexArena(_fakeGl(new ArrayList<>()), ATTRIBUTES);
+		int half = VertexArena.CHUNK_VERTICES / 2;
+		VertexArray low = arena.reserve(half);
+		VertexArray high = arena.reserve(half);
+		arena.free(low);
+		arena.free(high);
+
+		// Neither free list has a range this large but the 2 halves merge back into the whole chunk.
+		VertexArray whole = arena.reserve(VertexArena.CHUNK_VERTICES);
+		Assert.assertEquals(low.getBuffer(), whole.getBuffer());
+		Assert.assertEquals(0, whole.getFirstVertex());
+		Assert.assertEquals(CHUNK_BYTES, arena.getChunkBytes());
+	}
+
+	@Test
+	public void growAndShrink() throws Throwable
+	{
+		List<Integer> deletedBuffers = new ArrayList<>();
+		VertexArena arena = new VertexArena(_fakeGl(deletedBuffers), ATTRIBUTES);
+		VertexArray full = arena.reserve(VertexArena.CHUNK_VERTICES);
+
+		// The first chunk is full so this needs a new one.
+		VertexArray overflow = arena.reserve(10);
+		Assert.assertNotEquals(full.getBuffer(), overflow.getBuffer());
+		Assert.assertEquals(2L * CHUNK_BYTES, arena.getChunkBytes());
+
+		// Emptying the second chunk deletes it.
+		arena.free(overflow);
+		Assert.assertEquals(List.of(overflow.getBuffer()), deletedBuffers);
+		Assert.assertEquals(CHUNK_BYTES, arena.getChunkBytes());
+
+		// But the last chunk is kept, even when empty, and is reused.
+		arena.free(full);
+		Assert.assertEquals(1, deletedBuffers.size());
+		Assert.assertEquals(CHUNK_BYTES, arena.getChunkBytes());
+		VertexArray next = arena.reserve(10);
+		Assert.assertEquals(full.getBuffer(), next.getBuffer());
+		Assert.assertEquals(0, next.getFirstVertex());
+	}
+
+	@Test
+	public void smallChunks() throws Throwable
+	{
+		int chunkVertices = 4 * VertexArena.MIN_CLASS_VERTICES;
+		VertexArena arena = new VertexArena(_fakeGl(new ArrayList<>()), ATTRIBUTES, chunkVertices);
+		VertexArray first = arena.reserve(chunkVertices);
+		Assert.assertEquals((long)chunkVertices * 3 * Float.BYTES, arena.getChunkBytes());
+
+		// Allocations larger than the chunk size get a chunk of their own size.
+		VertexArray large = arena.reserve(2 * chunkVertices);
+		Assert.assertNotEquals(first.getBuffer(), large.getBuffer());
+		Assert.assertEquals((long)(3 * chunkVertices) * 3 * Float.BYTES, arena.getChunkBytes());
+	}
+
+
+	private static GL20 _fakeGl(List<Integer> deletedBuffers)
+	{
+		// GL20 is far too large to implement for a test so we only answer the calls which return something.
+		int[] nextBuffer = new int[] { 1 };
+		return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class }, (Object proxy, Method method, Object[] args) -> {
+			Object result = null;
+			switch (method.getName())
+			{
+				case "glGenBuffer":
+					result = nextBuffer[0];
+					nextBuffer[0] += 1;
+					break;
+				case "glGetError":
+					result = GL20.GL_NO_ERROR;
+					break;
+				case "glDeleteBuffer":
+					deletedBuffers.add((Integer)args[0]);
+					break;
+				default:
+					// Everything else only changes GL state, which we don't need.
+					break;
+			}
+			return result;
+		});
+	}
+}
@@ -0,0 +1,64 @@
+package com.jeffdisher.october.peaks.graphics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TestVertexRangeAllocator
+{
+	@Test
+	public void fillAndEmpty() throws Throwable
+	{
+		VertexRangeAllocator allocator = new VertexRangeAllocator(100);
+		Assert.assertTrue(allocator.isEmpty());
+		Assert.assertEquals(0, allocator.allocate(60));
+		Assert.assertEquals(60, allocator.allocate(40));
+		Assert.assertEquals(-1, allocator.allocate(1));
+		Assert.assertEquals(100, allocator.getAllocatedVertices());
+
+		allocator.free(0, 60);
+		allocator.free(60, 40);
+		Assert.assertTrue(allocator.isEmpty());
+
+		// Both frees merged back into one range.
+		Assert.assertEquals(0, allocator.allocate(100));
+	}
+
+	@Test
+	public void firstFit() throws Throwable
+	{
+		VertexRangeAllocator allocator = new VertexRangeAllocator(100);
+		Assert.assertEquals(0, allocator.allocate(10));
+		Assert.assertEquals(10, allocator.allocate(20));
+		Assert.assertEquals(30, allocator.allocate(10));
+		Assert.assertEquals(40, allocator.allocate(30));
+
+		// Leave holes of 10 and 20 vertices (plus the 30 at the end).
+		allocator.free(0, 10);
+		allocator.free(10, 20);
+		allocator.free(40, 30);
+
+		// The first 2 holes merged so this fits at the start, and the remainder of that hole is the next fit.
+		Assert.assertEquals(0, allocator.allocate(25));
+		Assert.assertEquals(25, allocator.allocate(5));
+		// Only the end has room for this.
+		Assert.assertEquals(40, allocator.allocate(40));
+		Assert.assertEquals(-1, allocator.allocate(30));
+	}
+
+	@Test
+	public void mergeBothSides() throws Throwable
+	{
+		VertexRangeAllocator allocator = new VertexRangeAllocator(30);
+		Assert.assertEquals(0, allocator.allocate(10));
+		Assert.assertEquals(10, allocator.allocate(10));
+		Assert.assertEquals(20, allocator.allocate(10));
+		allocator.free(0, 10);
+		allocator.free(20, 10);
+		Assert.assertEquals(-1, allocator.allocate(20));
+
+		// Freeing the middle joins all 3.
+		allocator.free(10, 10);
+		Assert.assertEquals(0, allocator.allocate(30));
+	}
+}
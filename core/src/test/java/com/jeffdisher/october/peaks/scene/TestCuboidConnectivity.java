@@ -0,0 +1,176 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jeffdisher.october.aspects.AspectRegistry;
+import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.data.CuboidData;
+import com.jeffdisher.october.types.Block;
+import com.jeffdisher.october.types.BlockAddress;
+import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.utils.CuboidGenerator;
+
+
+public class TestCuboidConnectivity
+{
+	private static Environment ENV;
+	private static Block STONE;
+	private static Predicate<Short> IS_OPAQUE;
+	@BeforeClass
+	public static void setup() throws Throwable
+	{
+		ENV = Environment.createSharedInstance();
+		STONE = ENV.blocks.fromItem(ENV.items.getItemById("op.stone"));
+		short stoneNumber = STONE.item().number();
+		IS_OPAQUE = (Short value) -> (stoneNumber == value);
+	}
+	@AfterClass
+	public static void tearDown()
+	{
+		Environment.clearSharedInstance();
+	}
+
+	@Test
+	public void uniform() throws Throwable
+	{
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData air = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+		CuboidData stone = CuboidGenerator.createFilledCuboid(address, STONE);
+		Assert.assertEquals(CuboidConnectivity.ALL_CONNECTED, CuboidConnectivity.compute(ENV, air, IS_OPAQUE));
+		Assert.assertEquals(CuboidConnectivity.NONE_CONNECTED, CuboidConnectivity.compute(ENV, stone, IS_OPAQUE));
+	}
+
+	@Test
+	public void horizontalWall() throws Throwable
+	{
+		// A solid floor in the middle of the cuboid separates the top from the bottom but not the sides from each other.
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)0, (short)0, (short)0), ENV.special.AIR);
+		_fillLayer(cuboid, 16);
+		int connectivity = CuboidConnectivity.compute(ENV, cuboid, IS_OPAQUE);
+		Assert.assertFalse(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_UP, CuboidConnectivity.FACE_DOWN));
+		Assert.assertTrue(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_UP, CuboidConnectivity.FACE_NORTH));
+		Assert.assertTrue(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_DOWN, CuboidConnectivity.FACE_WEST));
+		Assert.assertTrue(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_EAST, CuboidConnectivity.FACE_WEST));
+		
+		// Punch a single hole in the floor and they are connected.
+		cuboid.setData15(AspectRegistry.BLOCK, BlockAddress.fromInt(5, 6, 16), ENV.special.AIR.item().number());
+		connectivity = CuboidConnectivity.compute(ENV, cuboid, IS_OPAQUE);
+		Assert.assertTrue(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_UP, CuboidConnectivity.FACE_DOWN));
+	}
+
+	@Test
+	public void tunnel() throws Throwable
+	{
+		// A single tunnel running east-west through solid stone only connects those 2 faces.
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)0, (short)0, (short)0), STONE);
+		for (int x = 0; x < 32; ++x)
+		{
+			cuboid.setData15(AspectRegistry.BLOCK, BlockAddress.fromInt(x, 10, 10), ENV.special.AIR.item().number());
+		}
+		int connectivity = CuboidConnectivity.compute(ENV, cuboid, IS_OPAQUE);
+		Assert.assertTrue(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_EAST, CuboidConnectivity.FACE_WEST));
+		Assert.assertFalse(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_EAST, CuboidConnectivity.FACE_NORTH));
+		Assert.assertFalse(CuboidConnectivity.canPass(connectivity, CuboidConnectivity.FACE_UP, CuboidConnectivity.FACE_DOWN));
+	}
+
+	@Test
+	public void visibleThroughWall() throws Throwable
+	{
+		// A column of cuboids with a solid one in the middle:  We can see the wall but not past it.
+		CuboidAddress camera = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress wall = camera.getRelative(0, 0, 1);
+		CuboidAddress beyond = camera.getRelative(0, 0, 2);
+		CuboidAddress side = camera.getRelative(1, 0, 0);
+		Map<CuboidAddress, Integer> connectivity = Map.of(camera, CuboidConnectivity.ALL_CONNECTED
+			, wall, CuboidConnectivity.NONE_CONNECTED
+			, beyond, CuboidConnectivity.ALL_CONNECTED
+			, side, CuboidConnectivity.ALL_CONNECTED
+		);
+		Set<CuboidAddress> visible = CuboidConnectivity.findPotentiallyVisible(camera, connectivity);
+		Assert.assertEquals(Set.of(camera, wall, side), visible);
+		
+		// If we don't know where the camera is, everything is visible.
+		visible = CuboidConnectivity.findPotentiallyVisible(camera.getRelative(5, 5, 5), connectivity);
+		Assert.assertEquals(connectivity.keySet(), visible);
+	}
+
+	@Test
+	public void visibleInView() throws Throwable
+	{
+		// A wall to the East of the camera, with a path around it to the North:  The walk can't turn back South behind it.
+		CuboidAddress camera = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress wall = camera.getRelative(1, 0, 0);
+		CuboidAddress behindWall = camera.getRelative(2, 0, 0);
+		CuboidAddress north = camera.getRelative(0, 1, 0);
+		CuboidAddress northEast = camera.getRelative(1, 1, 0);
+		CuboidAddress northFarEast = camera.getRelative(2, 1, 0);
+		Map<CuboidAddress, Integer> connectivity = Map.of(camera, CuboidConnectivity.ALL_CONNECTED
+			, wall, CuboidConnectivity.NONE_CONNECTED
+			, behindWall, CuboidConnectivity.ALL_CONNECTED
+			, north, CuboidConnectivity.ALL_CONNECTED
+			, northEast, CuboidConnectivity.ALL_CONNECTED
+			, northFarEast, CuboidConnectivity.ALL_CONNECTED
+		);
+		Set<CuboidAddress> visible = CuboidConnectivity.findVisibleInView(camera, connectivity, (CuboidAddress address) -> true);
+		Assert.assertEquals(Set.of(camera, wall, north, northEast, northFarEast), visible);
+		
+		// The potentially visible set doesn't consider direction, so it walks around the wall.
+		Assert.assertEquals(connectivity.keySet(), CuboidConnectivity.findPotentiallyVisible(camera, connectivity));
+		
+		// Anything out of view is skipped, along with anything only reachable through it.
+		visible = CuboidConnectivity.findVisibleInView(camera, connectivity, (CuboidAddress address) -> !address.equals(northEast));
+		Assert.assertEquals(Set.of(camera, wall, north), visible);
+		
+		// If we don't know where the camera is, everything is visible.
+		visible = CuboidConnectivity.findVisibleInView(camera.getRelative(5, 5, 5), connectivity, (CuboidAddress address) -> false);
+		Assert.assertEquals(connectivity.keySet(), visible);
+	}
+
+	@Test
+	public void reusedViewSearch() throws Throwable
+	{
+		// A reused search must not leak any state from the previous walk.
+		CuboidAddress camera = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress east = camera.getRelative(1, 0, 0);
+		CuboidAddress west = camera.getRelative(-1, 0, 0);
+		Map<CuboidAddress, Integer> connectivity = Map.of(camera, CuboidConnectivity.ALL_CONNECTED
+			, east, CuboidConnectivity.ALL_CONNECTED
+			, west, CuboidConnectivity.ALL_CONNECTED
+		);
+		CuboidConnectivity.ViewSearch search = new CuboidConnectivity.ViewSearch();
+		Assert.assertEquals(Set.of(camera, east, west), search.find(camera, connectivity, (CuboidAddress address) -> true));
+		Assert.assertEquals(Set.of(camera, east), search.find(camera, connectivity, (CuboidAddress address) -> !address.equals(west)));
+		Assert.assertEquals(Set.of(camera, west), search.find(camera, connectivity, (CuboidAddress address) -> !address.equals(east)));
+		
+		// A longer walk grows the step queue, and unloading most of those cuboids doesn't leave them visible.
+		Map<CuboidAddress, Integer> row = new HashMap<>();
+		for (int i = 0; i < 20; ++i)
+		{
+			row.put(camera.getRelative(i, 0, 0), CuboidConnectivity.ALL_CONNECTED);
+		}
+		Assert.assertEquals(row.keySet(), search.find(camera, row, (CuboidAddress address) -> true));
+		Assert.assertEquals(Set.of(camera, east), search.find(camera, Map.of(camera, CuboidConnectivity.ALL_CONNECTED
+			, east, CuboidConnectivity.ALL_CONNECTED
+		), (CuboidAddress address) -> true));
+	}
+
+
+	private static void _fillLayer(CuboidData cuboid, int z)
+	{
+		for (int y = 0; y < 32; ++y)
+		{
+			for (int x = 0; x < 32; ++x)
+			{
+				cuboid.setData15(AspectRegistry.BLOCK, BlockAddress.fromInt(x, y, z), STONE.item().number());
+			}
+		}
+	}
+}
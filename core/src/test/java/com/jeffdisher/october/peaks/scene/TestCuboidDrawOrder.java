@@ -0,0 +1,95 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jeffdisher.october.types.CuboidAddress;
+
+
+public class TestCuboidDrawOrder
+{
+	private static final Function<CuboidAddress, CuboidAddress> IDENTITY = (CuboidAddress address) -> address;
+
+	@Test
+	public void distance() throws Throwable
+	{
+		CuboidAddress origin = new CuboidAddress((short)0, (short)0, (short)0);
+		Assert.assertEquals(0, CuboidDrawOrder.distanceSquared(origin, origin));
+		Assert.assertEquals(14, CuboidDrawOrder.distanceSquared(origin, origin.getRelative(-1, 2, -3)));
+		Assert.assertEquals(14, CuboidDrawOrder.distanceSquared(origin.getRelative(-1, 2, -3), origin));
+	}
+
+	@Test
+	public void frontToBack() throws Throwable
+	{
+		CuboidAddress origin = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress near = origin.getRelative(1, 0, 0);
+		CuboidAddress middle = origin.getRelative(2, 0, 0);
+		CuboidAddress far = origin.getRelative(3, 0, 0);
+		CuboidDrawOrder<CuboidAddress> order = new CuboidDrawOrder<>(IDENTITY, true);
+		
+		// Before we know where the camera is, we just keep the insertion order.
+		order.add(far);
+		order.add(origin);
+		order.add(middle);
+		Assert.assertEquals(List.of(far, origin, middle), _list(order));
+		
+		// Once the camera is set, the list is sorted and new entries are inserted in order.
+		order.setCameraCuboid(origin);
+		Assert.assertEquals(List.of(origin, middle, far), _list(order));
+		order.add(near);
+		Assert.assertEquals(List.of(origin, near, middle, far), _list(order));
+		
+		// Moving the camera re-sorts the list.
+		order.setCameraCuboid(far);
+		Assert.assertEquals(List.of(far, middle, near, origin), _list(order));
+	}
+
+	@Test
+	public void backToFront() throws Throwable
+	{
+		CuboidAddress origin = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress up = origin.getRelative(0, 0, 1);
+		CuboidAddress down = origin.getRelative(0, 0, -2);
+		CuboidAddress north = origin.getRelative(0, 3, 0);
+		CuboidDrawOrder<CuboidAddress> order = new CuboidDrawOrder<>(IDENTITY, false);
+		order.setCameraCuboid(origin);
+		order.add(up);
+		order.add(north);
+		order.add(origin);
+		order.add(down);
+		Assert.assertEquals(List.of(north, down, up, origin), _list(order));
+		
+		// Removing through the iterator keeps the rest in order.
+		Iterator<CuboidAddress> iter = order.iterator();
+		while (iter.hasNext())
+		{
+			if (down.equals(iter.next()))
+			{
+				iter.remove();
+			}
+		}
+		Assert.assertEquals(3, order.size());
+		Assert.assertEquals(List.of(north, up, origin), _list(order));
+		
+		// Setting the same camera cuboid again changes nothing.
+		order.setCameraCuboid(origin);
+		Assert.assertEquals(List.of(north, up, origin), _list(order));
+	}
+
+
+	private static List<CuboidAddress> _list(CuboidDrawOrder<CuboidAddress> order)
+	{
+		List<CuboidAddress> list = new ArrayList<>();
+		for (CuboidAddress address : order)
+		{
+			list.add(address);
+		}
+		return list;
+	}
+}
@@ -30,6 +30,7 @@ import com.jeffdisher.october.peaks.textures.AuxilliaryTextureAtlas;
 import com.jeffdisher.october.peaks.textures.BasicBlockAtlas;
 import com.jeffdisher.october.peaks.textures.RawTextureAtlas;
 import com.jeffdisher.october.peaks.textures.TextureHelpers;
+import com.jeffdisher.october.peaks.types.Prism;
 import com.jeffdisher.october.peaks.wavefront.ModelBuffer;
 import com.jeffdisher.october.types.Block;
 import com.jeffdisher.october.types.BlockAddress;
@@ -40,6 +41,7 @@ import com.jeffdisher.october.utils.CuboidGenerator;
 
 public class TestCuboidMeshManager
 {
+	private static final long CURRENT_MILLIS = 1_000L;
 	private static Environment ENV;
 	private static Attribute[] ATTRIBUTES;
 	private static int FLOATS_PER_VERTEX;
@@ -47,6 +49,7 @@ public class TestCuboidMeshManager
 	private static short STONE_VALUE;
 	private static short WATER_VALUE;
 	private static Block[] ALL_BLOCKS;
+	private static CuboidMeshManager.Resources RESOURCES;
 	@BeforeClass
 	public static void setup() throws Throwable
 	{
@@ -71,17 +74,20 @@ public class TestCuboidMeshManager
 				.filter((Block block) -> null != block)
 				.toArray((int size) -> new Block[size])
 		;
+		// The same resources are reused by each test's manager, as they are across game sessions.
+		RESOURCES = new CuboidMeshManager.Resources();
 	}
 	@AfterClass
 	public static void tearDown()
 	{
+		RESOURCES.shutdown();
 		Environment.clearSharedInstance();
 	}
 
 	@Test
 	public void empty() throws Throwable
 	{
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, null, null, null, null, null);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, null, null, null, null);
 		manager.shutdown();
 	}
 
@@ -93,7 +99,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
 		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
@@ -103,11 +109,14 @@ public class TestCuboidMeshManager
 		// We shouldn't see the finished result, yet.
 		manager.setCuboid(cuboid, heightMap, null);
 		Assert.assertEquals(0, testingGpu.viewCuboids().size());
+		Assert.assertEquals(1, manager.getPendingBakeCount());
 		
 		// Wait for the result and verify what appears.
 		_waitForOpaqueArray(manager, testingGpu, address);
+		Assert.assertEquals(0, manager.getPendingBakeCount());
 		_CuboidMeshes data = testingGpu.viewCuboids().iterator().next();
 		Assert.assertEquals(36, data.opaqueArray().totalVertices);
+		Assert.assertEquals(new Prism(5.0f, 6.0f, 7.0f, 6.0f, 7.0f, 8.0f), data.bounds());
 		Assert.assertNull(data.transparentArray());
 		Assert.assertNull(data.itemSlotArray());
 		Assert.assertNull(data.fireFaces());
@@ -124,7 +133,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, buildNonOpaqueVector());
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
 		CuboidData lowCuboid = CuboidGenerator.createFilledCuboid(lowAddress, ENV.special.AIR);
@@ -182,7 +191,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		// We want to put a single solid block at the top of the low cuboid so we can verify the vertex values.
 		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
@@ -268,7 +277,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		// We want to put a single solid block at the top of the low cuboid so we can verify the vertex values.
 		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
@@ -355,7 +364,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		// We want to put a single solid block at the top of the low cuboid so we can verify the vertex values.
 		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
@@ -425,7 +434,7 @@ public class TestCuboidMeshManager
 		// Note that the Block[] must minimally include water sources.
 		Block[] basicBlocks = new Block[] {waterSource, waterStrong, waterWeak, lavaSource, lavaStrong, lavaWeak};
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(0, basicBlocks, new boolean[basicBlocks.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
 		CuboidData lowCuboid = CuboidGenerator.createFilledCuboid(lowAddress, ENV.special.AIR);
@@ -469,7 +478,7 @@ public class TestCuboidMeshManager
 		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
 		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
 		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
-		CuboidMeshManager manager = new CuboidMeshManager(ENV, testingGpu, ATTRIBUTES, models, blockAtlas, auxBlockTextures);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
 		
 		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
 		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
@@ -501,12 +510,275 @@ public class TestCuboidMeshManager
 		manager.shutdown();
 	}
 
+	@Test
+	public void speculativeEdits() throws Throwable
+	{
+		_Gpu testingGpu = new _Gpu();
+		int textureCount = STONE_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+		cuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+		ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), cuboid.getCuboidAddress()).freeze();
+		manager.setCuboid(cuboid, heightMap, null);
+		VertexArray opaque = _waitForOpaqueArray(manager, testingGpu, address);
+		Assert.assertEquals(36, opaque.totalVertices);
+		
+		// Predict a placement and observe that it shows up without any authoritative update.
+		BlockAddress placed = new BlockAddress((byte)10, (byte)10, (byte)10);
+		manager.speculateBlockChange(CURRENT_MILLIS, address.getBase().getRelative(10, 10, 10), STONE_BLOCK);
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(72, opaque.totalVertices);
+		
+		// The authoritative change arrives and is re-baked with the same result.
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, placed, STONE_VALUE);
+		manager.setCuboid(cuboid, heightMap, Set.of(placed));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(72, opaque.totalVertices);
+		
+		// Predict another placement but receive an unrelated authoritative change first, showing that we keep the prediction.
+		BlockAddress pending = new BlockAddress((byte)20, (byte)20, (byte)20);
+		manager.speculateBlockChange(CURRENT_MILLIS, address.getBase().getRelative(20, 20, 20), STONE_BLOCK);
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(108, opaque.totalVertices);
+		BlockAddress unrelated = new BlockAddress((byte)1, (byte)1, (byte)1);
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, unrelated, STONE_VALUE);
+		manager.setCuboid(cuboid, heightMap, Set.of(unrelated));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(144, opaque.totalVertices);
+		
+		// The authoritative change for that prediction arrives.
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, pending, STONE_VALUE);
+		manager.setCuboid(cuboid, heightMap, Set.of(pending));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(144, opaque.totalVertices);
+		
+		// Predict breaking a block but have the server replace it with something else, showing that we roll back to the authoritative data.
+		manager.speculateBlockChange(CURRENT_MILLIS, address.getBase().getRelative(1, 1, 1), ENV.special.AIR);
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(108, opaque.totalVertices);
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, unrelated, ENV.items.getItemById("op.dirt").number());
+		manager.setCuboid(cuboid, heightMap, Set.of(unrelated));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(144, opaque.totalVertices);
+		
+		manager.shutdown();
+	}
+
+	@Test
+	public void speculationTimeout() throws Throwable
+	{
+		_Gpu testingGpu = new _Gpu();
+		int textureCount = STONE_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+		cuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+		ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), cuboid.getCuboidAddress()).freeze();
+		manager.setCuboid(cuboid, heightMap, null);
+		VertexArray opaque = _waitForOpaqueArray(manager, testingGpu, address);
+		Assert.assertEquals(36, opaque.totalVertices);
+		
+		// Predict a placement which the server never confirms.
+		manager.speculateBlockChange(CURRENT_MILLIS, address.getBase().getRelative(10, 10, 10), STONE_BLOCK);
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(72, opaque.totalVertices);
+		
+		// Nothing changes until the timeout.
+		manager.processBackground(CURRENT_MILLIS + CuboidMeshManager.SPECULATION_TIMEOUT_MILLIS - 1L);
+		Assert.assertEquals(72, _readCuboidOpaque(testingGpu, address).totalVertices);
+		
+		// Once it expires, it is rolled back and the authoritative data is re-baked.
+		manager.processBackground(CURRENT_MILLIS + CuboidMeshManager.SPECULATION_TIMEOUT_MILLIS);
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(36, opaque.totalVertices);
+		
+		manager.shutdown();
+	}
+
+	@Test
+	public void deferHiddenCuboids() throws Throwable
+	{
+		_Gpu testingGpu = new _Gpu();
+		int textureCount = WATER_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, buildNonOpaqueVector());
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		
+		// We build a column of cuboids, with a solid stone cuboid in the middle, and start the camera at the bottom.
+		CuboidAddress lowAddress = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidAddress wallAddress = lowAddress.getRelative(0, 0, 1);
+		CuboidAddress highAddress = lowAddress.getRelative(0, 0, 2);
+		CuboidData lowCuboid = CuboidGenerator.createFilledCuboid(lowAddress, ENV.special.AIR);
+		lowCuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+		CuboidData wallCuboid = CuboidGenerator.createFilledCuboid(wallAddress, STONE_BLOCK);
+		CuboidData highCuboid = CuboidGenerator.createFilledCuboid(highAddress, ENV.special.AIR);
+		highCuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+		manager.setCameraCuboid(lowAddress);
+		for (CuboidData cuboid : new CuboidData[] { lowCuboid, wallCuboid, highCuboid })
+		{
+			ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), cuboid.getCuboidAddress()).freeze();
+			manager.setCuboid(cuboid, heightMap, null);
+		}
+		
+		// The camera cuboid and the wall are baked but the cuboid behind the wall is deferred.
+		Assert.assertEquals(36, _waitForOpaqueArray(manager, testingGpu, lowAddress).totalVertices);
+		_waitForOpaqueArray(manager, testingGpu, wallAddress);
+		manager.processBackground(CURRENT_MILLIS);
+		Assert.assertNull(_readCuboidOpaque(testingGpu, highAddress));
+		// The deferred cuboid isn't waiting on a bake, since it won't be baked until the camera moves.
+		Assert.assertEquals(0, manager.getPendingBakeCount());
+		
+		// Moving the camera to the other side of the wall causes it to be baked on demand.
+		manager.setCameraCuboid(highAddress);
+		Assert.assertEquals(36, _waitForOpaqueArray(manager, testingGpu, highAddress).totalVertices);
+		
+		manager.shutdown();
+	}
+
+	@Test
+	public void patchSingleBlockEdits() throws Throwable
+	{
+		_Gpu testingGpu = new _Gpu();
+		int textureCount = WATER_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, buildNonOpaqueVector());
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		
+		// A solid stone cuboid only has its outside faces.
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, STONE_BLOCK);
+		ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), address).freeze();
+		manager.setCuboid(cuboid, heightMap, null);
+		VertexArray opaque = _waitForOpaqueArray(manager, testingGpu, address);
+		int outsideVertices = 6 * 32 * 32 * 6;
+		Assert.assertEquals(outsideVertices, opaque.totalVertices);
+		Assert.assertEquals(1, testingGpu.uploadedBuffers.size());
+		
+		// Mining an interior block is patched into the slack at the end of the buffer, exposing the 6 faces around it.
+		BlockAddress mined = new BlockAddress((byte)10, (byte)10, (byte)10);
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, mined, ENV.special.AIR.item().number());
+		manager.setCuboid(cuboid, heightMap, Set.of(mined));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(outsideVertices + 36, opaque.totalVertices);
+		Assert.assertEquals(1, testingGpu.patchCount);
+		
+		// Placing it back clears those faces but the buffer doesn't shrink.
+		cuboid = CuboidData.mutableClone(cuboid);
+		cuboid.setData15(AspectRegistry.BLOCK, mined, STONE_VALUE);
+		manager.setCuboid(cuboid, heightMap, Set.of(mined));
+		opaque = _waitForOpaqueChange(manager, testingGpu, address, opaque);
+		Assert.assertEquals(outsideVertices + 36, opaque.totalVertices);
+		Assert.assertEquals(2, testingGpu.patchCount);
+		
+		// Neither of these required a new upload of the whole buffer.
+		Assert.assertEquals(1, testingGpu.uploadedBuffers.size());
+		
+		manager.shutdown();
+	}
+
+	@Test
+	public void evictFarthestOverBudget() throws Throwable
+	{
+		_Gpu testingGpu = new _Gpu();
+		int textureCount = WATER_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, buildNonOpaqueVector());
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, RESOURCES, testingGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		
+		// Each cuboid is a single stone block (plus the patching slack) and the budget only allows for 2 of them.
+		long cuboidBytes = (36L + (CuboidMeshManager.PATCH_SLACK_QUADS * OpaqueQuadLayout.VERTICES_PER_QUAD)) * FLOATS_PER_VERTEX * Float.BYTES;
+		manager.setGpuMeshBudgetBytes(2L * cuboidBytes);
+		
+		// We build a row of 4 cuboids and start the camera at one end.
+		CuboidAddress[] addresses = new CuboidAddress[4];
+		for (int i = 0; i < addresses.length; ++i)
+		{
+			addresses[i] = new CuboidAddress((short)i, (short)0, (short)0);
+			CuboidData cuboid = CuboidGenerator.createFilledCuboid(addresses[i], ENV.special.AIR);
+			cuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+			ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), addresses[i]).freeze();
+			manager.setCuboid(cuboid, heightMap, null);
+		}
+		manager.setCameraCuboid(addresses[0]);
+		
+		// Everything is baked once, since we don't know the sizes yet, but the farthest 2 are then evicted.
+		testingGpu.processUntilBufferCount(manager, 4);
+		manager.processBackground(CURRENT_MILLIS);
+		Assert.assertNotNull(_readCuboidOpaque(testingGpu, addresses[0]));
+		Assert.assertNotNull(_readCuboidOpaque(testingGpu, addresses[1]));
+		Assert.assertNull(_readCuboidOpaque(testingGpu, addresses[2]));
+		Assert.assertNull(_readCuboidOpaque(testingGpu, addresses[3]));
+		CuboidMeshManager.MemoryStats stats = manager.getMemoryStats();
+		Assert.assertEquals(2L * cuboidBytes, stats.residentBytes());
+		Assert.assertEquals(2, stats.evictedCuboids());
+		Assert.assertEquals(0, manager.getPendingBakeCount());
+		
+		// Moving the camera to the other end evicts the near cuboids and rebuilds the far ones.
+		manager.setCameraCuboid(addresses[3]);
+		testingGpu.processUntilBufferCount(manager, 6);
+		manager.processBackground(CURRENT_MILLIS);
+		Assert.assertNull(_readCuboidOpaque(testingGpu, addresses[0]));
+		Assert.assertNull(_readCuboidOpaque(testingGpu, addresses[1]));
+		Assert.assertNotNull(_readCuboidOpaque(testingGpu, addresses[2]));
+		Assert.assertNotNull(_readCuboidOpaque(testingGpu, addresses[3]));
+		stats = manager.getMemoryStats();
+		Assert.assertEquals(2L * cuboidBytes, stats.residentBytes());
+		Assert.assertEquals(2, stats.evictedCuboids());
+		
+		manager.shutdown();
+	}
+
+	@Test
+	public void reuseResourcesAcrossSessions() throws Throwable
+	{
+		int textureCount = STONE_VALUE + 1;
+		AuxilliaryTextureAtlas auxBlockTextures = _buildAuxAtlas();
+		BlockModelsAndAtlas models = _buildBlockModelsAndAtlas(textureCount, Map.of(), new ModelBuffer[0]);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(textureCount, ALL_BLOCKS, new boolean[ALL_BLOCKS.length]);
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+		cuboid.setData15(AspectRegistry.BLOCK, new BlockAddress((byte)5, (byte)6, (byte)7), STONE_VALUE);
+		ColumnHeightMap heightMap = ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), cuboid.getCuboidAddress()).freeze();
+		
+		// The first session shuts down with a bake still outstanding, which must not leak into the next session.
+		_Gpu firstGpu = new _Gpu();
+		CuboidMeshManager first = new CuboidMeshManager(ENV, RESOURCES, firstGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		first.setCuboid(cuboid, heightMap, null);
+		first.processBackground(CURRENT_MILLIS);
+		first.shutdown();
+		
+		// The next session uses the same thread and scratch buffers.
+		_Gpu secondGpu = new _Gpu();
+		CuboidMeshManager second = new CuboidMeshManager(ENV, RESOURCES, secondGpu, ATTRIBUTES, blockAtlas, new ReferenceCuboidMesher(ENV, models, blockAtlas, auxBlockTextures));
+		second.setCuboid(cuboid, heightMap, null);
+		Assert.assertEquals(36, _waitForOpaqueArray(second, secondGpu, address).totalVertices);
+		Assert.assertEquals(1, secondGpu.uploadedBuffers.size());
+		Assert.assertEquals(0, firstGpu.viewCuboids().size());
+		second.shutdown();
+	}
 
 	private VertexArray _waitForWaterChange(CuboidMeshManager manager, _Gpu testingGpu, CuboidAddress lowAddress, VertexArray previous)
 	{
 		while (previous == _readCuboidWater(testingGpu, lowAddress))
 		{
-			manager.processBackground();
+			manager.processBackground(CURRENT_MILLIS);
 		}
 		return _readCuboidWater(testingGpu, lowAddress);
 	}
@@ -515,7 +787,7 @@ public class TestCuboidMeshManager
 	{
 		while (previous == _readCuboidOpaque(testingGpu, lowAddress))
 		{
-			manager.processBackground();
+			manager.processBackground(CURRENT_MILLIS);
 		}
 		return _readCuboidOpaque(testingGpu, lowAddress);
 	}
@@ -579,7 +851,7 @@ public class TestCuboidMeshManager
 		VertexArray foundMesh = null;
 		while (null == foundMesh)
 		{
-			manager.processBackground();
+			manager.processBackground(CURRENT_MILLIS);
 			Iterator<_CuboidMeshes> iterator = testingGpu.viewCuboids().iterator();
 			
 			while (iterator.hasNext())
@@ -602,7 +874,7 @@ public class TestCuboidMeshManager
 		VertexArray foundMesh = null;
 		while (null == foundMesh)
 		{
-			manager.processBackground();
+			manager.processBackground(CURRENT_MILLIS);
 			Iterator<_CuboidMeshes> iterator = testingGpu.viewCuboids().iterator();
 			
 			while (iterator.hasNext())
@@ -673,17 +945,20 @@ public class TestCuboidMeshManager
 	private static class _Gpu implements CuboidMeshManager.IGpu
 	{
 		public final List<BufferBuilder.Buffer> uploadedBuffers = new ArrayList<>();
+		public int patchCount = 0;
 		private final Map<CuboidAddress, _CuboidMeshes> _data = new HashMap<>();
 		public void processUntilBufferCount(CuboidMeshManager manager, int count)
 		{
 			while (this.uploadedBuffers.size() < count)
 			{
-				manager.processBackground();
+				manager.processBackground(CURRENT_MILLIS);
 			}
 		}
 		@Override
 		public Object createToken(CuboidAddress address
+			, Prism bounds
 			, Buffer opaqueArray
+			, int opaqueSlackVertices
 			, Buffer modelArray
 			, Buffer transparentArray
 			, Buffer waterArray
@@ -693,6 +968,7 @@ public class TestCuboidMeshManager
 		)
 		{
 			_CuboidMeshes mesh = new _CuboidMeshes(address
+				, bounds
 				, _uploadBuffer(opaqueArray)
 				, _uploadBuffer(modelArray)
 				, _uploadBuffer(transparentArray)
@@ -712,6 +988,31 @@ public class TestCuboidMeshManager
 			Object old = _data.remove(mesh.address);
 			Assert.assertNotNull(old);
 		}
+		@Override
+		public long getItemSlotBytes(int slotCount)
+		{
+			// We don't draw the slots so we just charge a fixed amount for each.
+			return slotCount * 1024L;
+		}
+		@Override
+		public void patchOpaqueQuads(Object token, Buffer quads, Prism quadBounds, int[] targetSlots, int[] clearedSlots, int totalVertices)
+		{
+			// The token is unchanged but we replace the record we are exposing to the test.
+			_CuboidMeshes mesh = (_CuboidMeshes) token;
+			_CuboidMeshes old = _data.get(mesh.address);
+			Assert.assertNotNull(old);
+			_data.put(mesh.address, new _CuboidMeshes(old.address
+				, old.bounds
+				, new VertexArray(1, totalVertices, ATTRIBUTES)
+				, old.modelArray
+				, old.transparentArray
+				, old.waterArray
+				, old.itemSlotArray
+				, old.fireFaces
+				, old.burningFaceArray
+			));
+			this.patchCount += 1;
+		}
 		public Collection<_CuboidMeshes> viewCuboids()
 		{
 			return _data.values();
@@ -729,6 +1030,7 @@ public class TestCuboidMeshManager
 	}
 
 	private static record _CuboidMeshes(CuboidAddress address
+		, Prism bounds
 		, VertexArray opaqueArray
 		, VertexArray modelArray
 		, VertexArray transparentArray
@@ -0,0 +1,597 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jeffdisher.october.aspects.AspectRegistry;
+import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.aspects.FlagsAspect;
+import com.jeffdisher.october.data.ColumnHeightMap;
+import com.jeffdisher.october.data.CuboidData;
+import com.jeffdisher.october.data.CuboidHeightMap;
+import com.jeffdisher.october.data.IReadOnlyCuboidData;
+import com.jeffdisher.october.logic.HeightMapHelpers;
+import com.jeffdisher.october.logic.SparseByteCube;
+import com.jeffdisher.october.peaks.graphics.Attribute;
+import com.jeffdisher.october.peaks.graphics.BufferBuilder;
+import com.jeffdisher.october.peaks.textures.AuxilliaryTextureAtlas;
+import com.jeffdisher.october.peaks.textures.BasicBlockAtlas;
+import com.jeffdisher.october.peaks.textures.RawTextureAtlas;
+import com.jeffdisher.october.peaks.textures.TextureHelpers;
+import com.jeffdisher.october.peaks.wavefront.ModelBuffer;
+import com.jeffdisher.october.types.AbsoluteLocation;
+import com.jeffdisher.october.types.Block;
+import com.jeffdisher.october.types.BlockAddress;
+import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.types.Item;
+import com.jeffdisher.october.utils.CuboidGenerator;
+import com.jeffdisher.october.utils.Encoding;
+
+
+/**
+ * The equivalence oracle for ICuboidMesher implementations:  Any alternative mesher must produce the same set of
+ * visible triangles, in every layer, as ReferenceCuboidMesher over both randomized and terrain-like cuboids.
+ * Triangles are compared as a multiset, independent of the order they are written or which vertex they start from (but
+ * not their winding, since that determines which side is visible).
+ * To check a new mesher, add a test which calls _assertEquivalentOverAllInputs() with it.
+ */
+public class TestCuboidMesherEquivalence
+{
+	public static final int RANDOM_SEED_COUNT = 3;
+	public static final int BUFFER_FLOATS = CuboidMeshManager.BUFFER_SIZE / Float.BYTES / 2;
+
+	private static Environment ENV;
+	private static Attribute[] ATTRIBUTES;
+	private static int FLOATS_PER_VERTEX;
+	private static short AIR_VALUE;
+	private static short STONE_VALUE;
+	private static short DIRT_VALUE;
+	private static short LOG_VALUE;
+	private static short WATER_SOURCE_VALUE;
+	private static short WATER_WEAK_VALUE;
+	private static short LAVA_SOURCE_VALUE;
+	private static BasicBlockAtlas BLOCK_ATLAS;
+	private static AuxilliaryTextureAtlas AUX_ATLAS;
+	private static BlockModelsAndAtlas MODELS;
+	private static ICuboidMesher REFERENCE;
+	private static FloatBuffer EXPECTED_BUFFER;
+	private static FloatBuffer ACTUAL_BUFFER;
+	@BeforeClass
+	public static void setup() throws Throwable
+	{
+		ENV = Environment.createSharedInstance();
+		ATTRIBUTES = new Attribute[] { new Attribute("aPosition", 3)
+				, new Attribute("aNormal", 3)
+				, new Attribute("aTexture0", 2)
+				, new Attribute("aTexture1", 2)
+				, new Attribute("aBlockLightMultiplier", 1)
+				, new Attribute("aSkyLightMultiplier", 1)
+		};
+		for (Attribute attr : ATTRIBUTES)
+		{
+			FLOATS_PER_VERTEX += attr.floats();
+		}
+		AIR_VALUE = ENV.special.AIR.item().number();
+		STONE_VALUE = ENV.items.getItemById("op.stone").number();
+		DIRT_VALUE = ENV.items.getItemById("op.dirt").number();
+		LOG_VALUE = ENV.items.getItemById("op.log").number();
+		WATER_SOURCE_VALUE = ENV.items.getItemById("op.water_source").number();
+		WATER_WEAK_VALUE = ENV.items.getItemById("op.water_weak").number();
+		LAVA_SOURCE_VALUE = ENV.items.getItemById("op.lava_source").number();
+		
+		// Stone and dirt are opaque while everything else is drawn in the transparent (or water) layers.
+		Block[] allBlocks = Arrays.stream(ENV.items.ITEMS_BY_TYPE)
+				.map((Item item) -> ENV.blocks.fromItem(item))
+				.filter((Block block) -> null != block)
+				.toArray((int size) -> new Block[size])
+		;
+		boolean[] nonOpaqueVector = new boolean[allBlocks.length];
+		int maxItemNumber = 0;
+		for (int i = 0; i < allBlocks.length; ++i)
+		{
+			short number = allBlocks[i].item().number();
+			nonOpaqueVector[i] = (STONE_VALUE != number) && (DIRT_VALUE != number);
+			maxItemNumber = Math.max(maxItemNumber, number);
+		}
+		int[][] mapping = new int[maxItemNumber + 1][];
+		for (int i = 0; i < allBlocks.length; ++i)
+		{
+			mapping[allBlocks[i].item().number()] = new int[] { i, i, i };
+		}
+		BLOCK_ATLAS = new BasicBlockAtlas(TextureHelpers.testRawAtlas(allBlocks.length), mapping, nonOpaqueVector);
+		AUX_ATLAS = new AuxilliaryTextureAtlas(TextureHelpers.testRawAtlas(AuxilliaryTextureAtlas.Variant.values().length));
+		RawTextureAtlas modelTextures = TextureHelpers.testRawAtlas(1);
+		MODELS = BlockModelsAndAtlas.testInstance(Map.of(), new ModelBuffer[0], modelTextures);
+		REFERENCE = new ReferenceCuboidMesher(ENV, MODELS, BLOCK_ATLAS, AUX_ATLAS);
+		EXPECTED_BUFFER = FloatBuffer.allocate(BUFFER_FLOATS);
+		ACTUAL_BUFFER = FloatBuffer.allocate(BUFFER_FLOATS);
+	}
+	@AfterClass
+	public static void tearDown()
+	{
+		Environment.clearSharedInstance();
+	}
+
+	@Test
+	public void referenceIsDeterministic() throws Throwable
+	{
+		// A second reference instance must trivially agree with the first, which also checks the inputs are meshable.
+		ICuboidMesher other = new ReferenceCuboidMesher(ENV, MODELS, BLOCK_ATLAS, AUX_ATLAS);
+		_assertEquivalentOverAllInputs(other);
+	}
+
+	@Test
+	public void reorderedOutputIsEquivalent() throws Throwable
+	{
+		// Writing the same triangles in a different order, starting from different vertices, is still equivalent.
+		ICuboidMesher reordered = new _RewritingMesher(REFERENCE, false);
+		_assertEquivalentOverAllInputs(reordered);
+	}
+
+	@Test
+	public void droppedTriangleIsDetected() throws Throwable
+	{
+		// The oracle must notice a single missing triangle.
+		ICuboidMesher broken = new _RewritingMesher(REFERENCE, true);
+		SceneMeshHelpers.MeshInputData inputs = _terrainInputs();
+		boolean didFail;
+		try
+		{
+			_assertEquivalent(broken, inputs);
+			didFail = false;
+		}
+		catch (AssertionError e)
+		{
+			didFail = true;
+		}
+		Assert.assertTrue(didFail);
+	}
+
+	@Test
+	public void parallelBakeIsEquivalent() throws Throwable
+	{
+		// The parallel bake (used for speculations and edits near the camera) must produce the same layers as the serial bake.
+		CuboidMeshManager.Resources resources = new CuboidMeshManager.Resources();
+		CuboidMeshManager manager = new CuboidMeshManager(ENV, resources, null, ATTRIBUTES, BLOCK_ATLAS, REFERENCE);
+		FloatBuffer parallelBuffer = FloatBuffer.allocate(CuboidMeshManager.BUFFER_SIZE / Float.BYTES);
+		for (int seed = 0; seed < RANDOM_SEED_COUNT; ++seed)
+		{
+			_assertParallelEquivalent(manager, parallelBuffer, _randomInputs(seed));
+		}
+		// Terrain is the common case so it must fit in the parallel regions, not fall back to the serial bake.
+		Assert.assertTrue(_assertParallelEquivalent(manager, parallelBuffer, _terrainInputs()));
+		manager.shutdown();
+		resources.shutdown();
+	}
+
+
+	private static void _assertEquivalentOverAllInputs(ICuboidMesher candidate)
+	{
+		for (int seed = 0; seed < RANDOM_SEED_COUNT; ++seed)
+		{
+			_assertEquivalent(candidate, _randomInputs(seed));
+		}
+		_assertEquivalent(candidate, _terrainInputs());
+	}
+
+	private static void _assertEquivalent(ICuboidMesher candidate, SceneMeshHelpers.MeshInputData inputs)
+	{
+		IReadOnlyCuboidData cuboid = inputs.cuboid();
+		AuxVariantMap variantMap = new AuxVariantMap(ENV, cuboid);
+		FireFaceBuilder expectedFire = new FireFaceBuilder();
+		FireFaceBuilder actualFire = new FireFaceBuilder();
+		
+		List<Integer> expectedOwners = new ArrayList<>();
+		List<Integer> actualOwners = new ArrayList<>();
+		List<String> expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeOpaqueLayer(builder, variantMap, expectedFire, inputs, (int owner) -> expectedOwners.add(owner)), expectedOwners);
+		List<String> actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeOpaqueLayer(builder, variantMap, actualFire, inputs, (int owner) -> actualOwners.add(owner)), actualOwners);
+		Assert.assertEquals("opaque", expected, actual);
+		
+		expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeModelLayer(builder, variantMap, inputs), null);
+		actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeModelLayer(builder, variantMap, inputs), null);
+		Assert.assertEquals("model", expected, actual);
+		
+		expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeTransparentLayer(builder, variantMap, expectedFire, inputs), null);
+		actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeTransparentLayer(builder, variantMap, actualFire, inputs), null);
+		Assert.assertEquals("transparent", expected, actual);
+		
+		expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeWaterLayer(builder, inputs), null);
+		actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeWaterLayer(builder, inputs), null);
+		Assert.assertEquals("water", expected, actual);
+		
+		// Each mesher's burning layer is built from the fire faces it found, so this also checks those.
+		SparseByteCube expectedFireFaces = expectedFire.extractNonEmptyCollection();
+		SparseByteCube actualFireFaces = actualFire.extractNonEmptyCollection();
+		expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeBurningLayer(builder, expectedFireFaces, cuboid), null);
+		actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeBurningLayer(builder, actualFireFaces, cuboid), null);
+		Assert.assertEquals("burning", expected, actual);
+		
+		// Patches only write the selected blocks.
+		Predicate<BlockAddress> blockFilter = (BlockAddress address) -> (0 == ((address.x() + address.y() + address.z()) % 7));
+		expectedOwners.clear();
+		actualOwners.clear();
+		expected = _bakeToTriangles(EXPECTED_BUFFER, (BufferBuilder builder) -> REFERENCE.bakeOpaqueBlocks(builder, variantMap, inputs, blockFilter, (int owner) -> expectedOwners.add(owner)), expectedOwners);
+		actual = _bakeToTriangles(ACTUAL_BUFFER, (BufferBuilder builder) -> candidate.bakeOpaqueBlocks(builder, variantMap, inputs, blockFilter, (int owner) -> actualOwners.add(owner)), actualOwners);
+		Assert.assertEquals("patch", expected, actual);
+	}
+
+	private static boolean _assertParallelEquivalent(CuboidMeshManager manager, FloatBuffer parallelBuffer, SceneMeshHelpers.MeshInputData inputs)
+	{
+		EXPECTED_BUFFER.clear();
+		parallelBuffer.clear();
+		CuboidMeshManager.TestBakedLayers serial = manager.testBake(EXPECTED_BUFFER, inputs, false);
+		CuboidMeshManager.TestBakedLayers parallel = manager.testBake(parallelBuffer, inputs, true);
+		// A null parallel bake means that a layer didn't fit in its region so the manager would bake serially, instead.
+		boolean didFit = (null != parallel);
+		if (didFit)
+		{
+			Assert.assertEquals("opaque", _bufferToTriangles(serial.opaqueBuffer(), serial.opaqueQuadOwners()), _bufferToTriangles(parallel.opaqueBuffer(), parallel.opaqueQuadOwners()));
+			Assert.assertEquals("model", _bufferToTriangles(serial.modelBuffer(), null), _bufferToTriangles(parallel.modelBuffer(), null));
+			Assert.assertEquals("transparent", _bufferToTriangles(serial.transparentBuffer(), null), _bufferToTriangles(parallel.transparentBuffer(), null));
+			Assert.assertEquals("water", _bufferToTriangles(serial.waterBuffer(), null), _bufferToTriangles(parallel.waterBuffer(), null));
+			Assert.assertEquals("burning", _bufferToTriangles(serial.burningFaceBuffer(), null), _bufferToTriangles(parallel.burningFaceBuffer(), null));
+		}
+		return didFit;
+	}
+
+	private static List<String> _bakeToTriangles(FloatBuffer backing, Function<BufferBuilder, BufferBuilder.Buffer> bake, List<Integer> quadOwners)
+	{
+		BufferBuilder builder = new BufferBuilder(backing, ATTRIBUTES);
+		BufferBuilder.Buffer buffer = bake.apply(builder);
+		int vertexCount = (null != buffer) ? buffer.vertexCount : 0;
+		Assert.assertEquals(vertexCount * FLOATS_PER_VERTEX, backing.position());
+		Assert.assertEquals(0, vertexCount % 3);
+		
+		float[] floats = new float[backing.position()];
+		backing.flip();
+		backing.get(floats);
+		return _canonicalTriangles(floats, quadOwners);
+	}
+
+	private static List<String> _bufferToTriangles(BufferBuilder.Buffer buffer, int[] quadOwners)
+	{
+		float[] floats = new float[(null != buffer) ? (buffer.vertexCount * FLOATS_PER_VERTEX) : 0];
+		if (null != buffer)
+		{
+			buffer.testGetFloats(floats);
+		}
+		List<Integer> owners = (null != quadOwners)
+			? Arrays.stream(quadOwners).boxed().toList()
+			: null
+		;
+		return _canonicalTriangles(floats, owners);
+	}
+
+	private static List<String> _canonicalTriangles(float[] floats, List<Integer> quadOwners)
+	{
+		Assert.assertEquals(0, floats.length % (3 * FLOATS_PER_VERTEX));
+		
+		// We canonicalize each triangle by rotating it to start at its smallest vertex, which preserves the winding.
+		int floatsPerTriangle = 3 * FLOATS_PER_VERTEX;
+		List<String> triangles = new ArrayList<>();
+		for (int base = 0; base < floats.length; base += floatsPerTriangle)
+		{
+			float[][] vertices = new float[3][];
+			for (int i = 0; i < 3; ++i)
+			{
+				int start = base + (i * FLOATS_PER_VERTEX);
+				vertices[i] = Arrays.copyOfRange(floats, start, start + FLOATS_PER_VERTEX);
+			}
+			int first = 0;
+			for (int i = 1; i < 3; ++i)
+			{
+				if (Arrays.compare(vertices[i], vertices[first]) < 0)
+				{
+					first = i;
+				}
+			}
+			String key = Arrays.toString(vertices[first])
+					+ Arrays.toString(vertices[(first + 1) % 3])
+					+ Arrays.toString(vertices[(first + 2) % 3])
+			;
+			// Block quads are 2 triangles so we also require that each is owned by the same block.
+			if (null != quadOwners)
+			{
+				int quad = base / (OpaqueQuadLayout.VERTICES_PER_QUAD * FLOATS_PER_VERTEX);
+				String owner = (quad < quadOwners.size())
+						? Integer.toString(quadOwners.get(quad))
+						: "none"
+				;
+				key = owner + ":" + key;
+			}
+			triangles.add(key);
+		}
+		Collections.sort(triangles);
+		return triangles;
+	}
+
+	private static SceneMeshHelpers.MeshInputData _randomInputs(int seed)
+	{
+		// Random blocks in every cuboid, with some burning, lit, and some neighbours missing.
+		Random random = new Random(seed);
+		CuboidData[][][] cuboids = new CuboidData[3][3][3];
+		for (int x = 0; x < 3; ++x)
+		{
+			for (int y = 0; y < 3; ++y)
+			{
+				for (int z = 0; z < 3; ++z)
+				{
+					boolean isCentreOrFace = (Math.abs(x - 1) + Math.abs(y - 1) + Math.abs(z - 1)) <= 1;
+					if (isCentreOrFace || random.nextBoolean())
+					{
+						CuboidAddress address = CuboidAddress.fromInt(x - 1, y - 1, z - 1);
+						CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+						_fillRandom(random, cuboid);
+						cuboids[x][y][z] = cuboid;
+					}
+				}
+			}
+		}
+		return _packageInputs(cuboids);
+	}
+
+	private static void _fillRandom(Random random, CuboidData cuboid)
+	{
+		for (int z = 0; z < Encoding.CUBOID_EDGE_SIZE; ++z)
+		{
+			for (int y = 0; y < Encoding.CUBOID_EDGE_SIZE; ++y)
+			{
+				for (int x = 0; x < Encoding.CUBOID_EDGE_SIZE; ++x)
+				{
+					BlockAddress address = BlockAddress.fromInt(x, y, z);
+					int roll = random.nextInt(100);
+					short value;
+					if (roll < 60)
+					{
+						value = AIR_VALUE;
+					}
+					else if (roll < 80)
+					{
+						value = STONE_VALUE;
+					}
+					else if (roll < 88)
+					{
+						value = DIRT_VALUE;
+					}
+					else if (roll < 93)
+					{
+						value = LOG_VALUE;
+					}
+					else if (roll < 96)
+					{
+						value = WATER_SOURCE_VALUE;
+					}
+					else if (roll < 98)
+					{
+						value = WATER_WEAK_VALUE;
+					}
+					else
+					{
+						value = LAVA_SOURCE_VALUE;
+					}
+					if (AIR_VALUE != value)
+					{
+						cuboid.setData15(AspectRegistry.BLOCK, address, value);
+					}
+					if ((LOG_VALUE == value) && (0 == random.nextInt(4)))
+					{
+						cuboid.setData7(AspectRegistry.FLAGS, address, FlagsAspect.FLAG_BURNING);
+					}
+					if (0 == random.nextInt(8))
+					{
+						cuboid.setData7(AspectRegistry.LIGHT, address, (byte)random.nextInt(16));
+					}
+				}
+			}
+		}
+	}
+
+	private static SceneMeshHelpers.MeshInputData _terrainInputs()
+	{
+		// Rolling hills of dirt over stone, with caves, a lake, and a lava pool, meshed in the cuboid at the surface.
+		CuboidData[][][] cuboids = new CuboidData[3][3][3];
+		for (int x = 0; x < 3; ++x)
+		{
+			for (int y = 0; y < 3; ++y)
+			{
+				for (int z = 0; z < 3; ++z)
+				{
+					CuboidAddress address = CuboidAddress.fromInt(x - 1, y - 1, z);
+					CuboidData cuboid = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+					_fillTerrain(cuboid);
+					cuboids[x][y][z] = cuboid;
+				}
+			}
+		}
+		return _packageInputs(cuboids);
+	}
+
+	private static void _fillTerrain(CuboidData cuboid)
+	{
+		int seaLevel = 44;
+		AbsoluteLocation base = cuboid.getCuboidAddress().getBase();
+		for (int y = 0; y < Encoding.CUBOID_EDGE_SIZE; ++y)
+		{
+			for (int x = 0; x < Encoding.CUBOID_EDGE_SIZE; ++x)
+			{
+				int globalX = base.x() + x;
+				int globalY = base.y() + y;
+				int height = 46 + (int)(6.0 * Math.sin(globalX / 9.0)) + (int)(5.0 * Math.cos(globalY / 7.0));
+				for (int z = 0; z < Encoding.CUBOID_EDGE_SIZE; ++z)
+				{
+					int globalZ = base.z() + z;
+					double cave = Math.sin(globalX / 5.0) * Math.cos(globalY / 6.0) * Math.sin(globalZ / 4.0);
+					short value;
+					if ((globalZ < height) && (cave > 0.5))
+					{
+						value = (globalZ < 8) ? LAVA_SOURCE_VALUE : AIR_VALUE;
+					}
+					else if (globalZ < (height - 3))
+					{
+						value = STONE_VALUE;
+					}
+					else if (globalZ < height)
+					{
+						value = DIRT_VALUE;
+					}
+					else if (globalZ < seaLevel)
+					{
+						value = WATER_SOURCE_VALUE;
+					}
+					else if ((globalZ == height) && (0 == ((globalX * 31 + globalY * 17) % 23)))
+					{
+						value = LOG_VALUE;
+					}
+					else
+					{
+						value = AIR_VALUE;
+					}
+					if (AIR_VALUE != value)
+					{
+						cuboid.setData15(AspectRegistry.BLOCK, BlockAddress.fromInt(x, y, z), value);
+					}
+				}
+			}
+		}
+	}
+
+	private static SceneMeshHelpers.MeshInputData _packageInputs(CuboidData[][][] cuboids)
+	{
+		// We package these the same way as CuboidMeshManager:  The centre cuboid is [1][1][1].
+		ColumnHeightMap[][] columnHeightXY = new ColumnHeightMap[3][3];
+		for (int x = 0; x < 3; ++x)
+		{
+			for (int y = 0; y < 3; ++y)
+			{
+				Map<CuboidAddress, CuboidHeightMap> column = new HashMap<>();
+				for (int z = 0; z < 3; ++z)
+				{
+					CuboidData cuboid = cuboids[x][y][z];
+					if (null != cuboid)
+					{
+						column.put(cuboid.getCuboidAddress(), HeightMapHelpers.buildHeightMap(cuboid));
+					}
+				}
+				columnHeightXY[x][y] = !column.isEmpty() ? HeightMapHelpers.buildSingleColumn(column) : null;
+			}
+		}
+		CuboidData up = cuboids[1][1][2];
+		CuboidData down = cuboids[1][1][0];
+		CuboidData north = cuboids[1][2][1];
+		CuboidData south = cuboids[1][0][1];
+		CuboidData east = cuboids[2][1][1];
+		CuboidData west = cuboids[0][1][1];
+		ColumnHeightMap centreHeight = columnHeightXY[1][1];
+		return new SceneMeshHelpers.MeshInputData(cuboids[1][1][1]
+				, centreHeight
+				, up
+				, (null != up) ? centreHeight : null
+				, down
+				, (null != down) ? centreHeight : null
+				, north
+				, (null != north) ? columnHeightXY[1][2] : null
+				, south
+				, (null != south) ? columnHeightXY[1][0] : null
+				, east
+				, (null != east) ? columnHeightXY[2][1] : null
+				, west
+				, (null != west) ? columnHeightXY[0][1] : null
+				
+				, cuboids
+				, columnHeightXY
+		);
+	}
+
+
+	/**
+	 * A mesher which rewrites the output of another:  It rotates every triangle to start from its next vertex and
+	 * reverses the order of triangles in layers without quad owners.  If dropTriangle is set, it also loses the last
+	 * triangle of the opaque layer.
+	 */
+	private static class _RewritingMesher implements ICuboidMesher
+	{
+		private final ICuboidMesher _inner;
+		private final boolean _dropTriangle;
+		private final FloatBuffer _scratch;
+		public _RewritingMesher(ICuboidMesher inner, boolean dropTriangle)
+		{
+			_inner = inner;
+			_dropTriangle = dropTriangle;
+			_scratch = FloatBuffer.allocate(BUFFER_FLOATS);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeOpaqueLayer(BufferBuilder builder, AuxVariantMap variantMap, FireFaceBuilder fireTracker, SceneMeshHelpers.MeshInputData inputs, IntConsumer quadOwners)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeOpaqueLayer(scratch, variantMap, fireTracker, inputs, quadOwners), (null == quadOwners), _dropTriangle);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeOpaqueBlocks(BufferBuilder builder, AuxVariantMap variantMap, SceneMeshHelpers.MeshInputData inputs, Predicate<BlockAddress> blockFilter, IntConsumer quadOwners)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeOpaqueBlocks(scratch, variantMap, inputs, blockFilter, quadOwners), false, false);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeModelLayer(BufferBuilder builder, AuxVariantMap variantMap, SceneMeshHelpers.MeshInputData inputs)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeModelLayer(scratch, variantMap, inputs), true, false);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeTransparentLayer(BufferBuilder builder, AuxVariantMap variantMap, FireFaceBuilder fireTracker, SceneMeshHelpers.MeshInputData inputs)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeTransparentLayer(scratch, variantMap, fireTracker, inputs), true, false);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeWaterLayer(BufferBuilder builder, SceneMeshHelpers.MeshInputData inputs)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeWaterLayer(scratch, inputs), true, false);
+		}
+		@Override
+		public BufferBuilder.Buffer bakeBurningLayer(BufferBuilder builder, SparseByteCube fireFaces, IReadOnlyCuboidData cuboid)
+		{
+			return _rewrite(builder, (BufferBuilder scratch) -> _inner.bakeBurningLayer(scratch, fireFaces, cuboid), true, false);
+		}
+		private BufferBuilder.Buffer _rewrite(BufferBuilder builder, Function<BufferBuilder, BufferBuilder.Buffer> bake, boolean reverse, boolean dropLast)
+		{
+			BufferBuilder scratchBuilder = new BufferBuilder(_scratch, ATTRIBUTES);
+			bake.apply(scratchBuilder);
+			float[] floats = new float[_scratch.position()];
+			_scratch.flip();
+			_scratch.get(floats);
+			
+			int triangleCount = floats.length / (3 * FLOATS_PER_VERTEX);
+			if (dropLast && (triangleCount > 0))
+			{
+				triangleCount -= 1;
+			}
+			for (int i = 0; i < triangleCount; ++i)
+			{
+				int triangle = reverse ? (triangleCount - 1 - i) : i;
+				for (int v = 0; v < 3; ++v)
+				{
+					int vertex = (3 * triangle) + ((v + 1) % 3);
+					int start = vertex * FLOATS_PER_VERTEX;
+					for (int a = 0; a < ATTRIBUTES.length; ++a)
+					{
+						int size = ATTRIBUTES[a].floats();
+						builder.append(a, Arrays.copyOfRange(floats, start, start + size));
+						start += size;
+					}
+				}
+			}
+			return builder.finishOne();
+		}
+	}
+}
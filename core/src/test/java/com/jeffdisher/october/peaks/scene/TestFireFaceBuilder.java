@@ -55,4 +55,20 @@ public class TestFireFaceBuilder
 		Assert.assertFalse(FireFaceBuilder.isBitSet(value, FireFaceBuilder.FACE_WEST));
 		Assert.assertFalse(FireFaceBuilder.isBitSet(value, FireFaceBuilder.FACE_UP));
 	}
+
+	@Test
+	public void mergeBuilders() throws Throwable
+	{
+		FireFaceBuilder first = new FireFaceBuilder();
+		first.setBit((byte)1, (byte)2, (byte)3, FireFaceBuilder.FACE_NORTH);
+		FireFaceBuilder second = new FireFaceBuilder();
+		second.setBit((byte)1, (byte)2, (byte)3, FireFaceBuilder.FACE_NORTH);
+		second.setBit((byte)1, (byte)2, (byte)3, FireFaceBuilder.FACE_UP);
+		second.setBit((byte)2, (byte)3, (byte)4, FireFaceBuilder.FACE_EAST);
+		
+		first.mergeFrom(second.extractNonEmptyCollection());
+		SparseByteCube cube = first.extractNonEmptyCollection();
+		Assert.assertEquals(FireFaceBuilder.FACE_NORTH | FireFaceBuilder.FACE_UP, cube.get(1, 2, 3));
+		Assert.assertEquals(FireFaceBuilder.FACE_EAST, cube.get(2, 3, 4));
+	}
 }
@@ -0,0 +1,71 @@
+package com.jeffdisher.october.peaks.scene;
+
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.jeffdisher.october.aspects.Environment;
+import com.jeffdisher.october.data.CuboidData;
+import com.jeffdisher.october.types.BlockAddress;
+import com.jeffdisher.october.types.CuboidAddress;
+import com.jeffdisher.october.utils.CuboidGenerator;
+
+
+public class TestOpaqueQuadLayout
+{
+	private static Environment ENV;
+	@BeforeClass
+	public static void setup() throws Throwable
+	{
+		ENV = Environment.createSharedInstance();
+	}
+	@AfterClass
+	public static void tearDown()
+	{
+		Environment.clearSharedInstance();
+	}
+
+	@Test
+	public void blockIndex() throws Throwable
+	{
+		Assert.assertEquals(0, OpaqueQuadLayout.blockIndex(BlockAddress.fromInt(0, 0, 0)));
+		Assert.assertEquals(1 + (2 * 32) + (3 * 32 * 32), OpaqueQuadLayout.blockIndex(BlockAddress.fromInt(1, 2, 3)));
+		Assert.assertEquals((32 * 32 * 32) - 1, OpaqueQuadLayout.blockIndex(BlockAddress.fromInt(31, 31, 31)));
+	}
+
+	@Test
+	public void reuseAndSlack() throws Throwable
+	{
+		CuboidAddress address = new CuboidAddress((short)0, (short)0, (short)0);
+		CuboidData original = CuboidGenerator.createFilledCuboid(address, ENV.special.AIR);
+		CuboidData second = CuboidData.mutableClone(original);
+		CuboidData third = CuboidData.mutableClone(original);
+		
+		// 4 block quads, 1 unowned quad (lava, for example), and 2 quads of slack.
+		OpaqueQuadLayout layout = new OpaqueQuadLayout(new int[] { 5, 5, 7, 9 }, 5, 2, original);
+		Assert.assertEquals(5, layout.getUsedQuads());
+		Assert.assertTrue(original == layout.getBakedFrom());
+		
+		// Block 5 now only has one quad so it reuses its first slot and clears its second.
+		OpaqueQuadLayout.Patch patch = layout.applyPatch(Set.of(5), new int[] { 5 }, second);
+		Assert.assertArrayEquals(new int[] { 0 }, patch.targetSlots());
+		Assert.assertArrayEquals(new int[] { 1 }, patch.clearedSlots());
+		Assert.assertEquals(5, layout.getUsedQuads());
+		Assert.assertTrue(second == layout.getBakedFrom());
+		
+		// Block 7 now has 4 quads so it uses its own slot, the freed slot, and all the slack.
+		patch = layout.applyPatch(Set.of(7), new int[] { 7, 7, 7, 7 }, third);
+		Assert.assertArrayEquals(new int[] { 1, 2, 5, 6 }, patch.targetSlots());
+		Assert.assertArrayEquals(new int[0], patch.clearedSlots());
+		Assert.assertEquals(7, layout.getUsedQuads());
+		
+		// Block 9 can't grow since there is no slack left so the layout is unchanged.
+		patch = layout.applyPatch(Set.of(9), new int[] { 9, 9 }, original);
+		Assert.assertNull(patch);
+		Assert.assertEquals(7, layout.getUsedQuads());
+		Assert.assertTrue(third == layout.getBakedFrom());
+	}
+}
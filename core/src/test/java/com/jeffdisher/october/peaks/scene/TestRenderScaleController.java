@@ -0,0 +1,92 @@
+package com.jeffdisher.october.peaks.scene;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TestRenderScaleController
+{
+	private static final long TARGET_NANOS = 16_000_000L;
+	private static final long SLOW_NANOS = 25_000_000L;
+
+	@Test
+	public void lowerAndRaise() throws Throwable
+	{
+		RenderScaleController controller = new RenderScaleController(TARGET_NANOS);
+		Assert.assertEquals(1.0f, controller.getScale(), 0.001f);
+		
+		// Nothing changes until a window is complete.
+		Assert.assertEquals(1.0f, _runFrames(controller, RenderScaleController.WINDOW_FRAMES - 1, SLOW_NANOS), 0.001f);
+		Assert.assertEquals(0.9f, controller.recordFrame(SLOW_NANOS), 0.001f);
+		
+		// Slow windows keep lowering until the minimum.
+		for (int i = 0; i < 10; ++i)
+		{
+			_runFrames(controller, RenderScaleController.WINDOW_FRAMES, SLOW_NANOS);
+		}
+		Assert.assertEquals(0.5f, controller.getScale(), 0.001f);
+		
+		// Fast windows only raise after the delay.
+		Assert.assertEquals(0.5f, _runFrames(controller, RenderScaleController.WINDOW_FRAMES, TARGET_NANOS), 0.001f);
+		Assert.assertEquals(0.6f, _runFrames(controller, RenderScaleController.WINDOW_FRAMES, TARGET_NANOS), 0.001f);
+	}
+
+	@Test
+	public void failedRaiseBacksOff() throws Throwable
+	{
+		RenderScaleController controller = new RenderScaleController(TARGET_NANOS);
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES, SLOW_NANOS);
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+		_runFrames(controller, 2 * RenderScaleController.WINDOW_FRAMES, TARGET_NANOS);
+		Assert.assertEquals(1.0f, controller.getScale(), 0.001f);
+		
+		// The raise didn't fit so this drops right away and now waits twice as long to raise again.
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES, SLOW_NANOS);
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+		_runFrames(controller, 3 * RenderScaleController.WINDOW_FRAMES, TARGET_NANOS);
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES, TARGET_NANOS);
+		Assert.assertEquals(1.0f, controller.getScale(), 0.001f);
+	}
+
+	@Test
+	public void closeToTarget() throws Throwable
+	{
+		// Frames a bit over the target, but not enough to lower the scale, also don't count toward raising it.
+		RenderScaleController controller = new RenderScaleController(TARGET_NANOS);
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES, SLOW_NANOS);
+		for (int i = 0; i < 10; ++i)
+		{
+			_runFrames(controller, RenderScaleController.WINDOW_FRAMES, 18_000_000L);
+		}
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+	}
+
+	@Test
+	public void resetForBackground() throws Throwable
+	{
+		// Resetting keeps the scale but drops the frames measured so far.
+		RenderScaleController controller = new RenderScaleController(TARGET_NANOS);
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES, SLOW_NANOS);
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+		_runFrames(controller, RenderScaleController.WINDOW_FRAMES - 1, SLOW_NANOS);
+		controller.reset();
+		Assert.assertEquals(0.9f, controller.getScale(), 0.001f);
+		
+		// Without the reset, this would complete a slow window.
+		Assert.assertEquals(0.9f, controller.recordFrame(TARGET_NANOS), 0.001f);
+		Assert.assertEquals(0.9f, _runFrames(controller, RenderScaleController.WINDOW_FRAMES - 1, TARGET_NANOS), 0.001f);
+		Assert.assertEquals(1.0f, _runFrames(controller, RenderScaleController.WINDOW_FRAMES, TARGET_NANOS), 0.001f);
+	}
+
+
+	private static float _runFrames(RenderScaleController controller, int frames, long frameNanos)
+	{
+		float scale = controller.getScale();
+		for (int i = 0; i < frames; ++i)
+		{
+			scale = controller.recordFrame(frameNanos);
+		}
+		return scale;
+	}
+}
@@ -244,7 +244,6 @@ public class TestSceneMeshHelpers
 		
 		FloatBuffer buffer = FloatBuffer.allocate(4096);
 		BufferBuilder builder = new BufferBuilder(buffer, ATTRIBUTES);
-		AuxVariantMap variantMap = new AuxVariantMap(ENV, cuboid);
 		AuxilliaryTextureAtlas auxAtlas = _buildAuxAtlas();
 		ColumnHeightMap heightMap = ColumnHeightMap.build().freeze();
 		SceneMeshHelpers.MeshInputData inputData = new SceneMeshHelpers.MeshInputData(cuboid, heightMap
@@ -289,7 +288,7 @@ public class TestSceneMeshHelpers
 					},
 				}
 		);
-		SceneMeshHelpers.populateBufferWithComplexModels(ENV, builder, modelsAndAtlas, variantMap, auxAtlas, inputData);
+		SceneMeshHelpers.populateBufferWithComplexModels(ENV, builder, modelsAndAtlas, auxAtlas, inputData);
 		BufferBuilder.Buffer finished = builder.finishOne();
 		Set<_Vertex> vertices = _collectVerticesInBuffer(finished);
 		Assert.assertEquals(3, vertices.size());
@@ -608,6 +607,108 @@ public class TestSceneMeshHelpers
 		}, vertexData, 0.01f);
 	}
 
+	@Test
+	public void damageDecals() throws Throwable
+	{
+		// Show that damaged blocks produce a decal cube each, with the AUX texture selected by damage.
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)1, (short)0, (short)0), ENV.special.AIR);
+		Block stone = ENV.blocks.fromItem(STONE);
+		int toughness = ENV.damage.getToughness(stone);
+		BlockAddress lowBlock = new BlockAddress((byte)5, (byte)5, (byte)5);
+		BlockAddress highBlock = new BlockAddress((byte)6, (byte)5, (byte)5);
+		cuboid.setData15(AspectRegistry.BLOCK, lowBlock, STONE.number());
+		cuboid.setData15(AspectRegistry.BLOCK, highBlock, STONE.number());
+		cuboid.setDataSpecial(AspectRegistry.DAMAGE, lowBlock, 1);
+		cuboid.setDataSpecial(AspectRegistry.DAMAGE, highBlock, toughness - 1);
+		Assert.assertEquals(AuxilliaryTextureAtlas.Variant.BREAK_LOW, AuxVariantMap.getDamageVariant(ENV, stone, 1));
+		Assert.assertEquals(AuxilliaryTextureAtlas.Variant.BREAK_HIGH, AuxVariantMap.getDamageVariant(ENV, stone, toughness - 1));
+		
+		FloatBuffer buffer = FloatBuffer.allocate(4096);
+		BufferBuilder builder = new BufferBuilder(buffer, ATTRIBUTES);
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(2, new Block[] {ENV.special.AIR, stone}, new boolean[] {true, false});
+		AuxilliaryTextureAtlas auxAtlas = _buildAuxAtlas();
+		SceneMeshHelpers.populateDamageDecalsForCuboid(ENV, builderWrapper, blockAtlas, auxAtlas, Map.of(), cuboid, _buildHeightMap(cuboid));
+		BufferBuilder.Buffer decals = builder.finishOne();
+		
+		// We expect a full cube for each block, in world coordinates.
+		Assert.assertEquals(12, _countQuadsInBuffer(decals));
+		Set<_Vertex> vertices = _collectVerticesInBuffer(decals);
+		Assert.assertEquals(12, vertices.size());
+		Assert.assertTrue(vertices.contains(new _Vertex(37.0f, 5.0f, 5.0f)));
+		Assert.assertTrue(vertices.contains(new _Vertex(39.0f, 6.0f, 6.0f)));
+		
+		// An undamaged cuboid produces nothing.
+		CuboidData clean = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)0, (short)0, (short)0), ENV.special.AIR);
+		SceneMeshHelpers.populateDamageDecalsForCuboid(ENV, builderWrapper, blockAtlas, auxAtlas, Map.of(), clean, _buildHeightMap(clean));
+		Assert.assertNull(builder.finishOne());
+	}
+
+	@Test
+	public void damageDecalsOverflow() throws Throwable
+	{
+		// Show that decals which don't fit in the buffer are skipped, instead of overflowing it.
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)0, (short)0, (short)0), ENV.special.AIR);
+		Block stone = ENV.blocks.fromItem(STONE);
+		for (byte x = 0; x < 3; ++x)
+		{
+			BlockAddress block = new BlockAddress(x, (byte)0, (byte)0);
+			cuboid.setData15(AspectRegistry.BLOCK, block, STONE.number());
+			cuboid.setDataSpecial(AspectRegistry.DAMAGE, block, 1);
+		}
+		
+		// 6 quads of 6 vertices with 12 floats per vertex:  Enough for 1 full decal but not 2.
+		FloatBuffer buffer = FloatBuffer.allocate(6 * 6 * 12 + 1);
+		BufferBuilder builder = new BufferBuilder(buffer, ATTRIBUTES);
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(2, new Block[] {ENV.special.AIR, stone}, new boolean[] {true, false});
+		AuxilliaryTextureAtlas auxAtlas = _buildAuxAtlas();
+		SceneMeshHelpers.populateDamageDecalsForCuboid(ENV, builderWrapper, blockAtlas, auxAtlas, Map.of(), cuboid, _buildHeightMap(cuboid));
+		BufferBuilder.Buffer decals = builder.finishOne();
+		Assert.assertEquals(6, _countQuadsInBuffer(decals));
+	}
+
+	@Test
+	public void damageDecalsLighting() throws Throwable
+	{
+		// Show that decals take the light of the faces they cover:  One block is lit from above while the other is in a dark cave.
+		CuboidData cuboid = CuboidGenerator.createFilledCuboid(new CuboidAddress((short)0, (short)0, (short)0), ENV.special.AIR);
+		Block stone = ENV.blocks.fromItem(STONE);
+		BlockAddress litBlock = new BlockAddress((byte)5, (byte)5, (byte)5);
+		BlockAddress caveBlock = new BlockAddress((byte)20, (byte)20, (byte)5);
+		cuboid.setData15(AspectRegistry.BLOCK, litBlock, STONE.number());
+		cuboid.setData15(AspectRegistry.BLOCK, caveBlock, STONE.number());
+		cuboid.setDataSpecial(AspectRegistry.DAMAGE, litBlock, 1);
+		cuboid.setDataSpecial(AspectRegistry.DAMAGE, caveBlock, 1);
+		cuboid.setData7(AspectRegistry.LIGHT, litBlock.getRelativeInt(0, 0, 1), (byte)15);
+		for (int x = -1; x <= 1; ++x)
+		{
+			for (int y = -1; y <= 1; ++y)
+			{
+				cuboid.setData15(AspectRegistry.BLOCK, caveBlock.getRelativeInt(x, y, 5), STONE.number());
+			}
+		}
+		ColumnHeightMap heightMap = _buildHeightMap(cuboid);
+		
+		FloatBuffer buffer = FloatBuffer.allocate(4096);
+		BufferBuilder builder = new BufferBuilder(buffer, ATTRIBUTES);
+		MeshHelperBufferBuilder builderWrapper = new MeshHelperBufferBuilder(builder, MeshHelperBufferBuilder.USE_ALL_ATTRIBUTES);
+		BasicBlockAtlas blockAtlas = _buildBlockAtlas(2, new Block[] {ENV.special.AIR, stone}, new boolean[] {true, false});
+		AuxilliaryTextureAtlas auxAtlas = _buildAuxAtlas();
+		SceneMeshHelpers.populateDamageDecalsForCuboid(ENV, builderWrapper, blockAtlas, auxAtlas, Map.of(), cuboid, heightMap);
+		float[] blockLights = _collectBlockLightVerticesInBuffer(builder.finishOne());
+		SceneMeshHelpers.populateDamageDecalsForCuboid(ENV, builderWrapper, blockAtlas, auxAtlas, Map.of(), cuboid, heightMap);
+		float[] skyLights = _collectSkyLightVerticesInBuffer(builder.finishOne());
+		
+		// Each decal is 6 quads of 6 vertices.
+		int verticesPerDecal = 6 * 6;
+		Assert.assertEquals(2 * verticesPerDecal, blockLights.length);
+		Assert.assertEquals(verticesPerDecal, _countMatching(blockLights, 1.1f));
+		Assert.assertEquals(verticesPerDecal, _countMatching(blockLights, SceneMeshHelpers.MINIMUM_LIGHT));
+		Assert.assertEquals(verticesPerDecal, _countMatching(skyLights, SceneMeshHelpers.SKY_LIGHT_DIRECT));
+		Assert.assertEquals(verticesPerDecal, _countMatching(skyLights, SceneMeshHelpers.SKY_LIGHT_SHADOW));
+	}
+
 
 	private static BufferBuilder.Buffer _buildWaterBuffer(CuboidData cuboid, CuboidData optionalUp, CuboidData optionalNorth)
 	{
@@ -758,6 +859,24 @@ public class TestSceneMeshHelpers
 		return builder.finishOne();
 	}
 
+	private static ColumnHeightMap _buildHeightMap(CuboidData cuboid)
+	{
+		return ColumnHeightMap.build().consume(HeightMapHelpers.buildHeightMap(cuboid), cuboid.getCuboidAddress()).freeze();
+	}
+
+	private static int _countMatching(float[] values, float match)
+	{
+		int count = 0;
+		for (float value : values)
+		{
+			if (match == value)
+			{
+				count += 1;
+			}
+		}
+		return count;
+	}
+
 	private static int _countQuadsInBuffer(BufferBuilder.Buffer waterBuffer)
 	{
 		int verticesPerQuad = 6;
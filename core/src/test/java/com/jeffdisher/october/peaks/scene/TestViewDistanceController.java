@@ -0,0 +1,106 @@
+package com.jeffdisher.october.peaks.scene;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TestViewDistanceController
+{
+	private static final long TARGET_NANOS = 16_000_000L;
+	private static final long SLOW_NANOS = 25_000_000L;
+	private static final int CEILING = 4;
+
+	@Test
+	public void lowerAndRaise() throws Throwable
+	{
+		ViewDistanceController controller = new ViewDistanceController(TARGET_NANOS);
+		
+		// A single slow window isn't enough to lower the distance, but the second is.
+		int distance = _runWindows(controller, 1, SLOW_NANOS, 0, CEILING);
+		Assert.assertEquals(CEILING, distance);
+		distance = _runWindows(controller, 1, SLOW_NANOS, 0, distance);
+		Assert.assertEquals(CEILING - 1, distance);
+		
+		// Nothing changes while settling, even if it is still slow.
+		distance = _runWindows(controller, ViewDistanceController.SETTLE_WINDOWS, SLOW_NANOS, 0, distance);
+		Assert.assertEquals(CEILING - 1, distance);
+		
+		// Raising takes much longer than lowering.
+		distance = _runWindows(controller, ViewDistanceController.HEADROOM_WINDOWS - 1, TARGET_NANOS, 0, distance);
+		Assert.assertEquals(CEILING - 1, distance);
+		distance = _runWindows(controller, 1, TARGET_NANOS, 0, distance);
+		Assert.assertEquals(CEILING, distance);
+		
+		// We never go over the ceiling.
+		distance = _runWindows(controller, 20, TARGET_NANOS, 0, distance);
+		Assert.assertEquals(CEILING, distance);
+	}
+
+	@Test
+	public void bakeBacklog() throws Throwable
+	{
+		// A backlog which never drains lowers the distance, even if the frames are fast.
+		ViewDistanceController controller = new ViewDistanceController(TARGET_NANOS);
+		int distance = _runWindows(controller, ViewDistanceController.PRESSURE_WINDOWS, TARGET_NANOS, ViewDistanceController.HIGH_PENDING_BAKES + 1, CEILING);
+		Assert.assertEquals(CEILING - 1, distance);
+		
+		// A moderate backlog is neither pressure nor headroom.
+		distance = _runWindows(controller, 20, TARGET_NANOS, ViewDistanceController.LOW_PENDING_BAKES + 1, distance);
+		Assert.assertEquals(CEILING - 1, distance);
+		
+		// A burst of bakes within a window doesn't count if it drains.
+		distance = CEILING - 1;
+		for (int i = 0; i < 20 * ViewDistanceController.WINDOW_FRAMES; ++i)
+		{
+			int pending = (0 == (i % ViewDistanceController.WINDOW_FRAMES))
+				? 0
+				: 1000
+			;
+			distance = controller.recordFrame(TARGET_NANOS, pending, distance, CEILING);
+		}
+		Assert.assertEquals(CEILING, distance);
+	}
+
+	@Test
+	public void ceilingLowered() throws Throwable
+	{
+		// If the ceiling drops below the current distance, we follow it right away.
+		ViewDistanceController controller = new ViewDistanceController(TARGET_NANOS);
+		Assert.assertEquals(2, controller.recordFrame(TARGET_NANOS, 0, CEILING, 2));
+		Assert.assertEquals(1, controller.recordFrame(TARGET_NANOS, 0, 2, 1));
+		
+		// We also never go below the minimum.
+		int distance = _runWindows(controller, 40, SLOW_NANOS, 0, 1);
+		Assert.assertEquals(ViewDistanceController.MIN_VIEW_DISTANCE, distance);
+	}
+
+	@Test
+	public void resetForBackground() throws Throwable
+	{
+		// A slow window followed by a reset (as when the window goes to the background) doesn't count toward lowering.
+		ViewDistanceController controller = new ViewDistanceController(TARGET_NANOS);
+		int distance = _runWindows(controller, 1, SLOW_NANOS, 0, CEILING);
+		for (int i = 0; i < ViewDistanceController.WINDOW_FRAMES - 1; ++i)
+		{
+			distance = controller.recordFrame(SLOW_NANOS, 0, distance, CEILING);
+		}
+		controller.reset();
+		distance = _runWindows(controller, 1, SLOW_NANOS, 0, distance);
+		Assert.assertEquals(CEILING, distance);
+		
+		// Another slow window is now needed.
+		distance = _runWindows(controller, 1, SLOW_NANOS, 0, distance);
+		Assert.assertEquals(CEILING - 1, distance);
+	}
+
+
+	private static int _runWindows(ViewDistanceController controller, int windows, long frameNanos, int pendingBakes, int startDistance)
+	{
+		int distance = startDistance;
+		for (int i = 0; i < windows * ViewDistanceController.WINDOW_FRAMES; ++i)
+		{
+			distance = controller.recordFrame(frameNanos, pendingBakes, distance, CEILING);
+		}
+		return distance;
+	}
+}
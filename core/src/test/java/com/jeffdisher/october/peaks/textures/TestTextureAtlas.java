@@ -34,6 +34,42 @@ public class TestTextureAtlas
 		Assert.assertArrayEquals(new float[] { 0.5f, 0.0f }, itemAtlas.baseOfTexture(STONE_ITEM.number()), 0.01f);
 	}
 
+	@Test
+	public void sharedBlocksAndModels() throws Throwable
+	{
+		// 20 block tiles need 2 rows of 16, which fit in the first row of model tiles, leaving room for 3 models above.
+		RawTextureAtlas[] views = TextureHelpers.testSharedRawAtlases(20, 3);
+		RawTextureAtlas blocks = views[0];
+		RawTextureAtlas models = views[1];
+		Assert.assertEquals(blocks.texture, models.texture);
+		Assert.assertEquals(1.0f / 16.0f, blocks.coordinateSize, 0.001f);
+		Assert.assertEquals(0.25f, models.coordinateSize, 0.001f);
+		Assert.assertArrayEquals(new float[] { 1.0f / 16.0f, 1.0f / 16.0f }, blocks.baseOfTexture(17), 0.001f);
+		Assert.assertArrayEquals(new float[] { 0.0f, 0.25f }, models.baseOfTexture(0), 0.001f);
+		Assert.assertArrayEquals(new float[] { 0.5f, 0.25f }, models.baseOfTexture(2), 0.001f);
+		
+		// With no models, the blocks alone decide the size.
+		views = TextureHelpers.testSharedRawAtlases(1, 0);
+		Assert.assertEquals(0.25f, views[0].coordinateSize, 0.001f);
+		Assert.assertEquals(1.0f, views[1].coordinateSize, 0.001f);
+	}
+
+	@Test
+	public void largeAtlas() throws Throwable
+	{
+		// 1000 textures is more than a 16x16 atlas can hold so this becomes 32x32.
+		RawTextureAtlas raw = TextureHelpers.testRawAtlas(1000);
+		Assert.assertEquals(1.0f / 32.0f, raw.coordinateSize, 0.0001f);
+		Assert.assertArrayEquals(new float[] { 7.0f / 32.0f, 31.0f / 32.0f }, raw.baseOfTexture(999), 0.0001f);
+		
+		// The shared atlas also grows past 16 model tiles per row:  5000 block tiles fill 40 rows of 128, which is 10
+		// rows of model tiles, leaving the models to start in the row above.
+		RawTextureAtlas[] views = TextureHelpers.testSharedRawAtlases(5000, 10);
+		Assert.assertEquals(1.0f / 128.0f, views[0].coordinateSize, 0.0001f);
+		Assert.assertEquals(1.0f / 32.0f, views[1].coordinateSize, 0.0001f);
+		Assert.assertArrayEquals(new float[] { 0.0f, 10.0f / 32.0f }, views[1].baseOfTexture(0), 0.0001f);
+	}
+
 
 	private static ItemTextureAtlas _buildItemAtlas(int textureCount)
 	{
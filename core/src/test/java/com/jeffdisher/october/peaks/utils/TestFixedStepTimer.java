@@ -0,0 +1,70 @@
+package com.jeffdisher.october.peaks.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TestFixedStepTimer
+{
+	private static final long MILLIS = 1_000_000L;
+
+	@Test
+	public void fastPolling() throws Throwable
+	{
+		// At 100 steps per second, polling every millisecond should only find a step every 10 polls.
+		FixedStepTimer timer = new FixedStepTimer(100);
+		int steps = 0;
+		for (int i = 0; i < 1000; ++i)
+		{
+			if (timer.consumeStep(i * MILLIS))
+			{
+				steps += 1;
+			}
+		}
+		Assert.assertEquals(100, steps);
+	}
+
+	@Test
+	public void slowPolling() throws Throwable
+	{
+		// Polling more slowly than the rate finds a step every time, but never more than one.
+		FixedStepTimer timer = new FixedStepTimer(100);
+		int steps = 0;
+		for (int i = 0; i < 100; ++i)
+		{
+			if (timer.consumeStep(i * 35L * MILLIS))
+			{
+				steps += 1;
+			}
+		}
+		Assert.assertEquals(100, steps);
+		
+		// After a long stall, we go back to the normal rate rather than catching up.
+		long base = 100L * 35L * MILLIS;
+		Assert.assertTrue(timer.consumeStep(base + 500L * MILLIS));
+		Assert.assertFalse(timer.consumeStep(base + 505L * MILLIS));
+		Assert.assertTrue(timer.consumeStep(base + 510L * MILLIS));
+	}
+
+	@Test
+	public void noDrift() throws Throwable
+	{
+		// Polls which land a little late on each step don't push the later steps back.
+		FixedStepTimer timer = new FixedStepTimer(100);
+		Assert.assertTrue(timer.consumeStep(0L));
+		Assert.assertTrue(timer.consumeStep(13L * MILLIS));
+		Assert.assertTrue(timer.consumeStep(20L * MILLIS));
+		Assert.assertFalse(timer.consumeStep(29L * MILLIS));
+		Assert.assertTrue(timer.consumeStep(30L * MILLIS));
+	}
+
+	@Test
+	public void negativeTime() throws Throwable
+	{
+		// nanoTime() is allowed to be negative.
+		FixedStepTimer timer = new FixedStepTimer(100);
+		Assert.assertTrue(timer.consumeStep(-25L * MILLIS));
+		Assert.assertFalse(timer.consumeStep(-20L * MILLIS));
+		Assert.assertTrue(timer.consumeStep(-15L * MILLIS));
+	}
+}
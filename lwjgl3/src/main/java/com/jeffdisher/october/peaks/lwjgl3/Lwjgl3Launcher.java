@@ -54,6 +54,7 @@ public class Lwjgl3Launcher
 			@Override
 			public void iconified(boolean isIconified)
 			{
+				windowListener.iconified(isIconified);
 			}
 			@Override
 			public void maximized(boolean isMaximized)